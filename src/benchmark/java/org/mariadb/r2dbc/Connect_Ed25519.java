@@ -0,0 +1,125 @@
+/*
+ * Copyright 2020 MariaDB Ab.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mariadb.r2dbc;
+
+import org.mariadb.r2dbc.api.MariadbConnection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Mono;
+
+/**
+ * Full ed25519 authentication exchange (handshake, authentication switch, signature of the server
+ * scramble, OK), on a new connection closed once authenticated. Connections of a shared factory
+ * reuse the key pair derived from password (cached), while a new factory must derive it again
+ * (cold).
+ *
+ * <p>Needs MariaDB 10.4+ with auth_ed25519 plugin installable: a user identified with ed25519 is
+ * created during setup, and dropped on teardown.
+ */
+public class Connect_Ed25519 extends Common {
+
+  private static final String USER = "benchEd25519";
+  private static final String PASSWORD = "MySup8%rPassw@ord";
+
+  @State(Scope.Benchmark)
+  public static class Ed25519State {
+
+    // conf
+    public final String host = System.getProperty("TEST_HOST", "localhost");
+    public final int port = Integer.parseInt(System.getProperty("TEST_PORT", "3306"));
+    public final String username = System.getProperty("TEST_USERNAME", "root");
+    public final String password = System.getProperty("TEST_PASSWORD", "");
+    public final String database = System.getProperty("TEST_DATABASE", "testj");
+
+    protected MariadbConnectionConfiguration conf;
+    protected MariadbConnectionFactory factory;
+
+    @Setup(Level.Trial)
+    public void doSetup() {
+      execute(
+          "INSTALL SONAME 'auth_ed25519'",
+          "CREATE USER IF NOT EXISTS "
+              + USER
+              + " IDENTIFIED VIA ed25519 USING PASSWORD('"
+              + PASSWORD
+              + "')",
+          "GRANT ALL ON " + database + ".* TO " + USER);
+      conf =
+          MariadbConnectionConfiguration.builder()
+              .host(host)
+              .port(port)
+              .username(USER)
+              .password(PASSWORD)
+              .database(database)
+              .build();
+      factory = new MariadbConnectionFactory(conf);
+    }
+
+    @TearDown(Level.Trial)
+    public void doTearDown() {
+      execute("DROP USER IF EXISTS " + USER);
+    }
+
+    private void execute(String... queries) {
+      MariadbConnection connection =
+          new MariadbConnectionFactory(
+                  MariadbConnectionConfiguration.builder()
+                      .host(host)
+                      .port(port)
+                      .username(username)
+                      .password(password)
+                      .database(database)
+                      .build())
+              .create()
+              .block();
+      try {
+        for (String sql : queries) {
+          connection
+              .createStatement(sql)
+              .execute()
+              .flatMap(res -> res.getRowsUpdated())
+              // plugin may already be installed
+              .onErrorResume(e -> sql.startsWith("INSTALL") ? Mono.empty() : Mono.error(e))
+              .blockLast();
+        }
+      } finally {
+        connection.close().block();
+      }
+    }
+  }
+
+  @Benchmark
+  public void cached(Ed25519State state, Blackhole blackhole) {
+    connect(state.factory, blackhole);
+  }
+
+  @Benchmark
+  public void cold(Ed25519State state, Blackhole blackhole) {
+    connect(new MariadbConnectionFactory(state.conf), blackhole);
+  }
+
+  private static void connect(MariadbConnectionFactory factory, Blackhole blackhole) {
+    MariadbConnection connection = factory.create().block();
+    blackhole.consume(connection);
+    connection.close().block();
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2020 MariaDB Ab.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.mariadb.r2dbc;
+
+import io.netty.buffer.Unpooled;
+import java.util.ArrayList;
+import java.util.List;
+import org.mariadb.r2dbc.message.server.ColumnCountPacket;
+import org.mariadb.r2dbc.message.server.ColumnDefinitionPacket;
+import org.mariadb.r2dbc.message.server.EofPacket;
+import org.mariadb.r2dbc.message.server.OkPacket;
+import org.mariadb.r2dbc.message.server.RowPacket;
+import org.mariadb.r2dbc.message.server.ServerMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Flux;
+
+/**
+ * Splitting of a decoded response into results, without server: windowUntil based pipeline
+ * compared to ResultSplitter, for a point query (one result of one row) and for a procedure call
+ * returning multiple results.
+ */
+public class Result_Split extends Common {
+
+  private static final byte[] ROW = new byte[] {1, '1'};
+  private static final short AUTOCOMMIT = 2;
+  private static final short MORE_RESULTS = 8;
+
+  @State(Scope.Thread)
+  public static class Responses {
+    @Param({"1", "10"})
+    int results;
+
+    Flux<ServerMessage> response() {
+      List<ServerMessage> messages = new ArrayList<>();
+      for (int i = 0; i < results; i++) {
+        messages.add(new ColumnCountPacket(1));
+        messages.add(ColumnDefinitionPacket.fromGeneratedId("id"));
+        messages.add(new EofPacket(AUTOCOMMIT, (short) 0, false, false));
+        messages.add(new RowPacket(Unpooled.wrappedBuffer(ROW), null));
+        // a procedure call ends with an OK packet, after its results
+        boolean last = results == 1;
+        short status = (short) (last ? AUTOCOMMIT : AUTOCOMMIT | MORE_RESULTS);
+        messages.add(new EofPacket(status, (short) 0, true, last));
+      }
+      if (results > 1) messages.add(new OkPacket(0, 0, AUTOCOMMIT, (short) 0, true));
+      return Flux.fromIterable(messages);
+    }
+  }
+
+  @Benchmark
+  public void windowUntil(Responses responses, Blackhole blackhole) {
+    consume(
+        responses.response().windowUntil(ServerMessage::resultSetEnd).map(Result_Split::result),
+        blackhole);
+  }
+
+  @Benchmark
+  public void resultSplitter(Responses responses, Blackhole blackhole) {
+    consume(
+        responses.response().transform(ResultSplitter.results(Result_Split::result)), blackhole);
+  }
+
+  private static MariadbResult result(Flux<ServerMessage> messages) {
+    return new MariadbResult(true, messages, ExceptionFactory.INSTANCE, null, true);
+  }
+
+  private static void consume(Flux<MariadbResult> results, Blackhole blackhole) {
+    Long val =
+        results.concatMap(it -> it.map((row, rowMetadata) -> row.get(0, Long.class))).blockLast();
+    if (val == null || val != 1L) throw new IllegalStateException("ERROR val:" + val);
+    blackhole.consume(val);
+  }
+}
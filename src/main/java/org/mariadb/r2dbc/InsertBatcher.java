@@ -0,0 +1,490 @@
+/*
+ * Copyright 2020 MariaDB Ab.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mariadb.r2dbc;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.r2dbc.spi.R2dbcNonTransientResourceException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.mariadb.r2dbc.client.Client;
+import org.mariadb.r2dbc.codec.Parameter;
+import org.mariadb.r2dbc.message.client.InsertValuesPacket;
+import org.mariadb.r2dbc.message.server.ErrorPacket;
+import org.mariadb.r2dbc.message.server.OkPacket;
+import org.mariadb.r2dbc.message.server.RowPacket;
+import org.mariadb.r2dbc.message.server.ServerMessage;
+import org.mariadb.r2dbc.util.CachedRow;
+import org.mariadb.r2dbc.util.ClientPrepareResult;
+import org.mariadb.r2dbc.util.constants.ServerStatus;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.annotation.Nullable;
+
+/**
+ * Merges single-row INSERT statements executed at the same time on a connection into multi-values
+ * INSERT commands: client side group commit. Statements with the same text up to VALUES, executed
+ * on the same connection in autocommit mode within the configured window, are sent as one command
+ * on this connection. Each statement then receives its own result, with one affected row.
+ *
+ * <p>Statements without generated values are always merged. Statements requesting generated values
+ * are merged only on MariaDB 10.5.1+, each receiving its own RETURNING row; on other servers they
+ * are sent alone, since ids derived from a merged command could mix explicit and generated values.
+ *
+ * <p>If connection is not in autocommit mode anymore when window ends, statements are executed
+ * separately. A failing merged command may have inserted the rows preceding the failing one, on a
+ * non-transactional storage engine: its error is then received by all merged statements, none being
+ * executed again. Statements are only executed separately, so that only failing ones fail, when the
+ * error proves no row was inserted: deadlock or lock wait timeout, rolled back by a transactional
+ * storage engine, or error raised before any row is processed (syntax, unknown table or column,
+ * denied access, read-only server). Connection and timeout errors are received by all merged
+ * statements too, since command may have been executed.
+ */
+public final class InsertBatcher {
+
+  // stay well below max_allowed_packet
+  private static final int MAX_BATCH_BYTES = 1024 * 1024;
+  private static final Pattern NOT_BATCHABLE =
+      Pattern.compile("\\b(ignore|delayed|select|set|on|returning)\\b");
+  private static final Pattern VALUES = Pattern.compile("\\bvalues?\\b");
+  private static final Pattern VALUES_TUPLE =
+      Pattern.compile("\\bvalues?\\s*\\(", Pattern.CASE_INSENSITIVE);
+  // errors of statements rolled back by a transactional storage engine
+  private static final Set<Short> ROLLED_BACK =
+      new HashSet<>(Arrays.asList((short) 1205, (short) 1213));
+  // errors raised before any row is processed
+  private static final Set<Short> NOT_EXECUTED =
+      new HashSet<>(
+          Arrays.asList(
+              (short) 1054, // unknown column
+              (short) 1064, // syntax error
+              (short) 1110, // column specified twice
+              (short) 1136, // column count doesn't match value count
+              (short) 1142, // table access denied
+              (short) 1143, // column access denied
+              (short) 1146, // unknown table
+              (short) 1290, // read-only server
+              (short) 1792)); // read-only transaction
+
+  private final long windowNanos;
+  private final int maxSize;
+  private final Map<BatchKey, Batch> batches = new HashMap<>();
+  // values position of recently executed SQL, to avoid parsing each execution
+  private final Map<String, Integer> valuesPositions = new ConcurrentHashMap<>();
+  private final LongAdder executions = new LongAdder();
+  private final LongAdder batchedStatements = new LongAdder();
+  private final LongAdder fallbacks = new LongAdder();
+
+  public InsertBatcher(Duration window, int maxSize) {
+    this.windowNanos = window.toNanos();
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * Position of the values of a single-row INSERT statement, that can be merged with others.
+   *
+   * @param prepareResult statement parts
+   * @param noBackslashEscapes are backslashes escape characters
+   * @return position of the parenthesis following VALUES, or -1 if statement cannot be merged
+   */
+  static int valuesPosition(ClientPrepareResult prepareResult, boolean noBackslashEscapes) {
+    String digest = ClientPrepareResult.digest(prepareResult.getSql(), noBackslashEscapes);
+    String lower = digest.toLowerCase();
+    if (!lower.startsWith("insert ") || NOT_BATCHABLE.matcher(lower).find()) return -1;
+    // VALUES keyword is followed by a parenthesis, contrary to a column named value
+    Matcher values = VALUES.matcher(lower);
+    int start = -1;
+    while (values.find()) {
+      int next = values.end();
+      while (next < lower.length() && lower.charAt(next) == ' ') next++;
+      if (next < lower.length() && lower.charAt(next) == '(') {
+        if (start != -1) return -1;
+        start = next;
+      }
+    }
+    if (start == -1) return -1;
+    // a single row, ending statement
+    int depth = 0;
+    for (int i = start; i < lower.length(); i++) {
+      char car = lower.charAt(i);
+      if (car == '(') depth++;
+      if (car == ')' && --depth == 0 && i != lower.length() - 1) return -1;
+    }
+    if (depth != 0) return -1;
+
+    // values must be in text preceding first parameter
+    String head = new String(prepareResult.getQueryParts().get(0), StandardCharsets.UTF_8);
+    Matcher tuple = VALUES_TUPLE.matcher(head);
+    if (!tuple.find()) return -1;
+    String before = head.substring(0, tuple.start());
+    if (before.contains("'")
+        || before.contains("\"")
+        || before.contains("#")
+        || before.contains("--")
+        || before.contains("/*")) {
+      return -1;
+    }
+    return tuple.end() - 1;
+  }
+
+  /**
+   * Response of an INSERT statement, merged with identical statements executed within the window
+   * when possible.
+   *
+   * @param client client
+   * @param prepareResult statement parts
+   * @param parameters parameters
+   * @param generatedColumns columns to return, or null
+   * @param timeout statement timeout, or null
+   * @param single sends statement alone
+   * @return statement response
+   */
+  Flux<ServerMessage> execute(
+      Client client,
+      ClientPrepareResult prepareResult,
+      Parameter<?>[] parameters,
+      @Nullable String[] generatedColumns,
+      @Nullable Duration timeout,
+      Supplier<Flux<ServerMessage>> single) {
+    return Flux.defer(
+        () -> {
+          if (!client.isAutoCommit()
+              || (client.getContext().getServerStatus() & ServerStatus.IN_TRANSACTION) != 0
+              || (generatedColumns != null && !supportReturning(client))) {
+            return single.get();
+          }
+          for (Parameter<?> parameter : parameters) {
+            if (parameter.isLongData()) return single.get();
+          }
+          String sql = prepareResult.getSql();
+          Integer position = valuesPositions.get(sql);
+          if (position == null) {
+            if (valuesPositions.size() >= 1000) valuesPositions.clear();
+            position = valuesPosition(prepareResult, client.noBackslashEscapes());
+            valuesPositions.put(sql, position);
+          }
+          if (position < 0) return single.get();
+
+          String head = sql.substring(0, position);
+          byte[] values = encodeValues(client, prepareResult, parameters, head);
+          String key =
+              client.getContext().getDatabase()
+                  + '\0'
+                  + head
+                  + '\0'
+                  + (generatedColumns == null ? "" : String.join(",", generatedColumns))
+                  + '\0'
+                  + timeout;
+          return Flux.create(
+              sink ->
+                  add(
+                      new BatchKey(client, key),
+                      new Pending(
+                          client,
+                          prepareResult,
+                          head,
+                          values,
+                          generatedColumns,
+                          timeout,
+                          single,
+                          sink)));
+        });
+  }
+
+  private static boolean supportReturning(Client client) {
+    return client.getVersion().isMariaDBServer()
+        && client.getVersion().versionGreaterOrEqual(10, 5, 1);
+  }
+
+  private static byte[] encodeValues(
+      Client client, ClientPrepareResult prepareResult, Parameter<?>[] parameters, String head) {
+    ByteBuf buf = Unpooled.buffer();
+    try {
+      byte[] first = prepareResult.getQueryParts().get(0);
+      int headLength = head.getBytes(StandardCharsets.UTF_8).length;
+      buf.writeBytes(first, headLength, first.length - headLength);
+      for (int i = 0; i < prepareResult.getParamCount(); i++) {
+        parameters[i].encodeText(buf, client.getContext());
+        buf.writeBytes(prepareResult.getQueryParts().get(i + 1));
+      }
+      // remove trailing spaces
+      int end = buf.writerIndex();
+      while (end > 0 && buf.getByte(end - 1) <= ' ') end--;
+      buf.writerIndex(end);
+      return ByteBufUtil.getBytes(buf);
+    } finally {
+      buf.release();
+    }
+  }
+
+  private void add(BatchKey key, Pending pending) {
+    Batch full = null;
+    synchronized (this) {
+      Batch batch = batches.get(key);
+      if (batch == null) {
+        Batch created = new Batch(key);
+        batch = created;
+        batches.put(key, batch);
+        Schedulers.parallel().schedule(() -> flush(created), windowNanos, TimeUnit.NANOSECONDS);
+      }
+      batch.pending.add(pending);
+      batch.bytes += pending.values.length + 1;
+      if (batch.pending.size() >= maxSize || batch.bytes >= MAX_BATCH_BYTES) {
+        batches.remove(key);
+        full = batch;
+      }
+    }
+    if (full != null) flush(full);
+  }
+
+  private void flush(Batch batch) {
+    List<Pending> pendings = new ArrayList<>();
+    synchronized (this) {
+      if (batch.flushed) return;
+      batch.flushed = true;
+      if (batches.get(batch.key) == batch) batches.remove(batch.key);
+      for (Pending pending : batch.pending) {
+        if (!pending.sink.isCancelled()) pendings.add(pending);
+      }
+    }
+    if (pendings.isEmpty()) return;
+    if (pendings.size() == 1) {
+      pendings.get(0).executeAlone();
+      return;
+    }
+
+    Pending first = pendings.get(0);
+    Client client = first.client;
+    if (!client.isConnected()
+        || !client.isAutoCommit()
+        || (client.getContext().getServerStatus() & ServerStatus.IN_TRANSACTION) != 0) {
+      // a transaction has started since statements were executed
+      for (Pending pending : pendings) pending.executeAlone();
+      return;
+    }
+
+    executions.increment();
+    batchedStatements.add(pendings.size());
+    List<byte[]> values = new ArrayList<>(pendings.size());
+    for (Pending pending : pendings) values.add(pending.values);
+    String prefix = StatementTimeout.prefix(client, first.timeout);
+    String head = prefix == null ? first.head : prefix + first.head;
+    String tail =
+        first.generatedColumns == null
+            ? ""
+            : first.generatedColumns.length == 0
+                ? " RETURNING *"
+                : " RETURNING " + String.join(", ", first.generatedColumns);
+    String sql = first.prepareResult.getSql();
+
+    List<ServerMessage> messages = new ArrayList<>();
+    StatementTimeout.clientTimer(
+            client.sendCommand(
+                new InsertValuesPacket(
+                    sql,
+                    head.getBytes(StandardCharsets.UTF_8),
+                    values,
+                    tail.getBytes(StandardCharsets.UTF_8),
+                    first.prepareResult.getParamCount() * pendings.size())),
+            client,
+            first.timeout,
+            ExceptionFactory.withSql(sql))
+        // row packets are released by decoder once emitted: row data is copied
+        .map(message -> message instanceof RowPacket ? new CachedRow((RowPacket) message) : message)
+        .subscribe(
+            messages::add,
+            error -> {
+              // merged command may have been executed
+              for (Pending pending : pendings) pending.sink.error(error);
+            },
+            () -> dispatch(client, pendings, messages));
+  }
+
+  /** Emit to each statement its part of merged command response. */
+  private void dispatch(Client client, List<Pending> pendings, List<ServerMessage> messages) {
+    ServerMessage end = messages.isEmpty() ? null : messages.get(messages.size() - 1);
+    List<ServerMessage> header = new ArrayList<>();
+    List<ServerMessage> rows = new ArrayList<>();
+    for (int i = 0; i < messages.size() - 1; i++) {
+      ServerMessage message = messages.get(i);
+      if (message instanceof CachedRow) {
+        rows.add(message);
+      } else if (rows.isEmpty()) {
+        header.add(message);
+      }
+    }
+
+    if (end == null) {
+      R2dbcNonTransientResourceException error =
+          new R2dbcNonTransientResourceException("Connection unexpectedly closed", "08006");
+      for (Pending pending : pendings) pending.sink.error(error);
+      return;
+    }
+    if (end instanceof ErrorPacket) {
+      short errorCode = ((ErrorPacket) end).getErrorCode();
+      if (ROLLED_BACK.contains(errorCode) || (rows.isEmpty() && NOT_EXECUTED.contains(errorCode))) {
+        // no row has been inserted: execute statements separately, so only failing ones fail
+        fallbacks.increment();
+        for (Pending pending : pendings) pending.executeAlone();
+      } else {
+        // rows preceding the failing one may have been inserted
+        for (Pending pending : pendings) {
+          pending.sink.next(end);
+          pending.sink.complete();
+        }
+      }
+      return;
+    }
+
+    int increment = client.getContext().getAutoIncrementIncrement();
+    for (int i = 0; i < pendings.size(); i++) {
+      FluxSink<ServerMessage> sink = pendings.get(i).sink;
+      if (end instanceof OkPacket && header.isEmpty()) {
+        // ids generated by a multi-row insert are consecutive, separated by
+        // auto_increment_increment
+        OkPacket ok = (OkPacket) end;
+        long lastInsertId = ok.getLastInsertId() == 0 ? 0 : ok.getLastInsertId() + i * increment;
+        sink.next(new OkPacket(1, lastInsertId, ok.getServerStatus(), ok.getWarningCount(), true));
+      } else {
+        for (ServerMessage message : header) sink.next(message);
+        if (i < rows.size()) sink.next(CachedRow.replay(rows.get(i)));
+        sink.next(end);
+      }
+      sink.complete();
+    }
+  }
+
+  /**
+   * Number of merged commands sent.
+   *
+   * @return merged commands
+   */
+  public long getExecutions() {
+    return executions.sum();
+  }
+
+  /**
+   * Number of statements sent in merged commands.
+   *
+   * @return merged statements
+   */
+  public long getBatchedStatements() {
+    return batchedStatements.sum();
+  }
+
+  /**
+   * Number of merged commands that failed without inserting any row, their statements being then
+   * executed separately.
+   *
+   * @return failed merged commands
+   */
+  public long getFallbacks() {
+    return fallbacks.sum();
+  }
+
+  public Duration getWindow() {
+    return Duration.ofNanos(windowNanos);
+  }
+
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  /** Statements are merged by connection: merged command is sent on their connection. */
+  private static final class BatchKey {
+    private final Client client;
+    private final String statement;
+
+    private BatchKey(Client client, String statement) {
+      this.client = client;
+      this.statement = statement;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (!(o instanceof BatchKey)) return false;
+      BatchKey other = (BatchKey) o;
+      return client == other.client && statement.equals(other.statement);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * System.identityHashCode(client) + statement.hashCode();
+    }
+  }
+
+  private static final class Batch {
+    private final BatchKey key;
+    private final List<Pending> pending = new ArrayList<>();
+    private int bytes;
+    private boolean flushed;
+
+    private Batch(BatchKey key) {
+      this.key = key;
+    }
+  }
+
+  private static final class Pending {
+    private final Client client;
+    private final ClientPrepareResult prepareResult;
+    private final String head;
+    private final byte[] values;
+    private final String[] generatedColumns;
+    private final Duration timeout;
+    private final Supplier<Flux<ServerMessage>> single;
+    private final FluxSink<ServerMessage> sink;
+
+    private Pending(
+        Client client,
+        ClientPrepareResult prepareResult,
+        String head,
+        byte[] values,
+        @Nullable String[] generatedColumns,
+        @Nullable Duration timeout,
+        Supplier<Flux<ServerMessage>> single,
+        FluxSink<ServerMessage> sink) {
+      this.client = client;
+      this.prepareResult = prepareResult;
+      this.head = head;
+      this.values = values;
+      this.generatedColumns = generatedColumns;
+      this.timeout = timeout;
+      this.single = single;
+      this.sink = sink;
+    }
+
+    private void executeAlone() {
+      sink.onDispose(single.get().subscribe(sink::next, sink::error, sink::complete));
+    }
+  }
+}
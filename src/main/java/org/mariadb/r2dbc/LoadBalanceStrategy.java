@@ -0,0 +1,24 @@
+/*
+ * Copyright 2020 MariaDB Ab.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mariadb.r2dbc;
+
+/** Strategy used to choose a replica when routing read-only transactions. */
+public enum LoadBalanceStrategy {
+  ROUND_ROBIN, // each replica in turn
+  LEAST_PENDING, // replica with the fewest commands waiting for a response
+  LATENCY_WEIGHTED, // random choice, weighted by inverse of measured connection latency
+}
@@ -20,12 +20,15 @@ import java.util.ArrayList;
 import java.util.List;
 import org.mariadb.r2dbc.api.MariadbResult;
 import org.mariadb.r2dbc.client.Client;
+import org.mariadb.r2dbc.message.client.ClientMessage;
 import org.mariadb.r2dbc.message.client.QueryPacket;
-import org.mariadb.r2dbc.message.server.ServerMessage;
 import org.mariadb.r2dbc.util.Assert;
 import reactor.core.publisher.Flux;
 
-/** Basic implementation for batch. //TODO implement bulk */
+/**
+ * Batch of statements without parameters. Without allowMultiQueries, statements are pipelined in a
+ * single flush when pipelining is allowed, so a batch costs a single round-trip.
+ */
 final class MariadbBatch implements org.mariadb.r2dbc.api.MariadbBatch {
 
   private final Client client;
@@ -45,6 +48,7 @@ final class MariadbBatch implements org.mariadb.r2dbc.api.MariadbBatch {
       throw new IllegalArgumentException(
           String.format("Statement with parameters cannot be batched (sql:'%s')", sql));
     }
+    MariadbConnection.checkNotLocalInfile(sql, this.configuration);
 
     this.statements.add(sql);
     return this;
@@ -55,32 +59,25 @@ final class MariadbBatch implements org.mariadb.r2dbc.api.MariadbBatch {
     if (configuration.allowMultiQueries()) {
       return new MariadbSimpleQueryStatement(this.client, String.join("; ", this.statements))
           .execute();
-    } else {
-
-      Flux<Flux<ServerMessage>> fluxMsg =
-          Flux.create(
-              sink -> {
-                for (String sql : this.statements) {
-                  Flux<ServerMessage> in = this.client.sendCommand(new QueryPacket(sql));
-                  sink.next(in);
-                  in.subscribe();
-                }
-                sink.complete();
-              });
+    }
 
-      return fluxMsg
-          .flatMap(Flux::from)
-          .windowUntil(it -> it.resultSetEnd())
-          .map(
-              dataRow ->
-                  new org.mariadb.r2dbc.MariadbResult(
-                      true,
-                      dataRow,
-                      ExceptionFactory.INSTANCE,
-                      null,
-                      client.getVersion().isMariaDBServer()
-                          && client.getVersion().versionGreaterOrEqual(10, 5, 1)));
+    // statements are sent together, then responses are split by statement result
+    List<ClientMessage> messages = new ArrayList<>(this.statements.size());
+    for (String sql : this.statements) {
+      messages.add(new QueryPacket(sql));
     }
+    return this.client
+        .sendBatch(messages)
+        .transform(
+            ResultSplitter.results(
+                dataRow ->
+                    new org.mariadb.r2dbc.MariadbResult(
+                        true,
+                        dataRow,
+                        ExceptionFactory.INSTANCE,
+                        null,
+                        client.getVersion().isMariaDBServer()
+                            && client.getVersion().versionGreaterOrEqual(10, 5, 1))));
   }
 
   @Override
@@ -16,18 +16,22 @@
 
 package org.mariadb.r2dbc;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Supplier;
 import org.mariadb.r2dbc.api.MariadbStatement;
 import org.mariadb.r2dbc.client.Client;
 import org.mariadb.r2dbc.codec.Codec;
 import org.mariadb.r2dbc.codec.Codecs;
 import org.mariadb.r2dbc.codec.Parameter;
+import org.mariadb.r2dbc.message.client.ClientMessage;
 import org.mariadb.r2dbc.message.client.QueryWithParametersPacket;
 import org.mariadb.r2dbc.message.server.ServerMessage;
 import org.mariadb.r2dbc.util.Assert;
 import org.mariadb.r2dbc.util.ClientPrepareResult;
+import org.mariadb.r2dbc.util.ResultCache;
 import reactor.core.publisher.Flux;
 import reactor.util.annotation.Nullable;
 
@@ -40,6 +44,8 @@ final class MariadbClientParameterizedQueryStatement implements MariadbStatement
   private Parameter<?>[] parameters;
   private List<Parameter<?>[]> batchingParameters;
   private String[] generatedColumns;
+  private Duration timeout;
+  private boolean cacheResult;
 
   MariadbClientParameterizedQueryStatement(
       Client client, String sql, MariadbConnectionConfiguration configuration) {
@@ -143,45 +149,21 @@ final class MariadbClientParameterizedQueryStatement implements MariadbStatement
     } else {
       add();
 
-      Flux<ServerMessage> fluxMsg =
-          this.client.sendCommand(
-              new QueryWithParametersPacket(
-                  prepareResult,
-                  this.batchingParameters.get(0),
-                  generatedColumns != null
-                          && client.getVersion().isMariaDBServer()
-                          && client.getVersion().versionGreaterOrEqual(10, 5, 1)
-                      ? generatedColumns
-                      : null));
-      int index = 1;
-      while (index < this.batchingParameters.size()) {
-        fluxMsg =
-            fluxMsg.concatWith(
-                this.client.sendCommand(
-                    new QueryWithParametersPacket(
-                        prepareResult,
-                        this.batchingParameters.get(index++),
-                        generatedColumns != null
-                                && client.getVersion().isMariaDBServer()
-                                && client.getVersion().versionGreaterOrEqual(10, 5, 1)
-                            ? generatedColumns
-                            : null)));
-      }
-
+      Flux<ServerMessage> fluxMsg = sendBatch(this.batchingParameters);
       this.batchingParameters.clear();
       this.parameters = new Parameter<?>[prepareResult.getParamCount()];
 
-      return fluxMsg
-          .windowUntil(it -> it.resultSetEnd())
-          .map(
+      return fluxMsg.transform(
+          ResultSplitter.results(
               dataRow ->
                   new org.mariadb.r2dbc.MariadbResult(
                       true,
                       dataRow,
                       ExceptionFactory.INSTANCE,
-                      null,
+                      generatedColumns,
                       client.getVersion().isMariaDBServer()
-                          && client.getVersion().versionGreaterOrEqual(10, 5, 1)));
+                          && client.getVersion().versionGreaterOrEqual(10, 5, 1),
+                      MariadbResult.idIncrement(client, sql, generatedColumns))));
     }
   }
 
@@ -212,19 +194,30 @@ final class MariadbClientParameterizedQueryStatement implements MariadbStatement
       String[] generatedColumns) {
     ExceptionFactory factory = ExceptionFactory.withSql(sql);
 
+    InsertBatcher insertBatcher = client.getFactoryContext().getInsertBatcher();
+    Supplier<Flux<ServerMessage>> query =
+        insertBatcher == null
+            ? () -> sendQuery(parameters, factory)
+            : () ->
+                insertBatcher.execute(
+                    client,
+                    prepareResult,
+                    parameters,
+                    generatedColumns,
+                    timeout,
+                    () -> sendQuery(parameters, factory));
     Flux<ServerMessage> response =
-        this.client.sendCommand(
-            new QueryWithParametersPacket(
-                prepareResult,
-                parameters,
-                generatedColumns != null
-                        && client.getVersion().isMariaDBServer()
-                        && client.getVersion().versionGreaterOrEqual(10, 5, 1)
-                    ? generatedColumns
-                    : null));
-    return response
-        .windowUntil(it -> it.resultSetEnd())
-        .map(
+        generatedColumns == null
+            ? SharedQuery.execute(
+                client,
+                configuration,
+                cacheResult,
+                sql,
+                () -> ResultCache.key(client.getContext(), prepareResult, parameters),
+                query)
+            : query.get();
+    return response.transform(
+        ResultSplitter.results(
             dataRow ->
                 new MariadbResult(
                     true,
@@ -232,7 +225,62 @@ final class MariadbClientParameterizedQueryStatement implements MariadbStatement
                     factory,
                     generatedColumns,
                     client.getVersion().isMariaDBServer()
-                        && client.getVersion().versionGreaterOrEqual(10, 5, 1)));
+                        && client.getVersion().versionGreaterOrEqual(10, 5, 1),
+                    MariadbResult.idIncrement(client, sql, generatedColumns))));
+  }
+
+  @Override
+  public MariadbClientParameterizedQueryStatement timeout(@Nullable Duration timeout) {
+    this.timeout = StatementTimeout.validate(timeout);
+    return this;
+  }
+
+  @Override
+  public MariadbClientParameterizedQueryStatement cacheResult() {
+    this.cacheResult = true;
+    return this;
+  }
+
+  private Flux<ServerMessage> sendQuery(Parameter<?>[] parameters, ExceptionFactory factory) {
+    return StatementTimeout.clientTimer(
+        this.client.sendCommand(queryPacket(parameters)), client, timeout, factory);
+  }
+
+  /**
+   * Send batched parameter sets. Commands are sent together, costing a single round-trip (with
+   * generated values returned as RETURNING rows on MariaDB 10.5.1+), unless parameters stream data.
+   *
+   * @param batchingParameters parameter sets
+   * @return responses of all commands
+   */
+  private Flux<ServerMessage> sendBatch(List<Parameter<?>[]> batchingParameters) {
+    List<ClientMessage> messages = new ArrayList<>(batchingParameters.size());
+    for (Parameter<?>[] parameters : batchingParameters) {
+      for (Parameter<?> parameter : parameters) {
+        if (parameter.isLongData()) {
+          Flux<ServerMessage> fluxMsg = Flux.empty();
+          for (Parameter<?>[] params : batchingParameters) {
+            fluxMsg = fluxMsg.concatWith(sendQuery(params, ExceptionFactory.INSTANCE));
+          }
+          return fluxMsg;
+        }
+      }
+      messages.add(queryPacket(parameters));
+    }
+    return StatementTimeout.clientTimer(
+        this.client.sendBatch(messages), client, timeout, ExceptionFactory.INSTANCE);
+  }
+
+  private QueryWithParametersPacket queryPacket(Parameter<?>[] parameters) {
+    return new QueryWithParametersPacket(
+        prepareResult,
+        parameters,
+        generatedColumns != null
+                && client.getVersion().isMariaDBServer()
+                && client.getVersion().versionGreaterOrEqual(10, 5, 1)
+            ? generatedColumns
+            : null,
+        StatementTimeout.prefix(client, timeout));
   }
 
   @Override
@@ -16,66 +16,156 @@
 
 package org.mariadb.r2dbc;
 
+import io.netty.buffer.ByteBuf;
 import io.r2dbc.spi.IsolationLevel;
 import io.r2dbc.spi.ValidationDepth;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
 import org.mariadb.r2dbc.api.MariadbStatement;
 import org.mariadb.r2dbc.client.Client;
 import org.mariadb.r2dbc.client.ClientBase;
+import org.mariadb.r2dbc.client.DecoderState;
+import org.mariadb.r2dbc.client.ServerVersion;
+import org.mariadb.r2dbc.message.client.ClientMessage;
 import org.mariadb.r2dbc.message.client.PingPacket;
+import org.mariadb.r2dbc.message.client.PreparePacket;
 import org.mariadb.r2dbc.message.client.QueryPacket;
+import org.mariadb.r2dbc.message.client.ResetConnectionPacket;
+import org.mariadb.r2dbc.message.server.OkPacket;
 import org.mariadb.r2dbc.util.Assert;
 import org.mariadb.r2dbc.util.PrepareCache;
+import org.mariadb.r2dbc.util.ServerPrepareResult;
+import org.mariadb.r2dbc.util.constants.ServerStatus;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.util.Logger;
 import reactor.util.Loggers;
+import reactor.util.annotation.Nullable;
 
 final class MariadbConnection implements org.mariadb.r2dbc.api.MariadbConnection {
 
+  private static final Pattern LOCAL_INFILE =
+      Pattern.compile("^\\s*load\\s+data\\s+(?:\\w+\\s+)?local\\b", Pattern.CASE_INSENSITIVE);
   private final Logger logger = Loggers.getLogger(this.getClass());
   private final Client client;
   private final MariadbConnectionConfiguration configuration;
-  private volatile IsolationLevel isolationLevel;
+  @Nullable private final Supplier<Mono<Client>> replicaConnector;
+  private volatile Client replica;
+  // client executing current transaction: primary, or replica for a read-only transaction
+  private volatile Client current;
 
   MariadbConnection(
-      Client client, IsolationLevel isolationLevel, MariadbConnectionConfiguration configuration) {
+      Client client,
+      IsolationLevel isolationLevel,
+      MariadbConnectionConfiguration configuration,
+      @Nullable Supplier<Mono<Client>> replicaConnector) {
     this.client = Assert.requireNonNull(client, "client must not be null");
-    this.isolationLevel = Assert.requireNonNull(isolationLevel, "isolationLevel must not be null");
+    this.current = client;
+    this.replicaConnector = replicaConnector;
+    Assert.requireNonNull(isolationLevel, "isolationLevel must not be null");
     this.configuration = Assert.requireNonNull(configuration, "configuration must not be null");
 
+    // isolation level is then kept up to date by server session tracking, when supported
+    if (client.getContext().getIsolationLevel() == null) {
+      client.getContext().setIsolationLevel(isolationLevel);
+    }
+
     // save Global isolation level to avoid asking each new connection with same configuration
     if (configuration.getIsolationLevel() == null) {
       configuration.setIsolationLevel(isolationLevel);
     }
   }
 
+  /**
+   * Client executing commands: replica while a read-only transaction is running on it, primary
+   * otherwise. Transaction end is detected from server status, so that a COMMIT or ROLLBACK sent as
+   * SQL ends replica use as well.
+   *
+   * @return current client
+   */
+  private Client current() {
+    Client target = this.current;
+    if (target != this.client
+        && (!target.isConnected()
+            || (target.getContext().getServerStatus() & ServerStatus.IN_TRANSACTION) == 0)) {
+      this.current = target = this.client;
+    }
+    return target;
+  }
+
   @Override
   public Mono<Void> beginTransaction() {
-    try (ClientBase.LockAction lockAction = this.client.getLockAction()) {
+    try (ClientBase.LockAction lockAction = current().getLockAction()) {
       return lockAction.beginTransaction();
     }
   }
 
+  @Override
+  public Mono<Void> beginReadOnlyTransaction() {
+    Client current = current();
+    if (current != this.client
+        || (current.getContext().getServerStatus() & ServerStatus.IN_TRANSACTION) > 0) {
+      // already in a transaction
+      try (ClientBase.LockAction lockAction = current.getLockAction()) {
+        return lockAction.beginReadOnlyTransaction();
+      }
+    }
+    return replicaClient()
+        .defaultIfEmpty(this.client)
+        .flatMap(
+            target -> {
+              try (ClientBase.LockAction lockAction = target.getLockAction()) {
+                return lockAction
+                    .beginReadOnlyTransaction()
+                    .doOnSuccess(ignore -> this.current = target);
+              }
+            });
+  }
+
+  private Mono<Client> replicaClient() {
+    if (this.replicaConnector == null) return Mono.empty();
+    Client replica = this.replica;
+    if (replica != null && replica.isConnected()) return Mono.just(replica);
+    return this.replicaConnector
+        .get()
+        .doOnNext(client -> this.replica = client)
+        .onErrorResume(
+            throwable -> {
+              logger.warn("No replica available, using primary", throwable);
+              return Mono.empty();
+            });
+  }
+
   @Override
   public Mono<Void> close() {
+    Client replica = this.replica;
+    if (replica != null) {
+      return Mono.when(this.client.close(), replica.close()).then(Mono.empty());
+    }
     return this.client.close().then(Mono.empty());
   }
 
   @Override
   public Mono<Void> commitTransaction() {
-    try (ClientBase.LockAction lockAction = this.client.getLockAction()) {
+    try (ClientBase.LockAction lockAction = current().getLockAction()) {
       return lockAction.commitTransaction();
     }
   }
 
   @Override
   public MariadbBatch createBatch() {
-    return new MariadbBatch(this.client, this.configuration);
+    return new MariadbBatch(current(), this.configuration);
   }
 
   @Override
   public Mono<Void> createSavepoint(String name) {
     Assert.requireNonNull(name, "name must not be null");
-    try (ClientBase.LockAction lockAction = this.client.getLockAction()) {
+    try (ClientBase.LockAction lockAction = current().getLockAction()) {
       return lockAction.createSavepoint(name);
     }
   }
@@ -86,16 +176,69 @@ final class MariadbConnection implements org.mariadb.r2dbc.api.MariadbConnection
     if (sql.trim().isEmpty()) {
       throw new IllegalArgumentException("Statement cannot be empty.");
     }
-    if (MariadbSimpleQueryStatement.supports(sql, this.client)) {
-      return new MariadbSimpleQueryStatement(this.client, sql);
+    checkNotLocalInfile(sql, this.configuration);
+    Client target = current();
+    MariadbStatement statement;
+    if (MariadbSimpleQueryStatement.supports(sql, target)) {
+      statement = new MariadbSimpleQueryStatement(target, sql, this.configuration);
+    } else if (this.configuration.useServerPrepStmts()) {
+      statement = new MariadbServerParameterizedQueryStatement(target, sql, this.configuration);
     } else {
-      if (this.configuration.useServerPrepStmts()) {
-        return new MariadbServerParameterizedQueryStatement(this.client, sql, this.configuration);
-      }
-      return new MariadbClientParameterizedQueryStatement(this.client, sql, this.configuration);
+      statement = new MariadbClientParameterizedQueryStatement(target, sql, this.configuration);
+    }
+    Duration timeout = this.configuration.getStatementTimeout();
+    return timeout == null ? statement : statement.timeout(timeout);
+  }
+
+  /**
+   * Refuse LOAD DATA LOCAL INFILE commands outside {@link #loadData}: when permitted, server would
+   * read commands pipelined after them as file content.
+   *
+   * @param sql command
+   * @param configuration configuration
+   */
+  static void checkNotLocalInfile(String sql, MariadbConnectionConfiguration configuration) {
+    if (configuration.allowLocalInfile() && LOCAL_INFILE.matcher(sql).find()) {
+      throw new IllegalArgumentException(
+          String.format("LOAD DATA LOCAL INFILE must be executed with loadData (sql:'%s')", sql));
     }
   }
 
+  /**
+   * Prepare statements on server ahead of their use, so they are in prepare cache when executed.
+   * Does nothing when server prepared statements are not used.
+   *
+   * @param statements statements to prepare
+   * @return a {@link Mono} that indicates that statements have been prepared
+   */
+  Mono<Void> prepare(List<String> statements) {
+    Client target = this.client;
+    PrepareCache prepareCache = target.getPrepareCache();
+    if (!this.configuration.useServerPrepStmts() || prepareCache == null) return Mono.empty();
+    return Flux.fromIterable(statements)
+        .filter(sql -> !MariadbSimpleQueryStatement.supports(sql, target))
+        .concatMap(
+            sql -> {
+              // same command as the one statement will prepare
+              String prefix = StatementTimeout.prefix(target, configuration.getStatementTimeout());
+              String prepareSql = prefix == null ? sql : prefix + sql;
+              if (prepareCache.get(prepareSql) != null) return Mono.empty();
+              ExceptionFactory exceptionFactory = ExceptionFactory.withSql(prepareSql);
+              return target
+                  .sendCommand(
+                      new PreparePacket(prepareSql), DecoderState.PREPARE_RESPONSE, prepareSql)
+                  .handle(exceptionFactory::handleErrorResponse)
+                  .then(
+                      Mono.fromRunnable(
+                          () -> {
+                            // only cache keeps using it
+                            ServerPrepareResult result = prepareCache.get(prepareSql);
+                            if (result != null) result.decrementUse(target);
+                          }));
+            })
+        .then();
+  }
+
   @Override
   public MariadbConnectionMetadata getMetadata() {
     return new MariadbConnectionMetadata(this.client.getVersion());
@@ -103,25 +246,109 @@ final class MariadbConnection implements org.mariadb.r2dbc.api.MariadbConnection
 
   @Override
   public IsolationLevel getTransactionIsolationLevel() {
-    return this.isolationLevel;
+    return current().getContext().getIsolationLevel();
   }
 
   @Override
   public boolean isAutoCommit() {
-    return this.client.isAutoCommit();
+    return current().isAutoCommit();
+  }
+
+  @Override
+  public Mono<Integer> loadData(String sql, Publisher<ByteBuf> data) {
+    Assert.requireNonNull(sql, "sql must not be null");
+    Assert.requireNonNull(data, "data must not be null");
+    if (!this.configuration.allowLocalInfile()) {
+      return Mono.error(
+          new IllegalStateException("LOAD DATA LOCAL INFILE requires option allowLocalInfile"));
+    }
+    AtomicReference<Throwable> dataError = new AtomicReference<>();
+    Flux<ByteBuf> source =
+        Flux.from(data)
+            .onErrorResume(
+                throwable -> {
+                  dataError.set(throwable);
+                  return Mono.empty();
+                });
+
+    ExceptionFactory exceptionFactory = ExceptionFactory.withSql(sql);
+    return current()
+        .sendLocalInfileCommand(new QueryPacket(sql), source)
+        .handle(exceptionFactory::handleErrorResponse)
+        .ofType(OkPacket.class)
+        .reduce(0, (rows, okPacket) -> rows + (int) okPacket.getAffectedRows())
+        .flatMap(rows -> dataError.get() == null ? Mono.just(rows) : Mono.error(dataError.get()));
   }
 
   @Override
   public Mono<Void> releaseSavepoint(String name) {
     Assert.requireNonNull(name, "name must not be null");
-    try (ClientBase.LockAction lockAction = this.client.getLockAction()) {
+    try (ClientBase.LockAction lockAction = current().getLockAction()) {
       return lockAction.releaseSavepoint(name);
     }
   }
 
+  @Override
+  public Mono<Void> reset() {
+    Client replica = this.replica;
+    Mono<Void> reset = reset(this.client);
+    if (replica != null && replica.isConnected()) {
+      reset = Mono.when(reset, reset(replica));
+    }
+    return reset.doOnTerminate(() -> this.current = this.client);
+  }
+
+  private Mono<Void> reset(Client target) {
+    return Mono.defer(
+        () -> {
+          // server releases all prepared statements
+          PrepareCache prepareCache = target.getPrepareCache();
+          if (prepareCache != null) prepareCache.reset();
+          IsolationLevel isolationLevel = this.configuration.getIsolationLevel();
+          target.getContext().resetSession(isolationLevel);
+
+          List<ClientMessage> messages = new ArrayList<>(4);
+          boolean sessionModified = target.isSessionModified();
+          boolean resetConnection = supportResetConnection(target.getVersion());
+          if (resetConnection) {
+            messages.add(ResetConnectionPacket.INSTANCE);
+          } else {
+            messages.add(new QueryPacket("ROLLBACK"));
+            messages.add(new QueryPacket("SET autocommit=1"));
+            if (isolationLevel != null) {
+              messages.add(
+                  new QueryPacket(
+                      "SET SESSION TRANSACTION ISOLATION LEVEL " + isolationLevel.asSql()));
+            }
+          }
+          String sessionSql =
+              MariadbConnectionFactory.sessionVariablesQuery(target, this.configuration);
+          if (sessionSql != null) messages.add(new QueryPacket(sessionSql));
+
+          ExceptionFactory exceptionFactory = ExceptionFactory.withSql("reset connection");
+          return target
+              .sendBatch(messages)
+              .handle(exceptionFactory::handleErrorResponse)
+              .then()
+              .doOnSuccess(
+                  ignore -> {
+                    // temporary tables and session variables are only reset by
+                    // COM_RESET_CONNECTION
+                    if (resetConnection || !sessionModified) target.resetSessionState();
+                  });
+        });
+  }
+
+  private static boolean supportResetConnection(ServerVersion version) {
+    return version.isMariaDBServer()
+        ? version.versionGreaterOrEqual(10, 2, 4)
+        : version.versionGreaterOrEqual(5, 7, 3);
+  }
+
   @Override
   public Mono<Void> rollbackTransaction() {
-    try (ClientBase.LockAction lockAction = this.client.getLockAction()) {
+    Client target = current();
+    try (ClientBase.LockAction lockAction = target.getLockAction()) {
       return lockAction.rollbackTransaction();
     }
   }
@@ -129,14 +356,14 @@ final class MariadbConnection implements org.mariadb.r2dbc.api.MariadbConnection
   @Override
   public Mono<Void> rollbackTransactionToSavepoint(String name) {
     Assert.requireNonNull(name, "name must not be null");
-    try (ClientBase.LockAction lockAction = this.client.getLockAction()) {
+    try (ClientBase.LockAction lockAction = current().getLockAction()) {
       return lockAction.rollbackTransactionToSavepoint(name);
     }
   }
 
   @Override
   public Mono<Void> setAutoCommit(boolean autoCommit) {
-    try (ClientBase.LockAction lockAction = this.client.getLockAction()) {
+    try (ClientBase.LockAction lockAction = current().getLockAction()) {
       return lockAction.setAutoCommit(autoCommit);
     }
   }
@@ -146,11 +373,12 @@ final class MariadbConnection implements org.mariadb.r2dbc.api.MariadbConnection
     Assert.requireNonNull(isolationLevel, "isolationLevel must not be null");
     String sql = String.format("SET TRANSACTION ISOLATION LEVEL %s", isolationLevel.asSql());
     ExceptionFactory exceptionFactory = ExceptionFactory.withSql(sql);
-    return client
+    Client target = current();
+    return target
         .sendCommand(new QueryPacket(sql))
         .handle(exceptionFactory::handleErrorResponse)
         .then()
-        .doOnSuccess(ignore -> this.isolationLevel = isolationLevel);
+        .doOnSuccess(ignore -> target.getContext().setIsolationLevel(isolationLevel));
   }
 
   @Override
@@ -161,24 +389,25 @@ final class MariadbConnection implements org.mariadb.r2dbc.api.MariadbConnection
         + ", client="
         + client
         + ", isolationLevel="
-        + isolationLevel
+        + getTransactionIsolationLevel()
         + '}';
   }
 
   @Override
   public Mono<Boolean> validate(ValidationDepth depth) {
+    Client target = current();
     if (depth == ValidationDepth.LOCAL) {
-      return Mono.just(this.client.isConnected());
+      return Mono.just(target.isConnected());
     }
 
     return Mono.create(
         sink -> {
-          if (!this.client.isConnected()) {
+          if (!target.isConnected()) {
             sink.success(false);
             return;
           }
 
-          this.client
+          target
               .sendCommand(new PingPacket())
               .windowUntil(it -> it.ending())
               .subscribe(
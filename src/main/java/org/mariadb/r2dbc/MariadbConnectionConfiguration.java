@@ -22,10 +22,13 @@ import io.r2dbc.spi.ConnectionFactoryOptions;
 import io.r2dbc.spi.IsolationLevel;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import org.mariadb.r2dbc.api.QueryExecutionListener;
 import org.mariadb.r2dbc.util.Assert;
+import org.mariadb.r2dbc.util.HostAddress;
 import org.mariadb.r2dbc.util.SslConfig;
 import reactor.util.annotation.Nullable;
 
@@ -42,6 +45,7 @@ public final class MariadbConnectionConfiguration {
   private final String username;
   private final boolean allowMultiQueries;
   private final boolean allowPipelining;
+  private final boolean allowLocalInfile;
   private final Map<String, String> connectionAttributes;
   private final Map<String, String> sessionVariables;
   private final SslConfig sslConfig;
@@ -50,6 +54,23 @@ public final class MariadbConnectionConfiguration {
   private final boolean allowPublicKeyRetrieval;
   private IsolationLevel isolationLevel;
   private final boolean useServerPrepStmts;
+  private final List<HostAddress> replicas;
+  private final LoadBalanceStrategy loadBalanceStrategy;
+  private final Duration blacklistDuration;
+  private final boolean streamLargeValues;
+  private final long killQueryThreshold;
+  private final Duration statementTimeout;
+  private final int maxConcurrentHandshakes;
+  private final int connectRetries;
+  private final List<String> warmUpStatements;
+  private final boolean optimisticConnect;
+  private final QueryExecutionListener queryExecutionListener;
+  private final int statementStatisticsSize;
+  private final long resultCacheSize;
+  private final Duration resultCacheTtl;
+  private final boolean singleFlight;
+  private final Duration insertBatchWindow;
+  private final int insertBatchSize;
 
   private MariadbConnectionConfiguration(
       @Nullable Duration connectTimeout,
@@ -63,6 +84,7 @@ public final class MariadbConnectionConfiguration {
       @Nullable String username,
       boolean allowMultiQueries,
       boolean allowPipelining,
+      boolean allowLocalInfile,
       @Nullable List<String> tlsProtocol,
       @Nullable String serverSslCert,
       @Nullable String clientSslCert,
@@ -73,7 +95,24 @@ public final class MariadbConnectionConfiguration {
       @Nullable String cachingRsaPublicKey,
       boolean allowPublicKeyRetrieval,
       boolean useServerPrepStmts,
-      @Nullable Integer prepareCacheSize) {
+      @Nullable Integer prepareCacheSize,
+      @Nullable String replicas,
+      LoadBalanceStrategy loadBalanceStrategy,
+      @Nullable Duration blacklistDuration,
+      boolean streamLargeValues,
+      long killQueryThreshold,
+      @Nullable Duration statementTimeout,
+      int maxConcurrentHandshakes,
+      int connectRetries,
+      @Nullable List<String> warmUpStatements,
+      boolean optimisticConnect,
+      @Nullable QueryExecutionListener queryExecutionListener,
+      int statementStatisticsSize,
+      long resultCacheSize,
+      @Nullable Duration resultCacheTtl,
+      boolean singleFlight,
+      @Nullable Duration insertBatchWindow,
+      int insertBatchSize) {
     this.connectTimeout = connectTimeout == null ? Duration.ofSeconds(10) : connectTimeout;
     this.database = database;
     this.host = host;
@@ -85,6 +124,7 @@ public final class MariadbConnectionConfiguration {
     this.username = username;
     this.allowMultiQueries = allowMultiQueries;
     this.allowPipelining = allowPipelining;
+    this.allowLocalInfile = allowLocalInfile;
     if (sslMode == SslMode.DISABLED) {
       this.sslConfig = SslConfig.DISABLE_INSTANCE;
     } else {
@@ -97,6 +137,24 @@ public final class MariadbConnectionConfiguration {
     this.allowPublicKeyRetrieval = allowPublicKeyRetrieval;
     this.useServerPrepStmts = useServerPrepStmts;
     this.prepareCacheSize = (prepareCacheSize == null) ? 250 : prepareCacheSize.intValue();
+    this.replicas = HostAddress.parse(replicas, port);
+    this.loadBalanceStrategy = loadBalanceStrategy;
+    this.blacklistDuration = blacklistDuration == null ? Duration.ofSeconds(60) : blacklistDuration;
+    this.streamLargeValues = streamLargeValues;
+    this.killQueryThreshold = killQueryThreshold;
+    this.statementTimeout = statementTimeout;
+    this.maxConcurrentHandshakes = maxConcurrentHandshakes;
+    this.connectRetries = connectRetries;
+    this.warmUpStatements = warmUpStatements == null ? Collections.emptyList() : warmUpStatements;
+    this.optimisticConnect = optimisticConnect;
+    this.queryExecutionListener = queryExecutionListener;
+    this.statementStatisticsSize = statementStatisticsSize;
+    this.resultCacheSize = resultCacheSize;
+    this.resultCacheTtl = resultCacheTtl == null ? Duration.ofSeconds(60) : resultCacheTtl;
+    // streamed large values can only be read once
+    this.singleFlight = singleFlight;
+    this.insertBatchWindow = insertBatchWindow;
+    this.insertBatchSize = insertBatchSize;
   }
 
   public static Builder fromOptions(ConnectionFactoryOptions connectionFactoryOptions) {
@@ -121,6 +179,16 @@ public final class MariadbConnectionConfiguration {
           connectionFactoryOptions.getValue(MariadbConnectionFactoryProvider.ALLOW_PIPELINING));
     }
 
+    if (connectionFactoryOptions.hasOption(MariadbConnectionFactoryProvider.ALLOW_LOCAL_INFILE)) {
+      // value is a String when coming from an URL
+      Object allowLocalInfile =
+          connectionFactoryOptions.getValue(MariadbConnectionFactoryProvider.ALLOW_LOCAL_INFILE);
+      builder.allowLocalInfile(
+          allowLocalInfile instanceof Boolean
+              ? (Boolean) allowLocalInfile
+              : Boolean.parseBoolean(allowLocalInfile.toString()));
+    }
+
     if (connectionFactoryOptions.hasOption(MariadbConnectionFactoryProvider.USE_SERVER_PREPARE)) {
       builder.useServerPrepStmts(
           connectionFactoryOptions.getValue(MariadbConnectionFactoryProvider.USE_SERVER_PREPARE));
@@ -155,6 +223,169 @@ public final class MariadbConnectionConfiguration {
       builder.port(port);
     }
 
+    builder.replicas(connectionFactoryOptions.getValue(MariadbConnectionFactoryProvider.REPLICAS));
+    if (connectionFactoryOptions.hasOption(
+        MariadbConnectionFactoryProvider.LOAD_BALANCE_STRATEGY)) {
+      builder.loadBalanceStrategy(
+          Enum.valueOf(
+              LoadBalanceStrategy.class,
+              connectionFactoryOptions.getValue(
+                  MariadbConnectionFactoryProvider.LOAD_BALANCE_STRATEGY)));
+    }
+    if (connectionFactoryOptions.hasOption(MariadbConnectionFactoryProvider.BLACKLIST_DURATION)) {
+      // value is a String when coming from an URL
+      Object blacklistDuration =
+          connectionFactoryOptions.getValue(MariadbConnectionFactoryProvider.BLACKLIST_DURATION);
+      builder.blacklistDuration(
+          blacklistDuration instanceof Duration
+              ? (Duration) blacklistDuration
+              : Duration.parse(blacklistDuration.toString()));
+    }
+
+    if (connectionFactoryOptions.hasOption(MariadbConnectionFactoryProvider.STREAM_LARGE_VALUES)) {
+      // value is a String when coming from an URL
+      Object streamLargeValues =
+          connectionFactoryOptions.getValue(MariadbConnectionFactoryProvider.STREAM_LARGE_VALUES);
+      builder.streamLargeValues(
+          streamLargeValues instanceof Boolean
+              ? (Boolean) streamLargeValues
+              : Boolean.parseBoolean(streamLargeValues.toString()));
+    }
+
+    if (connectionFactoryOptions.hasOption(MariadbConnectionFactoryProvider.KILL_QUERY_THRESHOLD)) {
+      // value is a String when coming from an URL
+      Object killQueryThreshold =
+          connectionFactoryOptions.getValue(MariadbConnectionFactoryProvider.KILL_QUERY_THRESHOLD);
+      builder.killQueryThreshold(
+          killQueryThreshold instanceof Number
+              ? ((Number) killQueryThreshold).longValue()
+              : Long.parseLong(killQueryThreshold.toString()));
+    }
+
+    if (connectionFactoryOptions.hasOption(MariadbConnectionFactoryProvider.STATEMENT_TIMEOUT)) {
+      // value is a String when coming from an URL
+      Object statementTimeout =
+          connectionFactoryOptions.getValue(MariadbConnectionFactoryProvider.STATEMENT_TIMEOUT);
+      builder.statementTimeout(
+          statementTimeout instanceof Duration
+              ? (Duration) statementTimeout
+              : Duration.parse(statementTimeout.toString()));
+    }
+
+    if (connectionFactoryOptions.hasOption(
+        MariadbConnectionFactoryProvider.MAX_CONCURRENT_HANDSHAKES)) {
+      // value is a String when coming from an URL
+      Object maxConcurrentHandshakes =
+          connectionFactoryOptions.getValue(
+              MariadbConnectionFactoryProvider.MAX_CONCURRENT_HANDSHAKES);
+      builder.maxConcurrentHandshakes(
+          maxConcurrentHandshakes instanceof Number
+              ? ((Number) maxConcurrentHandshakes).intValue()
+              : Integer.parseInt(maxConcurrentHandshakes.toString()));
+    }
+
+    if (connectionFactoryOptions.hasOption(MariadbConnectionFactoryProvider.CONNECT_RETRIES)) {
+      // value is a String when coming from an URL
+      Object connectRetries =
+          connectionFactoryOptions.getValue(MariadbConnectionFactoryProvider.CONNECT_RETRIES);
+      builder.connectRetries(
+          connectRetries instanceof Number
+              ? ((Number) connectRetries).intValue()
+              : Integer.parseInt(connectRetries.toString()));
+    }
+
+    if (connectionFactoryOptions.hasOption(MariadbConnectionFactoryProvider.WARM_UP_STATEMENTS)) {
+      // statements contain commas: separator is semicolon
+      builder.warmUpStatements(
+          connectionFactoryOptions
+              .getValue(MariadbConnectionFactoryProvider.WARM_UP_STATEMENTS)
+              .split("\\s*;\\s*"));
+    }
+
+    if (connectionFactoryOptions.hasOption(MariadbConnectionFactoryProvider.OPTIMISTIC_CONNECT)) {
+      // value is a String when coming from an URL
+      Object optimisticConnect =
+          connectionFactoryOptions.getValue(MariadbConnectionFactoryProvider.OPTIMISTIC_CONNECT);
+      builder.optimisticConnect(
+          optimisticConnect instanceof Boolean
+              ? (Boolean) optimisticConnect
+              : Boolean.parseBoolean(optimisticConnect.toString()));
+    }
+
+    if (connectionFactoryOptions.hasOption(
+        MariadbConnectionFactoryProvider.QUERY_EXECUTION_LISTENER)) {
+      // value is a class name when coming from an URL
+      Object listener =
+          connectionFactoryOptions.getValue(
+              MariadbConnectionFactoryProvider.QUERY_EXECUTION_LISTENER);
+      builder.queryExecutionListener(
+          listener instanceof QueryExecutionListener
+              ? (QueryExecutionListener) listener
+              : newListener(listener.toString()));
+    }
+
+    if (connectionFactoryOptions.hasOption(
+        MariadbConnectionFactoryProvider.STATEMENT_STATISTICS_SIZE)) {
+      // value is a String when coming from an URL
+      Object statementStatisticsSize =
+          connectionFactoryOptions.getValue(
+              MariadbConnectionFactoryProvider.STATEMENT_STATISTICS_SIZE);
+      builder.statementStatisticsSize(
+          statementStatisticsSize instanceof Number
+              ? ((Number) statementStatisticsSize).intValue()
+              : Integer.parseInt(statementStatisticsSize.toString()));
+    }
+
+    if (connectionFactoryOptions.hasOption(MariadbConnectionFactoryProvider.RESULT_CACHE_SIZE)) {
+      // value is a String when coming from an URL
+      Object resultCacheSize =
+          connectionFactoryOptions.getValue(MariadbConnectionFactoryProvider.RESULT_CACHE_SIZE);
+      builder.resultCacheSize(
+          resultCacheSize instanceof Number
+              ? ((Number) resultCacheSize).longValue()
+              : Long.parseLong(resultCacheSize.toString()));
+    }
+
+    if (connectionFactoryOptions.hasOption(MariadbConnectionFactoryProvider.RESULT_CACHE_TTL)) {
+      // value is a String when coming from an URL
+      Object resultCacheTtl =
+          connectionFactoryOptions.getValue(MariadbConnectionFactoryProvider.RESULT_CACHE_TTL);
+      builder.resultCacheTtl(
+          resultCacheTtl instanceof Duration
+              ? (Duration) resultCacheTtl
+              : Duration.parse(resultCacheTtl.toString()));
+    }
+
+    if (connectionFactoryOptions.hasOption(MariadbConnectionFactoryProvider.SINGLE_FLIGHT)) {
+      // value is a String when coming from an URL
+      Object singleFlight =
+          connectionFactoryOptions.getValue(MariadbConnectionFactoryProvider.SINGLE_FLIGHT);
+      builder.singleFlight(
+          singleFlight instanceof Boolean
+              ? (Boolean) singleFlight
+              : Boolean.parseBoolean(singleFlight.toString()));
+    }
+
+    if (connectionFactoryOptions.hasOption(MariadbConnectionFactoryProvider.INSERT_BATCH_WINDOW)) {
+      // value is a String when coming from an URL
+      Object insertBatchWindow =
+          connectionFactoryOptions.getValue(MariadbConnectionFactoryProvider.INSERT_BATCH_WINDOW);
+      builder.insertBatchWindow(
+          insertBatchWindow instanceof Duration
+              ? (Duration) insertBatchWindow
+              : Duration.parse(insertBatchWindow.toString()));
+    }
+
+    if (connectionFactoryOptions.hasOption(MariadbConnectionFactoryProvider.INSERT_BATCH_SIZE)) {
+      // value is a String when coming from an URL
+      Object insertBatchSize =
+          connectionFactoryOptions.getValue(MariadbConnectionFactoryProvider.INSERT_BATCH_SIZE);
+      builder.insertBatchSize(
+          insertBatchSize instanceof Number
+              ? ((Number) insertBatchSize).intValue()
+              : Integer.parseInt(insertBatchSize.toString()));
+    }
+
     Map<String, String> options =
         connectionFactoryOptions.getValue(MariadbConnectionFactoryProvider.OPTIONS);
     if (options != null) {
@@ -163,6 +394,16 @@ public final class MariadbConnectionConfiguration {
     return builder;
   }
 
+  private static QueryExecutionListener newListener(String className) {
+    try {
+      return (QueryExecutionListener)
+          Class.forName(className).getDeclaredConstructor().newInstance();
+    } catch (ReflectiveOperationException | ClassCastException e) {
+      throw new IllegalArgumentException(
+          String.format("Cannot create query execution listener '%s'", className), e);
+    }
+  }
+
   public static Builder builder() {
     return new Builder();
   }
@@ -226,6 +467,10 @@ public final class MariadbConnectionConfiguration {
     return allowPipelining;
   }
 
+  public boolean allowLocalInfile() {
+    return allowLocalInfile;
+  }
+
   public SslConfig getSslConfig() {
     return sslConfig;
   }
@@ -250,6 +495,77 @@ public final class MariadbConnectionConfiguration {
     return prepareCacheSize;
   }
 
+  public List<HostAddress> getReplicas() {
+    return replicas;
+  }
+
+  public LoadBalanceStrategy getLoadBalanceStrategy() {
+    return loadBalanceStrategy;
+  }
+
+  public Duration getBlacklistDuration() {
+    return blacklistDuration;
+  }
+
+  public boolean streamLargeValues() {
+    return streamLargeValues;
+  }
+
+  public long getKillQueryThreshold() {
+    return killQueryThreshold;
+  }
+
+  @Nullable
+  public Duration getStatementTimeout() {
+    return statementTimeout;
+  }
+
+  public int getMaxConcurrentHandshakes() {
+    return maxConcurrentHandshakes;
+  }
+
+  public int getConnectRetries() {
+    return connectRetries;
+  }
+
+  public List<String> getWarmUpStatements() {
+    return warmUpStatements;
+  }
+
+  public boolean optimisticConnect() {
+    return optimisticConnect;
+  }
+
+  @Nullable
+  public QueryExecutionListener getQueryExecutionListener() {
+    return queryExecutionListener;
+  }
+
+  public int getStatementStatisticsSize() {
+    return statementStatisticsSize;
+  }
+
+  public long getResultCacheSize() {
+    return resultCacheSize;
+  }
+
+  public Duration getResultCacheTtl() {
+    return resultCacheTtl;
+  }
+
+  public boolean singleFlight() {
+    return singleFlight;
+  }
+
+  @Nullable
+  public Duration getInsertBatchWindow() {
+    return insertBatchWindow;
+  }
+
+  public int getInsertBatchSize() {
+    return insertBatchSize;
+  }
+
   @Override
   public String toString() {
     StringBuilder hiddenPwd = new StringBuilder();
@@ -279,6 +595,8 @@ public final class MariadbConnectionConfiguration {
         + '\''
         + ", allowMultiQueries="
         + allowMultiQueries
+        + ", allowLocalInfile="
+        + allowLocalInfile
         + ", connectionAttributes="
         + connectionAttributes
         + ", sslConfig="
@@ -290,6 +608,38 @@ public final class MariadbConnectionConfiguration {
         + allowPublicKeyRetrieval
         + ", useServerPrepStmts="
         + useServerPrepStmts
+        + ", replicas="
+        + replicas
+        + ", loadBalanceStrategy="
+        + loadBalanceStrategy
+        + ", streamLargeValues="
+        + streamLargeValues
+        + ", killQueryThreshold="
+        + killQueryThreshold
+        + ", statementTimeout="
+        + statementTimeout
+        + ", maxConcurrentHandshakes="
+        + maxConcurrentHandshakes
+        + ", connectRetries="
+        + connectRetries
+        + ", warmUpStatements="
+        + warmUpStatements
+        + ", optimisticConnect="
+        + optimisticConnect
+        + ", queryExecutionListener="
+        + queryExecutionListener
+        + ", statementStatisticsSize="
+        + statementStatisticsSize
+        + ", resultCacheSize="
+        + resultCacheSize
+        + ", resultCacheTtl="
+        + resultCacheTtl
+        + ", singleFlight="
+        + singleFlight
+        + ", insertBatchWindow="
+        + insertBatchWindow
+        + ", insertBatchSize="
+        + insertBatchSize
         + '}';
   }
 
@@ -350,6 +700,7 @@ public final class MariadbConnectionConfiguration {
     @Nullable private String socket;
     private boolean allowMultiQueries = false;
     private boolean allowPipelining = true;
+    private boolean allowLocalInfile = false;
     private boolean useServerPrepStmts = false;
     @Nullable Integer prepareCacheSize;
     @Nullable private List<String> tlsProtocol;
@@ -358,6 +709,23 @@ public final class MariadbConnectionConfiguration {
     @Nullable private String clientSslKey;
     @Nullable private CharSequence clientSslPassword;
     private SslMode sslMode = SslMode.DISABLED;
+    @Nullable private String replicas;
+    private LoadBalanceStrategy loadBalanceStrategy = LoadBalanceStrategy.ROUND_ROBIN;
+    @Nullable private Duration blacklistDuration;
+    private boolean streamLargeValues = false;
+    private long killQueryThreshold = 0;
+    @Nullable private Duration statementTimeout;
+    private int maxConcurrentHandshakes = 0;
+    private int connectRetries = 0;
+    @Nullable private List<String> warmUpStatements;
+    private boolean optimisticConnect = false;
+    @Nullable private QueryExecutionListener queryExecutionListener;
+    private int statementStatisticsSize = 0;
+    private long resultCacheSize = 0;
+    @Nullable private Duration resultCacheTtl;
+    private boolean singleFlight = false;
+    @Nullable private Duration insertBatchWindow;
+    private int insertBatchSize = 100;
 
     private Builder() {}
 
@@ -381,6 +749,11 @@ public final class MariadbConnectionConfiguration {
         throw new IllegalArgumentException("username must not be null");
       }
 
+      if (this.blacklistDuration != null
+          && (this.blacklistDuration.isZero() || this.blacklistDuration.isNegative())) {
+        throw new IllegalArgumentException("blacklistDuration must be greater than zero");
+      }
+
       return new MariadbConnectionConfiguration(
           this.connectTimeout,
           this.database,
@@ -393,6 +766,7 @@ public final class MariadbConnectionConfiguration {
           this.username,
           this.allowMultiQueries,
           this.allowPipelining,
+          this.allowLocalInfile,
           this.tlsProtocol,
           this.serverSslCert,
           this.clientSslCert,
@@ -403,7 +777,24 @@ public final class MariadbConnectionConfiguration {
           this.cachingRsaPublicKey,
           this.allowPublicKeyRetrieval,
           this.useServerPrepStmts,
-          this.prepareCacheSize);
+          this.prepareCacheSize,
+          this.replicas,
+          this.loadBalanceStrategy,
+          this.blacklistDuration,
+          this.streamLargeValues,
+          this.killQueryThreshold,
+          this.statementTimeout,
+          this.maxConcurrentHandshakes,
+          this.connectRetries,
+          this.warmUpStatements,
+          this.optimisticConnect,
+          this.queryExecutionListener,
+          this.statementStatisticsSize,
+          this.resultCacheSize,
+          this.resultCacheTtl,
+          this.singleFlight,
+          this.insertBatchWindow,
+          this.insertBatchSize);
     }
 
     /**
@@ -631,6 +1022,268 @@ public final class MariadbConnectionConfiguration {
       return this;
     }
 
+    /**
+     * Permit LOAD DATA LOCAL INFILE commands executed with {@link
+     * org.mariadb.r2dbc.api.MariadbConnection#loadData}, indicating to server that client can send
+     * file content. Such commands cannot then be executed as statements, since commands pipelined
+     * after them would be read by server as file content. Default to false.
+     *
+     * @param allowLocalInfile permit LOAD DATA LOCAL INFILE
+     * @return this {@link Builder}
+     */
+    public Builder allowLocalInfile(boolean allowLocalInfile) {
+      this.allowLocalInfile = allowLocalInfile;
+      return this;
+    }
+
+    /**
+     * Configure replicas, as a comma separated list of addresses, like
+     * "replica1:3306,replica2:3306" (port defaults to primary port). Read-only transactions, begun
+     * with {@link org.mariadb.r2dbc.api.MariadbConnection#beginReadOnlyTransaction()}, are then
+     * routed to a replica.
+     *
+     * @param replicas replica addresses
+     * @return this {@link Builder}
+     */
+    public Builder replicas(@Nullable String replicas) {
+      this.replicas = replicas;
+      return this;
+    }
+
+    /**
+     * Configure how replicas are chosen. Defaults to {@link LoadBalanceStrategy#ROUND_ROBIN}.
+     *
+     * @param loadBalanceStrategy load balancing strategy
+     * @return this {@link Builder}
+     */
+    public Builder loadBalanceStrategy(LoadBalanceStrategy loadBalanceStrategy) {
+      this.loadBalanceStrategy = loadBalanceStrategy;
+      if (loadBalanceStrategy == null) this.loadBalanceStrategy = LoadBalanceStrategy.ROUND_ROBIN;
+      return this;
+    }
+
+    /**
+     * Configure how long a failing replica is not used anymore. Must be greater than zero. Defaults
+     * to 60 seconds.
+     *
+     * @param blacklistDuration blacklist duration
+     * @return this {@link Builder}
+     */
+    public Builder blacklistDuration(@Nullable Duration blacklistDuration) {
+      this.blacklistDuration = blacklistDuration;
+      return this;
+    }
+
+    /**
+     * Stream values received in multiple packets (over 16M) instead of reassembling the row. The
+     * large value must be the last column of the row, and is only available as a {@link
+     * io.r2dbc.spi.Blob}, that must be consumed or discarded before next rows are read. Default to
+     * false.
+     *
+     * @param streamLargeValues stream large values
+     * @return this {@link Builder}
+     */
+    public Builder streamLargeValues(boolean streamLargeValues) {
+      this.streamLargeValues = streamLargeValues;
+      return this;
+    }
+
+    /**
+     * When a result is cancelled before being completely read, remaining rows are discarded as they
+     * are received. Once this number of bytes has been discarded, a KILL QUERY command is sent on a
+     * separate connection, so server stops sending the result. Default to 0 (disabled).
+     *
+     * <p>As with any KILL QUERY, if the query ends meanwhile, server may interrupt the next query
+     * executed by the connection instead.
+     *
+     * @param killQueryThreshold discarded bytes before killing query, 0 to disable
+     * @return this {@link Builder}
+     */
+    public Builder killQueryThreshold(long killQueryThreshold) {
+      this.killQueryThreshold = killQueryThreshold;
+      return this;
+    }
+
+    /**
+     * Default execution timeout of statements, that can be changed for a statement with {@link
+     * org.mariadb.r2dbc.api.MariadbStatement#timeout(Duration)}. On MariaDB server, timeout is
+     * enforced by server (using max_statement_time), on other servers the query is killed from a
+     * separate connection. Default unconfigured (no timeout).
+     *
+     * @param statementTimeout statement timeout
+     * @return this {@link Builder}
+     */
+    public Builder statementTimeout(@Nullable Duration statementTimeout) {
+      this.statementTimeout = statementTimeout;
+      return this;
+    }
+
+    /**
+     * Maximum number of connection handshakes (TCP connection, TLS negotiation and authentication)
+     * in progress at the same time for a connection factory. Other connections wait for a running
+     * handshake to end, avoiding connection storms overloading server on cold start or failover.
+     * Default to 0 (no limit).
+     *
+     * @param maxConcurrentHandshakes maximum concurrent handshakes, 0 for no limit
+     * @return this {@link Builder}
+     */
+    public Builder maxConcurrentHandshakes(int maxConcurrentHandshakes) {
+      this.maxConcurrentHandshakes = maxConcurrentHandshakes;
+      return this;
+    }
+
+    /**
+     * Number of times a connection that failed to be established is retried, with a jittered
+     * exponential backoff (100ms first, up to 10s). Only network errors and server errors like too
+     * many connections are retried, not authentication failures. Default to 0 (no retry).
+     *
+     * @param connectRetries connection retries
+     * @return this {@link Builder}
+     */
+    public Builder connectRetries(int connectRetries) {
+      this.connectRetries = connectRetries;
+      return this;
+    }
+
+    /**
+     * Send connection setup commands (session variables) right after the handshake response,
+     * without waiting for the authentication result, saving a round-trip per connection. This is
+     * only done when pipelining is allowed and server default authentication plugin is
+     * mysql_native_password. If server then requests another authentication plugin, connection is
+     * established again without pipelining, and this connection factory stops pipelining. Default
+     * to false.
+     *
+     * @param optimisticConnect pipeline connection setup behind authentication
+     * @return this {@link Builder}
+     */
+    public Builder optimisticConnect(boolean optimisticConnect) {
+      this.optimisticConnect = optimisticConnect;
+      return this;
+    }
+
+    /**
+     * Listener notified around each query execution, with its SQL, row count, received bytes and
+     * timings. No execution is tracked when no listener is set (default).
+     *
+     * @param queryExecutionListener query execution listener
+     * @return this {@link Builder}
+     */
+    public Builder queryExecutionListener(@Nullable QueryExecutionListener queryExecutionListener) {
+      this.queryExecutionListener = queryExecutionListener;
+      return this;
+    }
+
+    /**
+     * Keep execution statistics (count, errors, rows, latency histogram) by statement digest,
+     * statement SQL with literals replaced by '?'. Statistics are available with {@link
+     * MariadbConnectionFactory#getStatementStatistics()}. Default to 0: disabled.
+     *
+     * @param statementStatisticsSize maximum number of digests tracked, a new digest replacing a
+     *     less executed one
+     * @return this {@link Builder}
+     */
+    public Builder statementStatisticsSize(int statementStatisticsSize) {
+      this.statementStatisticsSize = statementStatisticsSize;
+      return this;
+    }
+
+    /**
+     * Cache results of statements opting in with {@link
+     * org.mariadb.r2dbc.api.MariadbStatement#cacheResult()}, for all connections of the factory.
+     * Cached results are invalidated when a connection of the factory modifies a table they read:
+     * the cache only observes writes made through the same factory, writes made by other clients
+     * being seen once results expire. Results read through views, derived tables or expressions,
+     * whose tables are not known, are not cached. Cache statistics are available with {@link
+     * MariadbConnectionFactory#getResultCache()}. Default to 0: disabled.
+     *
+     * @param resultCacheSize maximum memory used by cached results, in bytes, least recently used
+     *     results being evicted
+     * @return this {@link Builder}
+     */
+    public Builder resultCacheSize(long resultCacheSize) {
+      this.resultCacheSize = resultCacheSize;
+      return this;
+    }
+
+    /**
+     * Time a result stays cached, modifications made by other clients being seen once it expires.
+     * Default to 60s.
+     *
+     * @param resultCacheTtl cached result time to live
+     * @return this {@link Builder}
+     */
+    public Builder resultCacheTtl(@Nullable Duration resultCacheTtl) {
+      this.resultCacheTtl = resultCacheTtl;
+      return this;
+    }
+
+    /**
+     * Share executions of identical read-only queries: a query sent with text protocol in
+     * autocommit mode, outside a transaction, while an identical query (same SQL and parameters,
+     * same database) of a connection of the factory is executing, is not sent but receives the
+     * response of the running query. A connection only receives responses of queries started after
+     * its last modification ended, and stops sharing once it sets session variables or creates
+     * temporary tables, until reset. Queries calling functions with side effects or returning
+     * different values on each call must not rely on it. Statistics are available with {@link
+     * MariadbConnectionFactory#getSingleFlight()}. Ignored when streaming large values. Default to
+     * false.
+     *
+     * @param singleFlight share executions of identical queries
+     * @return this {@link Builder}
+     */
+    public Builder singleFlight(boolean singleFlight) {
+      this.singleFlight = singleFlight;
+      return this;
+    }
+
+    /**
+     * Merge single-row INSERT statements sharing the same text up to VALUES, executed with text
+     * protocol in autocommit mode on the same connection within this window, into multi-values
+     * INSERT commands. Each statement still receives its own result, a failing merged command error
+     * being received by all its statements (see {@link InsertBatcher}). This is the latency added
+     * to a statement waiting for others. Statistics are available with {@link
+     * MariadbConnectionFactory#getInsertBatcher()}. Default unconfigured: disabled.
+     *
+     * @param insertBatchWindow time a statement waits for others to be merged with
+     * @return this {@link Builder}
+     */
+    public Builder insertBatchWindow(@Nullable Duration insertBatchWindow) {
+      this.insertBatchWindow = insertBatchWindow;
+      return this;
+    }
+
+    /**
+     * Maximum number of statements merged in a single INSERT command, command being sent without
+     * waiting for the end of the window once reached. Default to 100.
+     *
+     * @param insertBatchSize maximum number of merged statements
+     * @return this {@link Builder}
+     */
+    public Builder insertBatchSize(int insertBatchSize) {
+      this.insertBatchSize = insertBatchSize;
+      return this;
+    }
+
+    /**
+     * Statements prepared on each connection opened by {@link
+     * MariadbConnectionFactory#warmUp(int)}, when using server prepared statements, so their first
+     * execution doesn't need to prepare them.
+     *
+     * @param warmUpStatements statements to prepare
+     * @return this {@link Builder}
+     */
+    public Builder warmUpStatements(String... warmUpStatements) {
+      if (warmUpStatements == null) {
+        this.warmUpStatements = null;
+        return this;
+      }
+      this.warmUpStatements = new ArrayList<>();
+      for (String sql : warmUpStatements) {
+        if (!sql.trim().isEmpty()) this.warmUpStatements.add(sql);
+      }
+      return this;
+    }
+
     /**
      * Configure the port. Defaults to {@code 3306}.
      *
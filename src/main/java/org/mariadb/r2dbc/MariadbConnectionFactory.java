@@ -18,26 +18,58 @@ package org.mariadb.r2dbc;
 
 import io.netty.channel.unix.DomainSocketAddress;
 import io.r2dbc.spi.*;
+import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
-import java.util.Iterator;
+import java.time.Duration;
 import java.util.Map;
 import org.mariadb.r2dbc.client.Client;
 import org.mariadb.r2dbc.client.ClientImpl;
 import org.mariadb.r2dbc.client.ClientPipelineImpl;
+import org.mariadb.r2dbc.client.ConnectionContext;
+import org.mariadb.r2dbc.client.FactoryContext;
+import org.mariadb.r2dbc.client.LoadBalancer;
 import org.mariadb.r2dbc.message.flow.AuthenticationFlow;
+import org.mariadb.r2dbc.message.flow.AuthenticationSwitchException;
 import org.mariadb.r2dbc.util.Assert;
+import org.mariadb.r2dbc.util.HandshakeLimiter;
+import org.mariadb.r2dbc.util.HostAddress;
+import org.mariadb.r2dbc.util.ResultCache;
+import org.mariadb.r2dbc.util.SingleFlight;
+import org.mariadb.r2dbc.util.StatementStatistics;
+import org.mariadb.r2dbc.util.constants.Capabilities;
+import org.mariadb.r2dbc.util.jfr.DriverEvents;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.netty.resources.ConnectionProvider;
+import reactor.util.Logger;
+import reactor.util.Loggers;
+import reactor.util.retry.Retry;
 
 public final class MariadbConnectionFactory implements ConnectionFactory {
 
+  private static final Logger logger = Loggers.getLogger(MariadbConnectionFactory.class);
+  private static final String CONNECTION_FAILURE_STATE = "08006";
   private final MariadbConnectionConfiguration configuration;
   private final SocketAddress endpoint;
+  private final LoadBalancer loadBalancer;
+  private final HandshakeLimiter handshakeLimiter;
+  private final FactoryContext factoryContext;
+  private volatile boolean optimisticConnect;
 
   public MariadbConnectionFactory(MariadbConnectionConfiguration configuration) {
     this.configuration = Assert.requireNonNull(configuration, "configuration must not be null");
     this.endpoint = createSocketAddress(configuration);
+    this.factoryContext = new FactoryContext(configuration);
+    this.loadBalancer =
+        configuration.getReplicas().isEmpty()
+            ? null
+            : new LoadBalancer(
+                configuration.getReplicas(),
+                configuration.getLoadBalanceStrategy(),
+                configuration.getBlacklistDuration());
+    this.handshakeLimiter = new HandshakeLimiter(configuration.getMaxConcurrentHandshakes());
+    this.optimisticConnect = configuration.optimisticConnect() && configuration.allowPipelining();
   }
 
   public static MariadbConnectionFactory from(MariadbConnectionConfiguration configuration) {
@@ -61,59 +93,285 @@ public final class MariadbConnectionFactory implements ConnectionFactory {
     return doCreateConnection().cast(org.mariadb.r2dbc.api.MariadbConnection.class);
   }
 
+  /**
+   * Open connections ahead of demand, so a service reaches its steady-state latency right after
+   * start. Connections are opened concurrently, within the limit of {@link
+   * MariadbConnectionConfiguration#getMaxConcurrentHandshakes()} handshakes in progress, and
+   * statements configured with {@link
+   * MariadbConnectionConfiguration.Builder#warmUpStatements(String...)} are prepared on each of
+   * them when using server prepared statements.
+   *
+   * <p>Connections are then given to the application (typically, to be added to a connection pool),
+   * that is responsible for closing them.
+   *
+   * @param connections number of connections to open
+   * @return connections, as they are ready
+   */
+  public Flux<org.mariadb.r2dbc.api.MariadbConnection> warmUp(int connections) {
+    if (connections < 0) throw new IllegalArgumentException("connections must not be negative");
+    if (connections == 0) return Flux.empty();
+    int maxConcurrent = configuration.getMaxConcurrentHandshakes();
+    return Flux.range(0, connections)
+        .flatMap(
+            i ->
+                doCreateConnection()
+                    .flatMap(
+                        connection ->
+                            connection
+                                .prepare(configuration.getWarmUpStatements())
+                                .thenReturn(connection)
+                                .onErrorResume(
+                                    throwable -> connection.close().then(Mono.error(throwable)))),
+            maxConcurrent > 0 ? maxConcurrent : connections)
+        .cast(org.mariadb.r2dbc.api.MariadbConnection.class);
+  }
+
   private Mono<MariadbConnection> doCreateConnection() {
+    HostAddress hostAddress =
+        configuration.getSocket() == null
+            ? new HostAddress(configuration.getHost(), configuration.getPort())
+            : null;
+    Mono<Client> clientMono = connectClient(this.endpoint, hostAddress);
+    if (configuration.getConnectRetries() > 0) {
+      clientMono =
+          clientMono.retryWhen(
+              Retry.backoff(configuration.getConnectRetries(), Duration.ofMillis(100))
+                  .maxBackoff(Duration.ofSeconds(10))
+                  .jitter(0.5)
+                  .filter(MariadbConnectionFactory::isRetryable)
+                  .doBeforeRetry(
+                      signal ->
+                          logger.debug(
+                              "Connection attempt {} failed, retrying",
+                              signal.totalRetries() + 1,
+                              signal.failure()))
+                  .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
+    }
+    return clientMono
+        .flatMap(
+            client ->
+                isolationLevel(client)
+                    .map(
+                        it ->
+                            new MariadbConnection(
+                                client,
+                                it,
+                                configuration,
+                                loadBalancer == null ? null : this::connectReplica))
+                    .onErrorResume(throwable -> this.closeWithError(client, throwable)))
+        .onErrorMap(throwable -> cannotConnect(throwable, this.endpoint));
+  }
+
+  /**
+   * Indicate if a connection failure may succeed when retried: network errors, connection closed
+   * during handshake and transient server errors (like too many connections). Setup failures that
+   * would fail the same way again (ssl not supported, authentication failures, unknown plugin) are
+   * not retried, nor is a host blocked for too many connection errors, which stays blocked until
+   * FLUSH HOSTS.
+   *
+   * @param throwable connection failure
+   * @return true if connection can be retried
+   */
+  private static boolean isRetryable(Throwable throwable) {
+    if (throwable instanceof AuthenticationSwitchException) return false;
+    for (Throwable t = throwable; t != null; t = t.getCause()) {
+      if (t instanceof IOException) return true;
+      if (t instanceof R2dbcException) {
+        R2dbcException exception = (R2dbcException) t;
+        if (CONNECTION_FAILURE_STATE.equals(exception.getSqlState())) return true;
+        switch (exception.getErrorCode()) {
+          case 1040: // too many connections
+          case 1053: // server shutdown in progress
+          case 1203: // user has exceeded max_user_connections
+            return true;
+          default:
+            break;
+        }
+      }
+      if (t.getCause() == t) break;
+    }
+    return false;
+  }
+
+  private Mono<Client> connectClient(SocketAddress endpoint, HostAddress hostAddress) {
+    return handshakeLimiter.limit(Mono.defer(() -> handshake(endpoint, hostAddress)));
+  }
 
+  private Mono<Client> handshake(SocketAddress endpoint, HostAddress hostAddress) {
+    Object event = DriverEvents.connectionStarted();
+    long start = System.nanoTime();
+    // TCP connection end, authentication end
+    long[] phaseEnd = new long[2];
     Mono<Client> clientMono;
     if (configuration.allowPipelining()) {
       clientMono =
           ClientPipelineImpl.connect(
-              ConnectionProvider.newConnection(), this.endpoint, configuration);
+              ConnectionProvider.newConnection(),
+              endpoint,
+              hostAddress,
+              configuration,
+              factoryContext);
     } else {
       clientMono =
-          ClientImpl.connect(ConnectionProvider.newConnection(), this.endpoint, configuration);
+          ClientImpl.connect(
+              ConnectionProvider.newConnection(),
+              endpoint,
+              hostAddress,
+              configuration,
+              factoryContext);
+    }
+    clientMono =
+        clientMono.doOnNext(
+            client -> {
+              phaseEnd[0] = System.nanoTime();
+              client.setKillQueryConnector(() -> connectClient(endpoint, hostAddress));
+            });
+
+    if (optimisticConnect) {
+      return clientMono
+          .delayUntil(
+              client ->
+                  AuthenticationFlow.exchange(client, configuration, this::setSessionVariables))
+          .cast(Client.class)
+          .doOnNext(
+              client -> {
+                phaseEnd[1] = System.nanoTime();
+                connected(event, endpoint, client, start, phaseEnd);
+              })
+          .onErrorResume(
+              AuthenticationSwitchException.class,
+              throwable -> {
+                // server does not authenticate with native password: stop pipelining setup
+                optimisticConnect = false;
+                logger.debug("Optimistic connect disabled : {}", throwable.getMessage());
+                return handshake(endpoint, hostAddress);
+              });
     }
 
     return clientMono
         .delayUntil(client -> AuthenticationFlow.exchange(client, this.configuration))
         .cast(Client.class)
+        .doOnNext(client -> phaseEnd[1] = System.nanoTime())
         .flatMap(
-            client -> {
-              Mono<Void> waiting = Mono.empty();
-              if (configuration.getSessionVariables() != null
-                  && configuration.getSessionVariables().size() > 0) {
-                waiting = setSessionVariables(client);
-              }
-
-              if (configuration.getIsolationLevel() == null) {
-
-                Mono<IsolationLevel> isolationLevelMono = waiting.then(getIsolationLevel(client));
-                return isolationLevelMono
-                    .map(it -> new MariadbConnection(client, it, configuration))
-                    .onErrorResume(throwable -> this.closeWithError(client, throwable));
-              } else {
-                return waiting
-                    .then(
-                        Mono.just(
-                            new MariadbConnection(
-                                client, configuration.getIsolationLevel(), configuration)))
-                    .onErrorResume(throwable -> this.closeWithError(client, throwable));
-              }
-            })
-        .onErrorMap(this::cannotConnect);
+            client ->
+                setSessionVariables(client)
+                    .thenReturn(client)
+                    .onErrorResume(throwable -> this.closeWithError(client, throwable)))
+        .doOnNext(client -> connected(event, endpoint, client, start, phaseEnd));
+  }
+
+  private static void connected(
+      Object event, SocketAddress endpoint, Client client, long start, long[] phaseEnd) {
+    if (event == null) return;
+    long tlsHandshake = client.getTlsHandshakeNanos();
+    DriverEvents.connectionEnded(
+        event,
+        endpoint.toString(),
+        phaseEnd[0] - start,
+        tlsHandshake,
+        phaseEnd[1] - phaseEnd[0] - tlsHandshake);
+  }
+
+  /**
+   * Connect to a replica chosen by load balancer. A replica that cannot be reached is blacklisted
+   * and another one is tried.
+   *
+   * @return replica client, or empty if no replica is available
+   */
+  private Mono<Client> connectReplica() {
+    return connectReplica(loadBalancer.getHosts().size());
   }
 
-  private Mono<MariadbConnection> closeWithError(Client client, Throwable throwable) {
+  /**
+   * Connect to a replica, trying another one if connection fails.
+   *
+   * @param attempts maximum number of replicas to try
+   * @return replica client, or empty if no replica is available
+   */
+  private Mono<Client> connectReplica(int attempts) {
+    return Mono.defer(
+        () -> {
+          LoadBalancer.Host host = attempts > 0 ? loadBalancer.select() : null;
+          if (host == null) return Mono.empty();
+          long start = System.nanoTime();
+          return connectClient(host.getAddress().toSocketAddress(), host.getAddress())
+              .doOnNext(
+                  client -> {
+                    host.recordLatency(System.nanoTime() - start);
+                    host.register(client);
+                  })
+              .onErrorResume(
+                  throwable -> {
+                    logger.warn(
+                        String.format("Cannot connect to replica %s", host.getAddress()),
+                        throwable);
+                    host.blacklist();
+                    return connectReplica(attempts - 1);
+                  });
+        });
+  }
+
+  private <T> Mono<T> closeWithError(Client client, Throwable throwable) {
     return client.close().then(Mono.error(throwable));
   }
 
-  private Throwable cannotConnect(Throwable throwable) {
+  private Throwable cannotConnect(Throwable throwable, SocketAddress endpoint) {
 
     if (throwable instanceof R2dbcException) {
       return throwable;
     }
 
     return new R2dbcNonTransientResourceException(
-        String.format("Cannot connect to %s", this.endpoint), throwable);
+        String.format("Cannot connect to %s", endpoint), throwable);
+  }
+
+  /**
+   * Replica load balancer, when replicas are configured.
+   *
+   * @return load balancer, or null
+   */
+  public LoadBalancer getLoadBalancer() {
+    return loadBalancer;
+  }
+
+  /**
+   * Execution statistics by statement digest, when enabled with {@link
+   * MariadbConnectionConfiguration.Builder#statementStatisticsSize(int)}.
+   *
+   * @return statement statistics, or null
+   */
+  public StatementStatistics getStatementStatistics() {
+    return factoryContext.getStatementStatistics();
+  }
+
+  /**
+   * Query result cache, when enabled with {@link
+   * MariadbConnectionConfiguration.Builder#resultCacheSize(long)}.
+   *
+   * @return result cache, or null
+   */
+  public ResultCache getResultCache() {
+    return factoryContext.getResultCache();
+  }
+
+  /**
+   * Executions shared by identical queries, when enabled with {@link
+   * MariadbConnectionConfiguration.Builder#singleFlight(boolean)}.
+   *
+   * @return single flight, or null
+   */
+  public SingleFlight getSingleFlight() {
+    return factoryContext.getSingleFlight();
+  }
+
+  /**
+   * Merges concurrent INSERT statements, when enabled with {@link
+   * MariadbConnectionConfiguration.Builder#insertBatchWindow(Duration)}.
+   *
+   * @return insert batcher, or null
+   */
+  public InsertBatcher getInsertBatcher() {
+    return factoryContext.getInsertBatcher();
   }
 
   @Override
@@ -127,57 +385,110 @@ public final class MariadbConnectionFactory implements ConnectionFactory {
   }
 
   private Mono<Void> setSessionVariables(Client client) {
-    StringBuilder sql = new StringBuilder("SET ");
+    String sql = sessionVariablesQuery(client, configuration);
+    if (sql == null) return Mono.empty();
+    return new MariadbSimpleQueryStatement(client, sql)
+        .execute()
+        .flatMap(org.mariadb.r2dbc.api.MariadbResult::getRowsUpdated)
+        // configured session is identical for all connections
+        .then(Mono.fromRunnable(client::resetSessionState));
+  }
+
+  /**
+   * Query setting session variables: session tracking, and configured session variables.
+   *
+   * @param client client
+   * @param configuration configuration
+   * @return SET query, or null if there is nothing to set
+   */
+  static String sessionVariablesQuery(Client client, MariadbConnectionConfiguration configuration) {
+    StringBuilder sql = new StringBuilder();
+    boolean tracking = supportSessionTracking(client);
+
+    if (tracking) {
+      // server will then send state changes in OK_Packet, avoiding any status query
+      sql.append(
+              "session_track_system_variables='autocommit,character_set_client,auto_increment_increment,")
+          .append(isolationVariable(client));
+      if (client.getVersion().isMariaDBServer()) sql.append(",max_statement_time");
+      sql.append("'");
+      if (supportTransactionTracking(client)) {
+        sql.append(",session_track_transaction_info='CHARACTERISTICS'");
+      }
+    }
 
     Map<String, String> sessionVariable = configuration.getSessionVariables();
-    Iterator<String> keys = sessionVariable.keySet().iterator();
-    for (int i = 0; i < sessionVariable.size(); i++) {
-      if (i > 0) sql.append(",");
-      String key = keys.next();
-      String value = sessionVariable.get(key);
-      if (value == null)
-        throw new IllegalArgumentException(
-            String.format("Session variable '%s' has no value", key));
-      sql.append(key).append("=").append(value);
+    if (sessionVariable != null) {
+      for (Map.Entry<String, String> entry : sessionVariable.entrySet()) {
+        if (entry.getValue() == null)
+          throw new IllegalArgumentException(
+              String.format("Session variable '%s' has no value", entry.getKey()));
+        if (sql.length() > 0) sql.append(",");
+        sql.append(entry.getKey()).append("=").append(entry.getValue());
+      }
     }
 
-    return new MariadbSimpleQueryStatement(client, sql.toString()).execute().last().then();
+    if (tracking) {
+      // self-assignment, so current values are reported in the same response
+      String isolationVariable = isolationVariable(client);
+      sql.append(",")
+          .append(isolationVariable)
+          .append("=@@")
+          .append(isolationVariable)
+          .append(",character_set_client=@@character_set_client")
+          .append(",auto_increment_increment=@@auto_increment_increment");
+      if (client.getVersion().isMariaDBServer()) {
+        sql.append(",max_statement_time=@@max_statement_time");
+      }
+    }
+
+    if (sql.length() == 0) return null;
+    return "SET " + sql.toString();
   }
 
-  private Mono<IsolationLevel> getIsolationLevel(Client client) {
-    String sql = "SELECT @@tx_isolation";
+  private static boolean supportSessionTracking(Client client) {
+    if ((client.getContext().getServerCapabilities() & Capabilities.CLIENT_SESSION_TRACK) == 0) {
+      return false;
+    }
+    return client.getVersion().isMariaDBServer()
+        ? client.getVersion().versionGreaterOrEqual(10, 2, 2)
+        : client.getVersion().versionGreaterOrEqual(5, 7, 0);
+  }
+
+  private static boolean supportTransactionTracking(Client client) {
+    return client.getVersion().isMariaDBServer()
+        ? client.getVersion().versionGreaterOrEqual(10, 3, 1)
+        : client.getVersion().versionGreaterOrEqual(5, 7, 0);
+  }
+
+  static String isolationVariable(Client client) {
     if (!client.getVersion().isMariaDBServer()
         && (client.getVersion().versionGreaterOrEqual(8, 0, 3)
             || (client.getVersion().getMajorVersion() < 8
                 && client.getVersion().versionGreaterOrEqual(5, 7, 20)))) {
-      sql = "SELECT @@transaction_isolation";
+      return "transaction_isolation";
     }
+    return "tx_isolation";
+  }
 
+  private Mono<IsolationLevel> isolationLevel(Client client) {
+    IsolationLevel tracked = client.getContext().getIsolationLevel();
+    if (tracked != null) return Mono.just(tracked);
+    if (configuration.getIsolationLevel() != null) {
+      return Mono.just(configuration.getIsolationLevel());
+    }
+    return getIsolationLevel(client);
+  }
+
+  private Mono<IsolationLevel> getIsolationLevel(Client client) {
+    String sql = "SELECT @@" + isolationVariable(client);
     return new MariadbSimpleQueryStatement(client, sql)
         .execute()
         .flatMap(
             it ->
                 it.map(
-                    (row, rowMetadata) -> {
-                      String level = row.get(0, String.class);
-
-                      switch (level) {
-                        case "REPEATABLE-READ":
-                          return IsolationLevel.REPEATABLE_READ;
-
-                        case "READ-UNCOMMITTED":
-                          return IsolationLevel.READ_UNCOMMITTED;
-
-                        case "READ-COMMITTED":
-                          return IsolationLevel.READ_COMMITTED;
-
-                        case "SERIALIZABLE":
-                          return IsolationLevel.SERIALIZABLE;
-
-                        default:
-                          return IsolationLevel.READ_COMMITTED;
-                      }
-                    }))
+                    (row, rowMetadata) ->
+                        ConnectionContext.toIsolationLevel(row.get(0, String.class))))
         .defaultIfEmpty(IsolationLevel.READ_COMMITTED)
         .last();
   }
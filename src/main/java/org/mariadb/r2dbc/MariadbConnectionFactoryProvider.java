@@ -21,7 +21,9 @@ import static io.r2dbc.spi.ConnectionFactoryOptions.DRIVER;
 import io.r2dbc.spi.ConnectionFactoryOptions;
 import io.r2dbc.spi.ConnectionFactoryProvider;
 import io.r2dbc.spi.Option;
+import java.time.Duration;
 import java.util.Map;
+import org.mariadb.r2dbc.api.QueryExecutionListener;
 import org.mariadb.r2dbc.util.Assert;
 
 public final class MariadbConnectionFactoryProvider implements ConnectionFactoryProvider {
@@ -32,10 +34,31 @@ public final class MariadbConnectionFactoryProvider implements ConnectionFactory
   public static final Option<String> SERVER_SSL_CERT = Option.valueOf("serverSslCert");
   public static final Option<String> CLIENT_SSL_CERT = Option.valueOf("clientSslCert");
   public static final Option<Boolean> ALLOW_PIPELINING = Option.valueOf("allowPipelining");
+  public static final Option<Boolean> ALLOW_LOCAL_INFILE = Option.valueOf("allowLocalInfile");
   public static final Option<Boolean> USE_SERVER_PREPARE = Option.valueOf("useServerPrepStmts");
   public static final Option<Integer> PREPARE_CACHE_SIZE = Option.valueOf("prepareCacheSize");
   public static final Option<String> SSL_MODE = Option.valueOf("sslMode");
   public static final Option<Map<String, String>> OPTIONS = Option.valueOf("options");
+  public static final Option<String> REPLICAS = Option.valueOf("replicas");
+  public static final Option<String> LOAD_BALANCE_STRATEGY = Option.valueOf("loadBalanceStrategy");
+  public static final Option<Duration> BLACKLIST_DURATION = Option.valueOf("blacklistDuration");
+  public static final Option<Boolean> STREAM_LARGE_VALUES = Option.valueOf("streamLargeValues");
+  public static final Option<Long> KILL_QUERY_THRESHOLD = Option.valueOf("killQueryThreshold");
+  public static final Option<Duration> STATEMENT_TIMEOUT = Option.valueOf("statementTimeout");
+  public static final Option<Integer> MAX_CONCURRENT_HANDSHAKES =
+      Option.valueOf("maxConcurrentHandshakes");
+  public static final Option<Integer> CONNECT_RETRIES = Option.valueOf("connectRetries");
+  public static final Option<String> WARM_UP_STATEMENTS = Option.valueOf("warmUpStatements");
+  public static final Option<Boolean> OPTIMISTIC_CONNECT = Option.valueOf("optimisticConnect");
+  public static final Option<QueryExecutionListener> QUERY_EXECUTION_LISTENER =
+      Option.valueOf("queryExecutionListener");
+  public static final Option<Integer> STATEMENT_STATISTICS_SIZE =
+      Option.valueOf("statementStatisticsSize");
+  public static final Option<Long> RESULT_CACHE_SIZE = Option.valueOf("resultCacheSize");
+  public static final Option<Duration> RESULT_CACHE_TTL = Option.valueOf("resultCacheTtl");
+  public static final Option<Boolean> SINGLE_FLIGHT = Option.valueOf("singleFlight");
+  public static final Option<Duration> INSERT_BATCH_WINDOW = Option.valueOf("insertBatchWindow");
+  public static final Option<Integer> INSERT_BATCH_SIZE = Option.valueOf("insertBatchSize");
 
   static MariadbConnectionConfiguration createConfiguration(
       ConnectionFactoryOptions connectionFactoryOptions) {
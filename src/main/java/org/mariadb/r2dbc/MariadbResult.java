@@ -21,21 +21,36 @@ import io.netty.buffer.Unpooled;
 import io.r2dbc.spi.Row;
 import io.r2dbc.spi.RowMetadata;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
 import java.util.function.BiFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.mariadb.r2dbc.client.Client;
 import org.mariadb.r2dbc.codec.BinaryRowDecoder;
 import org.mariadb.r2dbc.codec.RowDecoder;
 import org.mariadb.r2dbc.codec.TextRowDecoder;
 import org.mariadb.r2dbc.message.server.*;
+import org.mariadb.r2dbc.util.ClientPrepareResult;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.annotation.Nullable;
 
 final class MariadbResult implements org.mariadb.r2dbc.api.MariadbResult {
 
+  // INSERT INTO table (columns) VALUES (...), digest form
+  private static final Pattern PLAIN_INSERT =
+      Pattern.compile("^insert (?:into )?[^ (]+ ?\\(([^()]*)\\) ?values? ?\\(");
+  private static final Pattern NOT_PLAIN_INSERT =
+      Pattern.compile("\\b(?:select|on duplicate|returning)\\b");
+
   private final Flux<ServerMessage> dataRows;
   private final ExceptionFactory factory;
   private RowDecoder decoder;
   private final String[] generatedColumns;
   private final boolean supportReturning;
+  private final int idIncrement;
   private final boolean text;
 
   private volatile ColumnDefinitionPacket[] metadataList;
@@ -49,11 +64,53 @@ final class MariadbResult implements org.mariadb.r2dbc.api.MariadbResult {
       ExceptionFactory factory,
       String[] generatedColumns,
       boolean supportReturning) {
+    this(text, dataRows, factory, generatedColumns, supportReturning, 0);
+  }
+
+  MariadbResult(
+      boolean text,
+      Flux<ServerMessage> dataRows,
+      ExceptionFactory factory,
+      String[] generatedColumns,
+      boolean supportReturning,
+      int idIncrement) {
     this.text = text;
     this.dataRows = dataRows;
     this.factory = factory;
     this.generatedColumns = generatedColumns;
     this.supportReturning = supportReturning;
+    this.idIncrement = idIncrement;
+  }
+
+  /**
+   * Increment between IDs generated by a multi-row INSERT, permitting to derive them from OK_packet
+   * last insert ID for servers that don't permit RETURNING. This is only possible when each row
+   * gets a generated ID: statement must be an INSERT ... VALUES listing its columns, without the
+   * requested generated column. This also supposes that storage engine allocates consecutive IDs to
+   * a statement, like InnoDB for simple inserts, when innodb_autoinc_lock_mode is not 2.
+   *
+   * @param client client
+   * @param sql statement
+   * @param generatedColumns requested generated columns
+   * @return auto_increment_increment, or 0 if IDs of multiple rows cannot be derived
+   */
+  static int idIncrement(Client client, String sql, @Nullable String[] generatedColumns) {
+    if (generatedColumns == null || generatedColumns.length != 1) return 0;
+    String digest =
+        ClientPrepareResult.digest(sql, client.noBackslashEscapes()).toLowerCase(Locale.ROOT);
+    Matcher insert = PLAIN_INSERT.matcher(digest);
+    if (!insert.find() || NOT_PLAIN_INSERT.matcher(digest).find()) return 0;
+    String column = columnName(generatedColumns[0]);
+    for (String name : insert.group(1).split(",")) {
+      if (columnName(name).equals(column)) return 0;
+    }
+    return client.getContext().getAutoIncrementIncrement();
+  }
+
+  private static String columnName(String name) {
+    String column = name.trim().toLowerCase(Locale.ROOT);
+    column = column.substring(column.lastIndexOf('.') + 1);
+    return column.replace("`", "");
   }
 
   @Override
@@ -79,7 +136,11 @@ final class MariadbResult implements org.mariadb.r2dbc.api.MariadbResult {
   @Override
   public <T> Flux<T> map(BiFunction<Row, RowMetadata, ? extends T> f) {
     metadataIndex = 0;
-    return this.dataRows.handle(
+    Flux<ServerMessage> messages = this.dataRows;
+    if (generatedColumns != null && !supportReturning) {
+      messages = messages.concatMap(this::generatedIds);
+    }
+    return messages.handle(
         (serverMessage, sink) -> {
           if (serverMessage instanceof ErrorPacket) {
             sink.error(this.factory.from((ErrorPacket) serverMessage));
@@ -105,41 +166,37 @@ final class MariadbResult implements org.mariadb.r2dbc.api.MariadbResult {
           }
 
           if (serverMessage instanceof RowPacket) {
-            ByteBuf buf = ((RowPacket) serverMessage).getRaw();
+            RowPacket rowPacket = (RowPacket) serverMessage;
+            MariadbRow row =
+                new MariadbRow(
+                    metadataList, decoder, rowPacket.getRaw(), rowPacket.getLargeValue());
             try {
-              sink.next(f.apply(new MariadbRow(metadataList, decoder, buf), rowMetadata));
+              sink.next(f.apply(row, rowMetadata));
               return;
             } catch (IllegalArgumentException i) {
               sink.error(this.factory.createException(i.getMessage(), "HY000", -1));
               return;
+            } finally {
+              // connection would else stay blocked
+              row.discardUnusedLargeValue();
             }
           }
 
-          // This is for server that doesn't permit RETURNING: rely on OK_packet LastInsertId
-          // to retrieve the last generated ID.
-          if (serverMessage instanceof OkPacket && generatedColumns != null && !supportReturning) {
+          if (serverMessage instanceof GeneratedId) {
             if (metadataList == null) {
               String colName = generatedColumns.length > 0 ? generatedColumns[0] : "ID";
               metadataList = new ColumnDefinitionPacket[1];
               metadataList[0] = ColumnDefinitionPacket.fromGeneratedId(colName);
               rowMetadata = MariadbRowMetadata.toRowMetadata(this.metadataList);
             }
-            OkPacket okPacket = ((OkPacket) serverMessage);
-            if (okPacket.getAffectedRows() > 1) {
-              sink.error(
-                  this.factory.createException(
-                      "Connector cannot get generated ID (using returnGeneratedValues) multiple rows before MariaDB 10.5.1",
-                      "HY000",
-                      -1));
-              return;
-            }
-            ByteBuf buf = getLongTextEncoded(okPacket.getLastInsertId());
+            ByteBuf buf = getLongTextEncoded(((GeneratedId) serverMessage).value);
             decoder = new TextRowDecoder(1, this.metadataList);
             try {
               sink.next(f.apply(new MariadbRow(metadataList, decoder, buf), rowMetadata));
             } finally {
               buf.release();
             }
+            return;
           }
 
           if (serverMessage.resultSetEnd()) {
@@ -148,6 +205,47 @@ final class MariadbResult implements org.mariadb.r2dbc.api.MariadbResult {
         });
   }
 
+  /**
+   * This is for server that doesn't permit RETURNING: rely on OK_packet LastInsertId to retrieve
+   * the first generated ID. IDs of a multi-row insert are derived when possible (see {@link
+   * #idIncrement}).
+   *
+   * @param serverMessage server message
+   * @return generated IDs followed by OK_packet, or server message if not an OK_packet
+   */
+  private Flux<ServerMessage> generatedIds(ServerMessage serverMessage) {
+    if (!(serverMessage instanceof OkPacket)) return Flux.just(serverMessage);
+    OkPacket okPacket = (OkPacket) serverMessage;
+    long lastInsertId = okPacket.getLastInsertId();
+    long rows = lastInsertId == 0 ? 1 : Math.max(1, okPacket.getAffectedRows());
+    if (rows > 1 && idIncrement == 0) {
+      return Flux.error(
+          this.factory.createException(
+              "Connector cannot get generated ID (using returnGeneratedValues) multiple rows before MariaDB 10.5.1",
+              "HY000",
+              -1));
+    }
+    List<ServerMessage> messages = new ArrayList<>((int) Math.min(rows, 1024) + 1);
+    for (long i = 0; i < rows; i++) {
+      messages.add(new GeneratedId(lastInsertId + i * idIncrement));
+    }
+    messages.add(okPacket);
+    return Flux.fromIterable(messages);
+  }
+
+  private static final class GeneratedId implements ServerMessage {
+    private final long value;
+
+    GeneratedId(long value) {
+      this.value = value;
+    }
+
+    @Override
+    public Sequencer getSequencer() {
+      return null;
+    }
+  }
+
   private ByteBuf getLongTextEncoded(long value) {
     byte[] byteValue = Long.toString(value).getBytes(StandardCharsets.US_ASCII);
     byte[] encodedLength;
@@ -17,13 +17,17 @@
 package org.mariadb.r2dbc;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.r2dbc.spi.Blob;
 import io.r2dbc.spi.Row;
 import java.util.Collections;
 import java.util.Set;
 import java.util.TreeSet;
+import org.mariadb.r2dbc.codec.MariadbBlob;
 import org.mariadb.r2dbc.codec.RowDecoder;
 import org.mariadb.r2dbc.message.server.ColumnDefinitionPacket;
 import org.mariadb.r2dbc.util.Assert;
+import org.reactivestreams.Publisher;
 import reactor.util.annotation.Nullable;
 
 public class MariadbRow implements Row {
@@ -31,11 +35,23 @@ public class MariadbRow implements Row {
   private final ColumnDefinitionPacket[] columnDefinitionPackets;
   private final RowDecoder decoder;
   private final ByteBuf raw;
+  // next parts of last column value, when streaming a large value
+  @Nullable private final Publisher<ByteBuf> largeValue;
+  private boolean largeValueRetrieved;
 
   MariadbRow(ColumnDefinitionPacket[] columnDefinitionPackets, RowDecoder decoder, ByteBuf data) {
+    this(columnDefinitionPackets, decoder, data, null);
+  }
+
+  MariadbRow(
+      ColumnDefinitionPacket[] columnDefinitionPackets,
+      RowDecoder decoder,
+      ByteBuf data,
+      @Nullable Publisher<ByteBuf> largeValue) {
     this.columnDefinitionPackets = columnDefinitionPackets;
     this.decoder = decoder;
     this.raw = data;
+    this.largeValue = largeValue;
 
     decoder.resetRow(raw);
   }
@@ -44,7 +60,44 @@ public class MariadbRow implements Row {
   @Override
   public <T> T get(int index, Class<T> type) {
     Assert.requireNonNull(type, "type must not be null");
-    return decode(index, getMeta(index), type);
+    if (largeValue == null) {
+      return decode(index, getMeta(index), type);
+    }
+    try {
+      if (index == this.columnDefinitionPackets.length - 1) {
+        return getLargeValue(index, type);
+      }
+      return decode(index, getMeta(index), type);
+    } catch (IndexOutOfBoundsException e) {
+      throw new IllegalArgumentException(
+          "Row value is bigger than 16M: when streaming large values, it must be the last column");
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> T getLargeValue(int index, Class<T> type) {
+    if (!type.isAssignableFrom(Blob.class)) {
+      throw new IllegalArgumentException(
+          String.format(
+              "Value of column %d is bigger than 16M, and can only be retrieved as Blob", index));
+    }
+    if (largeValueRetrieved) {
+      throw new IllegalArgumentException(
+          String.format(
+              "Value of column %d is bigger than 16M, and can only be retrieved once", index));
+    }
+    decoder.setPosition(index);
+    ByteBuf buf = decoder.buf;
+    largeValueRetrieved = true;
+    return (T) new MariadbBlob(buf.readRetainedSlice(buf.readableBytes()), largeValue);
+  }
+
+  /** Skip large value parts if value has not been retrieved, so next rows can be read. */
+  void discardUnusedLargeValue() {
+    if (largeValue != null && !largeValueRetrieved) {
+      largeValueRetrieved = true;
+      new MariadbBlob(Unpooled.EMPTY_BUFFER, largeValue).discard().subscribe();
+    }
   }
 
   @Nullable
@@ -16,6 +16,7 @@
 
 package org.mariadb.r2dbc;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -46,6 +47,7 @@ final class MariadbServerParameterizedQueryStatement implements MariadbStatement
   private List<Map<Integer, Parameter<?>>> batchingParameters;
   private String[] generatedColumns;
   private ServerPrepareResult prepareResult;
+  private Duration timeout;
 
   MariadbServerParameterizedQueryStatement(
       Client client, String sql, MariadbConnectionConfiguration configuration) {
@@ -151,25 +153,32 @@ final class MariadbServerParameterizedQueryStatement implements MariadbStatement
     validateParameters();
 
     if (batchingParameters == null) {
-      return execute(this.sql, parameters, this.generatedColumns);
+      return execute(prepareSql(), parameters, this.generatedColumns);
     } else {
       add();
       if (prepareResult == null) {
-        prepareResult = client.getPrepareCache().get(sql);
+        prepareResult = client.getPrepareCache().get(prepareSql());
         if (prepareResult == null) {
           sendPrepare().block();
         }
       }
       Flux<ServerMessage> fluxMsg =
-          this.client.sendCommand(
-              new ExecutePacket(prepareResult.getStatementId(), this.batchingParameters.get(0)));
+          withTimeout(
+              this.client.sendCommand(
+                  new ExecutePacket(
+                      this.sql, prepareResult.getStatementId(), this.batchingParameters.get(0))),
+              ExceptionFactory.INSTANCE);
       int index = 1;
       while (index < this.batchingParameters.size()) {
         fluxMsg =
             fluxMsg.concatWith(
-                this.client.sendCommand(
-                    new ExecutePacket(
-                        prepareResult.getStatementId(), this.batchingParameters.get(index++))));
+                withTimeout(
+                    this.client.sendCommand(
+                        new ExecutePacket(
+                            this.sql,
+                            prepareResult.getStatementId(),
+                            this.batchingParameters.get(index++))),
+                    ExceptionFactory.INSTANCE));
       }
       fluxMsg =
           fluxMsg.concatWith(
@@ -182,17 +191,17 @@ final class MariadbServerParameterizedQueryStatement implements MariadbStatement
       this.batchingParameters.clear();
       this.parameters = new HashMap<>();
 
-      return fluxMsg
-          .windowUntil(it -> it.resultSetEnd())
-          .map(
+      return fluxMsg.transform(
+          ResultSplitter.results(
               dataRow ->
                   new MariadbResult(
                       false,
                       dataRow,
                       ExceptionFactory.INSTANCE,
-                      null,
+                      generatedColumns,
                       client.getVersion().isMariaDBServer()
-                          && client.getVersion().versionGreaterOrEqual(10, 5, 1)));
+                          && client.getVersion().versionGreaterOrEqual(10, 5, 1),
+                      MariadbResult.idIncrement(client, sql, generatedColumns))));
     }
   }
 
@@ -211,8 +220,11 @@ final class MariadbServerParameterizedQueryStatement implements MariadbStatement
       throw new IllegalArgumentException(
           "returnGeneratedValues can have only one column before MariaDB 10.5.1");
     }
-    //    prepareResult.validateAddingReturning();
     this.generatedColumns = columns;
+    if (this.prepareResult != null && client.getPrepareCache() != null) {
+      // RETURNING is part of prepared command
+      this.prepareResult = client.getPrepareCache().get(prepareSql());
+    }
     return this;
   }
 
@@ -250,9 +262,11 @@ final class MariadbServerParameterizedQueryStatement implements MariadbStatement
       }
     }
 
+    // long data needs statement id, so cannot be sent before prepare response
     if (configuration.allowPipelining()
         && client.getVersion().isMariaDBServer()
-        && client.getVersion().versionGreaterOrEqual(10, 2, 0)) {
+        && client.getVersion().versionGreaterOrEqual(10, 2, 0)
+        && !ExecutePacket.hasLongData(parameters)) {
       flux = sendPrepareAndExecute(factory, parameters, generatedColumns);
     } else {
       flux =
@@ -272,21 +286,25 @@ final class MariadbServerParameterizedQueryStatement implements MariadbStatement
 
   private Flux<org.mariadb.r2dbc.api.MariadbResult> sendPrepareAndExecute(
       ExceptionFactory factory, Map<Integer, Parameter<?>> parameters, String[] generatedColumns) {
-    return this.client
-        .sendCommand(new PreparePacket(sql), new ExecutePacket(-1, parameters))
-        .windowUntil(it -> it.resultSetEnd())
-        .map(
-            dataRow ->
-                new MariadbResult(
-                    false,
-                    dataRow,
-                    factory,
-                    generatedColumns,
-                    client.getVersion().isMariaDBServer()
-                        && client.getVersion().versionGreaterOrEqual(10, 5, 1)));
+    return withTimeout(
+            this.client.sendCommand(
+                new PreparePacket(prepareSql()), new ExecutePacket(this.sql, -1, parameters)),
+            factory)
+        .transform(
+            ResultSplitter.results(
+                dataRow ->
+                    new MariadbResult(
+                        false,
+                        dataRow,
+                        factory,
+                        generatedColumns,
+                        client.getVersion().isMariaDBServer()
+                            && client.getVersion().versionGreaterOrEqual(10, 5, 1),
+                        MariadbResult.idIncrement(client, sql, generatedColumns))));
   }
 
   private Mono<ServerPrepareResult> sendPrepare() {
+    String sql = prepareSql();
     Flux<ServerPrepareResult> f =
         this.client
             .sendCommand(new PreparePacket(sql), DecoderState.PREPARE_RESPONSE, sql)
@@ -313,20 +331,58 @@ final class MariadbServerParameterizedQueryStatement implements MariadbStatement
 
   private Flux<org.mariadb.r2dbc.api.MariadbResult> sendExecuteCmd(
       ExceptionFactory factory, Map<Integer, Parameter<?>> parameters, String[] generatedColumns) {
-    return this.client
-        .sendCommand(
-            new ExecutePacket(
-                prepareResult != null ? prepareResult.getStatementId() : -1, parameters))
-        .windowUntil(it -> it.resultSetEnd())
-        .map(
-            dataRow ->
-                new MariadbResult(
-                    false,
-                    dataRow,
-                    factory,
-                    generatedColumns,
-                    client.getVersion().isMariaDBServer()
-                        && client.getVersion().versionGreaterOrEqual(10, 5, 1)));
+    return withTimeout(
+            this.client.sendCommand(
+                new ExecutePacket(
+                    this.sql,
+                    prepareResult != null ? prepareResult.getStatementId() : -1,
+                    parameters)),
+            factory)
+        .transform(
+            ResultSplitter.results(
+                dataRow ->
+                    new MariadbResult(
+                        false,
+                        dataRow,
+                        factory,
+                        generatedColumns,
+                        client.getVersion().isMariaDBServer()
+                            && client.getVersion().versionGreaterOrEqual(10, 5, 1),
+                        MariadbResult.idIncrement(client, sql, generatedColumns))));
+  }
+
+  @Override
+  public MariadbServerParameterizedQueryStatement timeout(@Nullable Duration timeout) {
+    this.timeout = StatementTimeout.validate(timeout);
+    if (this.prepareResult != null) {
+      // timeout is part of prepared command
+      this.prepareResult = client.getPrepareCache().get(prepareSql());
+    }
+    return this;
+  }
+
+  /**
+   * Command to prepare: statement, with timeout prefix when server enforces timeout, and RETURNING
+   * clause when generated values are requested and server supports it (MariaDB 10.5.1+).
+   *
+   * @return command to prepare
+   */
+  private String prepareSql() {
+    String prefix = StatementTimeout.prefix(client, timeout);
+    String command = prefix == null ? sql : prefix + sql;
+    if (generatedColumns != null
+        && client.getVersion().isMariaDBServer()
+        && client.getVersion().versionGreaterOrEqual(10, 5, 1)) {
+      command +=
+          generatedColumns.length == 0
+              ? " RETURNING *"
+              : " RETURNING " + String.join(", ", generatedColumns);
+    }
+    return command;
+  }
+
+  private Flux<ServerMessage> withTimeout(Flux<ServerMessage> response, ExceptionFactory factory) {
+    return StatementTimeout.clientTimer(response, client, timeout, factory);
   }
 
   @Override
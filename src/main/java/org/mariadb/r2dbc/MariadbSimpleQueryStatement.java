@@ -16,12 +16,14 @@
 
 package org.mariadb.r2dbc;
 
+import java.time.Duration;
 import org.mariadb.r2dbc.api.MariadbStatement;
 import org.mariadb.r2dbc.client.Client;
 import org.mariadb.r2dbc.message.client.QueryPacket;
 import org.mariadb.r2dbc.message.server.ServerMessage;
 import org.mariadb.r2dbc.util.Assert;
 import org.mariadb.r2dbc.util.ClientPrepareResult;
+import org.mariadb.r2dbc.util.ResultCache;
 import reactor.core.publisher.Flux;
 import reactor.util.annotation.Nullable;
 
@@ -29,11 +31,20 @@ final class MariadbSimpleQueryStatement implements MariadbStatement {
 
   private final Client client;
   private final String sql;
+  private final MariadbConnectionConfiguration configuration;
   private String[] generatedColumns;
+  private Duration timeout;
+  private boolean cacheResult;
 
   MariadbSimpleQueryStatement(Client client, String sql) {
+    this(client, sql, null);
+  }
+
+  MariadbSimpleQueryStatement(
+      Client client, String sql, @Nullable MariadbConnectionConfiguration configuration) {
     this.client = client;
     this.sql = Assert.requireNonNull(sql, "sql must not be null");
+    this.configuration = configuration;
   }
 
   static boolean supports(String sql, Client client) {
@@ -103,6 +114,18 @@ final class MariadbSimpleQueryStatement implements MariadbStatement {
     return this;
   }
 
+  @Override
+  public MariadbSimpleQueryStatement timeout(@Nullable Duration timeout) {
+    this.timeout = StatementTimeout.validate(timeout);
+    return this;
+  }
+
+  @Override
+  public MariadbSimpleQueryStatement cacheResult() {
+    this.cacheResult = true;
+    return this;
+  }
+
   @Override
   public String toString() {
     return "MariadbSimpleQueryStatement{"
@@ -126,10 +149,21 @@ final class MariadbSimpleQueryStatement implements MariadbStatement {
               sql, generatedColumns.length == 0 ? "*" : String.join(", ", generatedColumns));
     }
 
-    Flux<ServerMessage> response = this.client.sendCommand(new QueryPacket(sql));
-    return response
-        .windowUntil(it -> it.resultSetEnd())
-        .map(
+    String prefix = StatementTimeout.prefix(client, timeout);
+    String query = prefix == null ? sql : prefix + sql;
+
+    Flux<ServerMessage> response =
+        generatedColumns == null
+            ? SharedQuery.execute(
+                client,
+                configuration,
+                cacheResult,
+                sql,
+                () -> ResultCache.key(client.getContext(), this.sql),
+                () -> sendQuery(query, factory))
+            : sendQuery(query, factory);
+    return response.transform(
+        ResultSplitter.results(
             dataRow ->
                 new MariadbResult(
                     true,
@@ -137,6 +171,12 @@ final class MariadbSimpleQueryStatement implements MariadbStatement {
                     factory,
                     generatedColumns,
                     client.getVersion().isMariaDBServer()
-                        && client.getVersion().versionGreaterOrEqual(10, 5, 1)));
+                        && client.getVersion().versionGreaterOrEqual(10, 5, 1),
+                    MariadbResult.idIncrement(client, this.sql, generatedColumns))));
+  }
+
+  private Flux<ServerMessage> sendQuery(String sql, ExceptionFactory factory) {
+    return StatementTimeout.clientTimer(
+        this.client.sendCommand(new QueryPacket(sql)), client, timeout, factory);
   }
 }
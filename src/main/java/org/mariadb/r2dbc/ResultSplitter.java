@@ -0,0 +1,393 @@
+/*
+ * Copyright 2020 MariaDB Ab.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mariadb.r2dbc;
+
+import io.netty.util.ReferenceCountUtil;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import org.mariadb.r2dbc.message.server.ServerMessage;
+import org.reactivestreams.Subscription;
+import reactor.core.CoreSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Operators;
+import reactor.util.concurrent.Queues;
+import reactor.util.context.Context;
+
+/**
+ * Split a command response into results, a result ending with a message for which {@link
+ * ServerMessage#resultSetEnd()} is true.
+ *
+ * <p>Unlike {@code windowUntil}, no processor is created per result: the messages of a result are a
+ * light single-subscriber flux, passing messages directly to its subscriber when it has demand, and
+ * only queuing them when it has not (or is not subscribed yet). Response is requested unbounded,
+ * since command sink already buffers it.
+ *
+ * @param <R> result type
+ */
+final class ResultSplitter<R> extends Flux<R> {
+
+  private final Flux<ServerMessage> source;
+  private final Function<Flux<ServerMessage>, R> resultFactory;
+
+  private ResultSplitter(
+      Flux<ServerMessage> source, Function<Flux<ServerMessage>, R> resultFactory) {
+    this.source = source;
+    this.resultFactory = resultFactory;
+  }
+
+  /**
+   * Split response into results.
+   *
+   * @param source command response
+   * @param resultFactory create a result from its messages
+   * @param <R> result type
+   * @return results
+   */
+  static <R> Flux<R> split(
+      Flux<ServerMessage> source, Function<Flux<ServerMessage>, R> resultFactory) {
+    return onAssembly(new ResultSplitter<>(source, resultFactory));
+  }
+
+  /**
+   * Function splitting a response into results, to be used with {@link Flux#transform(Function)}.
+   *
+   * @param resultFactory create a result from its messages
+   * @param <R> result type
+   * @return transformation
+   */
+  static <R> Function<Flux<ServerMessage>, Flux<R>> results(
+      Function<Flux<ServerMessage>, R> resultFactory) {
+    return source -> split(source, resultFactory);
+  }
+
+  @Override
+  public void subscribe(CoreSubscriber<? super R> actual) {
+    source.subscribe(new SplitSubscriber<>(actual, resultFactory));
+  }
+
+  static final class SplitSubscriber<R> implements CoreSubscriber<ServerMessage>, Subscription {
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<SplitSubscriber> WIP =
+        AtomicIntegerFieldUpdater.newUpdater(SplitSubscriber.class, "wip");
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicLongFieldUpdater<SplitSubscriber> REQUESTED =
+        AtomicLongFieldUpdater.newUpdater(SplitSubscriber.class, "requested");
+
+    private final CoreSubscriber<? super R> actual;
+    private final Function<Flux<ServerMessage>, R> resultFactory;
+    // results not emitted yet, waiting for demand
+    private final Queue<ResultMessages> pending =
+        Queues.<ResultMessages>unbounded(Queues.XS_BUFFER_SIZE).get();
+    private Subscription s;
+    // result receiving messages, accessed from upstream signals only (except for cancellation)
+    private volatile ResultMessages open;
+    private volatile boolean done;
+    private volatile boolean cancelled;
+    private Throwable error;
+    private volatile int wip;
+    private volatile long requested;
+
+    SplitSubscriber(CoreSubscriber<? super R> actual, Function<Flux<ServerMessage>, R> factory) {
+      this.actual = actual;
+      this.resultFactory = factory;
+    }
+
+    @Override
+    public Context currentContext() {
+      return actual.currentContext();
+    }
+
+    @Override
+    public void onSubscribe(Subscription s) {
+      if (Operators.validate(this.s, s)) {
+        this.s = s;
+        actual.onSubscribe(this);
+        s.request(Long.MAX_VALUE);
+      }
+    }
+
+    @Override
+    public void onNext(ServerMessage message) {
+      if (done) {
+        Operators.onNextDropped(message, actual.currentContext());
+        return;
+      }
+      ResultMessages result = this.open;
+      if (result == null) {
+        if (cancelled) {
+          s.cancel();
+          return;
+        }
+        result = new ResultMessages(this::resultCancelled);
+        this.open = result;
+        if (cancelled) {
+          // outer cancellation has not seen this result
+          this.open = null;
+          s.cancel();
+          return;
+        }
+        // emit result before its first message, so a subscriber can receive it directly
+        pending.offer(result);
+        drain();
+      }
+      result.next(message);
+      if (message.resultSetEnd()) {
+        this.open = null;
+        result.complete();
+        if (cancelled) s.cancel();
+      }
+    }
+
+    @Override
+    public void onError(Throwable t) {
+      if (done) {
+        Operators.onErrorDropped(t, actual.currentContext());
+        return;
+      }
+      ResultMessages result = this.open;
+      this.open = null;
+      if (result != null) result.fail(t);
+      this.error = t;
+      this.done = true;
+      drain();
+    }
+
+    @Override
+    public void onComplete() {
+      if (done) return;
+      ResultMessages result = this.open;
+      this.open = null;
+      if (result != null) result.complete();
+      this.done = true;
+      drain();
+    }
+
+    @Override
+    public void request(long n) {
+      if (Operators.validate(n)) {
+        Operators.addCap(REQUESTED, this, n);
+        drain();
+      }
+    }
+
+    @Override
+    public void cancel() {
+      if (cancelled) return;
+      cancelled = true;
+      // a result being received, when already emitted, still needs the rest of its messages
+      ResultMessages result = this.open;
+      if (result == null || result.isCancelled()) s.cancel();
+      drain();
+    }
+
+    /**
+     * Result consumer has cancelled: if no more results are expected either, response is cancelled,
+     * so rest of the response is discarded without being decoded.
+     *
+     * @param result cancelled result
+     */
+    private void resultCancelled(ResultMessages result) {
+      if (cancelled && this.open == result) s.cancel();
+    }
+
+    private void drain() {
+      if (WIP.getAndIncrement(this) != 0) return;
+      int missed = 1;
+      for (; ; ) {
+        long r = requested;
+        long e = 0L;
+        while (e != r && !cancelled) {
+          ResultMessages result = pending.poll();
+          if (result == null) break;
+          actual.onNext(resultFactory.apply(result));
+          e++;
+        }
+
+        if (cancelled) {
+          ResultMessages result;
+          while ((result = pending.poll()) != null) result.cancel();
+        } else if (done && pending.isEmpty()) {
+          Throwable t = error;
+          if (t != null) {
+            actual.onError(t);
+          } else {
+            actual.onComplete();
+          }
+          return;
+        }
+
+        if (e != 0L && r != Long.MAX_VALUE) REQUESTED.addAndGet(this, -e);
+        missed = WIP.addAndGet(this, -missed);
+        if (missed == 0) break;
+      }
+    }
+  }
+
+  /** Messages of a single result, for a single subscriber. */
+  static final class ResultMessages extends Flux<ServerMessage> implements Subscription {
+
+    private static final AtomicIntegerFieldUpdater<ResultMessages> WIP =
+        AtomicIntegerFieldUpdater.newUpdater(ResultMessages.class, "wip");
+    private static final AtomicIntegerFieldUpdater<ResultMessages> ONCE =
+        AtomicIntegerFieldUpdater.newUpdater(ResultMessages.class, "once");
+    private static final AtomicLongFieldUpdater<ResultMessages> REQUESTED =
+        AtomicLongFieldUpdater.newUpdater(ResultMessages.class, "requested");
+
+    // created only when a message cannot be passed directly, written by upstream only. Queued
+    // messages are retained, since decoder releases them once emitted
+    private volatile Queue<ServerMessage> queue;
+    private volatile CoreSubscriber<? super ServerMessage> actual;
+    private volatile boolean done;
+    private volatile boolean cancelled;
+    private Throwable error;
+    private volatile int wip;
+    private volatile int once;
+    private volatile long requested;
+    private final Consumer<ResultMessages> onCancel;
+
+    ResultMessages(Consumer<ResultMessages> onCancel) {
+      this.onCancel = onCancel;
+    }
+
+    @Override
+    public void subscribe(CoreSubscriber<? super ServerMessage> actual) {
+      if (once == 0 && ONCE.compareAndSet(this, 0, 1)) {
+        actual.onSubscribe(this);
+        this.actual = actual;
+        drain();
+      } else {
+        Operators.error(actual, new IllegalStateException("Result can be consumed only once"));
+      }
+    }
+
+    void next(ServerMessage message) {
+      if (cancelled) return;
+      if (wip == 0 && WIP.compareAndSet(this, 0, 1)) {
+        // fast path: subscriber has demand and nothing is queued
+        CoreSubscriber<? super ServerMessage> a = this.actual;
+        Queue<ServerMessage> q = this.queue;
+        long r = requested;
+        if (a != null && r != 0L && (q == null || q.isEmpty())) {
+          a.onNext(message);
+          if (r != Long.MAX_VALUE) REQUESTED.decrementAndGet(this);
+        } else {
+          enqueue(message);
+        }
+        if (WIP.decrementAndGet(this) == 0) return;
+      } else {
+        enqueue(message);
+        if (WIP.getAndIncrement(this) != 0) return;
+      }
+      drainLoop();
+    }
+
+    private void enqueue(ServerMessage message) {
+      Queue<ServerMessage> q = this.queue;
+      if (q == null) {
+        q = Queues.<ServerMessage>unbounded(Queues.XS_BUFFER_SIZE).get();
+        this.queue = q;
+      }
+      q.offer(ReferenceCountUtil.retain(message));
+    }
+
+    void complete() {
+      done = true;
+      drain();
+    }
+
+    void fail(Throwable t) {
+      error = t;
+      done = true;
+      drain();
+    }
+
+    @Override
+    public void request(long n) {
+      if (Operators.validate(n)) {
+        Operators.addCap(REQUESTED, this, n);
+        drain();
+      }
+    }
+
+    @Override
+    public void cancel() {
+      cancelled = true;
+      drain();
+      onCancel.accept(this);
+    }
+
+    boolean isCancelled() {
+      return cancelled;
+    }
+
+    private void drain() {
+      if (WIP.getAndIncrement(this) != 0) return;
+      drainLoop();
+    }
+
+    private void drainLoop() {
+      int missed = 1;
+      for (; ; ) {
+        Queue<ServerMessage> q = this.queue;
+        if (cancelled) {
+          if (q != null) {
+            ServerMessage message;
+            while ((message = q.poll()) != null) ReferenceCountUtil.release(message);
+          }
+          this.actual = null;
+        } else {
+          CoreSubscriber<? super ServerMessage> a = this.actual;
+          if (a != null) {
+            long r = requested;
+            long e = 0L;
+            while (e != r && q != null && !cancelled) {
+              ServerMessage message = q.poll();
+              if (message == null) break;
+              try {
+                a.onNext(message);
+              } finally {
+                ReferenceCountUtil.release(message);
+              }
+              e++;
+            }
+            // done is read before queue, so messages queued before completion are seen
+            boolean d = done;
+            q = this.queue;
+            if (!cancelled && d && (q == null || q.isEmpty())) {
+              this.actual = null;
+              this.cancelled = true; // terminated: ignore any further signal
+              Throwable t = error;
+              if (t != null) {
+                a.onError(t);
+              } else {
+                a.onComplete();
+              }
+            }
+            if (e != 0L && r != Long.MAX_VALUE) REQUESTED.addAndGet(this, -e);
+          }
+        }
+        missed = WIP.addAndGet(this, -missed);
+        if (missed == 0) break;
+      }
+    }
+  }
+}
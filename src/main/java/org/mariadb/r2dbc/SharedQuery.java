@@ -0,0 +1,83 @@
+/*
+ * Copyright 2020 MariaDB Ab.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mariadb.r2dbc;
+
+import java.util.function.Supplier;
+import org.mariadb.r2dbc.client.Client;
+import org.mariadb.r2dbc.client.FactoryContext;
+import org.mariadb.r2dbc.message.server.ServerMessage;
+import org.mariadb.r2dbc.util.ResultCache;
+import org.mariadb.r2dbc.util.SingleFlight;
+import org.mariadb.r2dbc.util.constants.ServerStatus;
+import reactor.core.publisher.Flux;
+import reactor.util.annotation.Nullable;
+
+/**
+ * Execution of a text protocol query whose response may be shared: replayed from the result cache,
+ * or received by an identical query executing at the same time. Only queries whose result doesn't
+ * depend on the connection (see {@link ResultCache#isShareable}), executed in autocommit mode,
+ * outside a transaction, on a connection without temporary tables or session variables set, are
+ * shared.
+ */
+final class SharedQuery {
+
+  private SharedQuery() {}
+
+  /**
+   * Query response.
+   *
+   * @param client client
+   * @param configuration connection configuration, or null for internal queries, never shared
+   * @param cacheResult does statement use result cache
+   * @param sql query
+   * @param key query key supplier, key being null if query cannot be shared
+   * @param query sends query to server
+   * @return query response
+   */
+  static Flux<ServerMessage> execute(
+      Client client,
+      @Nullable MariadbConnectionConfiguration configuration,
+      boolean cacheResult,
+      String sql,
+      Supplier<String> key,
+      Supplier<Flux<ServerMessage>> query) {
+    if (configuration == null) return query.get();
+    FactoryContext factoryContext = client.getFactoryContext();
+    ResultCache resultCache = cacheResult ? factoryContext.getResultCache() : null;
+    SingleFlight singleFlight = factoryContext.getSingleFlight();
+    if (resultCache == null && singleFlight == null) return query.get();
+
+    return Flux.defer(
+        () -> {
+          if (!client.isAutoCommit()
+              || (client.getContext().getServerStatus() & ServerStatus.IN_TRANSACTION) != 0
+              || client.isSessionModified()
+              || !ResultCache.isShareable(sql, client.noBackslashEscapes())) {
+            return query.get();
+          }
+          String queryKey = key.get();
+          if (queryKey == null) return query.get();
+          Supplier<Flux<ServerMessage>> execution =
+              singleFlight == null
+                  ? query
+                  : () -> singleFlight.execute(queryKey, client.lastWriteGeneration(), query);
+          return resultCache == null
+              ? execution.get()
+              : resultCache.execute(queryKey, sql, client.noBackslashEscapes(), execution);
+        });
+  }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2020 MariaDB Ab.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mariadb.r2dbc;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import org.mariadb.r2dbc.client.Client;
+import org.mariadb.r2dbc.client.CmdElement;
+import org.mariadb.r2dbc.message.server.ServerMessage;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+import reactor.util.annotation.Nullable;
+import reactor.util.context.Context;
+
+/**
+ * Statement execution timeout. MariaDB server enforces it itself, statement being prefixed with
+ * {@code SET STATEMENT max_statement_time=N FOR}. Other servers have no per-statement timeout: a
+ * client timer then kills the query from a separate connection, and fails the response right away.
+ */
+final class StatementTimeout {
+
+  private StatementTimeout() {}
+
+  /**
+   * Validate a statement timeout.
+   *
+   * @param timeout timeout, or null for no timeout
+   * @return timeout
+   */
+  @Nullable
+  static Duration validate(@Nullable Duration timeout) {
+    if (timeout != null && (timeout.isNegative() || timeout.isZero())) {
+      throw new IllegalArgumentException("timeout must be positive");
+    }
+    return timeout;
+  }
+
+  private static boolean serverSide(Client client) {
+    return client.getVersion().isMariaDBServer()
+        && client.getVersion().versionGreaterOrEqual(10, 1, 2);
+  }
+
+  /**
+   * Prefix to add to the statement so server enforces timeout.
+   *
+   * @param client client
+   * @param timeout timeout, or null for no timeout
+   * @return statement prefix, or null if timeout is not enforced by server
+   */
+  @Nullable
+  static String prefix(Client client, @Nullable Duration timeout) {
+    if (timeout == null || !serverSide(client)) return null;
+    // max_statement_time is in seconds, with microsecond precision
+    long micros = Math.max(1, timeout.toNanos() / 1000);
+    return "SET STATEMENT max_statement_time="
+        + BigDecimal.valueOf(micros, 6).stripTrailingZeros().toPlainString()
+        + " FOR ";
+  }
+
+  /**
+   * Enforce timeout on client side, when server cannot: once timeout expires, query is killed and
+   * response fails with a {@link io.r2dbc.spi.R2dbcTimeoutException}.
+   *
+   * <p>Timer only starts when command is executed, i.e. when it is the head of the connection
+   * response queue, so a command pipelined behind another one does not kill it. Query is not killed
+   * if command has just completed.
+   *
+   * @param response command response
+   * @param client client
+   * @param timeout timeout, or null for no timeout
+   * @param factory exception factory
+   * @return response with timeout
+   */
+  static Flux<ServerMessage> clientTimer(
+      Flux<ServerMessage> response,
+      Client client,
+      @Nullable Duration timeout,
+      ExceptionFactory factory) {
+    if (timeout == null || serverSide(client)) return response;
+    return Flux.defer(
+        () -> {
+          AtomicBoolean expired = new AtomicBoolean();
+          AtomicReference<CmdElement> running = new AtomicReference<>();
+          MonoProcessor<CmdElement> started = MonoProcessor.create();
+          Consumer<CmdElement> startListener =
+              command -> {
+                if (running.getAndSet(command) == null) started.onNext(command);
+              };
+          Mono<Long> timer =
+              started
+                  .then(Mono.delay(timeout))
+                  .flatMap(
+                      tick -> {
+                        // response is ending, killing query could kill next command
+                        if (running.get().isCompleted()) return Mono.never();
+                        expired.set(true);
+                        client.killQuery();
+                        return Mono.just(tick);
+                      });
+          return response
+              .takeUntilOther(timer)
+              .concatWith(
+                  Mono.defer(
+                      () ->
+                          expired.get()
+                              ? Mono.error(
+                                  factory.createException(
+                                      String.format(
+                                          "Query execution was interrupted (statement timeout of %s"
+                                              + " ms exceeded)",
+                                          timeout.toMillis()),
+                                      "70100",
+                                      1969))
+                              : Mono.empty()))
+              .subscriberContext(Context.of(CmdElement.START_LISTENER, startListener));
+        });
+  }
+}
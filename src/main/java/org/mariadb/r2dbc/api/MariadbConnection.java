@@ -16,9 +16,11 @@
 
 package org.mariadb.r2dbc.api;
 
+import io.netty.buffer.ByteBuf;
 import io.r2dbc.spi.Connection;
 import io.r2dbc.spi.IsolationLevel;
 import io.r2dbc.spi.ValidationDepth;
+import org.reactivestreams.Publisher;
 import reactor.core.publisher.Mono;
 
 public interface MariadbConnection extends Connection {
@@ -26,6 +28,16 @@ public interface MariadbConnection extends Connection {
   @Override
   Mono<Void> beginTransaction();
 
+  /**
+   * Begin a read-only transaction. When replicas are configured, the transaction is executed on a
+   * replica chosen by the configured load balancing strategy: statements and batches created until
+   * transaction ends are then routed to this replica. If no replica is available, the transaction
+   * is executed on the primary.
+   *
+   * @return a {@link Mono} that indicates that the transaction has begun
+   */
+  Mono<Void> beginReadOnlyTransaction();
+
   @Override
   Mono<Void> close();
 
@@ -50,9 +62,50 @@ public interface MariadbConnection extends Connection {
   @Override
   boolean isAutoCommit();
 
+  /**
+   * Execute a LOAD DATA LOCAL INFILE command, streaming data from publisher as file content.
+   * Whatever file name the command indicates, no file is ever read: only publisher data is sent.
+   *
+   * <p>Data is requested respecting backpressure, and sent in 16M packets as it is produced, so it
+   * can be generated on the fly, for example as CSV:
+   *
+   * <pre>{@code
+   * connection.loadData(
+   *     "LOAD DATA LOCAL INFILE 'data' INTO TABLE person FIELDS TERMINATED BY ','",
+   *     persons.map(p -> Unpooled.copiedBuffer(p.getId() + "," + p.getName() + "\n", UTF_8)));
+   * }</pre>
+   *
+   * Buffers are released once read. If publisher fails, data already sent is loaded (use a
+   * transaction to be able to rollback) and the returned {@link Mono} fails with the publisher
+   * error. Server must permit local infile (server option local_infile), and connection option
+   * allowLocalInfile must be enabled.
+   *
+   * @param sql LOAD DATA LOCAL INFILE command
+   * @param data file content
+   * @return a {@link Mono} emitting the number of loaded rows
+   */
+  Mono<Integer> loadData(String sql, Publisher<ByteBuf> data);
+
   @Override
   Mono<Void> releaseSavepoint(String name);
 
+  /**
+   * Reset connection session to its initial state, without re-authenticating: current transaction
+   * is rolled back, session variables and user variables are reset, temporary tables are dropped,
+   * and prepared statements are released. Session variables set by configuration are then set
+   * again.
+   *
+   * <p>COM_RESET_CONNECTION is used when server supports it (MariaDB 10.2.4+, MySQL 5.7.3+).
+   * Otherwise, only state known by driver is restored: transaction is rolled back, autocommit is
+   * enabled and isolation level is set back to the initial value.
+   *
+   * <p>This is intended to be used by connection pools when a connection is released, to recycle a
+   * connection cheaply instead of closing it.
+   *
+   * @return a {@link Mono} that indicates that connection has been reset
+   */
+  Mono<Void> reset();
+
   @Override
   Mono<Void> rollbackTransaction();
 
@@ -17,7 +17,9 @@
 package org.mariadb.r2dbc.api;
 
 import io.r2dbc.spi.Statement;
+import java.time.Duration;
 import reactor.core.publisher.Flux;
+import reactor.util.annotation.Nullable;
 
 public interface MariadbStatement extends Statement {
 
@@ -46,4 +48,28 @@ public interface MariadbStatement extends Statement {
 
   @Override
   MariadbStatement returnGeneratedValues(String... columns);
+
+  /**
+   * Set statement execution timeout, overriding connection default. On MariaDB server, server
+   * interrupts the statement (using max_statement_time). On other servers, the query is killed from
+   * a separate connection once timeout expires. In both cases, execution fails with a {@link
+   * io.r2dbc.spi.R2dbcTimeoutException}.
+   *
+   * @param timeout execution timeout, or null for no timeout
+   * @return this {@link MariadbStatement}
+   */
+  MariadbStatement timeout(@Nullable Duration timeout);
+
+  /**
+   * Use the result cache of connection factory, when enabled with {@code resultCacheSize}: result
+   * is replayed from cache if present, without sending the query. Otherwise, once completely
+   * received, result is cached until it expires or a table it read is modified by a connection of
+   * the same factory. Only queries using text protocol, executed outside a transaction, without
+   * batch nor generated values, are cached.
+   *
+   * @return this {@link MariadbStatement}
+   */
+  default MariadbStatement cacheResult() {
+    return this;
+  }
 }
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2020 MariaDB Ab.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mariadb.r2dbc.api;
+
+import reactor.util.annotation.Nullable;
+
+/** Query execution, as reported to a {@link QueryExecutionListener}. */
+public interface QueryExecutionInfo {
+
+  /**
+   * Executed SQL.
+   *
+   * @return SQL
+   */
+  String getSql();
+
+  /**
+   * Statement digest: SQL with literals replaced by '?', comments removed and whitespaces
+   * collapsed. All executions of the same statement shape share the same digest.
+   *
+   * @return digest
+   */
+  String getDigest();
+
+  /**
+   * Number of parameters bound to the query.
+   *
+   * @return parameter count
+   */
+  int getParameterCount();
+
+  /**
+   * Server connection identifier.
+   *
+   * @return connection id
+   */
+  long getConnectionId();
+
+  /**
+   * Number of rows received. Rows dropped without being decoded, because result was not consumed,
+   * are counted too.
+   *
+   * @return row count
+   */
+  long getRowCount();
+
+  /**
+   * Number of response bytes received, packet headers excluded.
+   *
+   * @return received bytes
+   */
+  long getReceivedBytes();
+
+  /**
+   * Time between query submission and server starting its execution: query waited to be sent, and
+   * with pipelining, waited for previous commands sent on the connection to be answered.
+   *
+   * @return queue wait time in nanoseconds
+   */
+  long getQueueWaitNanos();
+
+  /**
+   * Time between server starting query execution (query sent, and previous commands answered) and
+   * receiving its first response packet: server execution time, plus network round trip.
+   *
+   * @return server time in nanoseconds, 0 if no response has been received
+   */
+  long getServerNanos();
+
+  /**
+   * Time between query submission and response end.
+   *
+   * @return elapsed time in nanoseconds, 0 until query ends
+   */
+  long getElapsedNanos();
+
+  /**
+   * Query failure, when execution has ended with an error.
+   *
+   * @return failure, or null
+   */
+  @Nullable
+  Throwable getFailure();
+
+  /**
+   * Object attached by listener to this execution.
+   *
+   * @return attachment, or null
+   */
+  @Nullable
+  Object getAttachment();
+
+  /**
+   * Attach an object to this execution, like a tracing span created before query execution.
+   *
+   * @param attachment attachment
+   */
+  void setAttachment(@Nullable Object attachment);
+}
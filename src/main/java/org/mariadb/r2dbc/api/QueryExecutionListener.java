@@ -0,0 +1,43 @@
+/*
+ * Copyright 2020 MariaDB Ab.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mariadb.r2dbc.api;
+
+/**
+ * Listener notified around each query executed by the connections of a connection factory, to trace
+ * queries or log slow ones. Queries sent by the driver itself (like transaction commands) are
+ * reported too.
+ *
+ * <p>Callbacks are invoked with connection lock held or on the connection I/O thread: they must be
+ * fast and never block. Both callbacks of an execution receive the same {@link QueryExecutionInfo}
+ * instance, on which a span or any context can be attached.
+ */
+public interface QueryExecutionListener {
+
+  /**
+   * Query is submitted to the connection. It may wait for previous commands before being sent.
+   *
+   * @param execution query execution
+   */
+  default void beforeQuery(QueryExecutionInfo execution) {}
+
+  /**
+   * Query response has been completely received, or connection has been closed before.
+   *
+   * @param execution query execution
+   */
+  default void afterQuery(QueryExecutionInfo execution) {}
+}
@@ -16,14 +16,20 @@
 
 package org.mariadb.r2dbc.client;
 
+import io.netty.buffer.ByteBuf;
+import java.util.List;
+import java.util.function.Supplier;
 import org.mariadb.r2dbc.MariadbConnectionConfiguration;
 import org.mariadb.r2dbc.message.client.ClientMessage;
 import org.mariadb.r2dbc.message.client.ExecutePacket;
 import org.mariadb.r2dbc.message.client.PreparePacket;
 import org.mariadb.r2dbc.message.client.SslRequestPacket;
 import org.mariadb.r2dbc.message.server.InitialHandshakePacket;
+import org.mariadb.r2dbc.message.server.Sequencer;
 import org.mariadb.r2dbc.message.server.ServerMessage;
+import org.mariadb.r2dbc.util.HostAddress;
 import org.mariadb.r2dbc.util.PrepareCache;
+import org.reactivestreams.Publisher;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
@@ -31,6 +37,21 @@ public interface Client {
 
   Mono<Void> close();
 
+  /**
+   * Close connection right away, without sending COM_QUIT nor waiting for pending responses:
+   * commands not answered yet fail, and responses still received are dropped.
+   *
+   * @return close completion
+   */
+  Mono<Void> abort();
+
+  /**
+   * Completes when connection is closed, whatever the reason.
+   *
+   * @return close notification
+   */
+  Mono<Void> onClose();
+
   Flux<ServerMessage> receive();
 
   void sendCommandWithoutResult(ClientMessage requests);
@@ -43,6 +64,19 @@ public interface Client {
 
   Flux<ServerMessage> sendCommand(PreparePacket preparePacket, ExecutePacket executePacket);
 
+  /**
+   * Send commands as a batch. Responses are emitted in command order in a single flux, that
+   * completes when the last command response ends.
+   *
+   * @param messages commands
+   * @return responses of all commands
+   */
+  Flux<ServerMessage> sendBatch(List<ClientMessage> messages);
+
+  Flux<ServerMessage> sendLocalInfileCommand(ClientMessage message, Publisher<ByteBuf> data);
+
+  void sendLocalInfileData(Sequencer sequencer, Publisher<ByteBuf> data);
+
   Mono<Void> sendSslRequest(
       SslRequestPacket sslRequest, MariadbConnectionConfiguration configuration);
 
@@ -52,13 +86,70 @@ public interface Client {
 
   boolean noBackslashEscapes();
 
+  /**
+   * Indicate if a temporary table has been created or a session variable set on this connection:
+   * query results may then differ from other connections results.
+   *
+   * @return true if session differs from a new connection session
+   */
+  boolean isSessionModified();
+
+  /**
+   * Single flight write generation of the last statement modifying data executed on this
+   * connection: identical queries running since then see its modifications.
+   *
+   * @return write generation, or Long.MAX_VALUE if a statement modifying data is executing or its
+   *     transaction is not ended
+   */
+  long lastWriteGeneration();
+
+  /**
+   * Forget session state tracked from executed commands, once server session has been reset or
+   * initialized: temporary tables are dropped, session variables set and current transaction rolled
+   * back.
+   */
+  void resetSessionState();
+
   ServerVersion getVersion();
 
+  ConnectionContext getContext();
+
   boolean isConnected();
 
+  int pendingCommands();
+
+  HostAddress getHostAddress();
+
   void setContext(InitialHandshakePacket packet);
 
   void sendNext();
 
   PrepareCache getPrepareCache();
+
+  /**
+   * State shared with the other connections of the factory that created this connection.
+   *
+   * @return factory context
+   */
+  FactoryContext getFactoryContext();
+
+  /**
+   * TLS handshake duration.
+   *
+   * @return duration in nanoseconds, 0 if connection is not encrypted
+   */
+  long getTlsHandshakeNanos();
+
+  /**
+   * Set how to open a separate connection to the same server, used to kill the running query.
+   *
+   * @param connector separate connection supplier
+   */
+  void setKillQueryConnector(Supplier<Mono<Client>> connector);
+
+  /**
+   * Kill query currently executed by this connection, sending a KILL QUERY command on a separate
+   * connection. Does nothing if no separate connection can be opened.
+   */
+  void killQuery();
 }
@@ -16,6 +16,7 @@
 
 package org.mariadb.r2dbc.client;
 
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
 import io.netty.handler.logging.LogLevel;
 import io.netty.handler.logging.LoggingHandler;
@@ -24,27 +25,45 @@ import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.GenericFutureListener;
 import io.r2dbc.spi.R2dbcNonTransientResourceException;
 import io.r2dbc.spi.R2dbcTransientResourceException;
+import java.util.HashSet;
 import java.util.Queue;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import javax.net.ssl.SSLEngine;
 import javax.net.ssl.SSLException;
 import org.mariadb.r2dbc.ExceptionFactory;
 import org.mariadb.r2dbc.MariadbConnectionConfiguration;
+import org.mariadb.r2dbc.api.QueryExecutionListener;
 import org.mariadb.r2dbc.message.client.ClientMessage;
+import org.mariadb.r2dbc.message.client.ExecutePacket;
+import org.mariadb.r2dbc.message.client.LocalInfileDataPacket;
 import org.mariadb.r2dbc.message.client.QueryPacket;
 import org.mariadb.r2dbc.message.client.QuitPacket;
 import org.mariadb.r2dbc.message.client.SslRequestPacket;
 import org.mariadb.r2dbc.message.server.InitialHandshakePacket;
+import org.mariadb.r2dbc.message.server.Sequencer;
 import org.mariadb.r2dbc.message.server.ServerMessage;
+import org.mariadb.r2dbc.util.HostAddress;
 import org.mariadb.r2dbc.util.PrepareCache;
+import org.mariadb.r2dbc.util.ResultCache;
+import org.mariadb.r2dbc.util.SingleFlight;
+import org.mariadb.r2dbc.util.StatementStatistics;
 import org.mariadb.r2dbc.util.constants.ServerStatus;
+import org.mariadb.r2dbc.util.jfr.DriverEvents;
+import org.reactivestreams.Publisher;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 import reactor.netty.Connection;
 import reactor.util.Logger;
 import reactor.util.Loggers;
+import reactor.util.annotation.Nullable;
 import reactor.util.concurrent.Queues;
 
 public abstract class ClientBase implements Client {
@@ -59,15 +78,46 @@ public abstract class ClientBase implements Client {
   private final MariadbPacketEncoder mariadbPacketEncoder = new MariadbPacketEncoder();
   private volatile ConnectionContext context;
   private final PrepareCache prepareCache;
-
-  protected ClientBase(Connection connection, MariadbConnectionConfiguration configuration) {
+  private final HostAddress hostAddress;
+  private final FactoryContext factoryContext;
+  private volatile Supplier<Mono<Client>> killQueryConnector;
+  private final QueryExecutionListener queryExecutionListener;
+  private final StatementStatistics statementStatistics;
+  private final ResultCache resultCache;
+  // tables modified by current transaction, whose cached results are invalidated again at its end
+  private final Set<String> uncommittedTables = ConcurrentHashMap.newKeySet();
+  private final SingleFlight singleFlight;
+  // executing statements modifying data
+  private final AtomicInteger pendingWrites = new AtomicInteger();
+  // data modified by current transaction
+  private volatile boolean uncommittedWrites;
+  private volatile long lastWriteGeneration;
+  private volatile long tlsHandshakeNanos;
+  private volatile boolean sessionModified;
+
+  protected ClientBase(
+      Connection connection,
+      MariadbConnectionConfiguration configuration,
+      HostAddress hostAddress,
+      FactoryContext factoryContext) {
     this.connection = connection;
     this.configuration = configuration;
+    this.hostAddress = hostAddress;
+    this.factoryContext = factoryContext;
+    this.queryExecutionListener = configuration.getQueryExecutionListener();
+    this.statementStatistics = factoryContext.getStatementStatistics();
+    this.resultCache = factoryContext.getResultCache();
+    this.singleFlight = factoryContext.getSingleFlight();
     this.prepareCache =
         this.configuration.useServerPrepStmts()
             ? new PrepareCache(this.configuration.getPrepareCacheSize(), this)
             : null;
-    this.mariadbPacketDecoder = new MariadbPacketDecoder(responseReceivers, this);
+    this.mariadbPacketDecoder =
+        new MariadbPacketDecoder(
+            responseReceivers,
+            this,
+            configuration.streamLargeValues(),
+            configuration.getKillQueryThreshold());
 
     connection.addHandler(mariadbPacketDecoder);
     connection.addHandler(mariadbPacketEncoder);
@@ -118,6 +168,22 @@ public abstract class ClientBase implements Client {
         });
   }
 
+  @Override
+  public Mono<Void> abort() {
+    return Mono.defer(
+        () -> {
+          if (!this.isClosed.compareAndSet(false, true)) return Mono.empty();
+          clearWaitingListWithError(new R2dbcNonTransientResourceException("Connection aborted"));
+          this.connection.dispose();
+          return this.connection.onDispose();
+        });
+  }
+
+  @Override
+  public Mono<Void> onClose() {
+    return this.connection.onDispose();
+  }
+
   public Flux<ServerMessage> sendCommand(ClientMessage message) {
     return sendCommand(message, DecoderState.QUERY_RESPONSE);
   }
@@ -126,6 +192,8 @@ public abstract class ClientBase implements Client {
   public Mono<Void> sendSslRequest(
       SslRequestPacket sslRequest, MariadbConnectionConfiguration configuration) {
     CompletableFuture<Void> result = new CompletableFuture<>();
+    long start = System.nanoTime();
+    result.thenRun(() -> tlsHandshakeNanos = System.nanoTime() - start);
     try {
       SSLEngine engine =
           configuration.getSslConfig().getSslContext().newEngine(connection.channel().alloc());
@@ -134,7 +202,11 @@ public abstract class ClientBase implements Client {
       final GenericFutureListener<Future<? super Channel>> listener =
           configuration
               .getSslConfig()
-              .getHostNameVerifier(result, configuration.getHost(), context.getThreadId(), engine);
+              .getHostNameVerifier(
+                  result,
+                  hostAddress == null ? configuration.getHost() : hostAddress.getHost(),
+                  context.getThreadId(),
+                  engine);
 
       sslHandler.handshakeFuture().addListener(listener);
       // send SSL request in clear
@@ -150,6 +222,129 @@ public abstract class ClientBase implements Client {
     }
   }
 
+  @Override
+  public void sendLocalInfileData(Sequencer sequencer, Publisher<ByteBuf> data) {
+    if (data == null) {
+      connection.channel().writeAndFlush(LocalInfileDataPacket.end(sequencer));
+      return;
+    }
+    data.subscribe(new LocalInfileWriter(connection.channel(), sequencer));
+  }
+
+  /**
+   * Register a command waiting for its response. When a query execution listener or statement
+   * statistics are configured, or command events are recorded, command execution is tracked if
+   * command executes SQL. When results are shared, creation of temporary tables is detected, and
+   * when results are cached, results of tables command modifies are invalidated. Must be called
+   * with lock held.
+   *
+   * @param cmdElement command
+   * @param message message sent for this command
+   */
+  protected void register(CmdElement cmdElement, ClientMessage message) {
+    if (queryExecutionListener != null
+        || statementStatistics != null
+        || DriverEvents.isCommandEnabled()) {
+      String sql = message.executedSql();
+      if (sql != null) {
+        QueryExecution execution =
+            new QueryExecution(
+                queryExecutionListener,
+                statementStatistics,
+                sql,
+                message.parameterCount(),
+                context.getThreadId(),
+                noBackslashEscapes());
+        cmdElement.setExecution(execution);
+        execution.start();
+      }
+    }
+    if (resultCache != null || singleFlight != null) {
+      String sql = message.executedSql();
+      if (sql != null) {
+        Set<String> tables = ResultCache.modifiedTables(sql, noBackslashEscapes());
+        // temporary tables are only visible to this connection, session variables change results
+        if ((tables != null && tables.contains("temporary"))
+            || ResultCache.changesSession(sql, noBackslashEscapes())) {
+          sessionModified = true;
+        }
+        if (resultCache != null && tables != null) resultCache.invalidate(tables);
+        if (singleFlight != null && tables != null) pendingWrites.incrementAndGet();
+        cmdElement.setOnEnd(() -> commandEnded(tables));
+      }
+    }
+    Consumer<CmdElement> startListener =
+        cmdElement.getSink().currentContext().getOrDefault(CmdElement.START_LISTENER, null);
+    if (startListener != null) cmdElement.setOnStart(() -> startListener.accept(cmdElement));
+    this.responseReceivers.add(cmdElement);
+    if (startListener != null || cmdElement.getExecution() != null) {
+      // decoder only starts commands queued when previous response ends
+      CmdElement current = mariadbPacketDecoder.getCurrentCommand();
+      if ((current == null || current.isCompleted()) && responseReceivers.peek() == cmdElement) {
+        cmdElement.start();
+      }
+    }
+  }
+
+  /**
+   * Track modifications of a command that ended.
+   *
+   * @param tables tables modified by command, or null
+   */
+  private void commandEnded(@Nullable Set<String> tables) {
+    if (resultCache != null) invalidateModifiedTables(tables);
+    if (singleFlight != null) {
+      if (tables != null) uncommittedWrites = true;
+      // modifications are visible to queries of other connections once committed
+      if (uncommittedWrites && (context.getServerStatus() & ServerStatus.IN_TRANSACTION) == 0) {
+        uncommittedWrites = false;
+        lastWriteGeneration = singleFlight.writeEnded();
+      }
+      if (tables != null) pendingWrites.decrementAndGet();
+    }
+  }
+
+  /**
+   * Invalidate cached results when a command ends: results read while a statement was executing may
+   * not include its modifications, and modifications made in a transaction are only visible to
+   * other connections once transaction ends.
+   *
+   * @param tables tables modified by command, or null
+   */
+  private void invalidateModifiedTables(@Nullable Set<String> tables) {
+    boolean inTransaction = (context.getServerStatus() & ServerStatus.IN_TRANSACTION) != 0;
+    if (tables != null) {
+      resultCache.invalidate(tables);
+      if (inTransaction) uncommittedTables.addAll(tables);
+    }
+    if (!inTransaction && !uncommittedTables.isEmpty()) {
+      Set<String> modified =
+          uncommittedTables.containsAll(ResultCache.ALL_TABLES)
+              ? ResultCache.ALL_TABLES
+              : new HashSet<>(uncommittedTables);
+      uncommittedTables.clear();
+      resultCache.invalidate(modified);
+    }
+  }
+
+  /**
+   * Write message to the channel. Long data parameters of an execute packet are streamed first with
+   * COM_STMT_SEND_LONG_DATA commands.
+   *
+   * @param message message to send
+   * @param cmdElement command the message is sent for, or null if no response is expected
+   */
+  protected void send(ClientMessage message, CmdElement cmdElement) {
+    if (cmdElement != null) cmdElement.sent();
+    if (cmdElement != null
+        && message instanceof ExecutePacket
+        && ((ExecutePacket) message).hasLongData()) {
+      LongDataWriter.send(connection.channel(), (ExecutePacket) message, cmdElement);
+    } else {
+      connection.channel().writeAndFlush(message);
+    }
+  }
+
   public Flux<ServerMessage> sendCommand(ClientMessage message, DecoderState initialState) {
     return sendCommand(message, initialState, null);
   }
@@ -202,6 +397,11 @@ public abstract class ClientBase implements Client {
     return (this.context != null) ? this.context.getVersion() : ServerVersion.UNKNOWN_VERSION;
   }
 
+  @Override
+  public ConnectionContext getContext() {
+    return this.context;
+  }
+
   @Override
   public boolean isConnected() {
     if (this.isClosed.get()) {
@@ -212,10 +412,37 @@ public abstract class ClientBase implements Client {
     return channel.isOpen();
   }
 
+  @Override
+  public int pendingCommands() {
+    return this.responseReceivers.size();
+  }
+
+  @Override
+  public boolean isSessionModified() {
+    return sessionModified;
+  }
+
+  @Override
+  public long lastWriteGeneration() {
+    return pendingWrites.get() > 0 || uncommittedWrites ? Long.MAX_VALUE : lastWriteGeneration;
+  }
+
+  @Override
+  public void resetSessionState() {
+    sessionModified = false;
+    uncommittedTables.clear();
+    uncommittedWrites = false;
+  }
+
+  @Override
+  public HostAddress getHostAddress() {
+    return hostAddress;
+  }
+
   private void closedServlet() {
     if (this.isClosed.compareAndSet(false, true)) {
       clearWaitingListWithError(
-          new R2dbcNonTransientResourceException("Connection unexpectedly closed"));
+          new R2dbcNonTransientResourceException("Connection unexpectedly closed", "08006"));
 
     } else {
       clearWaitingListWithError(new R2dbcNonTransientResourceException("Connection closed"));
@@ -225,16 +452,52 @@ public abstract class ClientBase implements Client {
   private void clearWaitingListWithError(Throwable exception) {
     CmdElement response;
     while ((response = this.responseReceivers.poll()) != null) {
-      response.getSink().error(exception);
+      response.abort(exception);
     }
   }
 
   public abstract void sendNext();
 
+  @Override
+  public void setKillQueryConnector(Supplier<Mono<Client>> connector) {
+    this.killQueryConnector = connector;
+  }
+
+  @Override
+  public void killQuery() {
+    Supplier<Mono<Client>> connector = this.killQueryConnector;
+    if (connector == null || context == null) return;
+    String sql = "KILL QUERY " + context.getThreadId();
+    ExceptionFactory exceptionFactory = ExceptionFactory.withSql(sql);
+    // connecting from a worker thread, or connection would share this busy event loop
+    Mono.defer(connector)
+        .subscribeOn(Schedulers.boundedElastic())
+        .flatMap(
+            killClient ->
+                killClient
+                    .sendCommand(new QueryPacket(sql))
+                    .handle(exceptionFactory::handleErrorResponse)
+                    .then()
+                    .onErrorResume(throwable -> killClient.close().then(Mono.error(throwable)))
+                    .then(killClient.close()))
+        .subscribe(
+            ignore -> {}, throwable -> logger.warn(String.format("%s failed", sql), throwable));
+  }
+
   public PrepareCache getPrepareCache() {
     return prepareCache;
   }
 
+  @Override
+  public FactoryContext getFactoryContext() {
+    return factoryContext;
+  }
+
+  @Override
+  public long getTlsHandshakeNanos() {
+    return tlsHandshakeNanos;
+  }
+
   @Override
   public String toString() {
     return "Client{isClosed=" + isClosed + ", context=" + context + '}';
@@ -282,6 +545,20 @@ public abstract class ClientBase implements Client {
       }
     }
 
+    public Mono<Void> beginReadOnlyTransaction() {
+      if (!responseReceivers.isEmpty()
+          || (context.getServerStatus() & ServerStatus.IN_TRANSACTION) == 0) {
+        boolean supportReadOnly =
+            getVersion().isMariaDBServer()
+                ? getVersion().versionGreaterOrEqual(10, 0, 0)
+                : getVersion().versionGreaterOrEqual(5, 6, 5);
+        return exchange(supportReadOnly ? "START TRANSACTION READ ONLY" : "BEGIN").then();
+      } else {
+        logger.debug("Skipping begin transaction because already in transaction");
+        return Mono.empty();
+      }
+    }
+
     public Mono<Void> commitTransaction() {
       if (!responseReceivers.isEmpty()
           || (context.getServerStatus() & ServerStatus.IN_TRANSACTION) > 0) {
@@ -16,17 +16,23 @@
 
 package org.mariadb.r2dbc.client;
 
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelOption;
 import io.r2dbc.spi.R2dbcNonTransientResourceException;
 import java.net.SocketAddress;
+import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 import org.mariadb.r2dbc.MariadbConnectionConfiguration;
 import org.mariadb.r2dbc.message.client.ClientMessage;
 import org.mariadb.r2dbc.message.client.ExecutePacket;
 import org.mariadb.r2dbc.message.client.PreparePacket;
 import org.mariadb.r2dbc.message.server.ServerMessage;
+import org.mariadb.r2dbc.util.HostAddress;
+import org.reactivestreams.Publisher;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
 import reactor.core.publisher.Mono;
 import reactor.netty.Connection;
 import reactor.netty.resources.ConnectionProvider;
@@ -35,16 +41,24 @@ import reactor.util.concurrent.Queues;
 
 /** Client that only send query one by one. */
 public final class ClientImpl extends ClientBase {
-  public ClientImpl(Connection connection, MariadbConnectionConfiguration configuration) {
-    super(connection, configuration);
+  public ClientImpl(
+      Connection connection,
+      MariadbConnectionConfiguration configuration,
+      HostAddress hostAddress,
+      FactoryContext factoryContext) {
+    super(connection, configuration, hostAddress, factoryContext);
   }
 
-  protected final Queue<ClientMessage> sendingQueue = Queues.<ClientMessage>unbounded().get();
+  protected final Queue<PendingMessage> sendingQueue = Queues.<PendingMessage>unbounded().get();
+  // last command sent, whose response may not have ended yet (guarded by lock)
+  private CmdElement commandInProgress;
 
   public static Mono<Client> connect(
       ConnectionProvider connectionProvider,
       SocketAddress socketAddress,
-      MariadbConnectionConfiguration configuration) {
+      HostAddress hostAddress,
+      MariadbConnectionConfiguration configuration,
+      FactoryContext factoryContext) {
 
     TcpClient tcpClient = TcpClient.create(connectionProvider).addressSupplier(() -> socketAddress);
     if (configuration.getConnectTimeout() != null) {
@@ -53,17 +67,15 @@ public final class ClientImpl extends ClientBase {
               ChannelOption.CONNECT_TIMEOUT_MILLIS,
               Math.toIntExact(configuration.getConnectTimeout().toMillis()));
     }
-    return tcpClient.connect().flatMap(it -> Mono.just(new ClientImpl(it, configuration)));
+    return tcpClient
+        .connect()
+        .flatMap(it -> Mono.just(new ClientImpl(it, configuration, hostAddress, factoryContext)));
   }
 
   public void sendCommandWithoutResult(ClientMessage message) {
     try {
       lock.lock();
-      if (this.responseReceivers.isEmpty()) {
-        connection.channel().writeAndFlush(message);
-      } else {
-        sendingQueue.add(message);
-      }
+      sendOrQueue(message, null);
     } finally {
       lock.unlock();
     }
@@ -75,6 +87,11 @@ public final class ClientImpl extends ClientBase {
 
   public Flux<ServerMessage> sendCommand(
       ClientMessage message, DecoderState initialState, String sql) {
+    return sendCommand(message, sink -> new CmdElement(sink, initialState, sql));
+  }
+
+  /** Send batch commands one by one, each one once previous command response ends. */
+  public Flux<ServerMessage> sendBatch(List<ClientMessage> messages) {
     AtomicBoolean atomicBoolean = new AtomicBoolean();
     return Flux.create(
         sink -> {
@@ -84,15 +101,19 @@ public final class ClientImpl extends ClientBase {
                     "Connection is close. Cannot send anything"));
             return;
           }
+          if (messages.isEmpty()) {
+            sink.complete();
+            return;
+          }
           if (atomicBoolean.compareAndSet(false, true)) {
             try {
               lock.lock();
-              this.responseReceivers.add(new CmdElement(sink, initialState, sql));
-
-              if (this.responseReceivers.isEmpty()) {
-                connection.channel().writeAndFlush(message);
-              } else {
-                sendingQueue.add(message);
+              int last = messages.size() - 1;
+              for (int i = 0; i <= last; i++) {
+                CmdElement cmdElement =
+                    new CmdElement(sink, DecoderState.QUERY_RESPONSE, i == last);
+                register(cmdElement, messages.get(i));
+                sendOrQueue(messages.get(i), cmdElement);
               }
             } finally {
               lock.unlock();
@@ -101,11 +122,62 @@ public final class ClientImpl extends ClientBase {
         });
   }
 
+  public Flux<ServerMessage> sendLocalInfileCommand(
+      ClientMessage message, Publisher<ByteBuf> data) {
+    return sendCommand(
+        message, sink -> new CmdElement(sink, DecoderState.QUERY_RESPONSE, null, data));
+  }
+
+  private Flux<ServerMessage> sendCommand(
+      ClientMessage message, Function<FluxSink<ServerMessage>, CmdElement> cmdElementFactory) {
+    AtomicBoolean atomicBoolean = new AtomicBoolean();
+    return Flux.create(
+        sink -> {
+          if (!isConnected()) {
+            sink.error(
+                new R2dbcNonTransientResourceException(
+                    "Connection is close. Cannot send anything"));
+            return;
+          }
+          if (atomicBoolean.compareAndSet(false, true)) {
+            try {
+              lock.lock();
+              CmdElement cmdElement = cmdElementFactory.apply(sink);
+              register(cmdElement, message);
+              sendOrQueue(message, cmdElement);
+            } finally {
+              lock.unlock();
+            }
+          }
+        });
+  }
+
+  /**
+   * Send message right away if no command is waiting for its response, or else queue it. Must be
+   * called with lock held.
+   */
+  private void sendOrQueue(ClientMessage message, CmdElement cmdElement) {
+    if (isIdle() && sendingQueue.isEmpty()) {
+      send(message, cmdElement);
+      if (cmdElement != null) commandInProgress = cmdElement;
+    } else {
+      sendingQueue.add(new PendingMessage(message, cmdElement));
+    }
+  }
+
+  private boolean isIdle() {
+    return commandInProgress == null || commandInProgress.isCompleted();
+  }
+
   public void sendNext() {
     lock.lock();
     try {
-      ClientMessage next = sendingQueue.poll();
-      if (next != null) connection.channel().writeAndFlush(next);
+      // send queued messages up to next command, once current command response has ended
+      PendingMessage next;
+      while (isIdle() && (next = sendingQueue.poll()) != null) {
+        send(next.message, next.cmdElement);
+        if (next.cmdElement != null) commandInProgress = next.cmdElement;
+      }
     } finally {
       lock.unlock();
     }
@@ -16,31 +16,50 @@
 
 package org.mariadb.r2dbc.client;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelOption;
 import io.r2dbc.spi.R2dbcNonTransientResourceException;
 import java.net.SocketAddress;
+import java.util.List;
+import java.util.Queue;
 import java.util.concurrent.atomic.AtomicBoolean;
 import org.mariadb.r2dbc.MariadbConnectionConfiguration;
 import org.mariadb.r2dbc.message.client.ClientMessage;
 import org.mariadb.r2dbc.message.client.ExecutePacket;
 import org.mariadb.r2dbc.message.client.PreparePacket;
 import org.mariadb.r2dbc.message.server.ServerMessage;
+import org.mariadb.r2dbc.util.HostAddress;
+import org.reactivestreams.Publisher;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.netty.Connection;
 import reactor.netty.resources.ConnectionProvider;
 import reactor.netty.tcp.TcpClient;
+import reactor.util.concurrent.Queues;
 
 /** Client that send queries pipelining (without waiting for result). */
 public final class ClientPipelineImpl extends ClientBase {
-  public ClientPipelineImpl(Connection connection, MariadbConnectionConfiguration configuration) {
-    super(connection, configuration);
+
+  // command that must be answered before sending anything else (guarded by lock)
+  private CmdElement exclusiveCmd;
+  // messages waiting for exclusive command end
+  private final Queue<PendingMessage> waitingMessages = Queues.<PendingMessage>unbounded().get();
+
+  public ClientPipelineImpl(
+      Connection connection,
+      MariadbConnectionConfiguration configuration,
+      HostAddress hostAddress,
+      FactoryContext factoryContext) {
+    super(connection, configuration, hostAddress, factoryContext);
   }
 
   public static Mono<Client> connect(
       ConnectionProvider connectionProvider,
       SocketAddress socketAddress,
-      MariadbConnectionConfiguration configuration) {
+      HostAddress hostAddress,
+      MariadbConnectionConfiguration configuration,
+      FactoryContext factoryContext) {
 
     TcpClient tcpClient = TcpClient.create(connectionProvider).addressSupplier(() -> socketAddress);
     if (configuration.getConnectTimeout() != null) {
@@ -49,13 +68,17 @@ public final class ClientPipelineImpl extends ClientBase {
               ChannelOption.CONNECT_TIMEOUT_MILLIS,
               Math.toIntExact(configuration.getConnectTimeout().toMillis()));
     }
-    return tcpClient.connect().flatMap(it -> Mono.just(new ClientPipelineImpl(it, configuration)));
+    return tcpClient
+        .connect()
+        .flatMap(
+            it ->
+                Mono.just(new ClientPipelineImpl(it, configuration, hostAddress, factoryContext)));
   }
 
   public void sendCommandWithoutResult(ClientMessage message) {
     try {
       lock.lock();
-      connection.channel().writeAndFlush(message);
+      write(message, null);
     } finally {
       lock.unlock();
     }
@@ -74,11 +97,58 @@ public final class ClientPipelineImpl extends ClientBase {
           if (atomicBoolean.compareAndSet(false, true)) {
             try {
               lock.lock();
-              this.responseReceivers.add(
+              CmdElement cmdElement =
                   new CmdElement(
-                      sink, DecoderState.PREPARE_AND_EXECUTE_RESPONSE, preparePacket.getSql()));
-              connection.channel().writeAndFlush(preparePacket);
-              connection.channel().writeAndFlush(executePacket);
+                      sink, DecoderState.PREPARE_AND_EXECUTE_RESPONSE, preparePacket.getSql());
+              register(cmdElement, executePacket);
+              write(preparePacket, cmdElement);
+              write(executePacket, null);
+            } finally {
+              lock.unlock();
+            }
+          }
+        });
+  }
+
+  /**
+   * Send batch commands pipelined, with a single flush: whole batch costs a single round-trip.
+   * Responses are read in order, each command ending at its response end.
+   */
+  public Flux<ServerMessage> sendBatch(List<ClientMessage> messages) {
+    AtomicBoolean atomicBoolean = new AtomicBoolean();
+    return Flux.create(
+        sink -> {
+          if (!isConnected()) {
+            sink.error(
+                new R2dbcNonTransientResourceException(
+                    "Connection is close. Cannot send anything"));
+            return;
+          }
+          if (messages.isEmpty()) {
+            sink.complete();
+            return;
+          }
+          if (atomicBoolean.compareAndSet(false, true)) {
+            try {
+              lock.lock();
+              int last = messages.size() - 1;
+              CmdElement[] cmdElements = new CmdElement[messages.size()];
+              for (int i = 0; i <= last; i++) {
+                cmdElements[i] = new CmdElement(sink, DecoderState.QUERY_RESPONSE, i == last);
+                register(cmdElements[i], messages.get(i));
+              }
+              if (exclusiveCmd == null) {
+                Channel channel = connection.channel();
+                for (int i = 0; i <= last; i++) {
+                  cmdElements[i].sent();
+                  channel.write(messages.get(i));
+                }
+                channel.flush();
+              } else {
+                for (int i = 0; i <= last; i++) {
+                  waitingMessages.add(new PendingMessage(messages.get(i), cmdElements[i]));
+                }
+              }
             } finally {
               lock.unlock();
             }
@@ -100,8 +170,14 @@ public final class ClientPipelineImpl extends ClientBase {
           if (atomicBoolean.compareAndSet(false, true)) {
             try {
               lock.lock();
-              this.responseReceivers.add(new CmdElement(sink, initialState, sql));
-              connection.channel().writeAndFlush(message);
+              CmdElement cmdElement = new CmdElement(sink, initialState, sql);
+              register(cmdElement, message);
+              if (message instanceof ExecutePacket && ((ExecutePacket) message).hasLongData()) {
+                // long data commands must not be interleaved with other commands
+                writeExclusive(message, cmdElement);
+              } else {
+                write(message, cmdElement);
+              }
             } finally {
               lock.unlock();
             }
@@ -109,5 +185,64 @@ public final class ClientPipelineImpl extends ClientBase {
         });
   }
 
-  public void sendNext() {}
+  /**
+   * Send a command that may be answered by a local infile request. Until its response ends, server
+   * will read anything sent as file content, so next commands are not pipelined but wait.
+   */
+  public Flux<ServerMessage> sendLocalInfileCommand(
+      ClientMessage message, Publisher<ByteBuf> data) {
+    AtomicBoolean atomicBoolean = new AtomicBoolean();
+    return Flux.create(
+        sink -> {
+          if (!isConnected()) {
+            sink.error(
+                new R2dbcNonTransientResourceException(
+                    "Connection is close. Cannot send anything"));
+            return;
+          }
+          if (atomicBoolean.compareAndSet(false, true)) {
+            try {
+              lock.lock();
+              CmdElement cmdElement = new CmdElement(sink, DecoderState.QUERY_RESPONSE, null, data);
+              register(cmdElement, message);
+              writeExclusive(message, cmdElement);
+            } finally {
+              lock.unlock();
+            }
+          }
+        });
+  }
+
+  private void write(ClientMessage message, CmdElement cmdElement) {
+    if (exclusiveCmd == null) {
+      if (cmdElement != null) cmdElement.sent();
+      connection.channel().writeAndFlush(message);
+    } else {
+      waitingMessages.add(new PendingMessage(message, cmdElement));
+    }
+  }
+
+  private void writeExclusive(ClientMessage message, CmdElement cmdElement) {
+    if (exclusiveCmd == null) {
+      exclusiveCmd = cmdElement;
+      send(message, cmdElement);
+    } else {
+      waitingMessages.add(new PendingMessage(message, cmdElement, true));
+    }
+  }
+
+  public void sendNext() {
+    lock.lock();
+    try {
+      if (exclusiveCmd == null || !exclusiveCmd.isCompleted()) return;
+      exclusiveCmd = null;
+      PendingMessage waiting;
+      while (exclusiveCmd == null && (waiting = waitingMessages.poll()) != null) {
+        if (waiting.exclusive) exclusiveCmd = waiting.cmdElement;
+        send(waiting.message, waiting.cmdElement);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
 }
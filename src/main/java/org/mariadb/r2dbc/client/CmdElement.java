@@ -16,25 +16,171 @@
 
 package org.mariadb.r2dbc.client;
 
+import io.netty.buffer.ByteBuf;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import org.mariadb.r2dbc.message.server.ServerMessage;
+import org.reactivestreams.Publisher;
 import reactor.core.publisher.FluxSink;
 
 public class CmdElement {
 
+  /**
+   * Subscriber context key of a {@code Consumer<CmdElement>} notified when a command of the
+   * response becomes the command server is executing, i.e. the head of the response queue.
+   */
+  public static final String START_LISTENER = CmdElement.class.getName() + ".startListener";
+
+  private static final AtomicIntegerFieldUpdater<CmdElement> STARTED =
+      AtomicIntegerFieldUpdater.newUpdater(CmdElement.class, "started");
+
   private final FluxSink<ServerMessage> sink;
   private final DecoderState initialState;
   private final String sql;
+  private final Publisher<ByteBuf> localInfileData;
+  private final boolean completeSink;
+  private volatile boolean completed;
+  private volatile Throwable failure;
+  // execution reported to query execution listener, or null
+  private QueryExecution execution;
+  // action run when command ends, before sink is completed, or null
+  private Runnable onEnd;
+  // action run when command becomes the head of the response queue, or null
+  private Runnable onStart;
+  private volatile int started;
 
   public CmdElement(FluxSink<ServerMessage> sink, DecoderState initialState) {
-    this.sink = sink;
-    this.initialState = initialState;
-    this.sql = null;
+    this(sink, initialState, null, null);
   }
 
   public CmdElement(FluxSink<ServerMessage> sink, DecoderState initialState, String sql) {
+    this(sink, initialState, sql, null);
+  }
+
+  public CmdElement(
+      FluxSink<ServerMessage> sink,
+      DecoderState initialState,
+      String sql,
+      Publisher<ByteBuf> localInfileData) {
+    this(sink, initialState, sql, localInfileData, true);
+  }
+
+  /**
+   * Constructor for a command of a batch: batch commands share a single sink, that is only
+   * completed by the last command.
+   *
+   * @param sink batch sink
+   * @param initialState decoder initial state
+   * @param completeSink must sink be completed when command response ends
+   */
+  public CmdElement(FluxSink<ServerMessage> sink, DecoderState initialState, boolean completeSink) {
+    this(sink, initialState, null, null, completeSink);
+  }
+
+  private CmdElement(
+      FluxSink<ServerMessage> sink,
+      DecoderState initialState,
+      String sql,
+      Publisher<ByteBuf> localInfileData,
+      boolean completeSink) {
     this.sink = sink;
     this.initialState = initialState;
     this.sql = sql;
+    this.localInfileData = localInfileData;
+    this.completeSink = completeSink;
+  }
+
+  /** Indicate that command response has been completely received. */
+  public void complete() {
+    this.completed = true;
+    if (execution != null) execution.end(failure);
+    if (onEnd != null) onEnd.run();
+    if (failure != null) {
+      this.sink.error(failure);
+    } else if (completeSink) {
+      this.sink.complete();
+    }
+  }
+
+  /**
+   * Fail command before its response is received: response is then discarded, and failure emitted
+   * once response has been completely received.
+   *
+   * @param failure failure
+   */
+  public void fail(Throwable failure) {
+    this.failure = failure;
+  }
+
+  /**
+   * Fail command that will never be answered, connection being closed.
+   *
+   * @param failure failure
+   */
+  public void abort(Throwable failure) {
+    this.completed = true;
+    if (execution != null) execution.end(failure);
+    if (onEnd != null) onEnd.run();
+    this.sink.error(failure);
+  }
+
+  /**
+   * Indicate that command is now the head of the response queue: previous commands responses have
+   * been received, so server is executing this command. Only the first call has an effect.
+   */
+  public void start() {
+    if (STARTED.compareAndSet(this, 0, 1)) {
+      if (execution != null) execution.headOfQueue();
+      if (onStart != null) onStart.run();
+    }
+  }
+
+  /** Indicate that command has been written to the channel. */
+  public void sent() {
+    if (execution != null) execution.sent();
+  }
+
+  QueryExecution getExecution() {
+    return execution;
+  }
+
+  void setExecution(QueryExecution execution) {
+    this.execution = execution;
+  }
+
+  void setOnEnd(Runnable onEnd) {
+    this.onEnd = onEnd;
+  }
+
+  void setOnStart(Runnable onStart) {
+    this.onStart = onStart;
+  }
+
+  public boolean isFailed() {
+    return failure != null;
+  }
+
+  /**
+   * Indicate if rows can be dropped without being decoded: command has failed, or its response is
+   * not subscribed anymore.
+   *
+   * @return true if rows are not needed
+   */
+  public boolean isDiscarding() {
+    return failure != null || sink.isCancelled();
+  }
+
+  public boolean isCompleted() {
+    return completed;
+  }
+
+  /**
+   * Data to send if server requests a local file. Null if command is not a LOAD DATA LOCAL INFILE
+   * command.
+   *
+   * @return data publisher
+   */
+  public Publisher<ByteBuf> getLocalInfileData() {
+    return localInfileData;
   }
 
   public FluxSink<ServerMessage> getSink() {
@@ -16,6 +16,9 @@
 
 package org.mariadb.r2dbc.client;
 
+import io.r2dbc.spi.IsolationLevel;
+import java.time.Duration;
+
 public class ConnectionContext {
 
   private final long threadId;
@@ -25,6 +28,14 @@ public class ConnectionContext {
   private String database = null;
   private ServerVersion version;
 
+  // session state, as reported by server session tracking
+  private volatile IsolationLevel isolationLevel = null;
+  private volatile String characterSet = null;
+  private volatile Duration maxStatementTime = null;
+  private volatile int autoIncrementIncrement = 1;
+  private volatile String transactionState = null;
+  private volatile String transactionCharacteristics = null;
+
   public ConnectionContext(
       String serverVersion,
       long threadId,
@@ -72,8 +83,127 @@ public class ConnectionContext {
     return version;
   }
 
+  /**
+   * Current session isolation level, or null if not known yet.
+   *
+   * @return session isolation level
+   */
+  public IsolationLevel getIsolationLevel() {
+    return isolationLevel;
+  }
+
+  public void setIsolationLevel(IsolationLevel isolationLevel) {
+    this.isolationLevel = isolationLevel;
+  }
+
+  public String getCharacterSet() {
+    return characterSet;
+  }
+
+  public void setCharacterSet(String characterSet) {
+    this.characterSet = characterSet;
+  }
+
+  /**
+   * Current session max_statement_time (MariaDB only). Zero means no limit, null if unknown.
+   *
+   * @return max statement time
+   */
+  public Duration getMaxStatementTime() {
+    return maxStatementTime;
+  }
+
+  public void setMaxStatementTime(Duration maxStatementTime) {
+    this.maxStatementTime = maxStatementTime;
+  }
+
+  /**
+   * Current session auto_increment_increment, used to compute IDs generated by a multi-row insert
+   * from the first one. Default to 1 when server does not report it.
+   *
+   * @return auto increment step
+   */
+  public int getAutoIncrementIncrement() {
+    return autoIncrementIncrement;
+  }
+
+  public void setAutoIncrementIncrement(int autoIncrementIncrement) {
+    this.autoIncrementIncrement = autoIncrementIncrement;
+  }
+
+  /**
+   * Transaction state as reported by session_track_transaction_info, like "T_R_W___". See
+   * https://dev.mysql.com/doc/dev/mysql-server/latest/page_protocol_basic_ok_packet.html
+   *
+   * @return transaction state, or null if not tracked
+   */
+  public String getTransactionState() {
+    return transactionState;
+  }
+
+  public void setTransactionState(String transactionState) {
+    this.transactionState = transactionState;
+  }
+
+  /**
+   * Transaction characteristics as reported by session_track_transaction_info, like "START
+   * TRANSACTION READ ONLY;".
+   *
+   * @return transaction characteristics, or null if not tracked
+   */
+  public String getTransactionCharacteristics() {
+    return transactionCharacteristics;
+  }
+
+  public void setTransactionCharacteristics(String transactionCharacteristics) {
+    this.transactionCharacteristics = transactionCharacteristics;
+  }
+
+  /**
+   * Session state has been reset on server: tracked state is unknown until server reports it again.
+   *
+   * @param isolationLevel isolation level after reset (global server value)
+   */
+  public void resetSession(IsolationLevel isolationLevel) {
+    this.isolationLevel = isolationLevel;
+    this.characterSet = null;
+    this.maxStatementTime = null;
+    this.transactionState = null;
+    this.transactionCharacteristics = null;
+  }
+
+  /**
+   * Parse server isolation level value (tx_isolation / transaction_isolation variable).
+   *
+   * @param level server value, like "REPEATABLE-READ"
+   * @return corresponding isolation level
+   */
+  public static IsolationLevel toIsolationLevel(String level) {
+    if (level == null) return IsolationLevel.READ_COMMITTED;
+    switch (level) {
+      case "REPEATABLE-READ":
+        return IsolationLevel.REPEATABLE_READ;
+
+      case "READ-UNCOMMITTED":
+        return IsolationLevel.READ_UNCOMMITTED;
+
+      case "SERIALIZABLE":
+        return IsolationLevel.SERIALIZABLE;
+
+      default:
+        return IsolationLevel.READ_COMMITTED;
+    }
+  }
+
   @Override
   public String toString() {
-    return "ConnectionContext{" + "threadId=" + threadId + ", version=" + version + '}';
+    return "ConnectionContext{"
+        + "threadId="
+        + threadId
+        + ", version="
+        + version
+        + ", isolationLevel="
+        + isolationLevel
+        + '}';
   }
 }
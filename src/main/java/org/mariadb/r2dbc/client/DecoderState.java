@@ -43,7 +43,9 @@ public enum DecoderState implements DecoderStateInterface {
     @Override
     public ServerMessage decode(
         ByteBuf body, Sequencer sequencer, MariadbPacketDecoder decoder, CmdElement element) {
-      return InitialHandshakePacket.decode(sequencer, body);
+      // server may refuse connection before handshake (too many connections, host blocked)
+      if (body.getUnsignedByte(body.readerIndex()) == 0xFF) return ErrorPacket.decode(body);
+      return InitialHandshakePacket.decode(sequencer.copy(), body);
     }
 
     @Override
@@ -75,7 +77,7 @@ public enum DecoderState implements DecoderStateInterface {
     @Override
     public ServerMessage decode(
         ByteBuf body, Sequencer sequencer, MariadbPacketDecoder decoder, CmdElement element) {
-      return OkPacket.decode(sequencer, body, decoder.getContext());
+      return OkPacket.decode(body, decoder.getContext());
     }
 
     @Override
@@ -88,7 +90,7 @@ public enum DecoderState implements DecoderStateInterface {
     @Override
     public ServerMessage decode(
         ByteBuf body, Sequencer sequencer, MariadbPacketDecoder decoder, CmdElement element) {
-      return AuthSwitchPacket.decode(sequencer, body, decoder.getContext());
+      return AuthSwitchPacket.decode(sequencer.copy(), body, decoder.getContext());
     }
 
     @Override
@@ -119,7 +121,7 @@ public enum DecoderState implements DecoderStateInterface {
     @Override
     public ServerMessage decode(
         ByteBuf body, Sequencer sequencer, MariadbPacketDecoder decoder, CmdElement element) {
-      return AuthMoreDataPacket.decode(sequencer, body, decoder.getContext());
+      return AuthMoreDataPacket.decode(sequencer.copy(), body, decoder.getContext());
     }
 
     @Override
@@ -133,6 +135,8 @@ public enum DecoderState implements DecoderStateInterface {
       switch (val) {
         case 0:
           return OK_PACKET;
+        case 251: // 0xFB
+          return LOCAL_INFILE;
         case 255: // 0xFF
           return ERROR;
         default:
@@ -141,13 +145,27 @@ public enum DecoderState implements DecoderStateInterface {
     }
   },
 
+  LOCAL_INFILE {
+    @Override
+    public ServerMessage decode(
+        ByteBuf body, Sequencer sequencer, MariadbPacketDecoder decoder, CmdElement element) {
+      // never reading requested file: only data given with command is sent (possibly none)
+      decoder.getClient().sendLocalInfileData(sequencer.copy(), element.getLocalInfileData());
+      return null;
+    }
+
+    @Override
+    public DecoderState next(MariadbPacketDecoder decoder) {
+      return QUERY_RESPONSE;
+    }
+  },
+
   COLUMN_COUNT {
 
     @Override
     public ServerMessage decode(
         ByteBuf body, Sequencer sequencer, MariadbPacketDecoder decoder, CmdElement element) {
-      ColumnCountPacket columnCountPacket =
-          ColumnCountPacket.decode(sequencer, body, decoder.getContext());
+      ColumnCountPacket columnCountPacket = ColumnCountPacket.decode(body, decoder.getContext());
       decoder.setStateCounter(columnCountPacket.getColumnCount());
       return columnCountPacket;
     }
@@ -192,7 +210,8 @@ public enum DecoderState implements DecoderStateInterface {
     @Override
     public ServerMessage decode(
         ByteBuf body, Sequencer sequencer, MariadbPacketDecoder decoder, CmdElement element) {
-      return EofPacket.decode(sequencer, body, decoder.getContext(), false);
+      // intermediate EOF only carries server status, that will be sent again with ending packet
+      return null;
     }
 
     @Override
@@ -209,7 +228,7 @@ public enum DecoderState implements DecoderStateInterface {
     @Override
     public ServerMessage decode(
         ByteBuf body, Sequencer sequencer, MariadbPacketDecoder decoder, CmdElement element) {
-      return EofPacket.decode(sequencer, body, decoder.getContext(), true);
+      return EofPacket.decode(body, decoder.getContext(), true);
     }
 
     @Override
@@ -242,7 +261,7 @@ public enum DecoderState implements DecoderStateInterface {
     @Override
     public ServerMessage decode(
         ByteBuf body, Sequencer sequencer, MariadbPacketDecoder decoder, CmdElement element) {
-      return new RowPacket(body);
+      return new RowPacket(body, decoder.getLargeValue());
     }
 
     @Override
@@ -261,7 +280,7 @@ public enum DecoderState implements DecoderStateInterface {
     @Override
     public ServerMessage decode(
         ByteBuf body, Sequencer sequencer, MariadbPacketDecoder decoder, CmdElement element) {
-      packet = PrepareResultPacket.decode(sequencer, body, decoder.getContext());
+      packet = PrepareResultPacket.decode(body, decoder.getContext());
       ServerPrepareResult prepareResult =
           new ServerPrepareResult(
               packet.getStatementId(), packet.getNumColumns(), packet.getNumParams());
@@ -301,7 +320,7 @@ public enum DecoderState implements DecoderStateInterface {
     public ServerMessage decode(
         ByteBuf body, Sequencer sequencer, MariadbPacketDecoder decoder, CmdElement element) {
 
-      packet = PrepareResultPacket.decode(sequencer, body, decoder.getContext());
+      packet = PrepareResultPacket.decode(body, decoder.getContext());
 
       ServerPrepareResult prepareResult =
           new ServerPrepareResult(
@@ -379,7 +398,7 @@ public enum DecoderState implements DecoderStateInterface {
     @Override
     public ServerMessage decode(
         ByteBuf body, Sequencer sequencer, MariadbPacketDecoder decoder, CmdElement element) {
-      return ErrorPacket.decode(sequencer, body);
+      return ErrorPacket.decode(body);
     }
 
     @Override
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2020 MariaDB Ab.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mariadb.r2dbc.client;
+
+import java.time.Duration;
+import org.mariadb.r2dbc.InsertBatcher;
+import org.mariadb.r2dbc.MariadbConnectionConfiguration;
+import org.mariadb.r2dbc.message.client.Ed25519PasswordPacket;
+import org.mariadb.r2dbc.util.PublicKeyCache;
+import org.mariadb.r2dbc.util.ResultCache;
+import org.mariadb.r2dbc.util.SingleFlight;
+import org.mariadb.r2dbc.util.StatementStatistics;
+import reactor.util.annotation.Nullable;
+
+/**
+ * State shared by the connections of a connection factory. Created by each factory, so factories
+ * built from the same configuration do not share it.
+ */
+public final class FactoryContext {
+
+  private final Ed25519PasswordPacket.KeyPairCache ed25519KeyPairCache =
+      new Ed25519PasswordPacket.KeyPairCache();
+  private final PublicKeyCache publicKeyCache = new PublicKeyCache();
+  private final StatementStatistics statementStatistics;
+  private final ResultCache resultCache;
+  private final SingleFlight singleFlight;
+  private final InsertBatcher insertBatcher;
+
+  public FactoryContext(MariadbConnectionConfiguration configuration) {
+    this.statementStatistics =
+        configuration.getStatementStatisticsSize() > 0
+            ? new StatementStatistics(configuration.getStatementStatisticsSize())
+            : null;
+    this.resultCache =
+        configuration.getResultCacheSize() > 0
+            ? new ResultCache(configuration.getResultCacheSize(), configuration.getResultCacheTtl())
+            : null;
+    // streamed large values can only be read once
+    this.singleFlight =
+        configuration.singleFlight() && !configuration.streamLargeValues()
+            ? new SingleFlight()
+            : null;
+    Duration insertBatchWindow = configuration.getInsertBatchWindow();
+    this.insertBatcher =
+        insertBatchWindow != null
+                && !insertBatchWindow.isZero()
+                && configuration.getInsertBatchSize() > 1
+            ? new InsertBatcher(insertBatchWindow, configuration.getInsertBatchSize())
+            : null;
+  }
+
+  /**
+   * Key pair derived from password for ed25519 authentication.
+   *
+   * @return key pair cache
+   */
+  public Ed25519PasswordPacket.KeyPairCache getEd25519KeyPairCache() {
+    return ed25519KeyPairCache;
+  }
+
+  /**
+   * RSA public keys used for SHA-256 authentication.
+   *
+   * @return public key cache
+   */
+  public PublicKeyCache getPublicKeyCache() {
+    return publicKeyCache;
+  }
+
+  /**
+   * Execution statistics by statement digest.
+   *
+   * @return statistics, or null if disabled
+   */
+  @Nullable
+  public StatementStatistics getStatementStatistics() {
+    return statementStatistics;
+  }
+
+  /**
+   * Query results cached for statements.
+   *
+   * @return result cache, or null if disabled
+   */
+  @Nullable
+  public ResultCache getResultCache() {
+    return resultCache;
+  }
+
+  /**
+   * Executions shared by identical read-only queries.
+   *
+   * @return single flight, or null if disabled
+   */
+  @Nullable
+  public SingleFlight getSingleFlight() {
+    return singleFlight;
+  }
+
+  /**
+   * Merges INSERT statements executed at the same time on a connection.
+   *
+   * @return insert batcher, or null if disabled
+   */
+  @Nullable
+  public InsertBatcher getInsertBatcher() {
+    return insertBatcher;
+  }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2020 MariaDB Ab.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mariadb.r2dbc.client;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import org.mariadb.r2dbc.util.jfr.DriverEvents;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.Operators;
+
+/**
+ * Large value parts, fed by the decoder with the packets following the first packet of a row.
+ *
+ * <p>Memory is bounded by pausing channel reads while received parts have not been requested:
+ * reading resumes once received parts have been consumed, or value is cancelled. Connection is then
+ * blocked until value is consumed or cancelled. Emitted buffers must be released by subscriber.
+ */
+final class LargeValuePublisher implements Publisher<ByteBuf>, Subscription {
+
+  private final Channel channel;
+  private final Queue<ByteBuf> parts = new ArrayDeque<>();
+  private Subscriber<? super ByteBuf> subscriber;
+  private long requested;
+  private boolean completed;
+  // completed and emitted, or cancelled
+  private boolean terminated;
+  private boolean draining;
+  private volatile boolean paused;
+  // flight recorder event while paused, or null
+  private Object stallEvent;
+  private long stallBytes;
+
+  LargeValuePublisher(Channel channel) {
+    this.channel = channel;
+  }
+
+  synchronized void next(ByteBuf part) {
+    if (terminated) {
+      part.release();
+      return;
+    }
+    parts.add(part);
+    drain();
+    if (!parts.isEmpty() && !paused) {
+      stallEvent = DriverEvents.stallStarted();
+      if (stallEvent != null) {
+        stallBytes = 0;
+        for (ByteBuf buffered : parts) stallBytes += buffered.readableBytes();
+      }
+      paused = true;
+      channel.config().setAutoRead(false);
+    }
+  }
+
+  synchronized void complete() {
+    completed = true;
+    drain();
+  }
+
+  boolean isPaused() {
+    return paused;
+  }
+
+  @Override
+  public void subscribe(Subscriber<? super ByteBuf> s) {
+    synchronized (this) {
+      if (subscriber != null || terminated) {
+        Operators.error(s, new IllegalStateException("Large value can only be consumed once"));
+        return;
+      }
+      subscriber = s;
+    }
+    s.onSubscribe(this);
+  }
+
+  @Override
+  public synchronized void request(long n) {
+    if (Operators.validate(n)) {
+      requested = Operators.addCap(requested, n);
+      drain();
+    }
+  }
+
+  @Override
+  public synchronized void cancel() {
+    terminated = true;
+    ByteBuf part;
+    while ((part = parts.poll()) != null) part.release();
+    resume();
+  }
+
+  private void drain() {
+    if (draining || subscriber == null || terminated) return;
+    draining = true;
+    try {
+      while (requested > 0 && !parts.isEmpty() && !terminated) {
+        requested--;
+        subscriber.onNext(parts.poll());
+      }
+      if (completed && parts.isEmpty() && !terminated) {
+        terminated = true;
+        subscriber.onComplete();
+      }
+    } finally {
+      draining = false;
+    }
+    resume();
+  }
+
+  private void resume() {
+    if (paused && parts.isEmpty()) {
+      if (stallEvent != null) {
+        DriverEvents.stallEnded(stallEvent, String.valueOf(channel.remoteAddress()), stallBytes);
+        stallEvent = null;
+      }
+      paused = false;
+      // also triggers a read
+      channel.config().setAutoRead(true);
+    }
+  }
+}
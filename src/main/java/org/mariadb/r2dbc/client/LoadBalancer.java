@@ -0,0 +1,204 @@
+/*
+ * Copyright 2020 MariaDB Ab.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mariadb.r2dbc.client;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.mariadb.r2dbc.LoadBalanceStrategy;
+import org.mariadb.r2dbc.util.HostAddress;
+
+/**
+ * Choose a replica according to a {@link LoadBalanceStrategy}. Replicas that failed are blacklisted
+ * for a configured duration, and are skipped until then.
+ *
+ * <p>Instances are shared by all connections of a factory, and are thread-safe.
+ */
+public final class LoadBalancer {
+
+  private final List<Host> hosts;
+  private final LoadBalanceStrategy strategy;
+  private final long blacklistNanos;
+  private final AtomicInteger counter = new AtomicInteger();
+
+  public LoadBalancer(
+      List<HostAddress> addresses, LoadBalanceStrategy strategy, Duration blacklistDuration) {
+    List<Host> hosts = new ArrayList<>(addresses.size());
+    for (HostAddress address : addresses) {
+      hosts.add(new Host(address));
+    }
+    this.hosts = Collections.unmodifiableList(hosts);
+    this.strategy = strategy;
+    this.blacklistNanos = blacklistDuration.toNanos();
+  }
+
+  /**
+   * Select a replica.
+   *
+   * @return selected replica, or null if every replica is blacklisted
+   */
+  public Host select() {
+    long now = System.nanoTime();
+    List<Host> candidates = new ArrayList<>(hosts.size());
+    for (Host host : hosts) {
+      if (!host.isBlacklisted(now)) candidates.add(host);
+    }
+    if (candidates.isEmpty()) return null;
+
+    int offset = Math.floorMod(counter.getAndIncrement(), candidates.size());
+    switch (strategy) {
+      case LEAST_PENDING:
+        // starting at rotating offset, so that ties are spread
+        Host selected = null;
+        int minPending = Integer.MAX_VALUE;
+        for (int i = 0; i < candidates.size(); i++) {
+          Host host = candidates.get((offset + i) % candidates.size());
+          int pending = host.pendingCommands();
+          if (pending < minPending) {
+            minPending = pending;
+            selected = host;
+          }
+        }
+        return selected;
+
+      case LATENCY_WEIGHTED:
+        // hosts without measure get best known weight, so they are tried
+        double bestWeight = 0;
+        for (Host host : candidates) {
+          if (host.latencyNanos > 0) bestWeight = Math.max(bestWeight, 1d / host.latencyNanos);
+        }
+        if (bestWeight == 0) return candidates.get(offset);
+        double[] weights = new double[candidates.size()];
+        double total = 0;
+        for (int i = 0; i < candidates.size(); i++) {
+          long latency = candidates.get(i).latencyNanos;
+          total += weights[i] = latency > 0 ? 1d / latency : bestWeight;
+        }
+        double random = ThreadLocalRandom.current().nextDouble(total);
+        for (int i = 0; i < weights.length; i++) {
+          random -= weights[i];
+          if (random < 0) return candidates.get(i);
+        }
+        return candidates.get(weights.length - 1);
+
+      default:
+        return candidates.get(offset);
+    }
+  }
+
+  public List<Host> getHosts() {
+    return hosts;
+  }
+
+  public LoadBalanceStrategy getStrategy() {
+    return strategy;
+  }
+
+  @Override
+  public String toString() {
+    return "LoadBalancer{strategy=" + strategy + ", hosts=" + hosts + '}';
+  }
+
+  /** Replica state. */
+  public final class Host {
+    private final HostAddress address;
+    private final Set<Client> clients = ConcurrentHashMap.newKeySet();
+    private volatile long blacklistedUntil;
+    private volatile boolean blacklisted;
+    private volatile long latencyNanos;
+
+    private Host(HostAddress address) {
+      this.address = address;
+    }
+
+    public HostAddress getAddress() {
+      return address;
+    }
+
+    /**
+     * Register a client connected to this replica, for pending command counting. Clients are only
+     * kept with {@link LoadBalanceStrategy#LEAST_PENDING} strategy, and removed once closed.
+     *
+     * @param client client
+     */
+    public void register(Client client) {
+      if (strategy != LoadBalanceStrategy.LEAST_PENDING) return;
+      clients.add(client);
+      client
+          .onClose()
+          .subscribe(v -> {}, e -> clients.remove(client), () -> clients.remove(client));
+    }
+
+    /**
+     * Number of commands waiting for a response, on all connected clients of this replica.
+     *
+     * @return pending commands
+     */
+    public int pendingCommands() {
+      int pending = 0;
+      for (Client client : clients) {
+        pending += client.pendingCommands();
+      }
+      return pending;
+    }
+
+    /**
+     * Record a latency measure. Value is smoothed with an exponentially weighted moving average.
+     *
+     * @param nanos latency in nanoseconds
+     */
+    public void recordLatency(long nanos) {
+      long current = latencyNanos;
+      latencyNanos = current == 0 ? Math.max(1, nanos) : Math.max(1, (current * 4 + nanos) / 5);
+    }
+
+    public long getLatencyNanos() {
+      return latencyNanos;
+    }
+
+    /** Mark replica as failing: it will not be selected for the blacklist duration. */
+    public void blacklist() {
+      blacklistedUntil = System.nanoTime() + blacklistNanos;
+      blacklisted = true;
+    }
+
+    public boolean isBlacklisted() {
+      return isBlacklisted(System.nanoTime());
+    }
+
+    private boolean isBlacklisted(long now) {
+      if (blacklisted && now - blacklistedUntil >= 0) blacklisted = false;
+      return blacklisted;
+    }
+
+    @Override
+    public String toString() {
+      return "Host{address="
+          + address
+          + ", blacklisted="
+          + blacklisted
+          + ", latencyNanos="
+          + latencyNanos
+          + '}';
+    }
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2020 MariaDB Ab.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mariadb.r2dbc.client;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import org.mariadb.r2dbc.message.client.LocalInfileDataPacket;
+import org.mariadb.r2dbc.message.server.Sequencer;
+import org.reactivestreams.Subscription;
+import reactor.core.CoreSubscriber;
+import reactor.util.Logger;
+import reactor.util.Loggers;
+
+/**
+ * Write LOAD DATA LOCAL INFILE content to the channel, as data is produced.
+ *
+ * <p>Data is gathered in packets of max packet size (16M), each full packet being written and
+ * flushed before requesting next buffer, so memory stays bounded whatever the publisher produces.
+ * Remaining data and an empty packet, indicating end of data, are sent when publisher terminates.
+ */
+final class LocalInfileWriter implements CoreSubscriber<ByteBuf> {
+
+  private static final Logger logger = Loggers.getLogger(LocalInfileWriter.class);
+
+  // an exactly 0xffffff long packet would have to be followed by an empty packet, ending data
+  private static final int MAX_PACKET_LENGTH = 0xffffff - 1;
+
+  private final Channel channel;
+  private final Sequencer sequencer;
+  private Subscription subscription;
+  private ByteBuf pending;
+
+  LocalInfileWriter(Channel channel, Sequencer sequencer) {
+    this.channel = channel;
+    this.sequencer = sequencer;
+  }
+
+  @Override
+  public void onSubscribe(Subscription subscription) {
+    this.subscription = subscription;
+    subscription.request(1);
+  }
+
+  @Override
+  public void onNext(ByteBuf buf) {
+    ChannelFuture lastWrite = null;
+    try {
+      while (buf.isReadable()) {
+        if (pending == null) {
+          pending =
+              channel
+                  .alloc()
+                  .ioBuffer(
+                      Math.min(MAX_PACKET_LENGTH, Math.max(8192, buf.readableBytes())),
+                      MAX_PACKET_LENGTH);
+        }
+        pending.writeBytes(buf, Math.min(buf.readableBytes(), pending.maxWritableBytes()));
+        if (pending.maxWritableBytes() == 0) {
+          lastWrite = channel.write(new LocalInfileDataPacket(sequencer, pending));
+          pending = null;
+        }
+      }
+    } finally {
+      buf.release();
+    }
+
+    if (lastWrite == null) {
+      subscription.request(1);
+      return;
+    }
+
+    channel.flush();
+    lastWrite.addListener(
+        f -> {
+          if (f.isSuccess()) {
+            subscription.request(1);
+          } else {
+            logger.debug("Error sending local infile data", f.cause());
+            subscription.cancel();
+          }
+        });
+  }
+
+  @Override
+  public void onError(Throwable throwable) {
+    // server still expect end of data
+    logger.debug("Local infile data error", throwable);
+    end();
+  }
+
+  @Override
+  public void onComplete() {
+    end();
+  }
+
+  private void end() {
+    if (pending != null) {
+      channel.write(new LocalInfileDataPacket(sequencer, pending));
+      pending = null;
+    }
+    channel.writeAndFlush(LocalInfileDataPacket.end(sequencer));
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2020 MariaDB Ab.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mariadb.r2dbc.client;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import java.util.Map;
+import org.mariadb.r2dbc.codec.Parameter;
+import org.mariadb.r2dbc.message.client.ExecutePacket;
+import org.mariadb.r2dbc.message.client.ResetPreparePacket;
+import org.mariadb.r2dbc.message.client.SendLongDataPacket;
+import org.reactivestreams.Subscription;
+import reactor.core.CoreSubscriber;
+import reactor.util.Logger;
+import reactor.util.Loggers;
+
+/**
+ * Send long data parameters of an execute packet with COM_STMT_SEND_LONG_DATA commands, then the
+ * execute packet itself.
+ *
+ * <p>Parameters are streamed one after the other, data being gathered in chunks of 1M, each chunk
+ * being written and flushed before requesting next buffer, so memory stays bounded whatever the
+ * value size. If a parameter publisher fails, data already sent is discarded with a COM_STMT_RESET
+ * command, sent in place of the execute packet, and command fails with publisher error.
+ */
+final class LongDataWriter implements CoreSubscriber<ByteBuf> {
+
+  private static final Logger logger = Loggers.getLogger(LongDataWriter.class);
+
+  // each chunk is a packet, that must not exceed server max_allowed_packet
+  private static final int CHUNK_LENGTH = 1024 * 1024;
+
+  private final Channel channel;
+  private final ExecutePacket executePacket;
+  private final CmdElement cmdElement;
+  private int parameterIndex = -1;
+  private boolean parameterSent;
+  private Subscription subscription;
+  private ByteBuf pending;
+
+  private LongDataWriter(Channel channel, ExecutePacket executePacket, CmdElement cmdElement) {
+    this.channel = channel;
+    this.executePacket = executePacket;
+    this.cmdElement = cmdElement;
+  }
+
+  static void send(Channel channel, ExecutePacket executePacket, CmdElement cmdElement) {
+    new LongDataWriter(channel, executePacket, cmdElement).nextParameter();
+  }
+
+  private void nextParameter() {
+    Map<Integer, Parameter<?>> parameters = executePacket.getParameters();
+    while (++parameterIndex < parameters.size()) {
+      Parameter<?> parameter = parameters.get(parameterIndex);
+      if (parameter.isLongData()) {
+        parameterSent = false;
+        parameter.encodeLongData(channel.alloc()).subscribe(this);
+        return;
+      }
+    }
+    channel.writeAndFlush(executePacket);
+  }
+
+  @Override
+  public void onSubscribe(Subscription subscription) {
+    this.subscription = subscription;
+    subscription.request(1);
+  }
+
+  @Override
+  public void onNext(ByteBuf buf) {
+    ChannelFuture lastWrite = null;
+    try {
+      while (buf.isReadable()) {
+        if (pending == null) {
+          pending =
+              channel
+                  .alloc()
+                  .ioBuffer(
+                      Math.min(CHUNK_LENGTH, Math.max(8192, buf.readableBytes())), CHUNK_LENGTH);
+        }
+        pending.writeBytes(buf, Math.min(buf.readableBytes(), pending.maxWritableBytes()));
+        if (pending.maxWritableBytes() == 0) {
+          lastWrite = writePending();
+        }
+      }
+    } finally {
+      buf.release();
+    }
+
+    if (lastWrite == null) {
+      subscription.request(1);
+      return;
+    }
+
+    channel.flush();
+    lastWrite.addListener(
+        f -> {
+          if (f.isSuccess()) {
+            subscription.request(1);
+          } else {
+            logger.debug("Error sending long data", f.cause());
+            subscription.cancel();
+          }
+        });
+  }
+
+  private ChannelFuture writePending() {
+    ByteBuf data = pending == null ? Unpooled.EMPTY_BUFFER : pending;
+    pending = null;
+    parameterSent = true;
+    return channel.write(
+        new SendLongDataPacket(executePacket.getStatementId(), parameterIndex, data));
+  }
+
+  @Override
+  public void onError(Throwable throwable) {
+    if (pending != null) {
+      pending.release();
+      pending = null;
+    }
+    cmdElement.fail(throwable);
+    channel.writeAndFlush(new ResetPreparePacket(executePacket.getStatementId()));
+  }
+
+  @Override
+  public void onComplete() {
+    // an empty value must still be sent, server would else read value from execute packet
+    if (pending != null || !parameterSent) writePending();
+    nextParameter();
+  }
+}
@@ -24,25 +24,45 @@ import io.netty.util.ReferenceCounted;
 import io.r2dbc.spi.R2dbcNonTransientResourceException;
 import java.util.List;
 import java.util.Queue;
+import org.mariadb.r2dbc.message.server.ErrorPacket;
 import org.mariadb.r2dbc.message.server.Sequencer;
 import org.mariadb.r2dbc.message.server.ServerMessage;
+import org.reactivestreams.Publisher;
 
 public class MariadbPacketDecoder extends ByteToMessageDecoder {
 
   private final Queue<CmdElement> responseReceivers;
   private final Client client;
+  private final Sequencer sequencer = new Sequencer((byte) 0);
+  private final boolean streamLargeValues;
+  private final long killQueryThreshold;
 
   private ConnectionContext context = null;
   private boolean isMultipart = false;
   private DecoderState state = DecoderState.INIT_HANDSHAKE;
-  private CmdElement cmdElement;
+  // current command, read by client threads to know if a new command is the head of the queue
+  private volatile CmdElement cmdElement;
   private CompositeByteBuf multipart;
   private long serverCapabilities;
   private int stateCounter = 0;
+  // large value currently streamed, and last streamed one, that may still pause reading
+  private LargeValuePublisher largeValue;
+  private LargeValuePublisher lastLargeValue;
+  // discarding a row received in multiple packets
+  private boolean isSkippingMultipart = false;
+  // bytes of discarded rows for current command
+  private long discardedBytes;
+  private boolean queryKilled;
 
-  public MariadbPacketDecoder(Queue<CmdElement> responseReceivers, Client client) {
+  public MariadbPacketDecoder(
+      Queue<CmdElement> responseReceivers,
+      Client client,
+      boolean streamLargeValues,
+      long killQueryThreshold) {
     this.responseReceivers = responseReceivers;
     this.client = client;
+    this.streamLargeValues = streamLargeValues;
+    this.killQueryThreshold = killQueryThreshold;
   }
 
   @Override
@@ -53,43 +73,153 @@ public class MariadbPacketDecoder extends ByteToMessageDecoder {
       // packet not complete
       if (buf.readableBytes() < length + 4) return;
 
+      if (isSkippingMultipart
+          || (!isMultipart && largeValue == null && isDiscardedRow(buf, length))) {
+        // row nobody will read: dropped without being decoded
+        buf.skipBytes(4 + length);
+        received(length, !isSkippingMultipart);
+        isSkippingMultipart = length == 0xffffff;
+        discarded(length);
+        continue;
+      }
+
       // extract packet
       if (length == 0xffffff) {
         // multipart packet
+        if (largeValue != null) {
+          buf.skipBytes(4); // skip length + header
+          received(length, false);
+          largeValue.next(buf.readRetainedSlice(length));
+          continue;
+        }
+
+        if (!isMultipart && streamLargeValues && state == DecoderState.ROW_RESPONSE) {
+          // row is emitted with its first part, last column value being streamed from next parts
+          largeValue = new LargeValuePublisher(ctx.channel());
+          lastLargeValue = largeValue;
+          ByteBuf packet = buf.readRetainedSlice(4 + length);
+          packet.skipBytes(3); // skip length
+          sequencer.reset(packet.readByte());
+          try {
+            handleBuffer(packet);
+          } finally {
+            packet.release();
+          }
+          continue;
+        }
+
         if (!isMultipart) {
           isMultipart = true;
-          multipart = buf.alloc().compositeBuffer();
+          // no component limit: parts are never consolidated, avoiding copy of big values
+          multipart = buf.alloc().compositeBuffer(Integer.MAX_VALUE);
         }
         buf.skipBytes(4); // skip length + header
         multipart.addComponent(true, buf.readRetainedSlice(length));
         continue;
       }
 
+      if (largeValue != null) {
+        // last part of large value
+        buf.skipBytes(4); // skip length + header
+        received(length, false);
+        if (length > 0) largeValue.next(buf.readRetainedSlice(length));
+        largeValue.complete();
+        largeValue = null;
+        continue;
+      }
+
       // wait for complete packet
       if (isMultipart) {
         // last part of multipart packet
         buf.skipBytes(3); // skip length
-        Sequencer sequencer = new Sequencer(buf.readByte());
+        sequencer.reset(buf.readByte());
         multipart.addComponent(true, buf.readRetainedSlice(length));
 
-        handleBuffer(multipart, sequencer);
-
-        multipart.release();
-        isMultipart = false;
+        try {
+          handleBuffer(multipart);
+        } finally {
+          multipart.release();
+          multipart = null;
+          isMultipart = false;
+        }
         continue;
       }
 
       // create Object from packet
       ByteBuf packet = buf.readRetainedSlice(4 + length);
       packet.skipBytes(3); // skip length
-      Sequencer sequencer = new Sequencer(packet.readByte());
-      handleBuffer(packet, sequencer);
-      packet.release();
+      sequencer.reset(packet.readByte());
+      try {
+        handleBuffer(packet);
+      } finally {
+        packet.release();
+      }
     }
   }
 
-  private void handleBuffer(ByteBuf packet, Sequencer sequencer) {
+  /**
+   * Indicate if packet at buffer reader index is a row of a command whose response is not needed
+   * anymore.
+   *
+   * @param buf buffer
+   * @param length packet length
+   * @return true if packet can be skipped
+   */
+  private boolean isDiscardedRow(ByteBuf buf, int length) {
+    return state == DecoderState.ROW_RESPONSE
+        && length > 0
+        && cmdElement.isDiscarding()
+        && state.decoder(buf.getUnsignedByte(buf.readerIndex() + 4), length, serverCapabilities)
+            == DecoderState.ROW;
+  }
+
+  private void received(int length, boolean row) {
+    QueryExecution execution = cmdElement.getExecution();
+    if (execution != null) execution.received(length, row);
+  }
+
+  private void discarded(int length) {
+    discardedBytes += length;
+    if (killQueryThreshold > 0 && !queryKilled && discardedBytes >= killQueryThreshold) {
+      // stop server sending the rest of a big result
+      queryKilled = true;
+      client.killQuery();
+    }
+  }
+
+  @Override
+  public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+    super.channelInactive(ctx);
+    // response being read will never end
+    CmdElement current = cmdElement;
+    if (current != null && !current.isCompleted()) {
+      current.abort(new R2dbcNonTransientResourceException("Connection closed", "08006"));
+    }
+  }
+
+  @Override
+  public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
+    if (lastLargeValue != null && lastLargeValue.isPaused()) {
+      // reading is paused until large value is consumed: super implementation would read
+      ctx.fireChannelReadComplete();
+      return;
+    }
+    super.channelReadComplete(ctx);
+  }
+
+  /**
+   * Large value streamed from the packets following current row packet.
+   *
+   * @return large value publisher, or null if row is not streamed
+   */
+  public Publisher<ByteBuf> getLargeValue() {
+    return largeValue;
+  }
+
+  private void handleBuffer(ByteBuf packet) {
     if (cmdElement == null && !loadNextResponse()) {
+      // response of a command aborted when connection was closed
+      if (!client.isConnected()) return;
       throw new R2dbcNonTransientResourceException(
           "unexpected message received when no command was send");
     }
@@ -99,12 +229,20 @@ public class MariadbPacketDecoder extends ByteToMessageDecoder {
             packet.getUnsignedByte(packet.readerIndex()),
             packet.readableBytes(),
             serverCapabilities);
+    QueryExecution execution = cmdElement.getExecution();
+    if (execution != null) execution.received(packet.readableBytes(), state == DecoderState.ROW);
     ServerMessage msg = null;
     try {
       msg = state.decode(packet, sequencer, this, cmdElement);
-      cmdElement.getSink().next(msg);
+      if (msg == null) {
+        // packet only changed connection state, nothing to emit
+        state = state.next(this);
+        return;
+      }
+      if (!cmdElement.isFailed()) cmdElement.getSink().next(msg);
       if (msg.ending()) {
-        cmdElement.getSink().complete();
+        if (execution != null && msg instanceof ErrorPacket) execution.failed((ErrorPacket) msg);
+        cmdElement.complete();
         loadNextResponse();
         client.sendNext();
       } else {
@@ -117,6 +255,15 @@ public class MariadbPacketDecoder extends ByteToMessageDecoder {
     }
   }
 
+  /**
+   * Command whose response is being read, or null.
+   *
+   * @return current command
+   */
+  CmdElement getCurrentCommand() {
+    return cmdElement;
+  }
+
   public Client getClient() {
     return client;
   }
@@ -142,9 +289,12 @@ public class MariadbPacketDecoder extends ByteToMessageDecoder {
   }
 
   private boolean loadNextResponse() {
+    this.discardedBytes = 0;
+    this.queryKilled = false;
     this.cmdElement = responseReceivers.poll();
     if (cmdElement != null) {
       state = cmdElement.getInitialState();
+      cmdElement.start();
       return true;
     }
     state = null;
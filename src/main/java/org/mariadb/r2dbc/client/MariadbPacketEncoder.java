@@ -17,55 +17,82 @@
 package org.mariadb.r2dbc.client;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
 import io.netty.channel.ChannelHandlerContext;
-import io.netty.handler.codec.MessageToByteEncoder;
+import io.netty.handler.codec.MessageToMessageEncoder;
+import java.util.List;
 import org.mariadb.r2dbc.message.client.ClientMessage;
+import org.mariadb.r2dbc.message.server.Sequencer;
 import reactor.util.Logger;
 import reactor.util.Loggers;
 
-public class MariadbPacketEncoder extends MessageToByteEncoder<ClientMessage> {
-  private static final Logger logger = Loggers.getLogger(MessageToByteEncoder.class);
+/**
+ * Frame client messages in MySQL packets. Messages encode their payload after {@link
+ * ClientMessage#HEADER_SIZE} reserved bytes: header is written in place, and payloads of 16M or
+ * more are sent as a composite buffer of payload slices and headers, so payload is never copied.
+ */
+public class MariadbPacketEncoder extends MessageToMessageEncoder<ClientMessage> {
+  private static final Logger logger = Loggers.getLogger(MariadbPacketEncoder.class);
+  private static final int MAX_PACKET_LENGTH = 0xffffff;
   private ConnectionContext context = null;
 
   @Override
-  protected void encode(ChannelHandlerContext ctx, ClientMessage msg, ByteBuf out)
+  protected void encode(ChannelHandlerContext ctx, ClientMessage msg, List<Object> out)
       throws Exception {
     if (logger.isDebugEnabled()) {
       logger.debug("Request:  {}", msg);
     }
 
-    ByteBuf buf = null;
-    try {
-      buf = msg.encode(this.context, ctx.alloc());
+    ByteBuf buf = msg.encode(this.context, ctx.alloc());
+    if (buf.readerIndex() < ClientMessage.HEADER_SIZE) {
+      buf.release();
+      throw new IllegalStateException(
+          String.format("%s encoded without reserving packet header space", msg));
+    }
 
-      // single mysql packet
-      if (buf.writerIndex() - buf.readerIndex() < 0xffffff) {
-        out.writeMediumLE(buf.writerIndex() - buf.readerIndex());
-        out.writeByte(msg.getSequencer().next());
-        out.writeBytes(buf);
-        //        buf.release();
-        return;
-      }
+    int payloadLength = buf.readableBytes();
+    Sequencer sequencer = msg.getSequencer();
+    int headerIndex = buf.readerIndex() - ClientMessage.HEADER_SIZE;
 
-      // multiple mysql packet - split in 16mb packet
-      int readerIndex = buf.readerIndex();
-      int packetLength = -1;
-      while (readerIndex < buf.writerIndex()) {
-        packetLength = Math.min(0xffffff, buf.writerIndex() - readerIndex);
-        out.writeMediumLE(packetLength);
-        out.writeByte(msg.getSequencer().next());
-        out.writeBytes(buf.slice(readerIndex, packetLength));
-        readerIndex += packetLength;
-      }
+    // single mysql packet
+    if (payloadLength < MAX_PACKET_LENGTH) {
+      buf.setMediumLE(headerIndex, payloadLength);
+      buf.setByte(headerIndex + 3, sequencer.next());
+      out.add(buf.readerIndex(headerIndex));
+      return;
+    }
 
-      if (packetLength == 0xffffff) {
-        // in case last packet is full, sending an empty packet to indicate that command is complete
-        out.writeMediumLE(packetLength);
-        out.writeByte(msg.getSequencer().next());
-      }
+    // multiple mysql packet - split in 16mb packet. First header is written in place, next ones
+    // share a single small buffer.
+    int packetNumber = payloadLength / MAX_PACKET_LENGTH + 1;
+    CompositeByteBuf composite = ctx.alloc().compositeBuffer(2 * packetNumber);
+    ByteBuf headers = ctx.alloc().ioBuffer((packetNumber - 1) * ClientMessage.HEADER_SIZE);
+    try {
+      buf.setMediumLE(headerIndex, MAX_PACKET_LENGTH);
+      buf.setByte(headerIndex + 3, sequencer.next());
+      composite.addComponent(
+          true, buf.retainedSlice(headerIndex, ClientMessage.HEADER_SIZE + MAX_PACKET_LENGTH));
 
+      int readerIndex = buf.readerIndex() + MAX_PACKET_LENGTH;
+      for (int i = 1; i < packetNumber; i++) {
+        // when last packet is full, an empty packet indicates that command is complete
+        int packetLength = Math.min(MAX_PACKET_LENGTH, buf.writerIndex() - readerIndex);
+        int index = headers.writerIndex();
+        headers.writeMediumLE(packetLength);
+        headers.writeByte(sequencer.next());
+        composite.addComponent(true, headers.retainedSlice(index, ClientMessage.HEADER_SIZE));
+        if (packetLength > 0) {
+          composite.addComponent(true, buf.retainedSlice(readerIndex, packetLength));
+        }
+        readerIndex += packetLength;
+      }
+      out.add(composite);
+    } catch (Throwable t) {
+      composite.release();
+      throw t;
     } finally {
-      if (buf != null) buf.release();
+      headers.release();
+      buf.release();
     }
   }
 
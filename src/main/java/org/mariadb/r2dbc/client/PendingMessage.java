@@ -0,0 +1,39 @@
+/*
+ * Copyright 2020 MariaDB Ab.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mariadb.r2dbc.client;
+
+import org.mariadb.r2dbc.message.client.ClientMessage;
+
+/** Message waiting to be written to the channel. */
+final class PendingMessage {
+
+  final ClientMessage message;
+  // command the message is sent for, or null if no response is expected
+  final CmdElement cmdElement;
+  // pipelining client: command response must end before sending next messages
+  final boolean exclusive;
+
+  PendingMessage(ClientMessage message, CmdElement cmdElement) {
+    this(message, cmdElement, false);
+  }
+
+  PendingMessage(ClientMessage message, CmdElement cmdElement, boolean exclusive) {
+    this.message = message;
+    this.cmdElement = cmdElement;
+    this.exclusive = exclusive;
+  }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2020 MariaDB Ab.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mariadb.r2dbc.client;
+
+import org.mariadb.r2dbc.ExceptionFactory;
+import org.mariadb.r2dbc.api.QueryExecutionInfo;
+import org.mariadb.r2dbc.api.QueryExecutionListener;
+import org.mariadb.r2dbc.message.server.ErrorPacket;
+import org.mariadb.r2dbc.util.ClientPrepareResult;
+import org.mariadb.r2dbc.util.StatementStatistics;
+import org.mariadb.r2dbc.util.jfr.DriverEvents;
+import reactor.util.Logger;
+import reactor.util.Loggers;
+
+/**
+ * Execution of a command, tracked for a query execution listener, statement statistics or flight
+ * recorder. Only created when one of them is enabled.
+ */
+final class QueryExecution implements QueryExecutionInfo {
+
+  private static final Logger logger = Loggers.getLogger(QueryExecution.class);
+
+  private final QueryExecutionListener listener;
+  private final StatementStatistics statistics;
+  private final String sql;
+  private final int parameterCount;
+  private final long connectionId;
+  private final boolean noBackslashEscapes;
+  private final long submitted = System.nanoTime();
+  // written by sending thread, then read by I/O thread
+  private volatile long sent;
+  // when command reached the head of the response queue, previous commands being answered
+  private volatile long headOfQueue;
+  private long firstResponse;
+  private long ended;
+  private long rowCount;
+  private long receivedBytes;
+  private Throwable failure;
+  private volatile Object attachment;
+  private String digest;
+  // flight recorder event, or null
+  private Object event;
+
+  QueryExecution(
+      QueryExecutionListener listener,
+      StatementStatistics statistics,
+      String sql,
+      int parameterCount,
+      long connectionId,
+      boolean noBackslashEscapes) {
+    this.listener = listener;
+    this.statistics = statistics;
+    this.sql = sql;
+    this.parameterCount = parameterCount;
+    this.connectionId = connectionId;
+    this.noBackslashEscapes = noBackslashEscapes;
+  }
+
+  void start() {
+    event = DriverEvents.commandStarted();
+    if (listener == null) return;
+    try {
+      listener.beforeQuery(this);
+    } catch (RuntimeException e) {
+      logger.warn("Query execution listener failed", e);
+    }
+  }
+
+  void sent() {
+    if (sent == 0) sent = System.nanoTime();
+  }
+
+  void headOfQueue() {
+    if (headOfQueue == 0) headOfQueue = System.nanoTime();
+  }
+
+  /**
+   * Time server started executing command: once command is sent and previous pipelined commands
+   * have been answered.
+   *
+   * @return server start time, or 0 if command has not been sent
+   */
+  private long serverStart() {
+    long sent = this.sent;
+    if (sent == 0) return 0;
+    return Math.max(sent, headOfQueue);
+  }
+
+  void received(int length, boolean row) {
+    if (firstResponse == 0) firstResponse = System.nanoTime();
+    receivedBytes += length;
+    if (row) rowCount++;
+  }
+
+  void failed(ErrorPacket error) {
+    failure = ExceptionFactory.createException(error, sql);
+  }
+
+  void end(Throwable clientFailure) {
+    if (ended != 0) return;
+    ended = System.nanoTime();
+    if (clientFailure != null) failure = clientFailure;
+    if (event != null) DriverEvents.commandEnded(event, this);
+    if (statistics != null) statistics.record(this);
+    if (listener == null) return;
+    try {
+      listener.afterQuery(this);
+    } catch (RuntimeException e) {
+      logger.warn("Query execution listener failed", e);
+    }
+  }
+
+  @Override
+  public String getSql() {
+    return sql;
+  }
+
+  @Override
+  public String getDigest() {
+    if (digest == null) digest = ClientPrepareResult.digest(sql, noBackslashEscapes);
+    return digest;
+  }
+
+  @Override
+  public int getParameterCount() {
+    return parameterCount;
+  }
+
+  @Override
+  public long getConnectionId() {
+    return connectionId;
+  }
+
+  @Override
+  public long getRowCount() {
+    return rowCount;
+  }
+
+  @Override
+  public long getReceivedBytes() {
+    return receivedBytes;
+  }
+
+  @Override
+  public long getQueueWaitNanos() {
+    long start = serverStart();
+    return start == 0 ? 0 : start - submitted;
+  }
+
+  @Override
+  public long getServerNanos() {
+    long start = serverStart();
+    return start == 0 || firstResponse == 0 ? 0 : Math.max(0, firstResponse - start);
+  }
+
+  @Override
+  public long getElapsedNanos() {
+    return ended == 0 ? 0 : ended - submitted;
+  }
+
+  @Override
+  public Throwable getFailure() {
+    return failure;
+  }
+
+  @Override
+  public Object getAttachment() {
+    return attachment;
+  }
+
+  @Override
+  public void setAttachment(Object attachment) {
+    this.attachment = attachment;
+  }
+
+  @Override
+  public String toString() {
+    return "QueryExecution{sql='"
+        + sql
+        + "', rows="
+        + rowCount
+        + ", bytes="
+        + receivedBytes
+        + ", elapsed="
+        + getElapsedNanos()
+        + "ns}";
+  }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2020 MariaDB Ab.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mariadb.r2dbc.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import org.reactivestreams.Publisher;
+
+/**
+ * Codec of large values, that binary protocol sends with COM_STMT_SEND_LONG_DATA commands before
+ * execution, rather than in the execute packet.
+ */
+public interface LongDataCodec<T> extends Codec<T> {
+
+  /**
+   * Encode value as a stream of buffers. Buffers are requested respecting backpressure, and
+   * released once sent.
+   *
+   * @param allocator buffer allocator
+   * @param value value to encode
+   * @return encoded value publisher
+   */
+  Publisher<ByteBuf> encodeLongData(ByteBufAllocator allocator, T value);
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2020 MariaDB Ab.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mariadb.r2dbc.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.r2dbc.spi.Blob;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.util.annotation.Nullable;
+
+/**
+ * Blob result, reading directly from the network buffer, without copy.
+ *
+ * <p>Buffer is retained until stream is consumed or blob is discarded: as required by {@link Blob}
+ * contract, one of those must be done to release it. Value received in multiple packets (over 16M)
+ * is streamed packet by packet. Emitted {@link ByteBuffer}s are views of the network buffer, valid
+ * until stream terminates: they must be read when received, not kept.
+ *
+ * <p>When streaming large values, packets following the first one are read from the network while
+ * stream is consumed.
+ */
+public final class MariadbBlob implements Blob {
+
+  private final ByteBuf data;
+  @Nullable private final Publisher<ByteBuf> continuation;
+  private final AtomicBoolean released = new AtomicBoolean();
+
+  /**
+   * Constructor.
+   *
+   * @param data retained value buffer, released by this blob
+   */
+  public MariadbBlob(ByteBuf data) {
+    this(data, null);
+  }
+
+  /**
+   * Constructor for a value streamed from network.
+   *
+   * @param data retained beginning of value, released by this blob
+   * @param continuation next parts of value, released by this blob
+   */
+  public MariadbBlob(ByteBuf data, @Nullable Publisher<ByteBuf> continuation) {
+    this.data = data;
+    this.continuation = continuation;
+  }
+
+  @Override
+  public Flux<ByteBuffer> stream() {
+    return Flux.defer(
+        () -> {
+          if (!released.compareAndSet(false, true)) {
+            return Flux.error(
+                new IllegalStateException("Blob has already been consumed or discarded"));
+          }
+          Flux<ByteBuffer> stream = toNioBuffers(data);
+          if (continuation != null) {
+            stream =
+                stream
+                    .concatWith(Flux.from(continuation).concatMap(MariadbBlob::toNioBuffers, 1))
+                    .doOnDiscard(ByteBuf.class, ByteBuf::release)
+                    .doFinally(
+                        signal -> {
+                          // stream is cancelled or failed before continuation completes
+                          if (signal != SignalType.ON_COMPLETE) discardContinuation();
+                        });
+          }
+          return stream;
+        });
+  }
+
+  private static Flux<ByteBuffer> toNioBuffers(ByteBuf buf) {
+    if (!buf.isReadable()) {
+      buf.release();
+      return Flux.empty();
+    }
+    return Flux.fromArray(buf.nioBuffers()).doFinally(signal -> buf.release());
+  }
+
+  private void discardContinuation() {
+    continuation.subscribe(
+        new BaseSubscriber<ByteBuf>() {
+          @Override
+          protected void hookOnSubscribe(Subscription subscription) {
+            subscription.cancel();
+          }
+
+          @Override
+          protected void hookOnError(Throwable throwable) {
+            // already consumed
+          }
+        });
+  }
+
+  @Override
+  public Mono<Void> discard() {
+    return Mono.fromRunnable(
+        () -> {
+          if (released.compareAndSet(false, true)) {
+            data.release();
+            if (continuation != null) discardContinuation();
+          }
+        });
+  }
+
+  @Override
+  public String toString() {
+    return "MariadbBlob{length=" + (released.get() ? "released" : data.readableBytes()) + '}';
+  }
+}
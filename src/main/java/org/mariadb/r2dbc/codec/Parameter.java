@@ -17,8 +17,10 @@
 package org.mariadb.r2dbc.codec;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import org.mariadb.r2dbc.client.ConnectionContext;
 import org.mariadb.r2dbc.util.BufferUtils;
+import org.reactivestreams.Publisher;
 
 public class Parameter<T> {
   @SuppressWarnings({"rawtypes", "unchecked"})
@@ -56,10 +58,25 @@ public class Parameter<T> {
     codec.encodeBinary(out, context, this.value);
   }
 
+  @SuppressWarnings("unchecked")
+  public Publisher<ByteBuf> encodeLongData(ByteBufAllocator allocator) {
+    return ((LongDataCodec<T>) codec).encodeLongData(allocator, this.value);
+  }
+
   public DataType getBinaryEncodeType() {
     return codec.getBinaryEncodeType();
   }
 
+  /**
+   * Indicate if value is sent with COM_STMT_SEND_LONG_DATA commands before execution when using
+   * binary protocol.
+   *
+   * @return true if value is sent separately
+   */
+  public boolean isLongData() {
+    return codec instanceof LongDataCodec;
+  }
+
   public boolean isNull() {
     return false;
   }
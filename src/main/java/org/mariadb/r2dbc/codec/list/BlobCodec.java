@@ -17,17 +17,20 @@
 package org.mariadb.r2dbc.codec.list;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
 import io.r2dbc.spi.Blob;
 import java.util.EnumSet;
 import org.mariadb.r2dbc.client.ConnectionContext;
-import org.mariadb.r2dbc.codec.Codec;
 import org.mariadb.r2dbc.codec.DataType;
+import org.mariadb.r2dbc.codec.LongDataCodec;
+import org.mariadb.r2dbc.codec.MariadbBlob;
 import org.mariadb.r2dbc.message.server.ColumnDefinitionPacket;
 import org.mariadb.r2dbc.util.BufferUtils;
+import org.reactivestreams.Publisher;
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.Mono;
 
-public class BlobCodec implements Codec<Blob> {
+public class BlobCodec implements LongDataCodec<Blob> {
 
   public static final BlobCodec INSTANCE = new BlobCodec();
 
@@ -41,13 +44,13 @@ public class BlobCodec implements Codec<Blob> {
   @Override
   public Blob decodeText(
       ByteBuf buf, int length, ColumnDefinitionPacket column, Class<? extends Blob> type) {
-    return Blob.from(Mono.just(buf.readSlice(length).nioBuffer()));
+    return new MariadbBlob(buf.readRetainedSlice(length));
   }
 
   @Override
   public Blob decodeBinary(
       ByteBuf buf, int length, ColumnDefinitionPacket column, Class<? extends Blob> type) {
-    return Blob.from(Mono.just(buf.readSlice(length).nioBuffer()));
+    return new MariadbBlob(buf.readRetainedSlice(length));
   }
 
   public boolean canEncode(Object value) {
@@ -61,25 +64,12 @@ public class BlobCodec implements Codec<Blob> {
 
   @Override
   public void encodeBinary(ByteBuf buf, ConnectionContext context, Blob value) {
-    buf.writeByte(0xfe);
-    int initialPos = buf.writerIndex();
-    buf.writerIndex(buf.writerIndex() + 8); // reserve length encoded length bytes
+    throw new IllegalStateException("Blob parameters are sent with COM_STMT_SEND_LONG_DATA");
+  }
 
-    Flux.from(value.stream())
-        .handle(
-            (tempVal, sync) -> {
-              buf.writeBytes(tempVal);
-              sync.next(buf);
-            })
-        .doOnComplete(
-            () -> {
-              // Write length
-              int endPos = buf.writerIndex();
-              buf.writerIndex(initialPos);
-              buf.writeLongLE(endPos - (initialPos + 8));
-              buf.writerIndex(endPos);
-            })
-        .subscribe();
+  @Override
+  public Publisher<ByteBuf> encodeLongData(ByteBufAllocator allocator, Blob value) {
+    return Flux.from(value.stream()).map(Unpooled::wrappedBuffer);
   }
 
   public DataType getBinaryEncodeType() {
@@ -17,18 +17,21 @@
 package org.mariadb.r2dbc.codec.list;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
 import io.r2dbc.spi.Clob;
 import java.nio.charset.StandardCharsets;
 import java.util.EnumSet;
 import org.mariadb.r2dbc.client.ConnectionContext;
-import org.mariadb.r2dbc.codec.Codec;
 import org.mariadb.r2dbc.codec.DataType;
+import org.mariadb.r2dbc.codec.LongDataCodec;
 import org.mariadb.r2dbc.message.server.ColumnDefinitionPacket;
 import org.mariadb.r2dbc.util.BufferUtils;
+import org.reactivestreams.Publisher;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-public class ClobCodec implements Codec<Clob> {
+public class ClobCodec implements LongDataCodec<Clob> {
 
   public static final ClobCodec INSTANCE = new ClobCodec();
 
@@ -64,24 +67,12 @@ public class ClobCodec implements Codec<Clob> {
 
   @Override
   public void encodeBinary(ByteBuf buf, ConnectionContext context, Clob value) {
-    buf.writeByte(0xfe);
-    int initialPos = buf.writerIndex();
-    buf.writerIndex(buf.writerIndex() + 8); // reserve length encoded length bytes
-    Flux.from(value.stream())
-        .handle(
-            (tempVal, sync) -> {
-              buf.writeCharSequence(tempVal, StandardCharsets.UTF_8);
-              sync.next(buf);
-            })
-        .doOnComplete(
-            () -> {
-              // Write length
-              int endPos = buf.writerIndex();
-              buf.writerIndex(initialPos);
-              buf.writeLongLE(endPos - (initialPos + 8));
-              buf.writerIndex(endPos);
-            })
-        .subscribe();
+    throw new IllegalStateException("Clob parameters are sent with COM_STMT_SEND_LONG_DATA");
+  }
+
+  @Override
+  public Publisher<ByteBuf> encodeLongData(ByteBufAllocator allocator, Clob value) {
+    return Flux.from(value.stream()).map(chunk -> ByteBufUtil.writeUtf8(allocator, chunk));
   }
 
   public DataType getBinaryEncodeType() {
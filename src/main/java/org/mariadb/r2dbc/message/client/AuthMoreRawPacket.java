@@ -33,7 +33,7 @@ public final class AuthMoreRawPacket implements ClientMessage {
 
   @Override
   public ByteBuf encode(ConnectionContext context, ByteBufAllocator allocator) {
-    ByteBuf buf = allocator.ioBuffer(raw.length);
+    ByteBuf buf = ClientMessage.allocate(allocator, raw.length);
     buf.writeBytes(raw);
     return buf;
   }
@@ -34,8 +34,8 @@ public final class ClearPasswordPacket implements ClientMessage {
 
   @Override
   public ByteBuf encode(ConnectionContext context, ByteBufAllocator allocator) {
-    if (password == null) return allocator.ioBuffer(0);
-    ByteBuf buf = allocator.ioBuffer(password.length() * 4);
+    if (password == null) return ClientMessage.allocate(allocator, 0);
+    ByteBuf buf = ClientMessage.allocate(allocator, password.length() * 4);
     buf.writeCharSequence(password, StandardCharsets.UTF_8);
     buf.writeByte(0);
     return buf;
@@ -22,9 +22,52 @@ import org.mariadb.r2dbc.client.ConnectionContext;
 import org.mariadb.r2dbc.message.server.Sequencer;
 
 public interface ClientMessage {
+
+  /** Packet header size: 3 bytes payload length, 1 byte sequence number. */
+  int HEADER_SIZE = 4;
+
   default Sequencer getSequencer() {
     return new Sequencer((byte) 0xff);
   }
 
+  /**
+   * Encode message payload. Returned buffer must have {@link #HEADER_SIZE} bytes reserved before
+   * its reader index, so the encoder can write packet header in place without copying payload (see
+   * {@link #allocate(ByteBufAllocator, int)}).
+   *
+   * @param context connection context
+   * @param byteBufAllocator allocator
+   * @return payload buffer
+   */
   ByteBuf encode(ConnectionContext context, ByteBufAllocator byteBufAllocator);
+
+  /**
+   * SQL executed by this command, reported to query execution listener.
+   *
+   * @return SQL, or null if command does not execute a query
+   */
+  default String executedSql() {
+    return null;
+  }
+
+  /**
+   * Number of parameters bound to executed SQL.
+   *
+   * @return parameter count
+   */
+  default int parameterCount() {
+    return 0;
+  }
+
+  /**
+   * Allocate a payload buffer, with packet header space reserved in front.
+   *
+   * @param allocator allocator
+   * @param payloadCapacity expected payload size
+   * @return buffer, with reader and writer index positioned after header
+   */
+  static ByteBuf allocate(ByteBufAllocator allocator, int payloadCapacity) {
+    ByteBuf buf = allocator.ioBuffer(HEADER_SIZE + payloadCapacity);
+    return buf.writerIndex(HEADER_SIZE).readerIndex(HEADER_SIZE);
+  }
 }
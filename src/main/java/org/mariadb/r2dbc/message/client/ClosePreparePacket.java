@@ -34,7 +34,7 @@ public final class ClosePreparePacket implements ClientMessage {
 
   @Override
   public ByteBuf encode(ConnectionContext context, ByteBufAllocator allocator) {
-    ByteBuf buf = allocator.ioBuffer();
+    ByteBuf buf = ClientMessage.allocate(allocator, 5);
     buf.writeByte(0x19);
     buf.writeIntLE(statementId);
     return buf;
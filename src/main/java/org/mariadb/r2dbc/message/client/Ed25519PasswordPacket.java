@@ -23,64 +23,71 @@ import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
-import org.mariadb.r2dbc.authentication.ed25519.math.GroupElement;
 import org.mariadb.r2dbc.authentication.ed25519.math.ed25519.ScalarOps;
 import org.mariadb.r2dbc.authentication.ed25519.spec.EdDSANamedCurveTable;
 import org.mariadb.r2dbc.authentication.ed25519.spec.EdDSAParameterSpec;
 import org.mariadb.r2dbc.client.ConnectionContext;
 import org.mariadb.r2dbc.message.server.Sequencer;
+import reactor.util.annotation.Nullable;
 
 public final class Ed25519PasswordPacket implements ClientMessage {
 
+  private static final EdDSAParameterSpec SPEC = EdDSANamedCurveTable.getByName("Ed25519");
+  private static final ScalarOps SCALAR = new ScalarOps();
+
   private Sequencer sequencer;
   private CharSequence password;
   private byte[] seed;
+  private KeyPairCache keyPairCache;
 
   public Ed25519PasswordPacket(Sequencer sequencer, CharSequence password, byte[] seed) {
+    this(sequencer, password, seed, null);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param sequencer sequencer
+   * @param password password
+   * @param seed server seed
+   * @param keyPairCache cache of key pair derived from password, or null
+   */
+  public Ed25519PasswordPacket(
+      Sequencer sequencer,
+      CharSequence password,
+      byte[] seed,
+      @Nullable KeyPairCache keyPairCache) {
     this.sequencer = sequencer;
     this.password = password;
     this.seed = seed;
+    this.keyPairCache = keyPairCache;
   }
 
-  private static byte[] ed25519SignWithPassword(final CharSequence password, final byte[] seed)
+  private static byte[] ed25519SignWithPassword(
+      final CharSequence password, final byte[] seed, @Nullable KeyPairCache keyPairCache)
       throws R2dbcNonTransientResourceException {
 
     try {
-      byte[] bytePwd = password.toString().getBytes(StandardCharsets.UTF_8);
-
       MessageDigest hash = MessageDigest.getInstance("SHA-512");
+      KeyPair keyPair = keyPair(password.toString(), hash, keyPairCache);
+      byte[] az = keyPair.az;
 
       int mlen = seed.length;
       final byte[] sm = new byte[64 + mlen];
-
-      byte[] az = hash.digest(bytePwd);
-      az[0] &= 248;
-      az[31] &= 63;
-      az[31] |= 64;
-
       System.arraycopy(seed, 0, sm, 64, mlen);
       System.arraycopy(az, 32, sm, 32, 32);
 
-      byte[] buff = Arrays.copyOfRange(sm, 32, 96);
       hash.reset();
-      byte[] nonce = hash.digest(buff);
-
-      ScalarOps scalar = new ScalarOps();
-
-      EdDSAParameterSpec spec = EdDSANamedCurveTable.getByName("Ed25519");
-      GroupElement elementAvalue = spec.getB().scalarMultiply(az);
-      byte[] elementAarray = elementAvalue.toByteArray();
-      System.arraycopy(elementAarray, 0, sm, 32, elementAarray.length);
+      hash.update(sm, 32, 32 + mlen);
+      byte[] nonce = SCALAR.reduce(hash.digest());
 
-      nonce = scalar.reduce(nonce);
-      GroupElement elementRvalue = spec.getB().scalarMultiply(nonce);
-      byte[] elementRarray = elementRvalue.toByteArray();
+      byte[] elementRarray = SPEC.getB().scalarMultiply(nonce).toByteArray();
       System.arraycopy(elementRarray, 0, sm, 0, elementRarray.length);
+      System.arraycopy(keyPair.publicKey, 0, sm, 32, 32);
 
       hash.reset();
-      byte[] hram = hash.digest(sm);
-      hram = scalar.reduce(hram);
-      byte[] tt = scalar.multiplyAndAdd(hram, az, nonce);
+      byte[] hram = SCALAR.reduce(hash.digest(sm));
+      byte[] tt = SCALAR.multiplyAndAdd(hram, az, nonce);
       System.arraycopy(tt, 0, sm, 32, tt.length);
 
       return Arrays.copyOfRange(sm, 0, 64);
@@ -90,11 +97,37 @@ public final class Ed25519PasswordPacket implements ClientMessage {
     }
   }
 
+  /**
+   * Get key pair derived from password, computing public key if not cached. Hashing password is
+   * cheap, but public key derivation needs a scalar multiplication, as costly as the signature
+   * itself.
+   *
+   * @param password password
+   * @param hash SHA-512 digest
+   * @param keyPairCache cache, or null
+   * @return key pair
+   */
+  private static KeyPair keyPair(
+      String password, MessageDigest hash, @Nullable KeyPairCache keyPairCache) {
+    byte[] az = hash.digest(password.getBytes(StandardCharsets.UTF_8));
+    az[0] &= 248;
+    az[31] &= 63;
+    az[31] |= 64;
+
+    KeyPair keyPair = keyPairCache == null ? null : keyPairCache.keyPair;
+    if (keyPair != null && MessageDigest.isEqual(keyPair.az, az)) return keyPair;
+
+    keyPair = new KeyPair(az, SPEC.getB().scalarMultiply(az).toByteArray());
+    if (keyPairCache != null) keyPairCache.keyPair = keyPair;
+    return keyPair;
+  }
+
   @Override
   public ByteBuf encode(ConnectionContext context, ByteBufAllocator allocator) {
-    if (password == null || password.toString().isEmpty()) return allocator.ioBuffer(0);
-    ByteBuf buf = allocator.ioBuffer(64);
-    buf.writeBytes(ed25519SignWithPassword(password, seed));
+    if (password == null || password.toString().isEmpty())
+      return ClientMessage.allocate(allocator, 0);
+    ByteBuf buf = ClientMessage.allocate(allocator, 64);
+    buf.writeBytes(ed25519SignWithPassword(password, seed, keyPairCache));
     return buf;
   }
 
@@ -113,4 +146,24 @@ public final class Ed25519PasswordPacket implements ClientMessage {
         + Arrays.toString(seed)
         + '}';
   }
+
+  /**
+   * Key pair derived from the password of a connection factory, shared by its connections. Entry is
+   * identified by the password SHA-512 hash, never by the password itself, and is replaced if
+   * password changes.
+   */
+  public static final class KeyPairCache {
+    private volatile KeyPair keyPair;
+  }
+
+  private static final class KeyPair {
+    // clamped scalar (first half) and nonce prefix (second half)
+    private final byte[] az;
+    private final byte[] publicKey;
+
+    private KeyPair(byte[] az, byte[] publicKey) {
+      this.az = az;
+      this.publicKey = publicKey;
+    }
+  }
 }
@@ -24,28 +24,65 @@ import org.mariadb.r2dbc.codec.Parameter;
 import org.mariadb.r2dbc.message.server.Sequencer;
 
 public final class ExecutePacket implements ClientMessage {
+  private final String sql;
   private final Map<Integer, Parameter<?>> parameters;
   private final int statementId;
   private final Sequencer sequencer = new Sequencer((byte) 0xff);
 
-  public ExecutePacket(int statementId, Map<Integer, Parameter<?>> parameters) {
+  public ExecutePacket(String sql, int statementId, Map<Integer, Parameter<?>> parameters) {
+    this.sql = sql;
     this.parameters = parameters;
     this.statementId = statementId;
   }
 
+  @Override
+  public String executedSql() {
+    return sql;
+  }
+
+  @Override
+  public int parameterCount() {
+    return parameters.size();
+  }
+
   public Sequencer getSequencer() {
     return sequencer;
   }
 
+  public int getStatementId() {
+    return statementId;
+  }
+
+  public Map<Integer, Parameter<?>> getParameters() {
+    return parameters;
+  }
+
+  /**
+   * Indicate if some parameters must be sent with COM_STMT_SEND_LONG_DATA before this packet.
+   *
+   * @return true if packet has long data parameters
+   */
+  public boolean hasLongData() {
+    return hasLongData(parameters);
+  }
+
+  public static boolean hasLongData(Map<Integer, Parameter<?>> parameters) {
+    for (Parameter<?> parameter : parameters.values()) {
+      if (parameter.isLongData()) return true;
+    }
+    return false;
+  }
+
   @Override
   public ByteBuf encode(ConnectionContext context, ByteBufAllocator allocator) {
-    ByteBuf buf = allocator.ioBuffer();
+    int parameterCount = parameters.size();
+    // header, null bitmap and types, then an estimated 8 bytes per value
+    ByteBuf buf = ClientMessage.allocate(allocator, 11 + parameterCount / 8 + 10 * parameterCount);
     buf.writeByte(0x17);
     buf.writeIntLE(statementId);
     buf.writeByte(0x00); // NO CURSOR
     buf.writeIntLE(1); // Iteration pos
 
-    int parameterCount = parameters.size();
     // create null bitmap
     if (parameterCount > 0) {
       int nullCount = (parameterCount + 7) / 8;
@@ -65,10 +102,10 @@ public final class ExecutePacket implements ClientMessage {
       }
     }
 
-    // TODO avoid to send long data here.
     for (int i = 0; i < parameterCount; i++) {
       Parameter<?> parameter = parameters.get(i);
-      if (!parameter.isNull()) {
+      // long data has already been sent with COM_STMT_SEND_LONG_DATA
+      if (!parameter.isNull() && !parameter.isLongData()) {
         parameter.encodeBinary(buf, context);
       }
     }
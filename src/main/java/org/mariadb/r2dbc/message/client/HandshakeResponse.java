@@ -93,7 +93,7 @@ public final class HandshakeResponse implements ClientMessage {
             initialHandshakePacket.getMajorServerVersion(),
             initialHandshakePacket.getMinorServerVersion());
 
-    ByteBuf buf = allocator.ioBuffer(4096);
+    ByteBuf buf = ClientMessage.allocate(allocator, 4096);
 
     final byte[] authData;
     String authenticationPluginType = initialHandshakePacket.getAuthenticationPluginType();
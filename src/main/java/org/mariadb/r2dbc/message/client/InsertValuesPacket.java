@@ -0,0 +1,91 @@
+/*
+ * Copyright 2020 MariaDB Ab.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mariadb.r2dbc.message.client;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import java.util.List;
+import org.mariadb.r2dbc.client.ConnectionContext;
+import org.mariadb.r2dbc.message.server.Sequencer;
+import org.mariadb.r2dbc.util.Assert;
+
+/**
+ * Insert of the values of multiple statements sharing the same text up to VALUES, sent as a single
+ * multi-values INSERT command.
+ */
+public final class InsertValuesPacket implements ClientMessage {
+
+  private final String sql;
+  private final byte[] head;
+  private final List<byte[]> values;
+  private final byte[] tail;
+  private final int parameterCount;
+  private final Sequencer sequencer = new Sequencer((byte) 0xff);
+
+  /**
+   * Constructor.
+   *
+   * @param sql statement SQL, reported as executed SQL
+   * @param head command text up to VALUES keyword included
+   * @param values encoded values of each statement, with their parenthesis
+   * @param tail text to add after values, or empty
+   * @param parameterCount parameter count of all statements
+   */
+  public InsertValuesPacket(
+      String sql, byte[] head, List<byte[]> values, byte[] tail, int parameterCount) {
+    this.sql = sql;
+    this.head = head;
+    this.values = values;
+    this.tail = tail;
+    this.parameterCount = parameterCount;
+  }
+
+  @Override
+  public ByteBuf encode(ConnectionContext context, ByteBufAllocator byteBufAllocator) {
+    Assert.requireNonNull(byteBufAllocator, "byteBufAllocator must not be null");
+    int capacity = 1 + head.length + values.size() + tail.length;
+    for (byte[] value : values) capacity += value.length;
+    ByteBuf out = ClientMessage.allocate(byteBufAllocator, capacity);
+    out.writeByte(0x03);
+    out.writeBytes(head);
+    for (int i = 0; i < values.size(); i++) {
+      if (i > 0) out.writeByte(',');
+      out.writeBytes(values.get(i));
+    }
+    out.writeBytes(tail);
+    return out;
+  }
+
+  @Override
+  public String executedSql() {
+    return sql;
+  }
+
+  @Override
+  public int parameterCount() {
+    return parameterCount;
+  }
+
+  public Sequencer getSequencer() {
+    return sequencer;
+  }
+
+  @Override
+  public String toString() {
+    return "InsertValuesPacket{sql='" + sql + "', statements=" + values.size() + '}';
+  }
+}
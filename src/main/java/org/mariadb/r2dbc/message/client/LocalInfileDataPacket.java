@@ -0,0 +1,68 @@
+/*
+ * Copyright 2020 MariaDB Ab.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mariadb.r2dbc.message.client;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import org.mariadb.r2dbc.client.ConnectionContext;
+import org.mariadb.r2dbc.message.server.Sequencer;
+
+/**
+ * Chunk of data sent in response to a LOAD DATA LOCAL INFILE request. An empty packet indicates the
+ * end of data.
+ */
+public final class LocalInfileDataPacket implements ClientMessage {
+
+  private final Sequencer sequencer;
+  private final ByteBuf data;
+
+  /**
+   * Constructor. Data buffer is released when packet is written.
+   *
+   * @param sequencer sequencer, following local infile request sequence
+   * @param data data, must be smaller than 0xffffff bytes
+   */
+  public LocalInfileDataPacket(Sequencer sequencer, ByteBuf data) {
+    this.sequencer = sequencer;
+    this.data = data;
+  }
+
+  public static LocalInfileDataPacket end(Sequencer sequencer) {
+    return new LocalInfileDataPacket(sequencer, Unpooled.EMPTY_BUFFER);
+  }
+
+  @Override
+  public ByteBuf encode(ConnectionContext context, ByteBufAllocator byteBufAllocator) {
+    // data is sent as is, after a component holding packet header space
+    ByteBuf header = byteBufAllocator.ioBuffer(HEADER_SIZE).writerIndex(HEADER_SIZE);
+    return byteBufAllocator
+        .compositeBuffer(2)
+        .addComponents(true, header, data)
+        .skipBytes(HEADER_SIZE);
+  }
+
+  @Override
+  public Sequencer getSequencer() {
+    return sequencer;
+  }
+
+  @Override
+  public String toString() {
+    return "LocalInfileDataPacket{length=" + data.readableBytes() + '}';
+  }
+}
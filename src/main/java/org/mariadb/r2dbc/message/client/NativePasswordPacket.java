@@ -66,8 +66,8 @@ public final class NativePasswordPacket implements ClientMessage {
 
   @Override
   public ByteBuf encode(ConnectionContext context, ByteBufAllocator allocator) {
-    if (password == null) return allocator.ioBuffer(0);
-    ByteBuf buf = allocator.ioBuffer(32);
+    if (password == null) return ClientMessage.allocate(allocator, 0);
+    ByteBuf buf = ClientMessage.allocate(allocator, 32);
     buf.writeBytes(encrypt(password, seed));
     return buf;
   }
@@ -24,7 +24,7 @@ public final class PingPacket implements ClientMessage {
 
   @Override
   public ByteBuf encode(ConnectionContext context, ByteBufAllocator allocator) {
-    ByteBuf buf = allocator.ioBuffer();
+    ByteBuf buf = ClientMessage.allocate(allocator, 1);
     buf.writeByte(0x0e);
     return buf;
   }
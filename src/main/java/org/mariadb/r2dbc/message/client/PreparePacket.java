@@ -18,7 +18,7 @@ package org.mariadb.r2dbc.message.client;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
-import java.nio.charset.StandardCharsets;
+import io.netty.buffer.ByteBufUtil;
 import org.mariadb.r2dbc.client.ConnectionContext;
 import org.mariadb.r2dbc.message.server.Sequencer;
 import org.mariadb.r2dbc.util.Assert;
@@ -41,9 +41,10 @@ public final class PreparePacket implements ClientMessage {
 
   @Override
   public ByteBuf encode(ConnectionContext context, ByteBufAllocator allocator) {
-    ByteBuf buf = allocator.ioBuffer(this.sql.length() + 1);
+    int sqlLength = ByteBufUtil.utf8Bytes(this.sql);
+    ByteBuf buf = ClientMessage.allocate(allocator, sqlLength + 1);
     buf.writeByte(0x16);
-    buf.writeCharSequence(this.sql, StandardCharsets.UTF_8);
+    ByteBufUtil.reserveAndWriteUtf8(buf, this.sql, sqlLength);
     return buf;
   }
 
@@ -18,7 +18,7 @@ package org.mariadb.r2dbc.message.client;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
-import java.nio.charset.StandardCharsets;
+import io.netty.buffer.ByteBufUtil;
 import java.util.Objects;
 import org.mariadb.r2dbc.client.ConnectionContext;
 import org.mariadb.r2dbc.message.server.Sequencer;
@@ -36,12 +36,18 @@ public final class QueryPacket implements ClientMessage {
   @Override
   public ByteBuf encode(ConnectionContext context, ByteBufAllocator byteBufAllocator) {
     Assert.requireNonNull(byteBufAllocator, "byteBufAllocator must not be null");
-    ByteBuf out = byteBufAllocator.ioBuffer(this.sql.length() + 1);
+    int sqlLength = ByteBufUtil.utf8Bytes(this.sql);
+    ByteBuf out = ClientMessage.allocate(byteBufAllocator, sqlLength + 1);
     out.writeByte(0x03);
-    out.writeCharSequence(this.sql, StandardCharsets.UTF_8);
+    ByteBufUtil.reserveAndWriteUtf8(out, this.sql, sqlLength);
     return out;
   }
 
+  @Override
+  public String executedSql() {
+    return sql;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) {
@@ -32,13 +32,31 @@ public final class QueryWithParametersPacket implements ClientMessage {
   private final ClientPrepareResult prepareResult;
   private final Parameter<?>[] parameters;
   private final String[] generatedColumns;
+  private final String prefix;
   private final Sequencer sequencer = new Sequencer((byte) 0xff);
 
   public QueryWithParametersPacket(
       ClientPrepareResult prepareResult, Parameter<?>[] parameters, String[] generatedColumns) {
+    this(prepareResult, parameters, generatedColumns, null);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param prepareResult query parts
+   * @param parameters parameters
+   * @param generatedColumns columns to return, or null
+   * @param prefix text to add before query, or null
+   */
+  public QueryWithParametersPacket(
+      ClientPrepareResult prepareResult,
+      Parameter<?>[] parameters,
+      String[] generatedColumns,
+      String prefix) {
     this.prepareResult = prepareResult;
     this.parameters = parameters;
     this.generatedColumns = generatedColumns;
+    this.prefix = prefix;
   }
 
   @Override
@@ -52,8 +70,16 @@ public final class QueryWithParametersPacket implements ClientMessage {
               : " RETURNING " + String.join(", ", generatedColumns);
     }
 
-    ByteBuf out = byteBufAllocator.ioBuffer();
+    int capacity =
+        1
+            + (prefix == null ? 0 : prefix.length())
+            + (additionalReturningPart == null ? 0 : additionalReturningPart.length());
+    for (byte[] part : prepareResult.getQueryParts()) capacity += part.length;
+    // parameters are estimated to 16 bytes each
+    ByteBuf out =
+        ClientMessage.allocate(byteBufAllocator, capacity + 16 * prepareResult.getParamCount());
     out.writeByte(0x03);
+    if (prefix != null) out.writeCharSequence(prefix, StandardCharsets.UTF_8);
 
     if (prepareResult.getParamCount() == 0) {
       out.writeBytes(prepareResult.getQueryParts().get(0));
@@ -71,6 +97,16 @@ public final class QueryWithParametersPacket implements ClientMessage {
     return out;
   }
 
+  @Override
+  public String executedSql() {
+    return prepareResult.getSql();
+  }
+
+  @Override
+  public int parameterCount() {
+    return parameters.length;
+  }
+
   public Sequencer getSequencer() {
     return sequencer;
   }
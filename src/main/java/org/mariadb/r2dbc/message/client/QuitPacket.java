@@ -25,7 +25,7 @@ public final class QuitPacket implements ClientMessage {
 
   @Override
   public ByteBuf encode(ConnectionContext context, ByteBufAllocator allocator) {
-    ByteBuf buf = allocator.ioBuffer(1);
+    ByteBuf buf = ClientMessage.allocate(allocator, 1);
     buf.writeByte(0x01);
     return buf;
   }
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2020 MariaDB Ab.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mariadb.r2dbc.message.client;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import org.mariadb.r2dbc.client.ConnectionContext;
+
+/**
+ * COM_STMT_SEND_LONG_DATA packet, appending a chunk of data to a parameter value. See
+ * https://mariadb.com/kb/en/com_stmt_send_long_data/
+ */
+public final class SendLongDataPacket implements ClientMessage {
+
+  private final int statementId;
+  private final int parameterId;
+  private final ByteBuf data;
+
+  /**
+   * Constructor. Data buffer is released when packet is written.
+   *
+   * @param statementId statement id
+   * @param parameterId parameter index
+   * @param data data chunk
+   */
+  public SendLongDataPacket(int statementId, int parameterId, ByteBuf data) {
+    this.statementId = statementId;
+    this.parameterId = parameterId;
+    this.data = data;
+  }
+
+  @Override
+  public ByteBuf encode(ConnectionContext context, ByteBufAllocator allocator) {
+    // packet header space is part of first component, skipped once composite is built
+    ByteBuf header = allocator.ioBuffer(HEADER_SIZE + 7).writerIndex(HEADER_SIZE);
+    header.writeByte(0x18);
+    header.writeIntLE(statementId);
+    header.writeShortLE(parameterId);
+    return allocator.compositeBuffer(2).addComponents(true, header, data).skipBytes(HEADER_SIZE);
+  }
+
+  @Override
+  public String toString() {
+    return "SendLongDataPacket{"
+        + "statementId="
+        + statementId
+        + ", parameterId="
+        + parameterId
+        + ", length="
+        + data.readableBytes()
+        + '}';
+  }
+}
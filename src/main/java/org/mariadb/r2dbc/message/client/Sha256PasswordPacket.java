@@ -21,6 +21,7 @@ import io.netty.buffer.ByteBufAllocator;
 import io.r2dbc.spi.R2dbcException;
 import io.r2dbc.spi.R2dbcPermissionDeniedException;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.PublicKey;
 import java.util.Arrays;
 import javax.crypto.Cipher;
@@ -29,6 +30,17 @@ import org.mariadb.r2dbc.message.server.Sequencer;
 
 public final class Sha256PasswordPacket implements ClientMessage {
 
+  // cipher lookup is costly: instances are reused by each thread, and initialized for each use
+  private static final ThreadLocal<Cipher> CIPHER =
+      ThreadLocal.withInitial(
+          () -> {
+            try {
+              return Cipher.getInstance("RSA/ECB/OAEPWithSHA-1AndMGF1Padding");
+            } catch (GeneralSecurityException e) {
+              throw new IllegalStateException("RSA OAEP cipher is not available", e);
+            }
+          });
+
   private Sequencer sequencer;
   private CharSequence password;
   private byte[] seed;
@@ -67,7 +79,7 @@ public final class Sha256PasswordPacket implements ClientMessage {
     }
 
     try {
-      Cipher cipher = Cipher.getInstance("RSA/ECB/OAEPWithSHA-1AndMGF1Padding");
+      Cipher cipher = CIPHER.get();
       cipher.init(Cipher.ENCRYPT_MODE, publicKey);
       return cipher.doFinal(xorBytes);
     } catch (Exception ex) {
@@ -78,8 +90,8 @@ public final class Sha256PasswordPacket implements ClientMessage {
 
   @Override
   public ByteBuf encode(ConnectionContext context, ByteBufAllocator allocator) {
-    if (password == null) return allocator.ioBuffer(0);
-    ByteBuf buf = allocator.ioBuffer(256);
+    if (password == null) return ClientMessage.allocate(allocator, 0);
+    ByteBuf buf = ClientMessage.allocate(allocator, 256);
     buf.writeBytes(encrypt(publicKey, password, seed));
     return buf;
   }
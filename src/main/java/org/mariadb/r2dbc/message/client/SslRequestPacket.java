@@ -41,7 +41,7 @@ public final class SslRequestPacket implements ClientMessage {
             initialHandshakePacket.getMajorServerVersion(),
             initialHandshakePacket.getMinorServerVersion());
 
-    ByteBuf buf = allocator.ioBuffer(32);
+    ByteBuf buf = ClientMessage.allocate(allocator, 32);
 
     buf.writeIntLE((int) clientCapabilities);
     buf.writeIntLE(1024 * 1024 * 1024);
@@ -18,6 +18,7 @@ package org.mariadb.r2dbc.message.flow;
 
 import io.r2dbc.spi.R2dbcException;
 import io.r2dbc.spi.R2dbcNonTransientResourceException;
+import java.util.function.Function;
 import org.mariadb.r2dbc.ExceptionFactory;
 import org.mariadb.r2dbc.MariadbConnectionConfiguration;
 import org.mariadb.r2dbc.SslMode;
@@ -29,12 +30,14 @@ import org.mariadb.r2dbc.message.client.HandshakeResponse;
 import org.mariadb.r2dbc.message.client.SslRequestPacket;
 import org.mariadb.r2dbc.message.server.*;
 import org.mariadb.r2dbc.util.Assert;
+import org.mariadb.r2dbc.util.HostAddress;
 import org.mariadb.r2dbc.util.constants.Capabilities;
 import reactor.core.publisher.EmitterProcessor;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.util.Logger;
 import reactor.util.Loggers;
+import reactor.util.annotation.Nullable;
 
 public final class AuthenticationFlow {
   private static final Logger logger = Loggers.getLogger(AuthenticationFlow.class);
@@ -46,6 +49,8 @@ public final class AuthenticationFlow {
   private AuthMoreDataPacket authMoreDataPacket;
   private Client client;
   private long clientCapabilities;
+  private Function<Client, Mono<Void>> setup;
+  private Mono<Void> pipelinedSetup;
 
   private AuthenticationFlow(Client client, MariadbConnectionConfiguration configuration) {
     this.client = client;
@@ -53,8 +58,27 @@ public final class AuthenticationFlow {
   }
 
   public static Mono<Client> exchange(Client client, MariadbConnectionConfiguration configuration) {
+    return exchange(client, configuration, null);
+  }
+
+  /**
+   * Authenticate, then execute connection setup commands. When server default authentication plugin
+   * is mysql_native_password, setup commands are pipelined right after the handshake response,
+   * without waiting for authentication result. If server then requests an authentication switch,
+   * exchange fails with an {@link AuthenticationSwitchException}.
+   *
+   * @param client client
+   * @param configuration configuration
+   * @param setup connection setup commands, or null
+   * @return client, once authenticated and set up
+   */
+  public static Mono<Client> exchange(
+      Client client,
+      MariadbConnectionConfiguration configuration,
+      @Nullable Function<Client, Mono<Void>> setup) {
     AuthenticationFlow flow = new AuthenticationFlow(client, configuration);
     Assert.requireNonNull(client, "client must not be null");
+    flow.setup = setup;
 
     EmitterProcessor<State> stateMachine = EmitterProcessor.create(true);
 
@@ -78,14 +102,26 @@ public final class AuthenticationFlow {
                 logger.debug("Authentication success");
               }
             })
+        .then(Mono.defer(flow::setupResult))
         .doOnError(
             e -> {
               logger.debug("error", e);
-              flow.client.close().subscribe();
+              if (e instanceof AuthenticationSwitchException) {
+                // server reads pipelined setup commands as authentication data: no need to wait
+                // for their responses, nor to send COM_QUIT
+                flow.client.abort().subscribe();
+              } else {
+                flow.client.close().subscribe();
+              }
             })
         .then(Mono.just(client));
   }
 
+  private Mono<Void> setupResult() {
+    if (pipelinedSetup != null) return pipelinedSetup;
+    return setup == null ? Mono.empty() : setup.apply(client);
+  }
+
   private static long initializeClientCapabilities(
       final long serverCapabilities, MariadbConnectionConfiguration configuration) {
     long capabilities =
@@ -101,6 +137,11 @@ public final class AuthenticationFlow {
             | Capabilities.CLIENT_SESSION_TRACK
             | Capabilities.FOUND_ROWS;
 
+    // local files are never read: only data explicitly given to loadData is sent
+    if (configuration.allowLocalInfile()) {
+      capabilities |= Capabilities.LOCAL_FILES;
+    }
+
     if (configuration.allowMultiQueries()) {
       capabilities |= Capabilities.MULTI_STATEMENTS;
     }
@@ -126,6 +167,23 @@ public final class AuthenticationFlow {
         clientCapabilities);
   }
 
+  private AuthenticationPlugin plugin(String type) {
+    AuthenticationPlugin authPlugin = AuthenticationFlowPluginLoader.get(type);
+    if (authPlugin instanceof Sha256PasswordPluginFlow) {
+      // server identifies its public key in factory cache
+      HostAddress hostAddress = client.getHostAddress();
+      Sha256PasswordPluginFlow sha256Plugin = (Sha256PasswordPluginFlow) authPlugin;
+      sha256Plugin.setServer(
+          hostAddress != null ? hostAddress.toString() : configuration.getSocket());
+      sha256Plugin.setPublicKeyCache(client.getFactoryContext().getPublicKeyCache());
+    } else if (authPlugin instanceof Ed25519PasswordPluginFlow) {
+      // key pair derived from password is computed once by factory
+      ((Ed25519PasswordPluginFlow) authPlugin)
+          .setKeyPairCache(client.getFactoryContext().getEd25519KeyPairCache());
+    }
+    return authPlugin;
+  }
+
   private SslRequestPacket createSslRequest(long clientCapabilities) {
     return new SslRequestPacket(this.initialHandshakePacket, clientCapabilities);
   }
@@ -161,6 +219,9 @@ public final class AuthenticationFlow {
                       sink.next(HANDSHAKE);
                     }
 
+                  } else if (message instanceof ErrorPacket) {
+                    // server refuse connection before handshake, like too many connections
+                    sink.error(ExceptionFactory.createException((ErrorPacket) message, null));
                   } else {
                     sink.error(
                         new IllegalStateException(
@@ -187,10 +248,19 @@ public final class AuthenticationFlow {
     HANDSHAKE {
       @Override
       Mono<State> handle(AuthenticationFlow flow) {
-        return flow.client
-            .sendCommand(
+        Flux<ServerMessage> response =
+            flow.client.sendCommand(
                 flow.createHandshakeResponse(flow.clientCapabilities),
-                DecoderState.AUTHENTICATION_SWITCH_RESPONSE)
+                DecoderState.AUTHENTICATION_SWITCH_RESPONSE);
+        if (flow.setup != null
+            && NativePasswordPluginFlow.TYPE.equals(
+                flow.initialHandshakePacket.getAuthenticationPluginType())) {
+          // handshake response is sent on subscription: setup commands then follow it right away
+          response = response.replay().autoConnect(0);
+          flow.pipelinedSetup = flow.setup.apply(flow.client).cache();
+          flow.pipelinedSetup.subscribe(ignore -> {}, ignore -> {});
+        }
+        return response
             .<State>handle(
                 (message, sink) -> {
                   if (message instanceof ErrorPacket) {
@@ -202,10 +272,13 @@ public final class AuthenticationFlow {
                     sink.next(COMPLETED);
                   } else if (message instanceof AuthSwitchPacket) {
                     flow.authSwitchPacket = ((AuthSwitchPacket) message);
-                    String plugin = flow.authSwitchPacket.getPlugin();
-                    AuthenticationPlugin authPlugin = AuthenticationFlowPluginLoader.get(plugin);
+                    if (flow.pipelinedSetup != null) {
+                      sink.error(
+                          new AuthenticationSwitchException(flow.authSwitchPacket.getPlugin()));
+                      return;
+                    }
                     flow.authMoreDataPacket = null;
-                    flow.pluginHandler = authPlugin;
+                    flow.pluginHandler = flow.plugin(flow.authSwitchPacket.getPlugin());
                     sink.next(AUTH_SWITCH);
                   } else {
                     sink.error(
@@ -244,17 +317,19 @@ public final class AuthenticationFlow {
         return flux.<State>handle(
                 (message, sink) -> {
                   if (message instanceof ErrorPacket) {
+                    if (flow.pluginHandler instanceof Sha256PasswordPluginFlow) {
+                      ((Sha256PasswordPluginFlow) flow.pluginHandler).authenticationFailed();
+                    }
+                    R2dbcException exception =
+                        ExceptionFactory.createException((ErrorPacket) message, null);
                     sink.error(
-                        new R2dbcNonTransientResourceException(
-                            ((ErrorPacket) message).getMessage()));
+                        new R2dbcNonTransientResourceException(exception.getMessage(), exception));
                   } else if (message instanceof OkPacket) {
                     sink.next(COMPLETED);
                   } else if (message instanceof AuthSwitchPacket) {
                     flow.authSwitchPacket = ((AuthSwitchPacket) message);
-                    String plugin = flow.authSwitchPacket.getPlugin();
-                    AuthenticationPlugin authPlugin = AuthenticationFlowPluginLoader.get(plugin);
                     flow.authMoreDataPacket = null;
-                    flow.pluginHandler = authPlugin;
+                    flow.pluginHandler = flow.plugin(flow.authSwitchPacket.getPlugin());
                     sink.next(AUTH_SWITCH);
                   } else if (message instanceof AuthMoreDataPacket) {
                     flow.authMoreDataPacket = (AuthMoreDataPacket) message;
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2020 MariaDB Ab.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mariadb.r2dbc.message.flow;
+
+import io.r2dbc.spi.R2dbcNonTransientResourceException;
+
+/**
+ * Server requested an authentication switch, while commands were already pipelined behind the
+ * handshake response: server would read them as authentication data, so connection cannot be used.
+ */
+public final class AuthenticationSwitchException extends R2dbcNonTransientResourceException {
+
+  private static final long serialVersionUID = 2967530614928542385L;
+
+  public AuthenticationSwitchException(String plugin) {
+    super(
+        String.format(
+            "Server requested authentication plugin '%s' after commands were pipelined", plugin),
+        "08000");
+  }
+}
@@ -32,7 +32,6 @@ public final class CachingSha2PasswordFlow extends Sha256PasswordPluginFlow {
 
   public static final String TYPE = "caching_sha2_password";
   private State state = State.INIT;
-  private PublicKey publicKey;
 
   /**
    * Send a SHA-2 encrypted password. encryption XOR(SHA256(password), SHA256(seed,
@@ -113,7 +112,7 @@ public final class CachingSha2PasswordFlow extends Sha256PasswordPluginFlow {
             // retrieve public key from configuration or from server
             if (configuration.getCachingRsaPublicKey() != null
                 && !configuration.getCachingRsaPublicKey().isEmpty()) {
-              publicKey = readPublicKeyFromFile(configuration.getCachingRsaPublicKey());
+              PublicKey publicKey = configuredPublicKey(configuration.getCachingRsaPublicKey());
               state = State.SEND_AUTH;
 
               return new Sha256PasswordPacket(
@@ -123,6 +122,17 @@ public final class CachingSha2PasswordFlow extends Sha256PasswordPluginFlow {
                   publicKey);
             }
 
+            // key already retrieved from this server: no need to ask it again
+            PublicKey cachedKey = cachedPublicKey();
+            if (cachedKey != null) {
+              state = State.SEND_AUTH;
+              return new Sha256PasswordPacket(
+                  authMoreDataPacket.getSequencer(),
+                  configuration.getPassword(),
+                  authSwitchPacket.getSeed(),
+                  cachedKey);
+            }
+
             if (!configuration.allowPublicKeyRetrieval()) {
               throw new R2dbcNonTransientResourceException(
                   "RSA public key is not available client side (option serverRsaPublicKeyFile) and option 'allowPublicKeyRetrieval' is disabled. Either set one or the other",
@@ -140,7 +150,7 @@ public final class CachingSha2PasswordFlow extends Sha256PasswordPluginFlow {
         }
 
       case REQUEST_SERVER_KEY:
-        publicKey = readPublicKey(authMoreDataPacket);
+        PublicKey publicKey = retrievedPublicKey(authMoreDataPacket);
         state = State.SEND_AUTH;
         return new Sha256PasswordPacket(
             authMoreDataPacket.getSequencer(),
@@ -27,6 +27,8 @@ public final class Ed25519PasswordPluginFlow implements AuthenticationPlugin {
 
   public static final String TYPE = "client_ed25519";
 
+  private Ed25519PasswordPacket.KeyPairCache keyPairCache;
+
   public Ed25519PasswordPluginFlow create() {
     return new Ed25519PasswordPluginFlow();
   }
@@ -41,7 +43,19 @@ public final class Ed25519PasswordPluginFlow implements AuthenticationPlugin {
       AuthMoreDataPacket authMoreDataPacket) {
 
     return new Ed25519PasswordPacket(
-        authSwitchPacket.getSequencer(), configuration.getPassword(), authSwitchPacket.getSeed());
+        authSwitchPacket.getSequencer(),
+        configuration.getPassword(),
+        authSwitchPacket.getSeed(),
+        keyPairCache);
+  }
+
+  /**
+   * Set cache of key pair derived from password, shared by connections of a factory.
+   *
+   * @param keyPairCache key pair cache
+   */
+  void setKeyPairCache(Ed25519PasswordPacket.KeyPairCache keyPairCache) {
+    this.keyPairCache = keyPairCache;
   }
 
   @Override
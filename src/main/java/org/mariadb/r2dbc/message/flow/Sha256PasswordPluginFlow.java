@@ -35,12 +35,16 @@ import org.mariadb.r2dbc.message.client.RsaPublicKeyRequestPacket;
 import org.mariadb.r2dbc.message.client.Sha256PasswordPacket;
 import org.mariadb.r2dbc.message.server.AuthMoreDataPacket;
 import org.mariadb.r2dbc.message.server.AuthSwitchPacket;
+import org.mariadb.r2dbc.util.PublicKeyCache;
 
 public class Sha256PasswordPluginFlow implements AuthenticationPlugin {
 
   public static final String TYPE = "sha256_password";
   private State state = State.INIT;
   private PublicKey publicKey;
+  private String serverId;
+  private PublicKey cachedKey;
+  private PublicKeyCache publicKeyCache = new PublicKeyCache();
 
   /**
    * Read public Key from file.
@@ -102,6 +106,65 @@ public class Sha256PasswordPluginFlow implements AuthenticationPlugin {
     return generatePublicKey(key);
   }
 
+  /**
+   * Set server authenticated against, identifying its public key in cache.
+   *
+   * @param server server address, or unix socket path
+   */
+  void setServer(String server) {
+    this.serverId = type() + "@" + server;
+  }
+
+  /**
+   * Set public keys shared by connections of the connection factory.
+   *
+   * @param publicKeyCache public key cache
+   */
+  void setPublicKeyCache(PublicKeyCache publicKeyCache) {
+    this.publicKeyCache = publicKeyCache;
+  }
+
+  /**
+   * Server rejected authentication: if public key was a cached one, server key may have changed and
+   * must be retrieved again.
+   */
+  void authenticationFailed() {
+    if (cachedKey != null) publicKeyCache.remove(serverId, cachedKey);
+  }
+
+  /**
+   * Get public key from configured file.
+   *
+   * @param path public key file path
+   * @return public key
+   */
+  protected PublicKey configuredPublicKey(String path) {
+    return publicKeyCache.fromFile(path, Sha256PasswordPluginFlow::readPublicKeyFromFile);
+  }
+
+  /**
+   * Get public key previously retrieved from server.
+   *
+   * @return public key, or null if not cached
+   */
+  protected PublicKey cachedPublicKey() {
+    if (serverId == null) return null;
+    cachedKey = publicKeyCache.get(serverId);
+    return cachedKey;
+  }
+
+  /**
+   * Read public key retrieved from server, and cache it.
+   *
+   * @param authMoreDataPacket server public key packet
+   * @return public key
+   */
+  protected PublicKey retrievedPublicKey(AuthMoreDataPacket authMoreDataPacket) {
+    PublicKey key = readPublicKey(authMoreDataPacket);
+    if (serverId != null) publicKeyCache.put(serverId, key);
+    return key;
+  }
+
   public Sha256PasswordPluginFlow create() {
     return new Sha256PasswordPluginFlow();
   }
@@ -127,8 +190,8 @@ public class Sha256PasswordPluginFlow implements AuthenticationPlugin {
           // retrieve public key from configuration or from server
           if (configuration.getRsaPublicKey() != null
               && !configuration.getRsaPublicKey().isEmpty()) {
-            publicKey = readPublicKeyFromFile(configuration.getRsaPublicKey());
-          } else {
+            publicKey = configuredPublicKey(configuration.getRsaPublicKey());
+          } else if ((publicKey = cachedPublicKey()) == null) {
             if (!configuration.allowPublicKeyRetrieval()) {
               throw new R2dbcNonTransientResourceException(
                   "RSA public key is not available client side (option "
@@ -147,7 +210,7 @@ public class Sha256PasswordPluginFlow implements AuthenticationPlugin {
             publicKey);
 
       case REQUEST_SERVER_KEY:
-        publicKey = readPublicKey(authMoreDataPacket);
+        publicKey = retrievedPublicKey(authMoreDataPacket);
         return new Sha256PasswordPacket(
             authMoreDataPacket.getSequencer(),
             configuration.getPassword(),
@@ -23,16 +23,25 @@ import org.mariadb.r2dbc.util.BufferUtils;
 
 public class ColumnCountPacket implements ServerMessage {
 
-  private int columnCount;
+  // immutable, so usual column count values are shared
+  private static final ColumnCountPacket[] CACHE = new ColumnCountPacket[64];
+
+  static {
+    for (int i = 0; i < CACHE.length; i++) {
+      CACHE[i] = new ColumnCountPacket(i);
+    }
+  }
+
+  private final int columnCount;
 
   public ColumnCountPacket(int columnCount) {
     this.columnCount = columnCount;
   }
 
-  public static ColumnCountPacket decode(
-      Sequencer sequencer, ByteBuf buf, ConnectionContext context) {
-    long columnCount = BufferUtils.readLengthEncodedInt(buf);
-    return new ColumnCountPacket((int) columnCount);
+  public static ColumnCountPacket decode(ByteBuf buf, ConnectionContext context) {
+    int columnCount = (int) BufferUtils.readLengthEncodedInt(buf);
+    if (columnCount < CACHE.length) return CACHE[columnCount];
+    return new ColumnCountPacket(columnCount);
   }
 
   public int getColumnCount() {
@@ -23,33 +23,28 @@ import org.mariadb.r2dbc.util.constants.ServerStatus;
 
 public class EofPacket implements ServerMessage {
 
-  private final Sequencer sequencer;
   private final short serverStatus;
   private final short warningCount;
   private final boolean ending;
   private final boolean resultSetEnd;
 
   public EofPacket(
-      final Sequencer sequencer,
       final short serverStatus,
       final short warningCount,
       final boolean resultSetEnd,
       final boolean ending) {
-    this.sequencer = sequencer;
     this.serverStatus = serverStatus;
     this.warningCount = warningCount;
     this.resultSetEnd = resultSetEnd;
     this.ending = ending;
   }
 
-  public static EofPacket decode(
-      Sequencer sequencer, ByteBuf buf, ConnectionContext context, boolean resultSetEnd) {
+  public static EofPacket decode(ByteBuf buf, ConnectionContext context, boolean resultSetEnd) {
     buf.skipBytes(1);
     short warningCount = buf.readShortLE();
     short serverStatus = buf.readShortLE();
     context.setServerStatus(serverStatus);
     return new EofPacket(
-        sequencer,
         serverStatus,
         warningCount,
         resultSetEnd,
@@ -65,7 +60,7 @@ public class EofPacket implements ServerMessage {
   }
 
   public Sequencer getSequencer() {
-    return sequencer;
+    return null;
   }
 
   @Override
@@ -83,22 +78,18 @@ public class EofPacket implements ServerMessage {
     if (this == o) return true;
     if (o == null || getClass() != o.getClass()) return false;
     EofPacket okPacket = (EofPacket) o;
-    return serverStatus == okPacket.serverStatus
-        && warningCount == okPacket.warningCount
-        && sequencer.equals(okPacket.sequencer);
+    return serverStatus == okPacket.serverStatus && warningCount == okPacket.warningCount;
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(sequencer, serverStatus, warningCount);
+    return Objects.hash(serverStatus, warningCount);
   }
 
   @Override
   public String toString() {
     return "EofPacket{"
-        + "sequencer="
-        + sequencer
-        + ", serverStatus="
+        + "serverStatus="
         + serverStatus
         + ", warningCount="
         + warningCount
@@ -28,16 +28,14 @@ public final class ErrorPacket implements ServerMessage {
   private final short errorCode;
   private final String message;
   private final String sqlState;
-  private Sequencer sequencer;
 
-  private ErrorPacket(Sequencer sequencer, short errorCode, String sqlState, String message) {
-    this.sequencer = sequencer;
+  private ErrorPacket(short errorCode, String sqlState, String message) {
     this.errorCode = errorCode;
     this.message = message;
     this.sqlState = sqlState;
   }
 
-  public static ErrorPacket decode(Sequencer sequencer, ByteBuf buf) {
+  public static ErrorPacket decode(ByteBuf buf) {
     Assert.requireNonNull(buf, "buffer must not be null");
     buf.skipBytes(1);
     short errorCode = buf.readShortLE();
@@ -52,7 +50,7 @@ public final class ErrorPacket implements ServerMessage {
       msg = buf.toString(StandardCharsets.UTF_8);
       sqlState = "HY000";
     }
-    ErrorPacket err = new ErrorPacket(sequencer, errorCode, sqlState, msg);
+    ErrorPacket err = new ErrorPacket(errorCode, sqlState, msg);
     logger.warn("Error: {}", err.toString());
     return err;
   }
@@ -70,7 +68,7 @@ public final class ErrorPacket implements ServerMessage {
   }
 
   public Sequencer getSequencer() {
-    return sequencer;
+    return null;
   }
 
   @Override
@@ -78,20 +76,24 @@ public final class ErrorPacket implements ServerMessage {
     return true;
   }
 
+  @Override
+  public boolean resultSetEnd() {
+    return true;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) return true;
     if (o == null || getClass() != o.getClass()) return false;
     ErrorPacket that = (ErrorPacket) o;
     return errorCode == that.errorCode
-        && sequencer.equals(that.sequencer)
         && message.equals(that.message)
         && Objects.equals(sqlState, that.sqlState);
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(sequencer, errorCode, message, sqlState);
+    return Objects.hash(errorCode, message, sqlState);
   }
 
   @Override
@@ -105,8 +107,6 @@ public final class ErrorPacket implements ServerMessage {
         + ", sqlState='"
         + sqlState
         + '\''
-        + ", sequencer="
-        + sequencer
         + '}';
   }
 }
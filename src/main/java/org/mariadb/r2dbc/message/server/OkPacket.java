@@ -17,6 +17,8 @@
 package org.mariadb.r2dbc.message.server;
 
 import io.netty.buffer.ByteBuf;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.Objects;
 import org.mariadb.r2dbc.client.ConnectionContext;
 import org.mariadb.r2dbc.util.BufferUtils;
@@ -29,7 +31,16 @@ import reactor.util.Loggers;
 public class OkPacket implements ServerMessage {
   public static final byte TYPE = (byte) 0x00;
   private static final Logger logger = Loggers.getLogger(OkPacket.class);
-  private final Sequencer sequencer;
+  private static final byte[] TX_ISOLATION = "tx_isolation".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] TRANSACTION_ISOLATION =
+      "transaction_isolation".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] CHARACTER_SET_CLIENT =
+      "character_set_client".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] MAX_STATEMENT_TIME =
+      "max_statement_time".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] AUTO_INCREMENT_INCREMENT =
+      "auto_increment_increment".getBytes(StandardCharsets.US_ASCII);
+
   private final long affectedRows;
   private final long lastInsertId;
   private final short serverStatus;
@@ -37,13 +48,11 @@ public class OkPacket implements ServerMessage {
   private final boolean ending;
 
   public OkPacket(
-      Sequencer sequencer,
       long affectedRows,
       long lastInsertId,
       short serverStatus,
       short warningCount,
       final boolean ending) {
-    this.sequencer = sequencer;
     this.affectedRows = affectedRows;
     this.lastInsertId = lastInsertId;
     this.serverStatus = serverStatus;
@@ -51,7 +60,7 @@ public class OkPacket implements ServerMessage {
     this.ending = ending;
   }
 
-  public static OkPacket decode(Sequencer sequencer, ByteBuf buf, ConnectionContext context) {
+  public static OkPacket decode(ByteBuf buf, ConnectionContext context) {
     buf.skipBytes(1);
     long affectedRows = BufferUtils.readLengthEncodedInt(buf);
     long lastInsertId = BufferUtils.readLengthEncodedInt(buf);
@@ -59,36 +68,50 @@ public class OkPacket implements ServerMessage {
     short warningCount = buf.readShortLE();
 
     if ((context.getServerCapabilities() & Capabilities.CLIENT_SESSION_TRACK) != 0
+        && (serverStatus & ServerStatus.SERVER_SESSION_STATE_CHANGED) != 0
         && buf.isReadable()) {
       BufferUtils.skipLengthEncode(buf); // skip info
-      while (buf.isReadable()) {
-        ByteBuf stateInfo = BufferUtils.readLengthEncodedBuffer(buf);
-        if (stateInfo.isReadable()) {
-          switch (stateInfo.readByte()) {
+      if (buf.isReadable()) {
+        // state changes are read in place, without slicing buffer
+        int stateEnd = (int) BufferUtils.readLengthEncodedInt(buf) + buf.readerIndex();
+        while (buf.readerIndex() < stateEnd) {
+          byte type = buf.readByte();
+          int entryEnd = (int) BufferUtils.readLengthEncodedInt(buf) + buf.readerIndex();
+          switch (type) {
             case StateChange.SESSION_TRACK_SYSTEM_VARIABLES:
-              ByteBuf sessionVariableBuf = BufferUtils.readLengthEncodedBuffer(stateInfo);
-              String variable = BufferUtils.readLengthEncodedString(sessionVariableBuf);
-              String value = BufferUtils.readLengthEncodedString(sessionVariableBuf);
-              logger.debug("System variable change :  {} = {}", variable, value);
+              while (buf.readerIndex() < entryEnd) {
+                int nameLength = (int) BufferUtils.readLengthEncodedInt(buf);
+                int nameIndex = buf.readerIndex();
+                buf.skipBytes(nameLength);
+                int valueLength = (int) BufferUtils.readLengthEncodedInt(buf);
+                trackSystemVariable(context, buf, nameIndex, nameLength, valueLength);
+                buf.skipBytes(valueLength);
+              }
               break;
 
             case StateChange.SESSION_TRACK_SCHEMA:
-              ByteBuf sessionSchemaBuf = BufferUtils.readLengthEncodedBuffer(stateInfo);
-              String database = BufferUtils.readLengthEncodedString(sessionSchemaBuf);
+              String database = BufferUtils.readLengthEncodedString(buf);
               context.setDatabase(database);
               logger.debug("Database change : now is '{}'", database);
               break;
 
+            case StateChange.SESSION_TRACK_TRANSACTION_STATE:
+              context.setTransactionState(BufferUtils.readLengthEncodedString(buf));
+              break;
+
+            case StateChange.SESSION_TRACK_TRANSACTION_CHARACTERISTICS:
+              context.setTransactionCharacteristics(BufferUtils.readLengthEncodedString(buf));
+              break;
+
             default:
-              int len = (int) BufferUtils.readLengthEncodedInt(stateInfo);
-              stateInfo.skipBytes(len);
+              break;
           }
+          buf.readerIndex(entryEnd);
         }
       }
     }
     context.setServerStatus(serverStatus);
     return new OkPacket(
-        sequencer,
         affectedRows,
         lastInsertId,
         serverStatus,
@@ -96,6 +119,64 @@ public class OkPacket implements ServerMessage {
         (serverStatus & ServerStatus.MORE_RESULTS_EXISTS) == 0);
   }
 
+  /**
+   * Update context from a system variable change. Value is at buffer reader index, and is only
+   * materialized as String for tracked variables.
+   *
+   * @param context connection context
+   * @param buf packet buffer
+   * @param nameIndex variable name index
+   * @param nameLength variable name length
+   * @param valueLength variable value length
+   */
+  private static void trackSystemVariable(
+      ConnectionContext context, ByteBuf buf, int nameIndex, int nameLength, int valueLength) {
+    if (logger.isDebugEnabled()) {
+      logger.debug(
+          "System variable change :  {} = {}",
+          buf.toString(nameIndex, nameLength, StandardCharsets.UTF_8),
+          value(buf, valueLength));
+    }
+
+    if (matches(buf, nameIndex, nameLength, TX_ISOLATION)
+        || matches(buf, nameIndex, nameLength, TRANSACTION_ISOLATION)) {
+      context.setIsolationLevel(ConnectionContext.toIsolationLevel(value(buf, valueLength)));
+
+    } else if (matches(buf, nameIndex, nameLength, CHARACTER_SET_CLIENT)) {
+      context.setCharacterSet(value(buf, valueLength));
+
+    } else if (matches(buf, nameIndex, nameLength, MAX_STATEMENT_TIME)) {
+      String value = value(buf, valueLength);
+      try {
+        context.setMaxStatementTime(
+            Duration.ofNanos((long) (Double.parseDouble(value) * 1_000_000_000L)));
+      } catch (NumberFormatException nfe) {
+        logger.debug("wrong max_statement_time value '{}'", value);
+      }
+
+    } else if (matches(buf, nameIndex, nameLength, AUTO_INCREMENT_INCREMENT)) {
+      String value = value(buf, valueLength);
+      try {
+        context.setAutoIncrementIncrement(Integer.parseInt(value));
+      } catch (NumberFormatException nfe) {
+        logger.debug("wrong auto_increment_increment value '{}'", value);
+      }
+    }
+    // other variables (autocommit is already known from server status) are ignored
+  }
+
+  private static boolean matches(ByteBuf buf, int index, int length, byte[] name) {
+    if (length != name.length) return false;
+    for (int i = 0; i < length; i++) {
+      if (buf.getByte(index + i) != name[i]) return false;
+    }
+    return true;
+  }
+
+  private static String value(ByteBuf buf, int length) {
+    return buf.toString(buf.readerIndex(), length, StandardCharsets.UTF_8);
+  }
+
   public long getAffectedRows() {
     return affectedRows;
   }
@@ -113,7 +194,7 @@ public class OkPacket implements ServerMessage {
   }
 
   public Sequencer getSequencer() {
-    return sequencer;
+    return null;
   }
 
   @Override
@@ -134,21 +215,18 @@ public class OkPacket implements ServerMessage {
     return affectedRows == okPacket.affectedRows
         && lastInsertId == okPacket.lastInsertId
         && serverStatus == okPacket.serverStatus
-        && warningCount == okPacket.warningCount
-        && sequencer.equals(okPacket.sequencer);
+        && warningCount == okPacket.warningCount;
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(sequencer, affectedRows, lastInsertId, serverStatus, warningCount);
+    return Objects.hash(affectedRows, lastInsertId, serverStatus, warningCount);
   }
 
   @Override
   public String toString() {
     return "OkPacket{"
-        + "sequencer="
-        + sequencer
-        + ", affectedRows="
+        + "affectedRows="
         + affectedRows
         + ", lastInsertId="
         + lastInsertId
@@ -26,15 +26,12 @@ public final class PrepareResultPacket implements ServerMessage {
   private final int numColumns;
   private final int numParams;
   private final boolean eofDeprecated;
-  private Sequencer sequencer;
 
   private PrepareResultPacket(
-      final Sequencer sequencer,
       final int statementId,
       final int numColumns,
       final int numParams,
       final boolean eofDeprecated) {
-    this.sequencer = sequencer;
     this.statementId = statementId;
     this.numColumns = numColumns;
     this.numParams = numParams;
@@ -46,15 +43,13 @@ public final class PrepareResultPacket implements ServerMessage {
     return numParams == 0 && numColumns == 0 && eofDeprecated;
   }
 
-  public static PrepareResultPacket decode(
-      Sequencer sequencer, ByteBuf buffer, ConnectionContext context) {
+  public static PrepareResultPacket decode(ByteBuf buffer, ConnectionContext context) {
     /* Prepared Statement OK */
     buffer.readByte(); /* skip field count */
     final int statementId = buffer.readIntLE();
     final int numColumns = buffer.readUnsignedShortLE();
     final int numParams = buffer.readUnsignedShortLE();
     return new PrepareResultPacket(
-        sequencer,
         statementId,
         numColumns,
         numParams,
@@ -86,13 +81,11 @@ public final class PrepareResultPacket implements ServerMessage {
         + numColumns
         + ", numParams="
         + numParams
-        + ", sequencer="
-        + sequencer
         + '}';
   }
 
   @Override
   public Sequencer getSequencer() {
-    return sequencer;
+    return null;
   }
 }
@@ -19,19 +19,35 @@ package org.mariadb.r2dbc.message.server;
 import io.netty.buffer.ByteBuf;
 import io.netty.util.AbstractReferenceCounted;
 import io.netty.util.ReferenceCounted;
+import org.reactivestreams.Publisher;
+import reactor.util.annotation.Nullable;
 
 public final class RowPacket extends AbstractReferenceCounted implements ServerMessage {
 
   private ByteBuf raw;
+  @Nullable private final Publisher<ByteBuf> largeValue;
 
-  public RowPacket(ByteBuf raw) {
+  /**
+   * Constructor.
+   *
+   * @param raw row data. When streaming a large value, only the first packet of the row
+   * @param largeValue remaining parts of the last column value when streaming a large value, or
+   *     null
+   */
+  public RowPacket(ByteBuf raw, @Nullable Publisher<ByteBuf> largeValue) {
     this.raw = raw.retain();
+    this.largeValue = largeValue;
   }
 
   public ByteBuf getRaw() {
     return raw;
   }
 
+  @Nullable
+  public Publisher<ByteBuf> getLargeValue() {
+    return largeValue;
+  }
+
   public Sequencer getSequencer() {
     return null;
   }
@@ -27,6 +27,25 @@ public class Sequencer {
     return ++sequenceId;
   }
 
+  /**
+   * Reset sequence to the value read from a packet header, permitting the decoder to reuse a single
+   * instance.
+   *
+   * @param sequenceId packet sequence id
+   */
+  public void reset(byte sequenceId) {
+    this.sequenceId = sequenceId;
+  }
+
+  /**
+   * Create an independent copy, for messages that will continue the exchange (authentication).
+   *
+   * @return new sequencer with same sequence id
+   */
+  public Sequencer copy() {
+    return new Sequencer(sequenceId);
+  }
+
   @Override
   public String toString() {
     return "Sequencer{sequenceId=" + sequenceId + '}';
@@ -18,6 +18,9 @@ package org.mariadb.r2dbc.message.server;
 
 public class SkipPacket implements ServerMessage {
 
+  private static final SkipPacket SKIP = new SkipPacket(false);
+  private static final SkipPacket SKIP_ENDING = new SkipPacket(true);
+
   private final boolean ending;
 
   public SkipPacket(boolean ending) {
@@ -25,7 +28,7 @@ public class SkipPacket implements ServerMessage {
   }
 
   public static SkipPacket decode(boolean ending) {
-    return new SkipPacket(ending);
+    return ending ? SKIP_ENDING : SKIP;
   }
 
   @Override
@@ -17,6 +17,7 @@
 package org.mariadb.r2dbc.util;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
 import io.r2dbc.spi.Blob;
 import io.r2dbc.spi.Clob;
 import io.r2dbc.spi.R2dbcNonTransientResourceException;
@@ -39,6 +40,16 @@ public class BufferUtils {
   private static final byte DBL_QUOTE = (byte) '"';
   private static final byte ZERO_BYTE = (byte) '\0';
   private static final byte BACKSLASH = (byte) '\\';
+  // ASCII characters escaped with a backslash
+  private static final boolean[] BACKSLASH_ESCAPED = new boolean[128];
+
+  static {
+    BACKSLASH_ESCAPED[QUOTE] = true;
+    BACKSLASH_ESCAPED[DBL_QUOTE] = true;
+    BACKSLASH_ESCAPED[ZERO_BYTE] = true;
+    BACKSLASH_ESCAPED[BACKSLASH] = true;
+  }
+
   private static final DateTimeFormatter TIMESTAMP_FORMAT =
       DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSSSSS");
   private static final DateTimeFormatter TIMESTAMP_FORMAT_NO_FRACTIONAL =
@@ -339,135 +350,60 @@ public class BufferUtils {
 
   public static void writeEscaped(
       ByteBuf buf, byte[] bytes, int offset, int len, ConnectionContext context) {
-    buf.ensureWritable(len * 2);
+    buf.ensureWritable(len);
     boolean noBackslashEscapes =
         (context.getServerStatus() & ServerStatus.NO_BACKSLASH_ESCAPES) > 0;
 
-    if (noBackslashEscapes) {
-      for (int i = offset; i < len + offset; i++) {
-        if (QUOTE == bytes[i]) {
-          buf.writeByte(QUOTE);
-        }
-        buf.writeByte(bytes[i]);
-      }
-    } else {
-      for (int i = offset; i < len + offset; i++) {
-        if (bytes[i] == QUOTE
-            || bytes[i] == BACKSLASH
-            || bytes[i] == '"'
-            || bytes[i] == ZERO_BYTE) {
-          buf.writeByte(BACKSLASH);
-        }
-        buf.writeByte(bytes[i]);
+    // bulk copy runs of bytes without escape
+    int end = offset + len;
+    int runStart = offset;
+    for (int i = offset; i < end; i++) {
+      byte b = bytes[i];
+      if (noBackslashEscapes ? b == QUOTE : b >= 0 && BACKSLASH_ESCAPED[b]) {
+        buf.writeBytes(bytes, runStart, i - runStart);
+        buf.writeByte(noBackslashEscapes ? QUOTE : BACKSLASH);
+        runStart = i;
       }
     }
+    buf.writeBytes(bytes, runStart, end - runStart);
   }
 
   public static ByteBuf write(
       ByteBuf buf, String str, boolean quote, boolean escape, ConnectionContext context) {
 
     int charsLength = str.length();
-    buf.ensureWritable(charsLength * 3 + 2);
-
-    // create UTF-8 byte array
-    // since java char are internally using UTF-16 using surrogate's pattern, 4 bytes unicode
-    // characters will
-    // represent 2 characters : example "\uD83C\uDFA4" = 🎤 unicode 8 "no microphones"
-    // so max size is 3 * charLength
-    // (escape characters are 1 byte encoded, so length might only be 2 when escape)
-    // + 2 for the quotes for text protocol
-    int charsOffset = 0;
-    char currChar;
+    // sized for ASCII, most common case. Buffer grows if needed
+    buf.ensureWritable(charsLength + 2);
+    if (quote) buf.writeByte(QUOTE);
+
     boolean noBackslashEscapes =
         (context.getServerStatus() & ServerStatus.NO_BACKSLASH_ESCAPES) > 0;
-    // quick loop if only ASCII chars for faster escape
-    if (escape) {
-      if (quote) buf.writeByte(QUOTE);
-      if (noBackslashEscapes) {
-        for (;
-            charsOffset < charsLength && (currChar = str.charAt(charsOffset)) < 0x80;
-            charsOffset++) {
-          if (currChar == QUOTE) {
-            buf.writeByte(QUOTE);
-          }
-          buf.writeByte((byte) currChar);
-        }
-      } else {
-        for (;
-            charsOffset < charsLength && (currChar = str.charAt(charsOffset)) < 0x80;
-            charsOffset++) {
-          if (currChar == BACKSLASH
-              || currChar == QUOTE
-              || currChar == 0
-              || currChar == DBL_QUOTE) {
-            buf.writeByte(BACKSLASH);
-          }
-          buf.writeByte((byte) currChar);
-        }
-      }
-    } else {
-      for (;
-          charsOffset < charsLength && (currChar = str.charAt(charsOffset)) < 0x80;
-          charsOffset++) {
-        buf.writeByte((byte) currChar);
-      }
-    }
 
-    // if quick loop not finished
-    while (charsOffset < charsLength) {
-      currChar = str.charAt(charsOffset++);
-      if (currChar < 0x80) {
-        if (escape) {
-          if (noBackslashEscapes) {
-            if (currChar == QUOTE) {
-              buf.writeByte(QUOTE);
-            }
-          } else if (currChar == BACKSLASH
-              || currChar == QUOTE
-              || currChar == ZERO_BYTE
-              || currChar == DBL_QUOTE) {
-            buf.writeByte(BACKSLASH);
-          }
-        }
-        buf.writeByte((byte) currChar);
-      } else if (currChar < 0x800) {
-        buf.writeByte((byte) (0xc0 | (currChar >> 6)));
-        buf.writeByte((byte) (0x80 | (currChar & 0x3f)));
-      } else if (currChar >= 0xD800 && currChar < 0xE000) {
-        // reserved for surrogate - see https://en.wikipedia.org/wiki/UTF-16
-        if (currChar < 0xDC00) {
-          // is high surrogate
-          if (charsOffset + 1 > charsLength) {
-            buf.writeByte((byte) 0x63);
-          } else {
-            char nextChar = str.charAt(charsOffset);
-            if (nextChar >= 0xDC00 && nextChar < 0xE000) {
-              // is low surrogate
-              int surrogatePairs =
-                  ((currChar << 10) + nextChar) + (0x010000 - (0xD800 << 10) - 0xDC00);
-              buf.writeByte((byte) (0xf0 | ((surrogatePairs >> 18))));
-              buf.writeByte((byte) (0x80 | ((surrogatePairs >> 12) & 0x3f)));
-              buf.writeByte((byte) (0x80 | ((surrogatePairs >> 6) & 0x3f)));
-              buf.writeByte((byte) (0x80 | (surrogatePairs & 0x3f)));
-              charsOffset++;
-            } else {
-              // must have low surrogate
-              buf.writeByte((byte) 0x3f);
-            }
-          }
+    // single pass: find runs of characters without escape, computing their UTF-8 length, and
+    // encode each run at once. Escaped characters are ASCII, so a run never splits a surrogate pair
+    int runStart = 0;
+    int runBytes = 0;
+    for (int i = 0; i < charsLength; i++) {
+      char c = str.charAt(i);
+      if (c < 0x80) {
+        if (escape && (noBackslashEscapes ? c == QUOTE : BACKSLASH_ESCAPED[c])) {
+          if (runBytes > 0) ByteBufUtil.reserveAndWriteUtf8(buf, str, runStart, i, runBytes);
+          buf.writeByte(noBackslashEscapes ? QUOTE : BACKSLASH);
+          runStart = i;
+          runBytes = 1;
         } else {
-          // low surrogate without high surrogate before
-          buf.writeByte((byte) 0x3f);
+          runBytes++;
         }
+      } else if (c < 0x800) {
+        runBytes += 2;
       } else {
-        buf.writeByte((byte) (0xe0 | ((currChar >> 12))));
-        buf.writeByte((byte) (0x80 | ((currChar >> 6) & 0x3f)));
-        buf.writeByte((byte) (0x80 | (currChar & 0x3f)));
+        // 3 bytes, or 4 bytes for a surrogate pair of 2 characters
+        runBytes += 3;
       }
     }
-    if (quote) {
-      buf.writeByte(QUOTE);
-    }
+    if (runBytes > 0) ByteBufUtil.reserveAndWriteUtf8(buf, str, runStart, charsLength, runBytes);
+
+    if (quote) buf.writeByte(QUOTE);
     return buf;
   }
 }
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2020 MariaDB Ab.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mariadb.r2dbc.util;
+
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import org.mariadb.r2dbc.message.server.RowPacket;
+import org.mariadb.r2dbc.message.server.Sequencer;
+import org.mariadb.r2dbc.message.server.ServerMessage;
+
+/** Row data, copied from a row packet, to be replayed to any number of subscribers. */
+public final class CachedRow implements ServerMessage {
+
+  private final byte[] data;
+
+  public CachedRow(RowPacket row) {
+    this.data = ByteBufUtil.getBytes(row.getRaw());
+  }
+
+  int size() {
+    return data.length;
+  }
+
+  @Override
+  public Sequencer getSequencer() {
+    return null;
+  }
+
+  /**
+   * Message to emit for a stored message: a new row packet for a row, the message itself otherwise,
+   * other messages being immutable.
+   *
+   * @param message stored message
+   * @return message to emit
+   */
+  public static ServerMessage replay(ServerMessage message) {
+    return message instanceof CachedRow
+        ? new RowPacket(Unpooled.wrappedBuffer(((CachedRow) message).data), null)
+        : message;
+  }
+}
@@ -22,6 +22,7 @@ import java.util.List;
 
 public class ClientPrepareResult implements PrepareResult {
 
+  private final String sql;
   private final List<byte[]> queryParts;
   private final List<String> paramNameList;
   private final boolean rewriteType;
@@ -32,6 +33,7 @@ public class ClientPrepareResult implements PrepareResult {
   private boolean supportAddingReturning;
 
   private ClientPrepareResult(
+      String sql,
       List<byte[]> queryParts,
       List<String> paramNameList,
       boolean isQueryMultiValuesRewritable,
@@ -39,6 +41,7 @@ public class ClientPrepareResult implements PrepareResult {
       boolean rewriteType,
       boolean isReturning,
       boolean supportAddingReturning) {
+    this.sql = sql;
     this.queryParts = queryParts;
     this.paramNameList = paramNameList;
     this.isQueryMultiValuesRewritable = isQueryMultiValuesRewritable;
@@ -308,6 +311,7 @@ public class ClientPrepareResult implements PrepareResult {
     }
 
     return new ClientPrepareResult(
+        queryString,
         partList,
         paramNameList,
         reWritablePrepare,
@@ -449,6 +453,105 @@ public class ClientPrepareResult implements PrepareResult {
     return false;
   }
 
+  /**
+   * Statement digest: query with literals and parameters replaced by '?', comments removed and
+   * whitespaces collapsed, so that all executions of a statement shape have the same digest.
+   *
+   * @param queryString query
+   * @param noBackslashEscapes escape mode
+   * @return digest
+   */
+  public static String digest(String queryString, boolean noBackslashEscapes) {
+    int queryLength = queryString.length();
+    StringBuilder sb = new StringBuilder(queryLength);
+    boolean space = false;
+    int i = 0;
+    while (i < queryLength) {
+      char car = queryString.charAt(i);
+      int end;
+      String token;
+      if (car <= ' ') {
+        space = true;
+        i++;
+        continue;
+      } else if (car == '#'
+          || (car == '-' && i + 1 < queryLength && queryString.charAt(i + 1) == '-')) {
+        end = queryString.indexOf('\n', i);
+        i = end == -1 ? queryLength : end + 1;
+        space = true;
+        continue;
+      } else if (car == '/' && i + 1 < queryLength && queryString.charAt(i + 1) == '*') {
+        end = queryString.indexOf("*/", i + 2);
+        i = end == -1 ? queryLength : end + 2;
+        space = true;
+        continue;
+      } else if (car == '\'' || car == '"') {
+        end = i + 1;
+        while (end < queryLength) {
+          char c = queryString.charAt(end++);
+          if (c == '\\' && !noBackslashEscapes) {
+            end++;
+          } else if (c == car) {
+            // doubled quote is an escaped quote
+            if (end < queryLength && queryString.charAt(end) == car) {
+              end++;
+            } else break;
+          }
+        }
+        token = "?";
+      } else if (car == '`') {
+        end = queryString.indexOf('`', i + 1);
+        end = end == -1 ? queryLength : end + 1;
+        token = queryString.substring(i, end);
+      } else if (car >= '0' && car <= '9') {
+        end = i + 1;
+        while (end < queryLength) {
+          char c = queryString.charAt(end);
+          if ((c == '+' || c == '-') && (queryString.charAt(end - 1) | 0x20) == 'e') {
+            end++;
+          } else if (c == '.' || isIdentifierPart(c)) {
+            end++;
+          } else break;
+        }
+        token = "?";
+      } else if (car == ':' && i + 1 < queryLength && isIdentifierPart(queryString.charAt(i + 1))) {
+        end = i + 1;
+        while (end < queryLength && isIdentifierPart(queryString.charAt(end))) end++;
+        token = "?";
+      } else if (isIdentifierPart(car)) {
+        end = i + 1;
+        while (end < queryLength && isIdentifierPart(queryString.charAt(end))) end++;
+        token = queryString.substring(i, end);
+      } else {
+        end = i + 1;
+        token = null;
+      }
+
+      if (space && sb.length() > 0) sb.append(' ');
+      space = false;
+      if (token == null) {
+        sb.append(car);
+      } else {
+        sb.append(token);
+      }
+      i = end;
+    }
+    return sb.toString();
+  }
+
+  private static boolean isIdentifierPart(char car) {
+    return (car >= '0' && car <= '9')
+        || (car >= 'A' && car <= 'Z')
+        || (car >= 'a' && car <= 'z')
+        || car == '_'
+        || car == '$'
+        || car > 0x7f;
+  }
+
+  public String getSql() {
+    return sql;
+  }
+
   public List<byte[]> getQueryParts() {
     return queryParts;
   }
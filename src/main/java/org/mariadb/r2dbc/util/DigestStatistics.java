@@ -0,0 +1,105 @@
+/*
+ * Copyright 2020 MariaDB Ab.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mariadb.r2dbc.util;
+
+import java.util.concurrent.atomic.LongAdder;
+import org.mariadb.r2dbc.api.QueryExecutionInfo;
+
+/**
+ * Execution statistics of a statement digest. Latency is the time between query submission and
+ * response end, client queueing included.
+ */
+public final class DigestStatistics {
+
+  private final String digest;
+  private final LongAdder count = new LongAdder();
+  private final LongAdder errorCount = new LongAdder();
+  private final LongAdder rowCount = new LongAdder();
+  private final LongAdder totalNanos = new LongAdder();
+  private final LongAdder queueWaitNanos = new LongAdder();
+  private final LatencyHistogram latency = new LatencyHistogram();
+
+  DigestStatistics(String digest) {
+    this.digest = digest;
+  }
+
+  void record(QueryExecutionInfo execution) {
+    count.increment();
+    if (execution.getFailure() != null) errorCount.increment();
+    rowCount.add(execution.getRowCount());
+    totalNanos.add(execution.getElapsedNanos());
+    queueWaitNanos.add(execution.getQueueWaitNanos());
+    latency.record(execution.getElapsedNanos() / 1000);
+  }
+
+  public String getDigest() {
+    return digest;
+  }
+
+  public long getCount() {
+    return count.sum();
+  }
+
+  public long getErrorCount() {
+    return errorCount.sum();
+  }
+
+  public long getRowCount() {
+    return rowCount.sum();
+  }
+
+  public long getTotalNanos() {
+    return totalNanos.sum();
+  }
+
+  /**
+   * Total time executions waited before server started executing them, including wait for previous
+   * pipelined commands to be answered.
+   *
+   * @return queue wait time in nanoseconds
+   */
+  public long getQueueWaitNanos() {
+    return queueWaitNanos.sum();
+  }
+
+  /**
+   * Latency at percentile, like 50 for median or 99.9, known within 6.25%.
+   *
+   * @param percentile percentile, between 0 and 100
+   * @return latency in microseconds
+   */
+  public long getLatencyMicros(double percentile) {
+    return latency.valueAtPercentile(percentile);
+  }
+
+  @Override
+  public String toString() {
+    return "DigestStatistics{digest='"
+        + digest
+        + "', count="
+        + getCount()
+        + ", errorCount="
+        + getErrorCount()
+        + ", rowCount="
+        + getRowCount()
+        + ", p50="
+        + getLatencyMicros(50)
+        + "µs, p99="
+        + getLatencyMicros(99)
+        + "µs}";
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2020 MariaDB Ab.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mariadb.r2dbc.util;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+/**
+ * Limit the number of connection handshakes in progress. Handshakes above the limit wait, in order,
+ * for a running one to end.
+ */
+public final class HandshakeLimiter {
+
+  private final int maxConcurrent;
+  private final Queue<MonoSink<Void>> waiting = new ArrayDeque<>();
+  private int active;
+
+  /**
+   * Create a limiter.
+   *
+   * @param maxConcurrent maximum number of concurrent handshakes, 0 for no limit
+   */
+  public HandshakeLimiter(int maxConcurrent) {
+    this.maxConcurrent = maxConcurrent;
+  }
+
+  /**
+   * Limit handshake: it is subscribed once a permit is available, that is released when it
+   * terminates or is cancelled.
+   *
+   * @param handshake handshake
+   * @param <T> handshake result type
+   * @return limited handshake
+   */
+  public <T> Mono<T> limit(Mono<T> handshake) {
+    if (maxConcurrent <= 0) return handshake;
+    return acquire().then(Mono.defer(() -> handshake).doFinally(signal -> release()));
+  }
+
+  private Mono<Void> acquire() {
+    return Mono.create(
+        sink -> {
+          synchronized (this) {
+            if (active >= maxConcurrent) {
+              waiting.add(sink);
+              sink.onCancel(() -> cancelled(sink));
+              return;
+            }
+            active++;
+          }
+          sink.success();
+        });
+  }
+
+  private void cancelled(MonoSink<Void> sink) {
+    synchronized (this) {
+      if (waiting.remove(sink)) return;
+    }
+    // permit was handed over concurrently, but will not be used
+    release();
+  }
+
+  private void release() {
+    MonoSink<Void> next;
+    synchronized (this) {
+      next = waiting.poll();
+      if (next == null) {
+        active--;
+        return;
+      }
+    }
+    next.success();
+  }
+
+  /**
+   * Number of handshakes in progress.
+   *
+   * @return handshakes in progress
+   */
+  public synchronized int active() {
+    return active;
+  }
+
+  @Override
+  public String toString() {
+    return "HandshakeLimiter{maxConcurrent=" + maxConcurrent + '}';
+  }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2020 MariaDB Ab.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mariadb.r2dbc.util;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+public final class HostAddress {
+  private final String host;
+  private final int port;
+
+  public HostAddress(String host, int port) {
+    this.host = Assert.requireNonNull(host, "host must not be null");
+    this.port = port;
+  }
+
+  /**
+   * Parse a comma separated list of addresses, like "host1:3306,host2,[::1]:3307".
+   *
+   * @param spec address list
+   * @param defaultPort port used when not specified
+   * @return list of addresses
+   * @throws IllegalArgumentException if an address is malformed
+   */
+  public static List<HostAddress> parse(String spec, int defaultPort) {
+    if (spec == null || spec.trim().isEmpty()) return Collections.emptyList();
+    List<HostAddress> addresses = new ArrayList<>();
+    for (String token : spec.split(",")) {
+      String address = token.trim();
+      if (address.isEmpty()) continue;
+      String host = address;
+      int port = defaultPort;
+      int portSeparator;
+      if (address.startsWith("[")) {
+        // IPv6 literal
+        int end = address.indexOf(']');
+        if (end < 0) {
+          throw new IllegalArgumentException(String.format("Wrong address format '%s'", address));
+        }
+        host = address.substring(1, end);
+        portSeparator = address.indexOf(':', end);
+      } else {
+        portSeparator = address.indexOf(':');
+        if (portSeparator > 0) host = address.substring(0, portSeparator);
+      }
+      if (portSeparator > 0) {
+        try {
+          port = Integer.parseInt(address.substring(portSeparator + 1));
+        } catch (NumberFormatException nfe) {
+          throw new IllegalArgumentException(
+              String.format("Wrong port value in address '%s'", address));
+        }
+      }
+      addresses.add(new HostAddress(host, port));
+    }
+    return addresses;
+  }
+
+  public String getHost() {
+    return host;
+  }
+
+  public int getPort() {
+    return port;
+  }
+
+  public SocketAddress toSocketAddress() {
+    return InetSocketAddress.createUnresolved(host, port);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    HostAddress that = (HostAddress) o;
+    return port == that.port && host.equals(that.host);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(host, port);
+  }
+
+  @Override
+  public String toString() {
+    return (host.indexOf(':') >= 0 ? "[" + host + "]" : host) + ":" + port;
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2020 MariaDB Ab.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mariadb.r2dbc.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free log-linear histogram of durations in microseconds, like HdrHistogram: each power of 2
+ * range is split in 16 buckets, so recorded values are known within 6.25%. Values up to 2^32 µs (71
+ * minutes) are recorded, bigger values are counted as this maximum.
+ */
+final class LatencyHistogram {
+
+  private static final int SUB_BITS = 4;
+  private static final int SUB_COUNT = 1 << SUB_BITS;
+  private static final long MAX_VALUE = (1L << 32) - 1;
+  private static final int BUCKETS = index(MAX_VALUE) + 1;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+  static int index(long value) {
+    if (value < SUB_COUNT) return (int) value;
+    int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+    return (shift + 1) * SUB_COUNT + (int) ((value >>> shift) & (SUB_COUNT - 1));
+  }
+
+  /**
+   * Highest value recorded in bucket.
+   *
+   * @param index bucket index
+   * @return highest value
+   */
+  static long highestValue(int index) {
+    if (index < SUB_COUNT) return index;
+    int shift = index / SUB_COUNT - 1;
+    return ((long) (SUB_COUNT + index % SUB_COUNT) << shift) + (1L << shift) - 1;
+  }
+
+  void record(long micros) {
+    counts.incrementAndGet(index(Math.max(0, Math.min(micros, MAX_VALUE))));
+  }
+
+  /**
+   * Value at percentile, within histogram precision.
+   *
+   * @param percentile percentile, between 0 and 100
+   * @return value in microseconds, 0 if nothing has been recorded
+   */
+  long valueAtPercentile(double percentile) {
+    long[] snapshot = new long[BUCKETS];
+    long total = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      snapshot[i] = counts.get(i);
+      total += snapshot[i];
+    }
+    if (total == 0) return 0;
+    long rank = Math.max(1, (long) Math.ceil(total * Math.min(percentile, 100) / 100));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += snapshot[i];
+      if (seen >= rank) return highestValue(i);
+    }
+    return MAX_VALUE;
+  }
+}
@@ -19,6 +19,7 @@ package org.mariadb.r2dbc.util;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import org.mariadb.r2dbc.client.Client;
+import org.mariadb.r2dbc.util.jfr.DriverEvents;
 
 public class PrepareCache extends LinkedHashMap<String, ServerPrepareResult> {
 
@@ -35,12 +36,21 @@ public class PrepareCache extends LinkedHashMap<String, ServerPrepareResult> {
   @Override
   public boolean removeEldestEntry(Map.Entry<String, ServerPrepareResult> eldest) {
     if (this.size() > maxSize) {
+      DriverEvents.prepareCacheEvicted(eldest.getKey(), maxSize);
       eldest.getValue().unCache(client);
       return true;
     }
     return false;
   }
 
+  /** Remove all statements, that have been released by server when connection was reset. */
+  public synchronized void reset() {
+    for (ServerPrepareResult result : values()) {
+      result.invalidate();
+    }
+    super.clear();
+  }
+
   public synchronized ServerPrepareResult put(String key, ServerPrepareResult result) {
     ServerPrepareResult cached = super.get(key);
 
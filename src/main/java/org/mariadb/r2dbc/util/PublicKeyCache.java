@@ -0,0 +1,81 @@
+/*
+ * Copyright 2020 MariaDB Ab.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mariadb.r2dbc.util;
+
+import java.security.PublicKey;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import reactor.util.annotation.Nullable;
+
+/**
+ * RSA public keys used for sha256_password and caching_sha2_password authentication, so they are
+ * parsed once, and retrieved from server only once. Keys read from a file are identified by file
+ * path, keys retrieved from server by authentication plugin and server address.
+ */
+public final class PublicKeyCache {
+
+  private final Map<String, PublicKey> keys = new ConcurrentHashMap<>();
+
+  /**
+   * Get public key read from a file, reading it if not cached.
+   *
+   * @param path file path
+   * @param reader file reader
+   * @return public key
+   */
+  public PublicKey fromFile(String path, Function<String, PublicKey> reader) {
+    return keys.computeIfAbsent("file:" + path, key -> reader.apply(path));
+  }
+
+  /**
+   * Get public key retrieved from a server.
+   *
+   * @param serverId plugin and server identifier
+   * @return public key, or null if not cached
+   */
+  @Nullable
+  public PublicKey get(String serverId) {
+    return keys.get(serverId);
+  }
+
+  /**
+   * Cache public key retrieved from a server.
+   *
+   * @param serverId plugin and server identifier
+   * @param publicKey public key
+   */
+  public void put(String serverId, PublicKey publicKey) {
+    keys.put(serverId, publicKey);
+  }
+
+  /**
+   * Remove public key of a server, when authentication using it failed: server key may have
+   * changed.
+   *
+   * @param serverId plugin and server identifier
+   * @param publicKey public key that failed
+   */
+  public void remove(String serverId, PublicKey publicKey) {
+    keys.remove(serverId, publicKey);
+  }
+
+  @Override
+  public String toString() {
+    return "PublicKeyCache{size=" + keys.size() + '}';
+  }
+}
@@ -0,0 +1,648 @@
+/*
+ * Copyright 2020 MariaDB Ab.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mariadb.r2dbc.util;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import org.mariadb.r2dbc.client.ConnectionContext;
+import org.mariadb.r2dbc.codec.Parameter;
+import org.mariadb.r2dbc.message.server.ColumnCountPacket;
+import org.mariadb.r2dbc.message.server.ColumnDefinitionPacket;
+import org.mariadb.r2dbc.message.server.EofPacket;
+import org.mariadb.r2dbc.message.server.OkPacket;
+import org.mariadb.r2dbc.message.server.RowPacket;
+import org.mariadb.r2dbc.message.server.ServerMessage;
+import reactor.core.publisher.Flux;
+import reactor.util.annotation.Nullable;
+
+/**
+ * Query results shared by all connections of a connection factory. Results are stored as copies of
+ * row packets and column definitions, and replayed without sending the query.
+ *
+ * <p>An entry expires after the configured time to live, and is invalidated when a connection of
+ * the same factory modifies a table the query read: tables of column definitions, and tables
+ * following FROM and JOIN in the query. Modifications made by other clients, by triggers or by
+ * stored procedures called with CALL (those invalidate the whole cache) are not detected.
+ *
+ * <p>Column definitions report the original table of each column, not its alias. Results whose
+ * provenance is not known are not cached: columns without original table (expressions, derived
+ * tables), or tables of the FROM clause that no column comes from, like a view whose columns are
+ * reported with their base table.
+ */
+public final class ResultCache {
+
+  // modified tables of statements whose modified tables are unknown
+  public static final Set<String> ALL_TABLES = Collections.singleton("*");
+
+  // keywords ending a list of tables
+  private static final Set<String> FROM_CLAUSE_END =
+      new HashSet<>(
+          Arrays.asList(
+              "where",
+              "group",
+              "having",
+              "window",
+              "order",
+              "limit",
+              "union",
+              "intersect",
+              "except",
+              "for",
+              "lock",
+              "into",
+              "procedure",
+              "select"));
+
+  private static final Set<String> READ_COMMANDS =
+      new HashSet<>(
+          Arrays.asList(
+              "select",
+              "show",
+              "desc",
+              "describe",
+              "explain",
+              "with",
+              "values",
+              "table",
+              "handler",
+              "set",
+              "use",
+              "begin",
+              "start",
+              "commit",
+              "rollback",
+              "savepoint",
+              "release",
+              "do",
+              "xa",
+              "kill",
+              "help",
+              "lock",
+              "unlock",
+              "flush",
+              "analyze",
+              "checksum",
+              "check"));
+  private static final Set<String> WRITE_KEYWORDS =
+      new HashSet<>(Arrays.asList("insert", "update", "delete", "replace"));
+  // functions whose result depends on the connection, or that change connection state
+  private static final Set<String> SESSION_FUNCTIONS =
+      new HashSet<>(
+          Arrays.asList(
+              "last_insert_id",
+              "connection_id",
+              "row_count",
+              "found_rows",
+              "get_lock",
+              "release_lock",
+              "release_all_locks",
+              "is_free_lock",
+              "is_used_lock",
+              "database",
+              "schema",
+              "user",
+              "current_user",
+              "session_user",
+              "system_user",
+              "current_role",
+              "nextval",
+              "lastval",
+              "setval"));
+  // SHOW statements whose result depends on the connection
+  private static final Set<String> SESSION_SHOW_KEYWORDS =
+      new HashSet<>(
+          Arrays.asList(
+              "session",
+              "local",
+              "status",
+              "variables",
+              "warnings",
+              "errors",
+              "profile",
+              "profiles"));
+  private static final int MESSAGE_OVERHEAD = 64;
+
+  private final long maxBytes;
+  private final long ttlNanos;
+  private final Map<String, Entry> entries = new LinkedHashMap<>(64, .75f, true);
+  private long bytes;
+
+  // invalidation generation, globally and by table, to discard results read during modifications
+  private final AtomicLong generation = new AtomicLong();
+  private volatile long clearGeneration;
+  private final Map<String, Long> tableGenerations = new ConcurrentHashMap<>();
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder invalidations = new LongAdder();
+
+  public ResultCache(long maxBytes, Duration ttl) {
+    this.maxBytes = maxBytes;
+    this.ttlNanos = ttl.toNanos();
+  }
+
+  /**
+   * Cache key of a query with parameters: current database and query as sent to server.
+   *
+   * @param context connection context
+   * @param prepareResult query parts
+   * @param parameters parameters
+   * @return key, or null if query cannot be cached, because a parameter is streamed
+   */
+  @Nullable
+  public static String key(
+      ConnectionContext context, ClientPrepareResult prepareResult, Parameter<?>[] parameters) {
+    for (Parameter<?> parameter : parameters) {
+      if (parameter.isLongData()) return null;
+    }
+    ByteBuf buf = Unpooled.buffer();
+    try {
+      buf.writeBytes(prepareResult.getQueryParts().get(0));
+      for (int i = 0; i < prepareResult.getParamCount(); i++) {
+        parameters[i].encodeText(buf, context);
+        buf.writeBytes(prepareResult.getQueryParts().get(i + 1));
+      }
+      // one char by byte
+      return context.getDatabase() + '\0' + buf.toString(StandardCharsets.ISO_8859_1);
+    } finally {
+      buf.release();
+    }
+  }
+
+  /**
+   * Cache key of a query without parameters.
+   *
+   * @param context connection context
+   * @param sql query
+   * @return key
+   */
+  public static String key(ConnectionContext context, String sql) {
+    return context.getDatabase() + '\0' + sql;
+  }
+
+  /**
+   * Response of a read-only query, from cache if present, or from server, result being then cached
+   * if complete and successful.
+   *
+   * @param key cache key
+   * @param sql query
+   * @param noBackslashEscapes are backslashes escape characters
+   * @param query sends query to server
+   * @return query response
+   */
+  public Flux<ServerMessage> execute(
+      String key, String sql, boolean noBackslashEscapes, Supplier<Flux<ServerMessage>> query) {
+    return Flux.defer(
+        () -> {
+          Entry entry = get(key);
+          if (entry != null) {
+            hits.increment();
+            return Flux.fromArray(entry.messages).map(CachedRow::replay);
+          }
+          misses.increment();
+          Capture capture = new Capture(key, sql, noBackslashEscapes, generation.get());
+          return query.get().doOnNext(capture::add).doOnComplete(capture::store);
+        });
+  }
+
+  @Nullable
+  private synchronized Entry get(String key) {
+    Entry entry = entries.get(key);
+    if (entry != null && entry.expiration - System.nanoTime() < 0) {
+      remove(key, entry);
+      return null;
+    }
+    return entry;
+  }
+
+  private synchronized void put(String key, Entry entry) {
+    Entry previous = entries.put(key, entry);
+    if (previous != null) bytes -= previous.bytes;
+    bytes += entry.bytes;
+    Iterator<Entry> iterator = entries.values().iterator();
+    while (bytes > maxBytes && iterator.hasNext()) {
+      bytes -= iterator.next().bytes;
+      iterator.remove();
+    }
+  }
+
+  private void remove(String key, Entry entry) {
+    entries.remove(key);
+    bytes -= entry.bytes;
+  }
+
+  /**
+   * Invalidate results that read modified tables.
+   *
+   * @param tables modified tables, lower case, or {@link #ALL_TABLES}
+   */
+  public void invalidate(Set<String> tables) {
+    long gen = generation.incrementAndGet();
+    if (tables == ALL_TABLES) {
+      clearGeneration = gen;
+    } else {
+      for (String table : tables) tableGenerations.put(table, gen);
+    }
+    synchronized (this) {
+      Iterator<Entry> iterator = entries.values().iterator();
+      while (iterator.hasNext()) {
+        Entry entry = iterator.next();
+        if (tables == ALL_TABLES || !Collections.disjoint(entry.tables, tables)) {
+          bytes -= entry.bytes;
+          iterator.remove();
+          invalidations.increment();
+        }
+      }
+    }
+  }
+
+  /** Remove all results. */
+  public void clear() {
+    invalidate(ALL_TABLES);
+  }
+
+  /**
+   * Indicate if a query result doesn't depend on the connection executing it, so it can be shared
+   * with identical queries of other connections: a single SELECT, WITH ... SELECT or SHOW
+   * statement, without user or system variables, locking read, SELECT ... INTO, or function
+   * depending on session state.
+   *
+   * @param sql query
+   * @param noBackslashEscapes are backslashes escape characters
+   * @return true if result can be shared
+   */
+  public static boolean isShareable(String sql, boolean noBackslashEscapes) {
+    List<String> tokens = tokens(sql, noBackslashEscapes);
+    int end = tokens.size();
+    while (end > 0 && ";".equals(tokens.get(end - 1))) end--;
+    tokens = tokens.subList(0, end);
+
+    String command = null;
+    for (String token : tokens) {
+      if (isName(token)) {
+        command = token;
+        break;
+      }
+    }
+    if (command == null) return false;
+    boolean show = "show".equals(command);
+    if (!show && !"select".equals(command) && !"with".equals(command)) return false;
+    if (!Collections.disjoint(tokens, WRITE_KEYWORDS)) return false;
+
+    for (int i = 0; i < tokens.size(); i++) {
+      String token = tokens.get(i);
+      String next = i + 1 < tokens.size() ? tokens.get(i + 1) : "";
+      if (";".equals(token) || "@".equals(token) || "into".equals(token)) return false;
+      if (show && SESSION_SHOW_KEYWORDS.contains(token)) return false;
+      // FOR UPDATE, FOR SHARE, LOCK IN SHARE MODE
+      if ("for".equals(token) && ("update".equals(next) || "share".equals(next))) return false;
+      if ("lock".equals(token) && "in".equals(next)) return false;
+      // NEXT VALUE FOR / PREVIOUS VALUE FOR sequence
+      if ("value".equals(token) && "for".equals(next)) return false;
+      if (SESSION_FUNCTIONS.contains(token)
+          && ("(".equals(next) || "current_user".equals(token) || "current_role".equals(token))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Tables a statement may modify.
+   *
+   * @param sql statement
+   * @param noBackslashEscapes are backslashes escape characters
+   * @return names of statement, lower case, {@link #ALL_TABLES} if unknown, or null if statement
+   *     doesn't modify data
+   */
+  @Nullable
+  public static Set<String> modifiedTables(String sql, boolean noBackslashEscapes) {
+    Set<String> tables = null;
+    List<String> tokens = tokens(sql, noBackslashEscapes);
+    int start = 0;
+    while (start < tokens.size()) {
+      int end = start;
+      while (end < tokens.size() && !";".equals(tokens.get(end))) end++;
+      List<String> statement = tokens.subList(start, end);
+      start = end + 1;
+
+      String command = null;
+      for (String token : statement) {
+        if (isName(token)) {
+          command = token;
+          break;
+        }
+      }
+      if (command == null) continue;
+      if (READ_COMMANDS.contains(command)
+          && (!"with".equals(command) || Collections.disjoint(statement, WRITE_KEYWORDS))) {
+        continue;
+      }
+      if ("call".equals(command) || "execute".equals(command)) return ALL_TABLES;
+      if (tables == null) tables = new HashSet<>();
+      for (String token : statement) {
+        if (isName(token)) tables.add(token);
+      }
+    }
+    return tables;
+  }
+
+  /**
+   * Indicate if a statement changes session state query results may depend on: a SET statement
+   * assigning a system variable (time_zone, sql_mode, character_set_results, ...), a character set
+   * or a role. User variables, autocommit, and variables set for a single statement with SET
+   * STATEMENT ... FOR are ignored.
+   *
+   * @param sql statement
+   * @param noBackslashEscapes are backslashes escape characters
+   * @return true if statement changes session state
+   */
+  public static boolean changesSession(String sql, boolean noBackslashEscapes) {
+    List<String> tokens = tokens(sql, noBackslashEscapes);
+    int start = 0;
+    while (start < tokens.size()) {
+      int end = start;
+      while (end < tokens.size() && !";".equals(tokens.get(end))) end++;
+      List<String> statement = tokens.subList(start, end);
+      start = end + 1;
+      if (statement.size() < 2
+          || !"set".equals(statement.get(0))
+          || "statement".equals(statement.get(1))) {
+        continue;
+      }
+
+      int i = 1;
+      while (i < statement.size()) {
+        // assignment target
+        String target = statement.get(i);
+        if ("session".equals(target) || "local".equals(target)) {
+          target = i + 1 < statement.size() ? statement.get(++i) : "";
+        }
+        if ("@".equals(target)) {
+          if (i + 1 < statement.size() && "@".equals(statement.get(i + 1))) {
+            i += 2;
+            target = i < statement.size() ? statement.get(i) : "";
+          }
+        }
+        if (!"@".equals(target) && !"autocommit".equals(target)) return true;
+
+        // next assignment
+        int depth = 0;
+        while (i < statement.size() && (depth > 0 || !",".equals(statement.get(i)))) {
+          if ("(".equals(statement.get(i))) depth++;
+          if (")".equals(statement.get(i))) depth--;
+          i++;
+        }
+        i++;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Tables a query reads: names following FROM, JOIN, or a comma. Column names of a select list
+   * might be included, which only cause unneeded invalidations.
+   */
+  private static Set<String> readTables(String sql, boolean noBackslashEscapes) {
+    Set<String> tables = new HashSet<>();
+    List<String> tokens = tokens(sql, noBackslashEscapes);
+    for (int i = 0; i < tokens.size() - 1; i++) {
+      String token = tokens.get(i);
+      if (",".equals(token)
+          || "from".equals(token)
+          || "join".equals(token)
+          || "straight_join".equals(token)) {
+        String next = tokens.get(i + 1);
+        if (isName(next)) tables.add(next);
+      }
+    }
+    return tables;
+  }
+
+  /**
+   * Tables listed in FROM clauses and joins, without aliases.
+   *
+   * @param sql statement
+   * @param noBackslashEscapes is sql_mode NO_BACKSLASH_ESCAPES set
+   * @return tables, lower case
+   */
+  public static Set<String> sourceTables(String sql, boolean noBackslashEscapes) {
+    Set<String> tables = new HashSet<>();
+    List<String> tokens = tokens(sql, noBackslashEscapes);
+    boolean fromClause = false;
+    for (int i = 0; i < tokens.size() - 1; i++) {
+      String token = tokens.get(i);
+      if ("from".equals(token) || "join".equals(token) || "straight_join".equals(token)) {
+        fromClause = true;
+      } else if (!(fromClause && ",".equals(token))) {
+        if ("(".equals(token) || FROM_CLAUSE_END.contains(token)) fromClause = false;
+        continue;
+      }
+      String next = tokens.get(i + 1);
+      if (isName(next)) tables.add(next);
+    }
+    return tables;
+  }
+
+  /**
+   * Split a statement into names, lower case, and punctuation characters. Qualified names are
+   * reduced to their last part, literals and comments are removed.
+   */
+  private static List<String> tokens(String sql, boolean noBackslashEscapes) {
+    String digest = ClientPrepareResult.digest(sql, noBackslashEscapes);
+    List<String> tokens = new ArrayList<>();
+    int len = digest.length();
+    int i = 0;
+    while (i < len) {
+      char car = digest.charAt(i);
+      if (car == ' ') {
+        i++;
+      } else if (car == '`' || isNamePart(car)) {
+        String name;
+        while (true) {
+          int end;
+          if (digest.charAt(i) == '`') {
+            end = digest.indexOf('`', i + 1);
+            if (end == -1) end = len;
+            name = digest.substring(i + 1, end);
+            i = Math.min(end + 1, len);
+          } else {
+            end = i;
+            while (end < len && isNamePart(digest.charAt(end))) end++;
+            name = digest.substring(i, end);
+            i = end;
+          }
+          // qualified name
+          if (i + 1 < len
+              && digest.charAt(i) == '.'
+              && (digest.charAt(i + 1) == '`' || isNamePart(digest.charAt(i + 1)))) {
+            i++;
+          } else break;
+        }
+        tokens.add(name.toLowerCase(Locale.ROOT));
+      } else {
+        tokens.add(String.valueOf(car));
+        i++;
+      }
+    }
+    return tokens;
+  }
+
+  private static boolean isNamePart(char car) {
+    return Character.isLetterOrDigit(car) || car == '_' || car == '$' || car > 127;
+  }
+
+  private static boolean isName(String token) {
+    return token.length() > 1 || (token.length() == 1 && isNamePart(token.charAt(0)));
+  }
+
+  public long getHits() {
+    return hits.sum();
+  }
+
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  /**
+   * Number of entries removed because a table they read was modified.
+   *
+   * @return invalidated entries
+   */
+  public long getInvalidations() {
+    return invalidations.sum();
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  /**
+   * Approximate memory used by cached results.
+   *
+   * @return used bytes
+   */
+  public synchronized long getBytes() {
+    return bytes;
+  }
+
+  public long getMaxBytes() {
+    return maxBytes;
+  }
+
+  public Duration getTtl() {
+    return Duration.ofNanos(ttlNanos);
+  }
+
+  private static final class Entry {
+    private final ServerMessage[] messages;
+    private final Set<String> tables;
+    private final long bytes;
+    private final long expiration;
+
+    private Entry(ServerMessage[] messages, Set<String> tables, long bytes, long expiration) {
+      this.messages = messages;
+      this.tables = tables;
+      this.bytes = bytes;
+      this.expiration = expiration;
+    }
+  }
+
+  /** Copy of a query response, being received. */
+  private final class Capture {
+    private final String key;
+    private final String sql;
+    private final boolean noBackslashEscapes;
+    private final long generation;
+    private final List<ServerMessage> messages = new ArrayList<>();
+    private final Set<String> tables = new HashSet<>();
+    private final Set<String> columnTables = new HashSet<>();
+    private long bytes;
+    private boolean cacheable = true;
+
+    private Capture(String key, String sql, boolean noBackslashEscapes, long generation) {
+      this.key = key;
+      this.sql = sql;
+      this.noBackslashEscapes = noBackslashEscapes;
+      this.generation = generation;
+    }
+
+    private void add(ServerMessage message) {
+      if (!cacheable) return;
+      if (message instanceof RowPacket && ((RowPacket) message).getLargeValue() == null) {
+        CachedRow row = new CachedRow((RowPacket) message);
+        bytes += row.size() + MESSAGE_OVERHEAD;
+        messages.add(row);
+      } else if (message instanceof ColumnDefinitionPacket) {
+        // original table, alias being ignored
+        String table = ((ColumnDefinitionPacket) message).getTable();
+        if (table == null || table.isEmpty()) {
+          // expression or derived table: unknown provenance
+          cacheable = false;
+        } else {
+          columnTables.add(table.toLowerCase(Locale.ROOT));
+        }
+        bytes += MESSAGE_OVERHEAD;
+        messages.add(message);
+      } else if (message instanceof ColumnCountPacket
+          || message instanceof EofPacket
+          || message instanceof OkPacket) {
+        bytes += MESSAGE_OVERHEAD;
+        messages.add(message);
+      } else {
+        // error, or streamed large value
+        cacheable = false;
+      }
+      if (bytes > maxBytes) cacheable = false;
+      if (!cacheable) messages.clear();
+    }
+
+    private void store() {
+      if (!cacheable) return;
+      // a queried table no column comes from might be a view, whose base tables are not known
+      if (!columnTables.containsAll(sourceTables(sql, noBackslashEscapes))) return;
+      tables.addAll(columnTables);
+      tables.addAll(readTables(sql, noBackslashEscapes));
+      // a table might have been modified while query was executing
+      if (clearGeneration > generation) return;
+      for (String table : tables) {
+        Long modified = tableGenerations.get(table);
+        if (modified != null && modified > generation) return;
+      }
+      put(
+          key,
+          new Entry(
+              messages.toArray(new ServerMessage[0]), tables, bytes, System.nanoTime() + ttlNanos));
+    }
+  }
+}
@@ -77,6 +77,15 @@ public class ServerPrepareResult {
     }
   }
 
+  /**
+   * Statement has been released by server (connection reset): it cannot be used anymore, and must
+   * not be closed.
+   */
+  public void invalidate() {
+    closing.set(true);
+    cached.set(false);
+  }
+
   public boolean cache() {
     if (closing.get()) {
       return false;
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2020 MariaDB Ab.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mariadb.r2dbc.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import org.mariadb.r2dbc.message.server.RowPacket;
+import org.mariadb.r2dbc.message.server.ServerMessage;
+import reactor.core.publisher.Flux;
+
+/**
+ * Shares executions of identical read-only queries, for all connections of a connection factory: a
+ * query executed while an identical one is running is not sent, but receives the response of the
+ * running one. Response is buffered while it is received, so each subscriber receives it entirely,
+ * whenever it subscribes.
+ *
+ * <p>Ends of statements modifying data increment a write generation. A connection only joins
+ * executions started at or after the generation of its last write, so it always sees its own
+ * modifications; other executions are replaced by a new one.
+ */
+public final class SingleFlight {
+
+  private final Map<String, Flight> inFlight = new ConcurrentHashMap<>();
+  private final AtomicLong writeGeneration = new AtomicLong();
+  private final LongAdder executions = new LongAdder();
+  private final LongAdder collapsed = new LongAdder();
+
+  /**
+   * Response of a read-only query, shared with identical queries executing at the same time.
+   *
+   * @param key query key, see {@link ResultCache#key}
+   * @param minGeneration write generation running query must have started at, see {@link
+   *     #writeEnded()}
+   * @param query sends query to server
+   * @return query response
+   */
+  public Flux<ServerMessage> execute(
+      String key, long minGeneration, Supplier<Flux<ServerMessage>> query) {
+    return Flux.defer(
+        () -> {
+          boolean[] joined = new boolean[1];
+          Flight flight =
+              inFlight.compute(
+                  key,
+                  (k, running) -> {
+                    if (running != null && running.generation >= minGeneration) {
+                      joined[0] = true;
+                      return running;
+                    }
+                    // running query may not see modifications of caller
+                    return new Flight(k, writeGeneration.get(), query);
+                  });
+          if (joined[0]) {
+            collapsed.increment();
+          } else {
+            executions.increment();
+          }
+          return flight.response.map(CachedRow::replay);
+        });
+  }
+
+  /**
+   * Record the end of a statement modifying data: queries running since then may not see its
+   * modifications.
+   *
+   * @return write generation queries must have started at to see modifications
+   */
+  public long writeEnded() {
+    return writeGeneration.incrementAndGet();
+  }
+
+  /**
+   * Number of queries sent to server.
+   *
+   * @return executions
+   */
+  public long getExecutions() {
+    return executions.sum();
+  }
+
+  /**
+   * Number of queries that received the response of an identical query instead of being sent.
+   *
+   * @return collapsed executions
+   */
+  public long getCollapsed() {
+    return collapsed.sum();
+  }
+
+  /**
+   * Number of queries currently executing.
+   *
+   * @return running queries
+   */
+  public int getInFlight() {
+    return inFlight.size();
+  }
+
+  private final class Flight {
+    private final long generation;
+    private final Flux<ServerMessage> response;
+
+    private Flight(String key, long generation, Supplier<Flux<ServerMessage>> query) {
+      this.generation = generation;
+      // response keeps being received even if subscribers cancel, others may still need it
+      this.response =
+          Flux.defer(query)
+              .map(SingleFlight::detach)
+              .doOnTerminate(() -> inFlight.remove(key, this))
+              .cache();
+    }
+  }
+
+  // row packets are released by decoder once emitted: row data is copied
+  private static ServerMessage detach(ServerMessage message) {
+    return message instanceof RowPacket ? new CachedRow((RowPacket) message) : message;
+  }
+}
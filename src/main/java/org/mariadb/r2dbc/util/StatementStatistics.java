@@ -0,0 +1,179 @@
+/*
+ * Copyright 2020 MariaDB Ab.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mariadb.r2dbc.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import org.mariadb.r2dbc.api.QueryExecutionInfo;
+
+/**
+ * Execution statistics by statement digest, for all connections of a connection factory. At most
+ * {@code maxDigests} digests are tracked.
+ *
+ * <p>Executions of tracked digests are recorded without locking. Once full, a new digest is only
+ * admitted when it has been executed more often than the least executed of a few sampled tracked
+ * digests, which it then replaces: digests executed once do not evict each other, and a frequent
+ * new digest is eventually tracked. Frequency of untracked digests is estimated with a count-min
+ * sketch, whose counters are halved periodically so that old executions fade away.
+ */
+public final class StatementStatistics {
+
+  // tracked digests compared with a new digest when full
+  private static final int SAMPLES = 8;
+
+  private final int maxDigests;
+  private final Map<String, DigestStatistics> statistics = new ConcurrentHashMap<>();
+  // digest of recently executed SQL, to avoid parsing each execution
+  private final Map<String, String> digests = new ConcurrentHashMap<>();
+
+  // guarded by this: tracked digests, for eviction sampling, and untracked digests frequency
+  private final DigestStatistics[] tracked;
+  private int trackedCount;
+  private final int[] sketch;
+  private final int sketchMask;
+  private int sketchAdditions;
+
+  public StatementStatistics(int maxDigests) {
+    this.maxDigests = maxDigests;
+    this.tracked = new DigestStatistics[maxDigests];
+    int width = Integer.highestOneBit(Math.max(16, maxDigests * 4) - 1) << 1;
+    this.sketch = new int[width];
+    this.sketchMask = width - 1;
+  }
+
+  /**
+   * Record a query execution.
+   *
+   * @param execution ended execution
+   */
+  public void record(QueryExecutionInfo execution) {
+    String digest = digests.get(execution.getSql());
+    if (digest == null) {
+      if (digests.size() >= maxDigests * 4) digests.clear();
+      digest = execution.getDigest();
+      digests.put(execution.getSql(), digest);
+    }
+    DigestStatistics stats = statistics.get(digest);
+    if (stats == null) {
+      stats = admit(digest);
+      if (stats == null) return;
+    }
+    stats.record(execution);
+  }
+
+  /**
+   * Track a new digest, if there is room or if it is executed more often than a tracked one.
+   *
+   * @param digest digest not tracked
+   * @return digest statistics, or null if digest is not tracked
+   */
+  private synchronized DigestStatistics admit(String digest) {
+    DigestStatistics stats = statistics.get(digest);
+    if (stats != null) return stats;
+    long frequency = increment(digest);
+    if (trackedCount < maxDigests) {
+      stats = new DigestStatistics(digest);
+      tracked[trackedCount++] = stats;
+      statistics.put(digest, stats);
+      return stats;
+    }
+
+    int victim = -1;
+    long victimCount = Long.MAX_VALUE;
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    for (int i = 0; i < Math.min(SAMPLES, trackedCount); i++) {
+      int index = trackedCount <= SAMPLES ? i : random.nextInt(trackedCount);
+      long count = tracked[index].getCount();
+      if (count < victimCount) {
+        victimCount = count;
+        victim = index;
+      }
+    }
+    if (victim < 0 || frequency <= victimCount) return null;
+    statistics.remove(tracked[victim].getDigest());
+    stats = new DigestStatistics(digest);
+    tracked[victim] = stats;
+    statistics.put(digest, stats);
+    return stats;
+  }
+
+  /**
+   * Count an execution of an untracked digest.
+   *
+   * @param digest digest
+   * @return estimated number of executions
+   */
+  private int increment(String digest) {
+    if (++sketchAdditions >= sketch.length * 10) {
+      // aging
+      for (int i = 0; i < sketch.length; i++) sketch[i] >>>= 1;
+      sketchAdditions = 0;
+    }
+    int hash = digest.hashCode();
+    int estimate = Integer.MAX_VALUE;
+    for (int i = 0; i < 4; i++) {
+      hash = hash * 0x9E3779B9 + i;
+      int index = (hash ^ (hash >>> 16)) & sketchMask;
+      if (sketch[index] < Integer.MAX_VALUE) sketch[index]++;
+      estimate = Math.min(estimate, sketch[index]);
+    }
+    return estimate;
+  }
+
+  /**
+   * Statistics of a digest.
+   *
+   * @param digest statement digest
+   * @return statistics, or null if digest is not tracked
+   */
+  public DigestStatistics get(String digest) {
+    return statistics.get(digest);
+  }
+
+  /**
+   * Statistics of all tracked digests, by descending total execution time.
+   *
+   * @return statistics
+   */
+  public List<DigestStatistics> snapshot() {
+    // totals are read once: they change while sorting
+    Map<DigestStatistics, Long> totals = new IdentityHashMap<>();
+    for (DigestStatistics stats : statistics.values()) totals.put(stats, stats.getTotalNanos());
+    List<DigestStatistics> snapshot = new ArrayList<>(totals.keySet());
+    snapshot.sort(
+        Comparator.comparingLong((DigestStatistics stats) -> totals.get(stats)).reversed());
+    return snapshot;
+  }
+
+  public synchronized void reset() {
+    statistics.clear();
+    Arrays.fill(tracked, null);
+    trackedCount = 0;
+    Arrays.fill(sketch, 0);
+    sketchAdditions = 0;
+  }
+
+  public int getMaxDigests() {
+    return maxDigests;
+  }
+}
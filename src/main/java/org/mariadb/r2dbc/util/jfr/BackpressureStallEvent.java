@@ -0,0 +1,40 @@
+/*
+ * Copyright 2020 MariaDB Ab.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mariadb.r2dbc.util.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("org.mariadb.r2dbc.BackpressureStall")
+@Label("Backpressure Stall")
+@Category({"MariaDB", "R2DBC"})
+@Description("Connection reads paused, waiting for a streamed large value to be consumed")
+@StackTrace(false)
+final class BackpressureStallEvent extends Event {
+
+  @Label("Remote Address")
+  String remoteAddress;
+
+  @Label("Buffered Bytes")
+  @DataAmount
+  long bufferedBytes;
+}
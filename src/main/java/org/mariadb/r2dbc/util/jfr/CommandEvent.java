@@ -0,0 +1,63 @@
+/*
+ * Copyright 2020 MariaDB Ab.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mariadb.r2dbc.util.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+@Name("org.mariadb.r2dbc.Command")
+@Label("Command")
+@Category({"MariaDB", "R2DBC"})
+@Description("Command execution, from submission to response end")
+@StackTrace(false)
+final class CommandEvent extends Event {
+
+  @Label("Digest")
+  String digest;
+
+  @Label("Connection Id")
+  long connectionId;
+
+  @Label("Parameters")
+  int parameterCount;
+
+  @Label("Rows")
+  long rows;
+
+  @Label("Received Bytes")
+  @DataAmount
+  long receivedBytes;
+
+  @Label("Queue Wait")
+  @Description("Time waiting to be sent and for previous pipelined commands to be answered")
+  @Timespan
+  long queueWait;
+
+  @Label("Server Time")
+  @Description("Time between server starting command and receiving first response packet")
+  @Timespan
+  long serverTime;
+
+  @Label("Failed")
+  boolean failed;
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2020 MariaDB Ab.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mariadb.r2dbc.util.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+@Name("org.mariadb.r2dbc.ConnectionEstablished")
+@Label("Connection Established")
+@Category({"MariaDB", "R2DBC"})
+@Description("Connection establishment, from TCP connection to session setup end")
+@StackTrace(false)
+final class ConnectionEvent extends Event {
+
+  @Label("Host")
+  String host;
+
+  @Label("TCP Connect")
+  @Timespan
+  long tcpConnect;
+
+  @Label("TLS Handshake")
+  @Timespan
+  long tlsHandshake;
+
+  @Label("Authentication")
+  @Timespan
+  long authentication;
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2020 MariaDB Ab.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mariadb.r2dbc.util.jfr;
+
+import org.mariadb.r2dbc.api.QueryExecutionInfo;
+
+/**
+ * Java Flight Recorder events emitted by the driver: commands, connection establishment, prepare
+ * cache evictions and reads paused by backpressure.
+ *
+ * <p>Event classes are only loaded on first use, when JFR API is available (JDK 11+, JDK 8u262+):
+ * on other runtimes, nothing is recorded. Methods returning an event return null when event is not
+ * recorded, and ending a null event must not be called.
+ */
+public final class DriverEvents {
+
+  private static final EventRecorder RECORDER = load();
+
+  private DriverEvents() {}
+
+  private static EventRecorder load() {
+    try {
+      Class.forName("jdk.jfr.FlightRecorder");
+      return (EventRecorder)
+          Class.forName("org.mariadb.r2dbc.util.jfr.JfrEventRecorder")
+              .getDeclaredConstructor()
+              .newInstance();
+    } catch (Throwable t) {
+      // no JFR on this runtime
+      return new EventRecorder() {};
+    }
+  }
+
+  public static boolean isCommandEnabled() {
+    return RECORDER.isCommandEnabled();
+  }
+
+  public static Object commandStarted() {
+    return RECORDER.commandStarted();
+  }
+
+  public static void commandEnded(Object event, QueryExecutionInfo execution) {
+    RECORDER.commandEnded(event, execution);
+  }
+
+  public static Object connectionStarted() {
+    return RECORDER.connectionStarted();
+  }
+
+  /**
+   * Connection is established.
+   *
+   * @param event event returned by {@link #connectionStarted()}
+   * @param host server address
+   * @param tcpConnectNanos TCP connection duration
+   * @param tlsHandshakeNanos TLS handshake duration, 0 if connection is not encrypted
+   * @param authenticationNanos authentication duration, TLS handshake excluded
+   */
+  public static void connectionEnded(
+      Object event,
+      String host,
+      long tcpConnectNanos,
+      long tlsHandshakeNanos,
+      long authenticationNanos) {
+    RECORDER.connectionEnded(event, host, tcpConnectNanos, tlsHandshakeNanos, authenticationNanos);
+  }
+
+  public static void prepareCacheEvicted(String sql, int cacheSize) {
+    RECORDER.prepareCacheEvicted(sql, cacheSize);
+  }
+
+  public static Object stallStarted() {
+    return RECORDER.stallStarted();
+  }
+
+  /**
+   * Channel reads resume.
+   *
+   * @param event event returned by {@link #stallStarted()}
+   * @param remoteAddress server address
+   * @param bufferedBytes bytes buffered when reading was paused
+   */
+  public static void stallEnded(Object event, String remoteAddress, long bufferedBytes) {
+    RECORDER.stallEnded(event, remoteAddress, bufferedBytes);
+  }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2020 MariaDB Ab.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mariadb.r2dbc.util.jfr;
+
+import org.mariadb.r2dbc.api.QueryExecutionInfo;
+
+/** Event recording. Default implementation records nothing, for runtimes without JFR. */
+interface EventRecorder {
+
+  default boolean isCommandEnabled() {
+    return false;
+  }
+
+  default Object commandStarted() {
+    return null;
+  }
+
+  default void commandEnded(Object event, QueryExecutionInfo execution) {}
+
+  default Object connectionStarted() {
+    return null;
+  }
+
+  default void connectionEnded(
+      Object event,
+      String host,
+      long tcpConnectNanos,
+      long tlsHandshakeNanos,
+      long authenticationNanos) {}
+
+  default void prepareCacheEvicted(String sql, int cacheSize) {}
+
+  default Object stallStarted() {
+    return null;
+  }
+
+  default void stallEnded(Object event, String remoteAddress, long bufferedBytes) {}
+}
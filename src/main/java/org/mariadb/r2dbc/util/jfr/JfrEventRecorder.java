@@ -0,0 +1,110 @@
+/*
+ * Copyright 2020 MariaDB Ab.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mariadb.r2dbc.util.jfr;
+
+import jdk.jfr.EventType;
+import org.mariadb.r2dbc.api.QueryExecutionInfo;
+
+/** Event recording with JFR. Only loaded when JFR API is available. */
+final class JfrEventRecorder implements EventRecorder {
+
+  private final EventType command = EventType.getEventType(CommandEvent.class);
+  private final EventType connection = EventType.getEventType(ConnectionEvent.class);
+  private final EventType eviction = EventType.getEventType(PrepareCacheEvictionEvent.class);
+  private final EventType stall = EventType.getEventType(BackpressureStallEvent.class);
+
+  @Override
+  public boolean isCommandEnabled() {
+    return command.isEnabled();
+  }
+
+  @Override
+  public Object commandStarted() {
+    if (!command.isEnabled()) return null;
+    CommandEvent event = new CommandEvent();
+    event.begin();
+    return event;
+  }
+
+  @Override
+  public void commandEnded(Object token, QueryExecutionInfo execution) {
+    CommandEvent event = (CommandEvent) token;
+    event.end();
+    if (!event.shouldCommit()) return;
+    event.digest = execution.getDigest();
+    event.connectionId = execution.getConnectionId();
+    event.parameterCount = execution.getParameterCount();
+    event.rows = execution.getRowCount();
+    event.receivedBytes = execution.getReceivedBytes();
+    event.queueWait = execution.getQueueWaitNanos();
+    event.serverTime = execution.getServerNanos();
+    event.failed = execution.getFailure() != null;
+    event.commit();
+  }
+
+  @Override
+  public Object connectionStarted() {
+    if (!connection.isEnabled()) return null;
+    ConnectionEvent event = new ConnectionEvent();
+    event.begin();
+    return event;
+  }
+
+  @Override
+  public void connectionEnded(
+      Object token,
+      String host,
+      long tcpConnectNanos,
+      long tlsHandshakeNanos,
+      long authenticationNanos) {
+    ConnectionEvent event = (ConnectionEvent) token;
+    event.end();
+    if (!event.shouldCommit()) return;
+    event.host = host;
+    event.tcpConnect = tcpConnectNanos;
+    event.tlsHandshake = tlsHandshakeNanos;
+    event.authentication = authenticationNanos;
+    event.commit();
+  }
+
+  @Override
+  public void prepareCacheEvicted(String sql, int cacheSize) {
+    if (!eviction.isEnabled()) return;
+    PrepareCacheEvictionEvent event = new PrepareCacheEvictionEvent();
+    event.sql = sql;
+    event.cacheSize = cacheSize;
+    event.commit();
+  }
+
+  @Override
+  public Object stallStarted() {
+    if (!stall.isEnabled()) return null;
+    BackpressureStallEvent event = new BackpressureStallEvent();
+    event.begin();
+    return event;
+  }
+
+  @Override
+  public void stallEnded(Object token, String remoteAddress, long bufferedBytes) {
+    BackpressureStallEvent event = (BackpressureStallEvent) token;
+    event.end();
+    if (!event.shouldCommit()) return;
+    event.remoteAddress = remoteAddress;
+    event.bufferedBytes = bufferedBytes;
+    event.commit();
+  }
+}
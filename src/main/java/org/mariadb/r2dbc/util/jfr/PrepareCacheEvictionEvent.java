@@ -0,0 +1,36 @@
+/*
+ * Copyright 2020 MariaDB Ab.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mariadb.r2dbc.util.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("org.mariadb.r2dbc.PrepareCacheEviction")
+@Label("Prepare Cache Eviction")
+@Category({"MariaDB", "R2DBC"})
+@Description("Server prepared statement evicted from a full connection prepare cache")
+final class PrepareCacheEvictionEvent extends Event {
+
+  @Label("SQL")
+  String sql;
+
+  @Label("Cache Size")
+  int cacheSize;
+}
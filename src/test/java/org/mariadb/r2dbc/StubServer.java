@@ -0,0 +1,617 @@
+/*
+ * Copyright 2020 MariaDB Ab.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mariadb.r2dbc;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.crypto.Cipher;
+import org.mariadb.r2dbc.api.MariadbConnection;
+import org.mariadb.r2dbc.util.constants.Capabilities;
+
+/**
+ * Minimal server implementing the protocol subset needed by connection tests: handshake with native
+ * password authentication (any password accepted) or caching_sha2_password full authentication, OK
+ * response to every query, LOAD DATA LOCAL INFILE (OK response indicating the number of received
+ * lines) and prepared statements without result-set (long data is recorded, and OK response is sent
+ * to every execution).
+ *
+ * <p>Query "SELECT &lt;n&gt; BYTES" returns two rows of columns (id INT, data LONGBLOB): first with
+ * id 1 and n bytes of data (byte i being i % 251), second with id 2 and data "small". Query "SELECT
+ * &lt;n&gt; ROWS", optionally followed by a FROM clause, returns n rows of column id INT of table
+ * t, from 1 to n, and is interrupted by any "KILL QUERY" query. Query "[DO ]SLEEP &lt;n&gt;"
+ * answers after n milliseconds, unless interrupted by a "KILL QUERY" query. Query "UPDATE ROWS
+ * &lt;n&gt;" returns n affected rows, and queries starting with "FAIL" an error. INSERT queries
+ * return one affected row by row of values, a duplicate entry error if they contain value 'dup', a
+ * deadlock error if they contain value 'deadlock', and close connection if they contain value
+ * 'lost'. Inserted rows (including COM_STMT_EXECUTE ones) get consecutive IDs, reported as
+ * OK_Packet last insert ID. A "SET STATEMENT ... FOR" prefix is ignored.
+ */
+public class StubServer implements AutoCloseable {
+
+  private static final short AUTOCOMMIT = 2;
+  private static final short IN_TRANSACTION = 1;
+
+  private final ServerSocket serverSocket;
+  private final String serverVersion;
+  private final List<String> queries = new CopyOnWriteArrayList<>();
+  private final List<Socket> sockets = new CopyOnWriteArrayList<>();
+  private final AtomicInteger connections = new AtomicInteger();
+  private final ByteArrayOutputStream localInfileData = new ByteArrayOutputStream();
+  private final List<Byte> commands = new CopyOnWriteArrayList<>();
+  private final Map<Integer, ByteArrayOutputStream> longData = new HashMap<>();
+  private volatile boolean killed;
+  private volatile KeyPair rsaKeyPair;
+  private final AtomicInteger publicKeyRequests = new AtomicInteger();
+  private final AtomicLong insertId = new AtomicLong(1);
+  private final AtomicInteger refusedConnections = new AtomicInteger();
+  private volatile boolean denyAuthentication;
+
+  public StubServer() throws IOException {
+    this("5.5.5-10.5.5-MariaDB");
+  }
+
+  /**
+   * Create a server, indicating given version in handshake.
+   *
+   * @param serverVersion server version
+   * @throws IOException if server cannot listen
+   */
+  public StubServer(String serverVersion) throws IOException {
+    this.serverVersion = serverVersion;
+    serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+    Thread thread = new Thread(this::acceptLoop, "stub-server-" + serverSocket.getLocalPort());
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Get a port where no server listen.
+   *
+   * @return unused port
+   * @throws IOException if no port is available
+   */
+  public static int unusedPort() throws IOException {
+    try (ServerSocket socket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+      return socket.getLocalPort();
+    }
+  }
+
+  public int getPort() {
+    return serverSocket.getLocalPort();
+  }
+
+  /**
+   * Configuration builder connecting to this server, to which tests add the options they exercise.
+   *
+   * @return configuration builder
+   */
+  public MariadbConnectionConfiguration.Builder configuration() {
+    return MariadbConnectionConfiguration.builder()
+        .host("127.0.0.1")
+        .port(getPort())
+        .username("user");
+  }
+
+  /**
+   * Connect to this server with default options.
+   *
+   * @return connection
+   */
+  public MariadbConnection connect() {
+    return connect(configuration());
+  }
+
+  /**
+   * Connect to this server.
+   *
+   * @param configuration configuration builder, usually obtained from {@link #configuration()}
+   * @return connection
+   */
+  public MariadbConnection connect(MariadbConnectionConfiguration.Builder configuration) {
+    return new MariadbConnectionFactory(configuration.build()).create().block();
+  }
+
+  public List<String> getQueries() {
+    return queries;
+  }
+
+  public int getConnections() {
+    return connections.get();
+  }
+
+  public synchronized byte[] getLocalInfileData() {
+    return localInfileData.toByteArray();
+  }
+
+  /**
+   * Command bytes received, in order.
+   *
+   * @return commands
+   */
+  public List<Byte> getCommands() {
+    return commands;
+  }
+
+  /**
+   * Require caching_sha2_password full authentication: password "password" must be sent encrypted
+   * with the RSA public key of given key pair, that client can request.
+   *
+   * @param keyPair server RSA key pair
+   */
+  public void cachingSha2Authentication(KeyPair keyPair) {
+    this.rsaKeyPair = keyPair;
+  }
+
+  /**
+   * Refuse next connections with a "too many connections" error before handshake.
+   *
+   * @param count number of connections to refuse
+   */
+  public void refuseConnections(int count) {
+    refusedConnections.set(count);
+  }
+
+  /** Answer handshake responses with an "access denied" error. */
+  public void denyAuthentication() {
+    this.denyAuthentication = true;
+  }
+
+  public int getPublicKeyRequests() {
+    return publicKeyRequests.get();
+  }
+
+  /**
+   * Long data received for a parameter since last reset.
+   *
+   * @param parameter parameter index
+   * @return received data
+   */
+  public synchronized byte[] getLongData(int parameter) {
+    ByteArrayOutputStream data = longData.get(parameter);
+    return data == null ? new byte[0] : data.toByteArray();
+  }
+
+  private void acceptLoop() {
+    while (!serverSocket.isClosed()) {
+      try {
+        Socket socket = serverSocket.accept();
+        sockets.add(socket);
+        connections.incrementAndGet();
+        Thread thread = new Thread(() -> handle(socket), "stub-connection");
+        thread.setDaemon(true);
+        thread.start();
+      } catch (IOException e) {
+        // server closed
+      }
+    }
+  }
+
+  private void handle(Socket socket) {
+    try (InputStream in = socket.getInputStream();
+        OutputStream out = socket.getOutputStream()) {
+      int[] sequence = new int[1];
+      if (refusedConnections.getAndUpdate(i -> Math.max(0, i - 1)) > 0) {
+        writePacket(out, 0, error(1040, "08004", "Too many connections"));
+        return;
+      }
+      writePacket(out, 0, handshake());
+      readPacket(in, sequence); // handshake response
+      if (denyAuthentication) {
+        writePacket(out, 2, error(1045, "28000", "Access denied for user 'user'"));
+        return;
+      }
+      boolean inTransaction = false;
+      KeyPair keyPair = rsaKeyPair;
+      if (keyPair == null) {
+        writePacket(out, 2, ok(AUTOCOMMIT, 0));
+      } else if (!cachingSha2Authentication(in, out, sequence, keyPair)) {
+        return;
+      }
+
+      while (true) {
+        byte[] payload = readPacket(in, sequence);
+        long affectedRows = 0;
+        long lastInsertId = 0;
+        commands.add(payload[0]);
+        switch (payload[0]) {
+          case 0x01: // COM_QUIT
+            return;
+          case 0x16: // COM_STMT_PREPARE
+            prepare(out, new String(payload, 1, payload.length - 1, StandardCharsets.UTF_8));
+            continue;
+          case 0x18: // COM_STMT_SEND_LONG_DATA
+            synchronized (this) {
+              int parameter = (payload[5] & 0xff) + ((payload[6] & 0xff) << 8);
+              longData
+                  .computeIfAbsent(parameter, i -> new ByteArrayOutputStream())
+                  .write(payload, 7, payload.length - 7);
+            }
+            continue;
+          case 0x19: // COM_STMT_CLOSE
+            continue;
+          case 0x17: // COM_STMT_EXECUTE
+            affectedRows = 1;
+            lastInsertId = insertId.getAndIncrement();
+            break;
+          case 0x1a: // COM_STMT_RESET
+            synchronized (this) {
+              longData.clear();
+            }
+            break;
+          case 0x03: // COM_QUERY
+            String sql = new String(payload, 1, payload.length - 1, StandardCharsets.UTF_8);
+            queries.add(sql);
+            String upper = sql.toUpperCase();
+            if (upper.startsWith("SET STATEMENT ") && upper.contains(" FOR ")) {
+              sql = sql.substring(upper.indexOf(" FOR ") + 5);
+              upper = sql.toUpperCase();
+            }
+            if (upper.startsWith("LOAD DATA LOCAL INFILE")) {
+              writePacket(out, 1, new byte[] {(byte) 0xfb, 'd', 'a', 't', 'a'});
+              affectedRows = readLocalInfile(in, sequence);
+              short status = (short) (AUTOCOMMIT | (inTransaction ? IN_TRANSACTION : 0));
+              writePacket(out, sequence[0] + 1, ok(status, affectedRows));
+              continue;
+            } else if (upper.startsWith("SELECT ") && upper.endsWith(" BYTES")) {
+              writeLargeResult(out, Integer.parseInt(sql.substring(7, sql.length() - 6)));
+              continue;
+            } else if (upper.matches("SELECT \\d+ ROWS( FROM .*)?")) {
+              writeRows(out, Integer.parseInt(sql.substring(7, upper.indexOf(" ROWS"))));
+              continue;
+            } else if (upper.startsWith("KILL QUERY")) {
+              killed = true;
+            } else if (upper.matches("(DO )?SLEEP \\d+")) {
+              if (sleep(Long.parseLong(sql.substring(upper.indexOf("SLEEP ") + 6)))) {
+                writePacket(out, 1, error(1317, "70100", "Query execution was interrupted"));
+                continue;
+              }
+            } else if (upper.startsWith("UPDATE ROWS ")) {
+              affectedRows = Long.parseLong(sql.substring(12));
+            } else if (upper.startsWith("INSERT")) {
+              if (upper.contains("'DUP'")) {
+                writePacket(out, 1, error(1062, "23000", "Duplicate entry 'dup'"));
+                continue;
+              }
+              if (upper.contains("'DEADLOCK'")) {
+                writePacket(out, 1, error(1213, "40001", "Deadlock found when trying to get lock"));
+                continue;
+              }
+              if (upper.contains("'LOST'")) return;
+              affectedRows = upper.split("\\),\\(", -1).length;
+              lastInsertId = insertId.getAndAdd(affectedRows);
+            } else if (upper.startsWith("FAIL")) {
+              writePacket(out, 1, error(sql));
+              continue;
+            } else if (upper.startsWith("BEGIN") || upper.startsWith("START TRANSACTION")) {
+              inTransaction = true;
+            } else if (upper.startsWith("COMMIT") || upper.startsWith("ROLLBACK")) {
+              inTransaction = false;
+            }
+            break;
+          default:
+            break;
+        }
+        writePacket(
+            out,
+            1,
+            ok(
+                (short) (AUTOCOMMIT | (inTransaction ? IN_TRANSACTION : 0)),
+                affectedRows,
+                lastInsertId));
+      }
+    } catch (IOException e) {
+      // connection closed
+    }
+  }
+
+  private boolean sleep(long millis) {
+    killed = false;
+    long end = System.currentTimeMillis() + millis;
+    try {
+      while (!killed && System.currentTimeMillis() < end) Thread.sleep(10);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return killed;
+  }
+
+  private byte[] handshake() {
+    ByteArrayOutputStream buf = new ByteArrayOutputStream();
+    int capabilities =
+        Capabilities.CLIENT_MYSQL
+            | Capabilities.CLIENT_PROTOCOL_41
+            | Capabilities.TRANSACTIONS
+            | Capabilities.SECURE_CONNECTION
+            | Capabilities.MULTI_RESULTS
+            | Capabilities.PS_MULTI_RESULTS
+            | Capabilities.PLUGIN_AUTH
+            | Capabilities.CONNECT_ATTRS
+            | Capabilities.PLUGIN_AUTH_LENENC_CLIENT_DATA;
+    buf.write(0x0a);
+    writeNullEnded(buf, serverVersion);
+    buf.write(new byte[] {1, 0, 0, 0}, 0, 4); // thread id
+    buf.write(new byte[] {1, 2, 3, 4, 5, 6, 7, 8}, 0, 8); // seed part 1
+    buf.write(0);
+    buf.write(capabilities & 0xff);
+    buf.write((capabilities >> 8) & 0xff);
+    buf.write(33); // utf8 collation
+    buf.write(AUTOCOMMIT);
+    buf.write(0);
+    buf.write((capabilities >> 16) & 0xff);
+    buf.write((capabilities >> 24) & 0xff);
+    buf.write(21); // seed length
+    buf.write(new byte[10], 0, 10); // reserved + MariaDB capabilities
+    buf.write(new byte[] {9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20}, 0, 12);
+    buf.write(0);
+    writeNullEnded(buf, "mysql_native_password");
+    return buf.toByteArray();
+  }
+
+  private boolean cachingSha2Authentication(
+      InputStream in, OutputStream out, int[] sequence, KeyPair keyPair) throws IOException {
+    byte[] seed = new byte[20];
+    for (int i = 0; i < seed.length; i++) seed[i] = (byte) (i + 1);
+    ByteArrayOutputStream authSwitch = new ByteArrayOutputStream();
+    authSwitch.write(0xfe);
+    writeNullEnded(authSwitch, "caching_sha2_password");
+    authSwitch.write(seed, 0, seed.length);
+    authSwitch.write(0);
+    writePacket(out, 2, authSwitch.toByteArray());
+    readPacket(in, sequence); // fast authentication scramble, never in server cache
+    writePacket(out, sequence[0] + 1, new byte[] {0x01, 0x04}); // perform full authentication
+
+    byte[] payload = readPacket(in, sequence);
+    if (payload.length == 1 && payload[0] == 0x02) {
+      publicKeyRequests.incrementAndGet();
+      byte[] pem =
+          ("-----BEGIN PUBLIC KEY-----\n"
+                  + Base64.getMimeEncoder().encodeToString(keyPair.getPublic().getEncoded())
+                  + "\n-----END PUBLIC KEY-----\n")
+              .getBytes(StandardCharsets.US_ASCII);
+      byte[] keyPacket = new byte[pem.length + 1];
+      keyPacket[0] = 0x01;
+      System.arraycopy(pem, 0, keyPacket, 1, pem.length);
+      writePacket(out, sequence[0] + 1, keyPacket);
+      payload = readPacket(in, sequence);
+    }
+
+    String password = null;
+    try {
+      Cipher cipher = Cipher.getInstance("RSA/ECB/OAEPWithSHA-1AndMGF1Padding");
+      cipher.init(Cipher.DECRYPT_MODE, keyPair.getPrivate());
+      byte[] decrypted = cipher.doFinal(payload);
+      for (int i = 0; i < decrypted.length; i++) decrypted[i] ^= seed[i % seed.length];
+      // password is null-ended
+      password = new String(decrypted, 0, decrypted.length - 1, StandardCharsets.UTF_8);
+    } catch (GeneralSecurityException e) {
+      // wrong key
+    }
+    if (!"password".equals(password)) {
+      writePacket(out, sequence[0] + 1, error(1045, "28000", "Access denied"));
+      return false;
+    }
+    writePacket(out, sequence[0] + 1, ok(AUTOCOMMIT, 0));
+    return true;
+  }
+
+  private static void prepare(OutputStream out, String sql) throws IOException {
+    int params = 0;
+    for (char c : sql.toCharArray()) {
+      if (c == '?') params++;
+    }
+    writePacket(
+        out, 1, new byte[] {0x00, 1, 0, 0, 0, 0, 0, (byte) params, (byte) (params >> 8), 0, 0, 0});
+    int sequence = 2;
+    if (params > 0) {
+      for (int i = 0; i < params; i++) {
+        // parameter definitions are skipped by driver
+        writePacket(out, sequence++, new byte[] {0x03, 'd', 'e', 'f'});
+      }
+      writePacket(out, sequence, new byte[] {(byte) 0xfe, 0, 0, AUTOCOMMIT, 0});
+    }
+  }
+
+  private static void writeLargeResult(OutputStream out, int length) throws IOException {
+    writePacket(out, 1, new byte[] {2});
+    writePacket(out, 2, columnDefinition("id", 3, 33));
+    writePacket(out, 3, columnDefinition("data", 251, 63));
+    writePacket(out, 4, new byte[] {(byte) 0xfe, 0, 0, AUTOCOMMIT, 0});
+
+    byte[] row = new byte[2 + 9 + length];
+    row[0] = 1;
+    row[1] = '1';
+    row[2] = (byte) 0xfe;
+    for (int i = 0; i < 8; i++) row[3 + i] = (byte) ((long) length >> (8 * i));
+    for (int i = 0; i < length; i++) row[11 + i] = (byte) (i % 251);
+    int sequence = writeMultipart(out, 5, row);
+    sequence = writeMultipart(out, sequence, new byte[] {1, '2', 5, 's', 'm', 'a', 'l', 'l'});
+    writePacket(out, sequence, new byte[] {(byte) 0xfe, 0, 0, AUTOCOMMIT, 0});
+  }
+
+  private void writeRows(OutputStream out, int rows) throws IOException {
+    killed = false;
+    writePacket(out, 1, new byte[] {1});
+    writePacket(out, 2, columnDefinition("id", 3, 33));
+    writePacket(out, 3, new byte[] {(byte) 0xfe, 0, 0, AUTOCOMMIT, 0});
+    int sequence = 4;
+    ByteArrayOutputStream buf = new ByteArrayOutputStream();
+    for (int i = 1; i <= rows; i++) {
+      byte[] value = Integer.toString(i).getBytes(StandardCharsets.US_ASCII);
+      buf.write(value.length + 1);
+      buf.write(0);
+      buf.write(0);
+      buf.write(sequence++);
+      buf.write(value.length);
+      buf.write(value, 0, value.length);
+      if (i % 1000 == 0) {
+        // rows are sent by chunks, checking interruption in between
+        buf.writeTo(out);
+        out.flush();
+        buf.reset();
+        if (killed) {
+          writePacket(out, sequence, error(1317, "70100", "Query execution was interrupted"));
+          return;
+        }
+      }
+    }
+    buf.writeTo(out);
+    writePacket(out, sequence, new byte[] {(byte) 0xfe, 0, 0, AUTOCOMMIT, 0});
+  }
+
+  private static byte[] columnDefinition(String name, int type, int charset) {
+    ByteArrayOutputStream buf = new ByteArrayOutputStream();
+    for (String value : new String[] {"def", "", "t", "t", name, name}) {
+      buf.write(value.length());
+      buf.write(value.getBytes(StandardCharsets.US_ASCII), 0, value.length());
+    }
+    buf.write(0x0c);
+    buf.write(charset);
+    buf.write(0);
+    buf.write(new byte[] {(byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff}, 0, 4); // length
+    buf.write(type);
+    buf.write(new byte[5], 0, 5); // flags, decimals, filler
+    return buf.toByteArray();
+  }
+
+  private static int writeMultipart(OutputStream out, int sequence, byte[] payload)
+      throws IOException {
+    int pos = 0;
+    int length;
+    do {
+      length = Math.min(0xffffff, payload.length - pos);
+      out.write(length & 0xff);
+      out.write((length >> 8) & 0xff);
+      out.write((length >> 16) & 0xff);
+      out.write(sequence++);
+      out.write(payload, pos, length);
+      pos += length;
+    } while (length == 0xffffff);
+    out.flush();
+    return sequence;
+  }
+
+  private long readLocalInfile(InputStream in, int[] sequence) throws IOException {
+    long lines = 0;
+    byte[] payload;
+    while ((payload = readPacket(in, sequence)).length > 0) {
+      synchronized (this) {
+        localInfileData.write(payload, 0, payload.length);
+      }
+      for (byte b : payload) {
+        if (b == '\n') lines++;
+      }
+    }
+    return lines;
+  }
+
+  private static byte[] ok(short serverStatus, long affectedRows) {
+    return ok(serverStatus, affectedRows, 0);
+  }
+
+  private static byte[] ok(short serverStatus, long affectedRows, long lastInsertId) {
+    // affected rows and last insert id as 3 bytes length encoded integers
+    return new byte[] {
+      0x00,
+      (byte) 0xfd,
+      (byte) affectedRows,
+      (byte) (affectedRows >> 8),
+      (byte) (affectedRows >> 16),
+      (byte) 0xfd,
+      (byte) lastInsertId,
+      (byte) (lastInsertId >> 8),
+      (byte) (lastInsertId >> 16),
+      (byte) serverStatus,
+      (byte) (serverStatus >> 8),
+      0,
+      0
+    };
+  }
+
+  private static byte[] error(String message) {
+    return error(1064, "42000", message);
+  }
+
+  private static byte[] error(int code, String sqlState, String message) {
+    ByteArrayOutputStream buf = new ByteArrayOutputStream();
+    buf.write(0xff);
+    buf.write(code & 0xff);
+    buf.write(code >> 8);
+    byte[] state = ("#" + sqlState).getBytes(StandardCharsets.US_ASCII);
+    buf.write(state, 0, state.length);
+    byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+    buf.write(bytes, 0, bytes.length);
+    return buf.toByteArray();
+  }
+
+  private static void writeNullEnded(ByteArrayOutputStream buf, String value) {
+    byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+    buf.write(bytes, 0, bytes.length);
+    buf.write(0);
+  }
+
+  private static void writePacket(OutputStream out, int sequence, byte[] payload)
+      throws IOException {
+    out.write(payload.length & 0xff);
+    out.write((payload.length >> 8) & 0xff);
+    out.write((payload.length >> 16) & 0xff);
+    out.write(sequence);
+    out.write(payload);
+    out.flush();
+  }
+
+  private static byte[] readPacket(InputStream in, int[] sequence) throws IOException {
+    byte[] header = readFully(in, 4);
+    sequence[0] = header[3] & 0xff;
+    int length = (header[0] & 0xff) + ((header[1] & 0xff) << 8) + ((header[2] & 0xff) << 16);
+    return readFully(in, length);
+  }
+
+  private static byte[] readFully(InputStream in, int length) throws IOException {
+    byte[] bytes = new byte[length];
+    int pos = 0;
+    while (pos < length) {
+      int read = in.read(bytes, pos, length - pos);
+      if (read < 0) throw new EOFException();
+      pos += read;
+    }
+    return bytes;
+  }
+
+  @Override
+  public void close() throws IOException {
+    serverSocket.close();
+    for (Socket socket : sockets) {
+      socket.close();
+    }
+  }
+}
@@ -26,6 +26,7 @@ import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
 import org.junit.jupiter.api.Test;
 import org.mariadb.r2dbc.BaseTest;
 import org.mariadb.r2dbc.MariadbConnectionConfiguration;
@@ -252,6 +253,34 @@ public class ConnectionTest extends BaseTest {
     connection.close().block();
   }
 
+  @Test
+  void sessionStateTracking() {
+    Assumptions.assumeTrue(isMariaDBServer() && minVersion(10, 2, 2));
+    MariadbConnection connection = factory.create().block();
+    connection
+        .createStatement("SET SESSION TRANSACTION ISOLATION LEVEL SERIALIZABLE")
+        .execute()
+        .flatMap(r -> r.getRowsUpdated())
+        .blockLast();
+    Assertions.assertEquals(IsolationLevel.SERIALIZABLE, connection.getTransactionIsolationLevel());
+
+    connection
+        .createStatement("SET SESSION TRANSACTION ISOLATION LEVEL READ COMMITTED")
+        .execute()
+        .flatMap(r -> r.getRowsUpdated())
+        .blockLast();
+    Assertions.assertEquals(
+        IsolationLevel.READ_COMMITTED, connection.getTransactionIsolationLevel());
+
+    connection
+        .createStatement("SET autocommit=0")
+        .execute()
+        .flatMap(r -> r.getRowsUpdated())
+        .blockLast();
+    Assertions.assertFalse(connection.isAutoCommit());
+    connection.close().block();
+  }
+
   @Test
   void usingOption() {
     ConnectionFactory factory =
@@ -16,7 +16,6 @@
 
 package org.mariadb.r2dbc.integration;
 
-import io.r2dbc.spi.R2dbcTransientResourceException;
 import io.r2dbc.spi.Statement;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Assumptions;
@@ -254,12 +253,8 @@ public class StatementTest extends BaseTest {
         .execute()
         .flatMap(r -> r.map((row, metadata) -> row.get(0, String.class)))
         .as(StepVerifier::create)
-        .expectErrorMatches(
-            throwable ->
-                throwable instanceof R2dbcTransientResourceException
-                    && ((R2dbcTransientResourceException) throwable).getSqlState().equals("HY000")
-                    && ((throwable.getMessage().contains("Connector cannot get generated ID"))))
-        .verify();
+        .expectNext("1", "2")
+        .verifyComplete();
 
     sharedConn
         .createStatement("INSERT INTO returningBefore105(test) VALUES ('test1')")
@@ -365,12 +360,8 @@ public class StatementTest extends BaseTest {
         .execute()
         .flatMap(r -> r.map((row, metadata) -> row.get(0, String.class)))
         .as(StepVerifier::create)
-        .expectErrorMatches(
-            throwable ->
-                throwable instanceof R2dbcTransientResourceException
-                    && ((R2dbcTransientResourceException) throwable).getSqlState().equals("HY000")
-                    && ((throwable.getMessage().contains("Connector cannot get generated ID"))))
-        .verify();
+        .expectNext("1", "2")
+        .verifyComplete();
 
     sharedConn
         .createStatement("INSERT INTO prepareReturningBefore105(test) VALUES (?)")
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2020 MariaDB Ab.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mariadb.r2dbc.unit.client;
+
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mariadb.r2dbc.StubServer;
+import org.mariadb.r2dbc.api.MariadbConnection;
+import org.mariadb.r2dbc.api.MariadbResult;
+import reactor.test.StepVerifier;
+
+public class ConnectionResetTest {
+
+  @Test
+  void resetConnection() throws Exception {
+    try (StubServer server = new StubServer()) {
+      MariadbConnection connection = connect(server, false);
+      connection.reset().as(StepVerifier::create).verifyComplete();
+
+      List<Byte> commands = server.getCommands();
+      int reset = commands.indexOf((byte) 0x1f);
+      Assertions.assertTrue(reset > 0);
+      Assertions.assertEquals((byte) 0x03, commands.get(reset + 1));
+      List<String> queries = server.getQueries();
+      Assertions.assertEquals("SET wait_timeout=3600", queries.get(queries.size() - 1));
+
+      // connection is still usable
+      rowsUpdated(connection, "UPDATE ROWS ?", 2);
+      connection.close().block();
+    }
+  }
+
+  @Test
+  void resetReleasePreparedStatements() throws Exception {
+    try (StubServer server = new StubServer()) {
+      MariadbConnection connection = connect(server, true);
+      rowsUpdated(connection, "UPDATE ROWS ?", 1);
+      rowsUpdated(connection, "UPDATE ROWS ?", 1);
+      Assertions.assertEquals(1, count(server.getCommands(), (byte) 0x16));
+
+      connection.reset().as(StepVerifier::create).verifyComplete();
+
+      // statement has been released by server and must be prepared again, without being closed
+      rowsUpdated(connection, "UPDATE ROWS ?", 1);
+      Assertions.assertEquals(2, count(server.getCommands(), (byte) 0x16));
+      Assertions.assertEquals(0, count(server.getCommands(), (byte) 0x19));
+      connection.close().block();
+    }
+  }
+
+  @Test
+  void resetWithoutResetConnectionSupport() throws Exception {
+    try (StubServer server = new StubServer("5.5.5-10.1.0-MariaDB")) {
+      MariadbConnection connection = connect(server, false);
+      connection.reset().as(StepVerifier::create).verifyComplete();
+
+      Assertions.assertFalse(server.getCommands().contains((byte) 0x1f));
+      List<String> queries = server.getQueries();
+      Assertions.assertTrue(queries.contains("ROLLBACK"));
+      Assertions.assertTrue(queries.contains("SET autocommit=1"));
+      Assertions.assertEquals("SET wait_timeout=3600", queries.get(queries.size() - 1));
+      connection.close().block();
+    }
+  }
+
+  private static int count(List<Byte> commands, byte command) {
+    int count = 0;
+    for (Byte b : commands) {
+      if (b == command) count++;
+    }
+    return count;
+  }
+
+  private static void rowsUpdated(MariadbConnection connection, String sql, int expected) {
+    connection
+        .createStatement(sql)
+        .bind(0, expected)
+        .execute()
+        .flatMap(MariadbResult::getRowsUpdated)
+        .as(StepVerifier::create)
+        .expectNext(expected)
+        .verifyComplete();
+  }
+
+  private static MariadbConnection connect(StubServer server, boolean useServerPrepStmts) {
+    return server.connect(
+        server
+            .configuration()
+            .useServerPrepStmts(useServerPrepStmts)
+            .sessionVariables(Collections.singletonMap("wait_timeout", "3600")));
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2020 MariaDB Ab.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mariadb.r2dbc.unit.client;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mariadb.r2dbc.message.client.Ed25519PasswordPacket;
+import org.mariadb.r2dbc.message.server.Sequencer;
+
+public class Ed25519PasswordPacketTest {
+
+  private static final byte[] SEED = new byte[32];
+
+  static {
+    for (int i = 0; i < SEED.length; i++) SEED[i] = (byte) (i * 7 + 1);
+  }
+
+  @Test
+  void signature() {
+    Assertions.assertEquals(
+        "b69695721276872c2dd4c5771b30865879b40d96a4869360a85f08eac5cca223"
+            + "41c18c5fcaf03bceb9d5d34fc746da92e688657c2ef52f577548602792e4050f",
+        sign("MySup8%rPassw@ord", null));
+  }
+
+  @Test
+  void cachedKeyPair() {
+    // cached key pair is only used for the password it was derived from
+    Ed25519PasswordPacket.KeyPairCache cache = new Ed25519PasswordPacket.KeyPairCache();
+    for (int i = 0; i < 2; i++) {
+      Assertions.assertEquals(
+          "b69695721276872c2dd4c5771b30865879b40d96a4869360a85f08eac5cca223"
+              + "41c18c5fcaf03bceb9d5d34fc746da92e688657c2ef52f577548602792e4050f",
+          sign("MySup8%rPassw@ord", cache));
+      Assertions.assertEquals(
+          "b69695721276872c2dd4c5771b30865879b40d96a4869360a85f08eac5cca223"
+              + "41c18c5fcaf03bceb9d5d34fc746da92e688657c2ef52f577548602792e4050f",
+          sign("MySup8%rPassw@ord", cache));
+      Assertions.assertEquals(
+          "09506aef75bd568c15734fb295c5e43bca3e24c0a07a34fc687054d9af9f620f"
+              + "d48be2006895418779898cd2cbede21a916ffeb9b6119b44df5db1d5b784b800",
+          sign("ed25519 pässword", cache));
+    }
+  }
+
+  @Test
+  void emptyPassword() {
+    Assertions.assertEquals("", sign("", null));
+  }
+
+  private static String sign(String password, Ed25519PasswordPacket.KeyPairCache cache) {
+    ByteBuf buf =
+        new Ed25519PasswordPacket(new Sequencer((byte) 0), password, SEED, cache)
+            .encode(null, UnpooledByteBufAllocator.DEFAULT);
+    try {
+      return ByteBufUtil.hexDump(buf);
+    } finally {
+      buf.release();
+    }
+  }
+}
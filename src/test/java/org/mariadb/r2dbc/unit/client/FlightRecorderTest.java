@@ -0,0 +1,73 @@
+/*
+ * Copyright 2020 MariaDB Ab.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mariadb.r2dbc.unit.client;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mariadb.r2dbc.StubServer;
+import org.mariadb.r2dbc.api.MariadbConnection;
+
+public class FlightRecorderTest {
+
+  @Test
+  void commandAndConnectionEvents() throws Exception {
+    Path file = Files.createTempFile("r2dbc", ".jfr");
+    try (StubServer server = new StubServer();
+        Recording recording = new Recording()) {
+      recording.enable("org.mariadb.r2dbc.Command");
+      recording.enable("org.mariadb.r2dbc.ConnectionEstablished");
+      recording.start();
+
+      MariadbConnection connection = server.connect();
+      connection
+          .createStatement("SELECT 5 ROWS")
+          .execute()
+          .flatMap(r -> r.map((row, metadata) -> row.get(0)))
+          .blockLast();
+      connection.close().block();
+
+      recording.stop();
+      recording.dump(file);
+      List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+
+      RecordedEvent command =
+          events.stream()
+              .filter(e -> e.getEventType().getName().equals("org.mariadb.r2dbc.Command"))
+              .filter(e -> "SELECT ? ROWS".equals(e.getString("digest")))
+              .findFirst()
+              .orElseThrow(() -> new AssertionError("no command event"));
+      Assertions.assertEquals(5, command.getLong("rows"));
+      Assertions.assertTrue(command.getLong("receivedBytes") > 0);
+      Assertions.assertFalse(command.getBoolean("failed"));
+
+      Assertions.assertTrue(
+          events.stream()
+              .anyMatch(
+                  e ->
+                      e.getEventType().getName().equals("org.mariadb.r2dbc.ConnectionEstablished")
+                          && e.getString("host").contains(String.valueOf(server.getPort()))));
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2020 MariaDB Ab.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mariadb.r2dbc.unit.client;
+
+import io.r2dbc.spi.R2dbcTransientResourceException;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mariadb.r2dbc.StubServer;
+import org.mariadb.r2dbc.api.MariadbConnection;
+import org.mariadb.r2dbc.api.MariadbStatement;
+import reactor.test.StepVerifier;
+
+public class GeneratedValuesTest {
+
+  // server without RETURNING: IDs are derived from OK_Packet last insert ID
+  private static final String VERSION = "5.5.5-10.1.0-MariaDB";
+
+  @Test
+  void multiRowInsert() throws Exception {
+    try (StubServer server = new StubServer(VERSION)) {
+      MariadbConnection connection =
+          server.connect(server.configuration().useServerPrepStmts(false));
+      Assertions.assertEquals(
+          Arrays.asList("1", "2", "3"),
+          ids(
+              connection
+                  .createStatement("INSERT INTO t(v) VALUES ('a'),('b'),('c')")
+                  .returnGeneratedValues("id")));
+      Assertions.assertEquals(
+          Arrays.asList("4"),
+          ids(connection.createStatement("INSERT INTO t(v) VALUES ('d')").returnGeneratedValues()));
+      connection.close().block();
+    }
+  }
+
+  @Test
+  void multiRowInsertNotDerivable() throws Exception {
+    try (StubServer server = new StubServer(VERSION)) {
+      MariadbConnection connection =
+          server.connect(server.configuration().useServerPrepStmts(false));
+      // explicit IDs, unknown generated column, or no column list: IDs may not be consecutive
+      for (MariadbStatement statement :
+          Arrays.asList(
+              connection
+                  .createStatement("INSERT INTO t(id, v) VALUES (10, 'a'),(NULL, 'b')")
+                  .returnGeneratedValues("id"),
+              connection
+                  .createStatement("INSERT INTO t(v) VALUES ('a'),('b')")
+                  .returnGeneratedValues(),
+              connection
+                  .createStatement("INSERT INTO t VALUES (NULL, 'a'),(NULL, 'b')")
+                  .returnGeneratedValues("id"))) {
+        statement
+            .execute()
+            .concatMap(r -> r.map((row, metadata) -> row.get(0, String.class)))
+            .as(StepVerifier::create)
+            .expectErrorMatches(
+                e ->
+                    e instanceof R2dbcTransientResourceException
+                        && e.getMessage().contains("Connector cannot get generated ID"))
+            .verify();
+      }
+      connection.close().block();
+    }
+  }
+
+  @Test
+  void batch() throws Exception {
+    batch(false);
+  }
+
+  @Test
+  void batchServerPrepare() throws Exception {
+    batch(true);
+  }
+
+  private void batch(boolean useServerPrepStmts) throws Exception {
+    try (StubServer server = new StubServer(VERSION)) {
+      MariadbConnection connection =
+          server.connect(server.configuration().useServerPrepStmts(useServerPrepStmts));
+      MariadbStatement statement =
+          connection
+              .createStatement("INSERT INTO t(v) VALUES (?)")
+              .returnGeneratedValues("id")
+              .bind(0, "a")
+              .add()
+              .bind(0, "b")
+              .add()
+              .bind(0, "c");
+      Assertions.assertEquals(Arrays.asList("1", "2", "3"), ids(statement));
+      connection.close().block();
+    }
+  }
+
+  private static List<String> ids(MariadbStatement statement) {
+    return statement
+        .execute()
+        .concatMap(r -> r.map((row, metadata) -> row.get(0, String.class)))
+        .collectList()
+        .block();
+  }
+}
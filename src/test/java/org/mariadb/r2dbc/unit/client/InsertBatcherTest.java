@@ -0,0 +1,204 @@
+/*
+ * Copyright 2020 MariaDB Ab.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mariadb.r2dbc.unit.client;
+
+import io.r2dbc.spi.R2dbcDataIntegrityViolationException;
+import io.r2dbc.spi.R2dbcNonTransientResourceException;
+import io.r2dbc.spi.R2dbcRollbackException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mariadb.r2dbc.MariadbConnectionFactory;
+import org.mariadb.r2dbc.StubServer;
+import org.mariadb.r2dbc.api.MariadbConnection;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public class InsertBatcherTest {
+
+  private static final String INSERT = "INSERT INTO events (id, value) VALUES (?, ?)";
+
+  @Test
+  void concurrentInsertsMerged() throws Exception {
+    try (StubServer server = new StubServer()) {
+      MariadbConnectionFactory factory = factory(server, 100);
+      MariadbConnection connection = factory.create().block();
+      MariadbConnection other = factory.create().block();
+
+      List<Integer> rowsUpdated =
+          Flux.merge(insert(connection, 1, "a"), insert(other, 2, "b"), insert(connection, 3, "c"))
+              .collectList()
+              .block();
+      Assertions.assertEquals(Arrays.asList(1, 1, 1), rowsUpdated);
+      // statements are only merged with statements of the same connection
+      Assertions.assertEquals(2, inserts(server).size());
+      Assertions.assertTrue(
+          inserts(server)
+              .containsAll(
+                  Arrays.asList(
+                      "INSERT INTO events (id, value) VALUES (1, 'a'),(3, 'c')",
+                      "INSERT INTO events (id, value) VALUES (2, 'b')")));
+      Assertions.assertEquals(1, factory.getInsertBatcher().getExecutions());
+      Assertions.assertEquals(2, factory.getInsertBatcher().getBatchedStatements());
+
+      // a statement alone is sent unchanged once window expires
+      Assertions.assertEquals(1, insert(connection, 4, "d").block());
+      Assertions.assertEquals(
+          "INSERT INTO events (id, value) VALUES (4, 'd')", inserts(server).get(2));
+      connection.close().block();
+      other.close().block();
+    }
+  }
+
+  @Test
+  void maxSize() throws Exception {
+    try (StubServer server = new StubServer()) {
+      MariadbConnectionFactory factory = factory(server, 2);
+      MariadbConnection connection = factory.create().block();
+      Flux.range(1, 5).flatMap(i -> insert(connection, i, "v")).blockLast();
+      Assertions.assertEquals(3, inserts(server).size());
+      Assertions.assertEquals(2, factory.getInsertBatcher().getExecutions());
+      Assertions.assertEquals(4, factory.getInsertBatcher().getBatchedStatements());
+      connection.close().block();
+    }
+  }
+
+  @Test
+  void failedBatchExecutedSeparately() throws Exception {
+    try (StubServer server = new StubServer()) {
+      MariadbConnectionFactory factory = factory(server, 100);
+      MariadbConnection connection = factory.create().block();
+      // deadlock rolls back the merged command
+      List<Object> results =
+          Flux.merge(
+                  insert(connection, 1, "a").cast(Object.class),
+                  insert(connection, 2, "deadlock").cast(Object.class).onErrorResume(Mono::just),
+                  insert(connection, 3, "c").cast(Object.class))
+              .collectList()
+              .block();
+      Assertions.assertEquals(3, results.size());
+      Assertions.assertEquals(2, results.stream().filter(Integer.valueOf(1)::equals).count());
+      Assertions.assertTrue(results.stream().anyMatch(R2dbcRollbackException.class::isInstance));
+      Assertions.assertEquals(1, factory.getInsertBatcher().getFallbacks());
+      Assertions.assertEquals(4, inserts(server).size());
+      connection.close().block();
+    }
+  }
+
+  @Test
+  void failedBatchNotExecutedAgain() throws Exception {
+    try (StubServer server = new StubServer()) {
+      MariadbConnectionFactory factory = factory(server, 100);
+      MariadbConnection connection = factory.create().block();
+      // preceding rows may have been inserted in a non-transactional table
+      List<Object> results =
+          Flux.merge(
+                  insert(connection, 1, "a").cast(Object.class).onErrorResume(Mono::just),
+                  insert(connection, 2, "dup").cast(Object.class).onErrorResume(Mono::just),
+                  insert(connection, 3, "c").cast(Object.class).onErrorResume(Mono::just))
+              .collectList()
+              .block();
+      Assertions.assertEquals(3, results.size());
+      Assertions.assertTrue(
+          results.stream().allMatch(R2dbcDataIntegrityViolationException.class::isInstance));
+      Assertions.assertEquals(0, factory.getInsertBatcher().getFallbacks());
+      Assertions.assertEquals(1, inserts(server).size());
+
+      // merged command may have been executed before connection was lost
+      MariadbConnection other = factory.create().block();
+      results =
+          Flux.merge(
+                  insert(other, 4, "d").cast(Object.class).onErrorResume(Mono::just),
+                  insert(other, 5, "lost").cast(Object.class).onErrorResume(Mono::just))
+              .collectList()
+              .block();
+      Assertions.assertEquals(2, results.size());
+      Assertions.assertTrue(
+          results.stream().allMatch(R2dbcNonTransientResourceException.class::isInstance));
+      Assertions.assertEquals(0, factory.getInsertBatcher().getFallbacks());
+      Assertions.assertEquals(2, inserts(server).size());
+      connection.close().block();
+    }
+  }
+
+  @Test
+  void notMergeableStatements() throws Exception {
+    try (StubServer server = new StubServer()) {
+      MariadbConnectionFactory factory = factory(server, 100);
+      MariadbConnection connection = factory.create().block();
+      String upsert =
+          "INSERT INTO events (id, value) VALUES (?, ?) ON DUPLICATE KEY UPDATE value=1";
+      Flux.merge(
+              update(connection.createStatement(upsert).bind(0, 1).bind(1, "a")),
+              update(connection.createStatement(upsert).bind(0, 2).bind(1, "b")),
+              update(
+                  connection.createStatement("INSERT INTO t VALUES (?),(?)").bind(0, 1).bind(1, 2)),
+              update(
+                  connection.createStatement("INSERT INTO t VALUES (?),(?)").bind(0, 3).bind(1, 4)))
+          .blockLast();
+      Assertions.assertEquals(4, inserts(server).size());
+      Assertions.assertEquals(0, factory.getInsertBatcher().getExecutions());
+
+      // statements in a transaction are not merged
+      connection.beginTransaction().block();
+      Flux.merge(insert(connection, 1, "a"), insert(connection, 2, "b")).blockLast();
+      connection.commitTransaction().block();
+      Assertions.assertEquals(6, inserts(server).size());
+      connection.close().block();
+    }
+  }
+
+  @Test
+  void transactionStartedDuringWindow() throws Exception {
+    try (StubServer server = new StubServer()) {
+      MariadbConnectionFactory factory = factory(server, 100);
+      MariadbConnection connection = factory.create().block();
+      Flux<Integer> inserts = Flux.merge(insert(connection, 1, "a"), insert(connection, 2, "b"));
+      Flux.merge(inserts, connection.beginTransaction().then(Mono.empty())).blockLast();
+      connection.commitTransaction().block();
+      Assertions.assertEquals(2, inserts(server).size());
+      Assertions.assertEquals(0, factory.getInsertBatcher().getExecutions());
+      connection.close().block();
+    }
+  }
+
+  private static MariadbConnectionFactory factory(StubServer server, int size) {
+    return new MariadbConnectionFactory(
+        server
+            .configuration()
+            .insertBatchWindow(Duration.ofMillis(200))
+            .insertBatchSize(size)
+            .build());
+  }
+
+  private static Mono<Integer> insert(MariadbConnection connection, int id, String value) {
+    return update(connection.createStatement(INSERT).bind(0, id).bind(1, value));
+  }
+
+  private static Mono<Integer> update(io.r2dbc.spi.Statement statement) {
+    return Flux.from(statement.execute()).flatMap(r -> r.getRowsUpdated()).single();
+  }
+
+  private static List<String> inserts(StubServer server) {
+    return server.getQueries().stream()
+        .filter(sql -> sql.startsWith("INSERT"))
+        .collect(Collectors.toList());
+  }
+}
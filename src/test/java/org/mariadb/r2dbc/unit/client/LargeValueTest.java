@@ -0,0 +1,134 @@
+/*
+ * Copyright 2020 MariaDB Ab.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mariadb.r2dbc.unit.client;
+
+import io.r2dbc.spi.Blob;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mariadb.r2dbc.MariadbConnectionConfiguration;
+import org.mariadb.r2dbc.StubServer;
+import org.mariadb.r2dbc.api.MariadbConnection;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+public class LargeValueTest {
+
+  private static final int LENGTH = 40_000_000;
+
+  @Test
+  void streamedValue() throws Exception {
+    try (StubServer server = new StubServer()) {
+      MariadbConnection connection = server.connect(server.configuration().streamLargeValues(true));
+      readLengths(connection)
+          .as(StepVerifier::create)
+          .expectNext((long) LENGTH, 5L)
+          .verifyComplete();
+
+      // connection is still usable
+      connection.createStatement("DO 1").execute().blockLast();
+      connection.close().block();
+    }
+  }
+
+  @Test
+  void urlOption() {
+    Assertions.assertTrue(
+        MariadbConnectionConfiguration.fromOptions(
+                ConnectionFactoryOptions.parse(
+                    "r2dbc:mariadb://user@localhost:3306/db?streamLargeValues=true"))
+            .build()
+            .streamLargeValues());
+  }
+
+  @Test
+  void reassembledValue() throws Exception {
+    try (StubServer server = new StubServer()) {
+      MariadbConnection connection =
+          server.connect(server.configuration().streamLargeValues(false));
+      readLengths(connection)
+          .as(StepVerifier::create)
+          .expectNext((long) LENGTH, 5L)
+          .verifyComplete();
+      connection.close().block();
+    }
+  }
+
+  @Test
+  void unusedValueSkipped() throws Exception {
+    try (StubServer server = new StubServer()) {
+      MariadbConnection connection = server.connect(server.configuration().streamLargeValues(true));
+      connection
+          .createStatement("SELECT " + LENGTH + " BYTES")
+          .execute()
+          .flatMap(r -> r.map((row, metadata) -> row.get(0, Integer.class)))
+          .as(StepVerifier::create)
+          .expectNext(1, 2)
+          .verifyComplete();
+
+      connection.createStatement("DO 1").execute().blockLast();
+      connection.close().block();
+    }
+  }
+
+  @Test
+  void streamedValueOnlyAsBlob() throws Exception {
+    try (StubServer server = new StubServer()) {
+      MariadbConnection connection = server.connect(server.configuration().streamLargeValues(true));
+      connection
+          .createStatement("SELECT " + LENGTH + " BYTES")
+          .execute()
+          .flatMap(r -> r.map((row, metadata) -> row.get(1, byte[].class)))
+          .as(StepVerifier::create)
+          .verifyErrorMatches(
+              t -> t.getMessage().contains("bigger than 16M, and can only be retrieved as Blob"));
+
+      connection.createStatement("DO 1").execute().blockLast();
+      connection.close().block();
+    }
+  }
+
+  /** Read blob length of each row, checking content. */
+  private static Flux<Long> readLengths(MariadbConnection connection) {
+    return connection
+        .createStatement("SELECT " + LENGTH + " BYTES")
+        .execute()
+        .flatMap(r -> r.map((row, metadata) -> row.get(1, Blob.class)))
+        .concatMap(
+            blob -> {
+              AtomicLong pos = new AtomicLong();
+              return Flux.from(blob.stream())
+                  .doOnNext(buf -> checkContent(buf, pos))
+                  .then(Mono.fromSupplier(pos::get));
+            });
+  }
+
+  private static void checkContent(ByteBuffer buf, AtomicLong pos) {
+    if (pos.get() == 0 && buf.remaining() == 5) {
+      // "small" value
+      pos.set(5);
+      return;
+    }
+    while (buf.hasRemaining()) {
+      long i = pos.getAndIncrement();
+      if (buf.get() != (byte) (i % 251)) Assertions.fail("wrong value at position " + i);
+    }
+  }
+}
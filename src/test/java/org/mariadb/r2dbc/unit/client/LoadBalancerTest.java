@@ -0,0 +1,204 @@
+/*
+ * Copyright 2020 MariaDB Ab.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mariadb.r2dbc.unit.client;
+
+import io.r2dbc.spi.ValidationDepth;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mariadb.r2dbc.LoadBalanceStrategy;
+import org.mariadb.r2dbc.MariadbConnectionConfiguration;
+import org.mariadb.r2dbc.MariadbConnectionFactory;
+import org.mariadb.r2dbc.StubServer;
+import org.mariadb.r2dbc.api.MariadbConnection;
+import org.mariadb.r2dbc.client.LoadBalancer;
+import org.mariadb.r2dbc.util.HostAddress;
+
+public class LoadBalancerTest {
+
+  private static final List<HostAddress> ADDRESSES =
+      Arrays.asList(
+          new HostAddress("host1", 3306),
+          new HostAddress("host2", 3306),
+          new HostAddress("host3", 3306));
+
+  @Test
+  void parseAddresses() {
+    Assertions.assertEquals(
+        Arrays.asList(
+            new HostAddress("host1", 3306),
+            new HostAddress("host2", 3307),
+            new HostAddress("::1", 3308)),
+        HostAddress.parse("host1, host2:3307,[::1]:3308", 3306));
+    Assertions.assertThrows(
+        IllegalArgumentException.class, () -> HostAddress.parse("host1:port", 3306));
+  }
+
+  @Test
+  void roundRobin() {
+    LoadBalancer loadBalancer =
+        new LoadBalancer(ADDRESSES, LoadBalanceStrategy.ROUND_ROBIN, Duration.ofSeconds(60));
+    for (int i = 0; i < 6; i++) {
+      Assertions.assertEquals(ADDRESSES.get(i % 3), loadBalancer.select().getAddress());
+    }
+  }
+
+  @Test
+  void blacklist() {
+    LoadBalancer loadBalancer =
+        new LoadBalancer(ADDRESSES, LoadBalanceStrategy.ROUND_ROBIN, Duration.ofSeconds(60));
+    loadBalancer.getHosts().get(0).blacklist();
+    for (int i = 0; i < 6; i++) {
+      Assertions.assertNotEquals(ADDRESSES.get(0), loadBalancer.select().getAddress());
+    }
+    loadBalancer.getHosts().get(1).blacklist();
+    loadBalancer.getHosts().get(2).blacklist();
+    Assertions.assertNull(loadBalancer.select());
+
+    // blacklist expiration
+    LoadBalancer expiring =
+        new LoadBalancer(ADDRESSES, LoadBalanceStrategy.ROUND_ROBIN, Duration.ZERO);
+    expiring.getHosts().get(0).blacklist();
+    Assertions.assertFalse(expiring.getHosts().get(0).isBlacklisted());
+  }
+
+  @Test
+  void blacklistDurationMustBePositive() {
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () ->
+            MariadbConnectionConfiguration.builder()
+                .host("127.0.0.1")
+                .username("user")
+                .replicas("127.0.0.1:3307")
+                .blacklistDuration(Duration.ZERO)
+                .build());
+  }
+
+  @Test
+  void latencyWeighted() {
+    LoadBalancer loadBalancer =
+        new LoadBalancer(
+            ADDRESSES.subList(0, 2), LoadBalanceStrategy.LATENCY_WEIGHTED, Duration.ofSeconds(60));
+    loadBalancer.getHosts().get(0).recordLatency(1_000);
+    loadBalancer.getHosts().get(1).recordLatency(1_000_000);
+    int fastSelection = 0;
+    for (int i = 0; i < 1000; i++) {
+      if (loadBalancer.select().getAddress().equals(ADDRESSES.get(0))) fastSelection++;
+    }
+    Assertions.assertTrue(fastSelection > 950, "fast host selected " + fastSelection);
+  }
+
+  @Test
+  void readOnlyTransactionOnReplica() throws Exception {
+    try (StubServer primary = new StubServer();
+        StubServer replica1 = new StubServer();
+        StubServer replica2 = new StubServer()) {
+      MariadbConnectionFactory factory =
+          new MariadbConnectionFactory(
+              configuration(
+                  primary, "127.0.0.1:" + replica1.getPort() + ",127.0.0.1:" + replica2.getPort()));
+
+      MariadbConnection connection = factory.create().block();
+      connection.beginReadOnlyTransaction().block();
+      connection.createStatement("SELECT 1").execute().blockLast();
+      connection.commitTransaction().block();
+      connection.createStatement("SELECT 2").execute().blockLast();
+      connection.close().block();
+
+      // second connection use next replica
+      MariadbConnection connection2 = factory.create().block();
+      connection2.beginReadOnlyTransaction().block();
+      connection2.rollbackTransaction().block();
+      connection2.close().block();
+
+      Assertions.assertEquals(
+          Arrays.asList("START TRANSACTION READ ONLY", "SELECT 1", "COMMIT"),
+          replica1.getQueries());
+      Assertions.assertEquals(
+          Arrays.asList("START TRANSACTION READ ONLY", "ROLLBACK"), replica2.getQueries());
+      Assertions.assertTrue(primary.getQueries().contains("SELECT 2"));
+      Assertions.assertFalse(primary.getQueries().contains("SELECT 1"));
+    }
+  }
+
+  @Test
+  void transactionEndedBySql() throws Exception {
+    try (StubServer primary = new StubServer();
+        StubServer replica = new StubServer()) {
+      MariadbConnection connection =
+          new MariadbConnectionFactory(configuration(primary, "127.0.0.1:" + replica.getPort()))
+              .create()
+              .block();
+      connection.beginReadOnlyTransaction().block();
+      Assertions.assertTrue(connection.validate(ValidationDepth.REMOTE).block());
+      connection.createStatement("SELECT 1").execute().blockLast();
+      connection.createStatement("COMMIT").execute().blockLast();
+      connection.createStatement("SELECT 2").execute().blockLast();
+      connection.close().block();
+
+      Assertions.assertEquals(
+          Arrays.asList("START TRANSACTION READ ONLY", "SELECT 1", "COMMIT"), replica.getQueries());
+      Assertions.assertTrue(replica.getCommands().contains((byte) 0x0e));
+      Assertions.assertTrue(primary.getQueries().contains("SELECT 2"));
+    }
+  }
+
+  @Test
+  void failingReplicaBlacklisted() throws Exception {
+    int unusedPort = StubServer.unusedPort();
+    try (StubServer primary = new StubServer();
+        StubServer replica = new StubServer()) {
+      MariadbConnectionFactory factory =
+          new MariadbConnectionFactory(
+              configuration(
+                  primary, "127.0.0.1:" + unusedPort + ",127.0.0.1:" + replica.getPort()));
+
+      MariadbConnection connection = factory.create().block();
+      connection.beginReadOnlyTransaction().block();
+      connection.commitTransaction().block();
+      connection.close().block();
+
+      Assertions.assertTrue(factory.getLoadBalancer().getHosts().get(0).isBlacklisted());
+      Assertions.assertFalse(factory.getLoadBalancer().getHosts().get(1).isBlacklisted());
+      Assertions.assertEquals(
+          Arrays.asList("START TRANSACTION READ ONLY", "COMMIT"), replica.getQueries());
+    }
+  }
+
+  @Test
+  void noReplicaAvailable() throws Exception {
+    int unusedPort = StubServer.unusedPort();
+    try (StubServer primary = new StubServer()) {
+      MariadbConnectionFactory factory =
+          new MariadbConnectionFactory(configuration(primary, "127.0.0.1:" + unusedPort));
+
+      MariadbConnection connection = factory.create().block();
+      connection.beginReadOnlyTransaction().block();
+      connection.commitTransaction().block();
+      connection.close().block();
+
+      Assertions.assertTrue(primary.getQueries().contains("START TRANSACTION READ ONLY"));
+    }
+  }
+
+  private static MariadbConnectionConfiguration configuration(StubServer primary, String replicas) {
+    return primary.configuration().password("pwd").replicas(replicas).build();
+  }
+}
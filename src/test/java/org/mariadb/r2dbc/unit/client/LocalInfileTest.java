@@ -0,0 +1,128 @@
+/*
+ * Copyright 2020 MariaDB Ab.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mariadb.r2dbc.unit.client;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mariadb.r2dbc.StubServer;
+import org.mariadb.r2dbc.api.MariadbConnection;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+public class LocalInfileTest {
+
+  private static final String SQL = "LOAD DATA LOCAL INFILE 'data' INTO TABLE t";
+
+  @Test
+  void loadGeneratedCsv() throws Exception {
+    try (StubServer server = new StubServer()) {
+      MariadbConnection connection = server.connect(server.configuration().allowLocalInfile(true));
+      Flux<ByteBuf> csv =
+          Flux.range(0, 100_000)
+              .map(i -> Unpooled.copiedBuffer(i + ",name" + i + "\n", StandardCharsets.UTF_8));
+      connection.loadData(SQL, csv).as(StepVerifier::create).expectNext(100_000).verifyComplete();
+      connection.close().block();
+
+      String data = new String(server.getLocalInfileData(), StandardCharsets.UTF_8);
+      Assertions.assertTrue(data.startsWith("0,name0\n1,name1\n"));
+      Assertions.assertTrue(data.endsWith("99999,name99999\n"));
+    }
+  }
+
+  @Test
+  void loadBigBuffer() throws Exception {
+    try (StubServer server = new StubServer()) {
+      MariadbConnection connection = server.connect(server.configuration().allowLocalInfile(true));
+      byte[] line = new byte[1024];
+      Arrays.fill(line, (byte) 'a');
+      line[1023] = '\n';
+      // 20M buffer, bigger than packet maximum size
+      ByteBuf buf = Unpooled.buffer(20 * 1024 * 1024);
+      for (int i = 0; i < 20 * 1024; i++) buf.writeBytes(line);
+      connection
+          .loadData(SQL, Mono.just(buf))
+          .as(StepVerifier::create)
+          .expectNext(20 * 1024)
+          .verifyComplete();
+      connection.close().block();
+      Assertions.assertEquals(20 * 1024 * 1024, server.getLocalInfileData().length);
+    }
+  }
+
+  @Test
+  void dataError() throws Exception {
+    try (StubServer server = new StubServer()) {
+      MariadbConnection connection = server.connect(server.configuration().allowLocalInfile(true));
+      Flux<ByteBuf> failing =
+          Flux.concat(
+              Mono.just(Unpooled.copiedBuffer("1,a\n", StandardCharsets.UTF_8)),
+              Mono.error(new IllegalStateException("generation failure")));
+      connection
+          .loadData(SQL, failing)
+          .as(StepVerifier::create)
+          .verifyErrorMessage("generation failure");
+
+      // connection is still usable
+      connection.createStatement("DO 1").execute().blockLast();
+      connection.close().block();
+      Assertions.assertEquals("1,a\n", new String(server.getLocalInfileData()));
+    }
+  }
+
+  @Test
+  void requiresOption() throws Exception {
+    try (StubServer server = new StubServer()) {
+      MariadbConnection connection = server.connect();
+      connection
+          .loadData(SQL, Mono.just(Unpooled.copiedBuffer("1\n", StandardCharsets.UTF_8)))
+          .as(StepVerifier::create)
+          .verifyError(IllegalStateException.class);
+      connection.close().block();
+
+      // with option, command can only be executed with loadData
+      MariadbConnection allowed = server.connect(server.configuration().allowLocalInfile(true));
+      Assertions.assertThrows(IllegalArgumentException.class, () -> allowed.createStatement(SQL));
+      Assertions.assertThrows(
+          IllegalArgumentException.class, () -> allowed.createBatch().add("DO 1").add(SQL));
+      allowed.close().block();
+      Assertions.assertFalse(server.getQueries().contains(SQL));
+    }
+  }
+
+  @Test
+  void commandAfterLoadWaits() throws Exception {
+    try (StubServer server = new StubServer()) {
+      MariadbConnection connection = server.connect(server.configuration().allowLocalInfile(true));
+      Flux<ByteBuf> slowData =
+          Flux.range(0, 5)
+              .delayElements(java.time.Duration.ofMillis(20))
+              .map(i -> Unpooled.copiedBuffer(i + "\n", StandardCharsets.UTF_8));
+      Mono<Integer> load = connection.loadData(SQL, slowData);
+      Mono<Void> next = connection.createStatement("DO 2").execute().then();
+      Mono.when(load, next).block();
+      connection.close().block();
+
+      Assertions.assertEquals("0\n1\n2\n3\n4\n", new String(server.getLocalInfileData()));
+      Assertions.assertTrue(server.getQueries().indexOf(SQL) < server.getQueries().indexOf("DO 2"));
+    }
+  }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2020 MariaDB Ab.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mariadb.r2dbc.unit.client;
+
+import io.r2dbc.spi.Blob;
+import io.r2dbc.spi.Clob;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mariadb.r2dbc.StubServer;
+import org.mariadb.r2dbc.api.MariadbConnection;
+import org.mariadb.r2dbc.api.MariadbResult;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+public class LongDataTest {
+
+  private static final byte SEND_LONG_DATA = 0x18;
+  private static final byte EXECUTE = 0x17;
+  private static final byte RESET = 0x1a;
+
+  @Test
+  void blobParameter() throws Exception {
+    try (StubServer server = new StubServer()) {
+      MariadbConnection connection =
+          server.connect(server.configuration().useServerPrepStmts(true));
+      // 3M value, produced in 30000 bytes chunks
+      Flux<ByteBuffer> chunks =
+          Flux.range(0, 100)
+              .map(
+                  i -> {
+                    byte[] chunk = new byte[30_000];
+                    Arrays.fill(chunk, (byte) i.intValue());
+                    return ByteBuffer.wrap(chunk);
+                  });
+      connection
+          .createStatement("INSERT INTO t VALUES (?)")
+          .bind(0, Blob.from(chunks))
+          .execute()
+          .flatMap(MariadbResult::getRowsUpdated)
+          .as(StepVerifier::create)
+          .expectNext(1)
+          .verifyComplete();
+      connection.close().block();
+
+      byte[] data = server.getLongData(0);
+      Assertions.assertEquals(3_000_000, data.length);
+      for (int i = 0; i < 100; i++) {
+        Assertions.assertEquals((byte) i, data[i * 30_000]);
+        Assertions.assertEquals((byte) i, data[i * 30_000 + 29_999]);
+      }
+      // data is sent in chunks, all before execution
+      List<Byte> commands = server.getCommands();
+      Assertions.assertEquals(3, commands.stream().filter(c -> c == SEND_LONG_DATA).count());
+      Assertions.assertTrue(
+          commands.lastIndexOf(SEND_LONG_DATA) < commands.indexOf(EXECUTE), commands.toString());
+    }
+  }
+
+  @Test
+  void clobParameter() throws Exception {
+    try (StubServer server = new StubServer()) {
+      MariadbConnection connection =
+          server.connect(server.configuration().useServerPrepStmts(true));
+      connection
+          .createStatement("INSERT INTO t VALUES (?, ?)")
+          .bind(0, 1)
+          .bind(1, Clob.from(Flux.just("some ", "text ", "in €")))
+          .execute()
+          .flatMap(MariadbResult::getRowsUpdated)
+          .blockLast();
+      connection.close().block();
+      Assertions.assertEquals(
+          "some text in €", new String(server.getLongData(1), StandardCharsets.UTF_8));
+      Assertions.assertEquals(0, server.getLongData(0).length);
+    }
+  }
+
+  @Test
+  void emptyBlob() throws Exception {
+    try (StubServer server = new StubServer()) {
+      MariadbConnection connection =
+          server.connect(server.configuration().useServerPrepStmts(true));
+      connection
+          .createStatement("INSERT INTO t VALUES (?)")
+          .bind(0, Blob.from(Flux.empty()))
+          .execute()
+          .flatMap(MariadbResult::getRowsUpdated)
+          .blockLast();
+      connection.close().block();
+      // an empty chunk is sent, so server doesn't read value from execute packet
+      Assertions.assertEquals(
+          1, server.getCommands().stream().filter(c -> c == SEND_LONG_DATA).count());
+    }
+  }
+
+  @Test
+  void publisherError() throws Exception {
+    try (StubServer server = new StubServer()) {
+      MariadbConnection connection =
+          server.connect(server.configuration().useServerPrepStmts(true));
+      Flux<ByteBuffer> failing =
+          Flux.concat(
+              Mono.just(ByteBuffer.wrap(new byte[] {1, 2, 3})),
+              Mono.error(new IllegalStateException("generation failure")));
+      connection
+          .createStatement("INSERT INTO t VALUES (?)")
+          .bind(0, Blob.from(failing))
+          .execute()
+          .flatMap(MariadbResult::getRowsUpdated)
+          .as(StepVerifier::create)
+          .verifyErrorMessage("generation failure");
+
+      // connection is still usable
+      connection.createStatement("DO 1").execute().blockLast();
+      connection.close().block();
+
+      // execution is replaced by a reset, discarding data already sent
+      List<Byte> commands = server.getCommands();
+      Assertions.assertTrue(commands.contains(RESET));
+      Assertions.assertFalse(commands.contains(EXECUTE));
+      Assertions.assertEquals(0, server.getLongData(0).length);
+    }
+  }
+}
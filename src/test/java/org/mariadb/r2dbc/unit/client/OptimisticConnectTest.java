@@ -0,0 +1,69 @@
+/*
+ * Copyright 2020 MariaDB Ab.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mariadb.r2dbc.unit.client;
+
+import java.security.KeyPairGenerator;
+import java.util.Collections;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mariadb.r2dbc.MariadbConnectionFactory;
+import org.mariadb.r2dbc.StubServer;
+import org.mariadb.r2dbc.api.MariadbConnection;
+
+public class OptimisticConnectTest {
+
+  @Test
+  void setupPipelined() throws Exception {
+    try (StubServer server = new StubServer()) {
+      MariadbConnection connection = factory(server).create().block();
+      Assertions.assertTrue(
+          server.getQueries().stream().anyMatch(sql -> sql.contains("wait_timeout=3600")));
+      connection.createStatement("DO 1").execute().blockLast();
+      connection.close().block();
+      Assertions.assertEquals(1, server.getConnections());
+    }
+  }
+
+  @Test
+  void authenticationSwitchFallback() throws Exception {
+    try (StubServer server = new StubServer("8.0.22")) {
+      KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+      generator.initialize(2048);
+      server.cachingSha2Authentication(generator.generateKeyPair());
+      MariadbConnectionFactory factory = factory(server);
+
+      // first connection is authenticated again without pipelining
+      factory.create().block().close().block();
+      Assertions.assertEquals(2, server.getConnections());
+
+      // optimistic connect is then disabled
+      factory.create().block().close().block();
+      Assertions.assertEquals(3, server.getConnections());
+    }
+  }
+
+  private static MariadbConnectionFactory factory(StubServer server) {
+    return new MariadbConnectionFactory(
+        server
+            .configuration()
+            .password("password")
+            .allowPublicKeyRetrieval(true)
+            .optimisticConnect(true)
+            .sessionVariables(Collections.singletonMap("wait_timeout", "3600"))
+            .build());
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2020 MariaDB Ab.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mariadb.r2dbc.unit.client;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mariadb.r2dbc.client.MariadbPacketEncoder;
+import org.mariadb.r2dbc.message.client.LocalInfileDataPacket;
+import org.mariadb.r2dbc.message.client.QueryPacket;
+import org.mariadb.r2dbc.message.server.Sequencer;
+
+public class PacketEncoderTest {
+
+  @Test
+  void singlePacket() {
+    ByteBuf buf = encode(new QueryPacket("SELECT 'é'"));
+    byte[] expected = new byte[] {12, 0, 0, 0, 3};
+    Assertions.assertEquals(16, buf.readableBytes());
+    Assertions.assertArrayEquals(expected, read(buf, 5));
+    Assertions.assertEquals("SELECT 'é'", buf.toString(StandardCharsets.UTF_8));
+    buf.release();
+  }
+
+  @Test
+  void localInfileData() {
+    ByteBuf data = Unpooled.copiedBuffer("prefix-1,2\n", StandardCharsets.UTF_8).skipBytes(7);
+    ByteBuf buf = encode(new LocalInfileDataPacket(new Sequencer((byte) 2), data));
+    Assertions.assertArrayEquals(new byte[] {4, 0, 0, 3}, read(buf, 4));
+    Assertions.assertEquals("1,2\n", buf.toString(StandardCharsets.UTF_8));
+    buf.release();
+    Assertions.assertEquals(0, data.refCnt());
+  }
+
+  @Test
+  void multiPackets() {
+    // payload of 0xffffff + 10 bytes: a full packet, then a 10 bytes packet
+    char[] sql = new char[0xffffff + 9];
+    Arrays.fill(sql, 'a');
+    ByteBuf buf = encode(new QueryPacket(new String(sql)));
+    Assertions.assertEquals(0xffffff + 10 + 8, buf.readableBytes());
+    Assertions.assertArrayEquals(new byte[] {-1, -1, -1, 0, 3}, read(buf, 5));
+    buf.skipBytes(0xffffff - 1);
+    Assertions.assertArrayEquals(new byte[] {10, 0, 0, 1, 'a'}, read(buf, 5));
+    buf.release();
+  }
+
+  @Test
+  void multiPacketsEndingWithEmptyPacket() {
+    char[] sql = new char[0xffffff - 1];
+    Arrays.fill(sql, 'a');
+    ByteBuf buf = encode(new QueryPacket(new String(sql)));
+    Assertions.assertEquals(0xffffff + 8, buf.readableBytes());
+    Assertions.assertArrayEquals(new byte[] {-1, -1, -1, 0, 3}, read(buf, 5));
+    buf.skipBytes(0xffffff - 1);
+    Assertions.assertArrayEquals(new byte[] {0, 0, 0, 1}, read(buf, 4));
+    buf.release();
+  }
+
+  private static ByteBuf encode(Object msg) {
+    EmbeddedChannel channel = new EmbeddedChannel(new MariadbPacketEncoder());
+    Assertions.assertTrue(channel.writeOutbound(msg));
+    ByteBuf buf = channel.readOutbound();
+    Assertions.assertNull(channel.readOutbound());
+    channel.finishAndReleaseAll();
+    return buf;
+  }
+
+  private static byte[] read(ByteBuf buf, int length) {
+    byte[] bytes = new byte[length];
+    buf.readBytes(bytes);
+    return bytes;
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2020 MariaDB Ab.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mariadb.r2dbc.unit.client;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mariadb.r2dbc.StubServer;
+import org.mariadb.r2dbc.api.MariadbConnection;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+public class PipelinedBatchTest {
+
+  @Test
+  void pipelinedBatch() throws Exception {
+    batch(true);
+  }
+
+  @Test
+  void sequentialBatch() throws Exception {
+    batch(false);
+  }
+
+  private void batch(boolean allowPipelining) throws Exception {
+    try (StubServer server = new StubServer()) {
+      MariadbConnection connection =
+          server.connect(server.configuration().allowPipelining(allowPipelining));
+      connection
+          .createBatch()
+          .add("UPDATE ROWS 1")
+          .add("UPDATE ROWS 2")
+          .add("UPDATE ROWS 3")
+          .execute()
+          .concatMap(result -> result.getRowsUpdated())
+          .as(StepVerifier::create)
+          .expectNext(1, 2, 3)
+          .verifyComplete();
+
+      // connection is still usable after batch
+      connection
+          .createStatement("UPDATE ROWS 4")
+          .execute()
+          .concatMap(result -> result.getRowsUpdated())
+          .as(StepVerifier::create)
+          .expectNext(4)
+          .verifyComplete();
+      connection.close().block();
+      Assertions.assertEquals(
+          Arrays.asList("UPDATE ROWS 1", "UPDATE ROWS 2", "UPDATE ROWS 3", "UPDATE ROWS 4"),
+          server.getQueries().stream()
+              .filter(sql -> sql.startsWith("UPDATE"))
+              .collect(Collectors.toList()));
+    }
+  }
+
+  @Test
+  void batchWithError() throws Exception {
+    try (StubServer server = new StubServer()) {
+      MariadbConnection connection = server.connect(server.configuration().allowPipelining(true));
+      // an error only fails the result of its own statement
+      connection
+          .createBatch()
+          .add("UPDATE ROWS 1")
+          .add("FAIL")
+          .add("UPDATE ROWS 3")
+          .execute()
+          .concatMap(result -> result.getRowsUpdated().onErrorResume(t -> Mono.just(-1)))
+          .as(StepVerifier::create)
+          .expectNext(1, -1, 3)
+          .verifyComplete();
+      connection.close().block();
+    }
+  }
+}
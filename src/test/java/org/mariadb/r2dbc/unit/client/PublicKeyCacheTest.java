@@ -0,0 +1,88 @@
+/*
+ * Copyright 2020 MariaDB Ab.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mariadb.r2dbc.unit.client;
+
+import io.r2dbc.spi.R2dbcNonTransientResourceException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mariadb.r2dbc.MariadbConnectionConfiguration;
+import org.mariadb.r2dbc.MariadbConnectionFactory;
+import org.mariadb.r2dbc.StubServer;
+import org.mariadb.r2dbc.api.MariadbConnection;
+import reactor.test.StepVerifier;
+
+public class PublicKeyCacheTest {
+
+  @Test
+  void publicKeyRetrievedOnce() throws Exception {
+    try (StubServer server = new StubServer("8.0.22")) {
+      server.cachingSha2Authentication(keyPair());
+      MariadbConnectionFactory factory = factory(server);
+      for (int i = 0; i < 3; i++) {
+        MariadbConnection connection = factory.create().block();
+        connection.close().block();
+      }
+      Assertions.assertEquals(1, server.getPublicKeyRequests());
+    }
+  }
+
+  @Test
+  void cachePerFactory() throws Exception {
+    try (StubServer server = new StubServer("8.0.22")) {
+      server.cachingSha2Authentication(keyPair());
+      MariadbConnectionConfiguration conf = configuration(server);
+      new MariadbConnectionFactory(conf).create().block().close().block();
+      new MariadbConnectionFactory(conf).create().block().close().block();
+      Assertions.assertEquals(2, server.getPublicKeyRequests());
+    }
+  }
+
+  @Test
+  void serverKeyChange() throws Exception {
+    try (StubServer server = new StubServer("8.0.22")) {
+      server.cachingSha2Authentication(keyPair());
+      MariadbConnectionFactory factory = factory(server);
+      factory.create().block().close().block();
+
+      // cached key is refused, then retrieved again
+      server.cachingSha2Authentication(keyPair());
+      factory
+          .create()
+          .as(StepVerifier::create)
+          .expectError(R2dbcNonTransientResourceException.class)
+          .verify();
+      factory.create().block().close().block();
+      Assertions.assertEquals(2, server.getPublicKeyRequests());
+    }
+  }
+
+  private static MariadbConnectionFactory factory(StubServer server) {
+    return new MariadbConnectionFactory(configuration(server));
+  }
+
+  private static MariadbConnectionConfiguration configuration(StubServer server) {
+    return server.configuration().password("password").allowPublicKeyRetrieval(true).build();
+  }
+
+  private static KeyPair keyPair() throws Exception {
+    KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+    generator.initialize(2048);
+    return generator.generateKeyPair();
+  }
+}
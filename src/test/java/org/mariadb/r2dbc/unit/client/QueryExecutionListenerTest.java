@@ -0,0 +1,133 @@
+/*
+ * Copyright 2020 MariaDB Ab.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mariadb.r2dbc.unit.client;
+
+import io.r2dbc.spi.R2dbcException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mariadb.r2dbc.StubServer;
+import org.mariadb.r2dbc.api.MariadbConnection;
+import org.mariadb.r2dbc.api.QueryExecutionInfo;
+import org.mariadb.r2dbc.api.QueryExecutionListener;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+public class QueryExecutionListenerTest {
+
+  @Test
+  void queryExecutions() throws Exception {
+    RecordingListener listener = new RecordingListener();
+    try (StubServer server = new StubServer()) {
+      MariadbConnection connection =
+          server.connect(
+              server.configuration().useServerPrepStmts(false).queryExecutionListener(listener));
+      connection
+          .createStatement("SELECT 5 ROWS")
+          .execute()
+          .flatMap(r -> r.map((row, metadata) -> row.get(0)))
+          .blockLast();
+      connection
+          .createStatement("FAIL query")
+          .execute()
+          .flatMap(r -> r.getRowsUpdated())
+          .as(StepVerifier::create)
+          .verifyError();
+      connection.close().block();
+    }
+
+    QueryExecutionInfo select = listener.ended("SELECT 5 ROWS");
+    Assertions.assertEquals(5, select.getRowCount());
+    Assertions.assertTrue(select.getReceivedBytes() > 0);
+    Assertions.assertTrue(select.getElapsedNanos() >= select.getServerNanos());
+    Assertions.assertNull(select.getFailure());
+    Assertions.assertEquals(1, select.getConnectionId());
+    Assertions.assertEquals("started", select.getAttachment());
+
+    QueryExecutionInfo failed = listener.ended("FAIL query");
+    Assertions.assertTrue(failed.getFailure() instanceof R2dbcException);
+    Assertions.assertEquals(0, failed.getRowCount());
+  }
+
+  @Test
+  void pipelinedQueueWait() throws Exception {
+    RecordingListener listener = new RecordingListener();
+    try (StubServer server = new StubServer()) {
+      MariadbConnection connection =
+          server.connect(server.configuration().queryExecutionListener(listener));
+      Flux.merge(
+              connection.createStatement("SLEEP 200").execute().flatMap(r -> r.getRowsUpdated()),
+              connection.createStatement("DO 1").execute().flatMap(r -> r.getRowsUpdated()))
+          .blockLast();
+      connection.close().block();
+    }
+
+    // pipelined command waits for previous command response, not counted as server time
+    QueryExecutionInfo sleep = listener.ended("SLEEP 200");
+    QueryExecutionInfo next = listener.ended("DO 1");
+    Assertions.assertTrue(sleep.getServerNanos() >= 150_000_000L, sleep.toString());
+    Assertions.assertTrue(next.getQueueWaitNanos() >= 150_000_000L, next.toString());
+    Assertions.assertTrue(next.getServerNanos() < 100_000_000L, next.toString());
+  }
+
+  @Test
+  void preparedExecution() throws Exception {
+    RecordingListener listener = new RecordingListener();
+    try (StubServer server = new StubServer()) {
+      MariadbConnection connection =
+          server.connect(
+              server.configuration().useServerPrepStmts(true).queryExecutionListener(listener));
+      connection
+          .createStatement("INSERT INTO t VALUES (?, ?)")
+          .bind(0, 1)
+          .bind(1, "a")
+          .execute()
+          .flatMap(r -> r.getRowsUpdated())
+          .blockLast();
+      connection.close().block();
+    }
+
+    QueryExecutionInfo insert = listener.ended("INSERT INTO t VALUES (?, ?)");
+    Assertions.assertEquals(2, insert.getParameterCount());
+    Assertions.assertNull(insert.getFailure());
+    Assertions.assertEquals(listener.started.size(), listener.ended.size());
+  }
+
+  private static class RecordingListener implements QueryExecutionListener {
+    private final List<QueryExecutionInfo> started = new CopyOnWriteArrayList<>();
+    private final List<QueryExecutionInfo> ended = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void beforeQuery(QueryExecutionInfo execution) {
+      execution.setAttachment("started");
+      started.add(execution);
+    }
+
+    @Override
+    public void afterQuery(QueryExecutionInfo execution) {
+      ended.add(execution);
+    }
+
+    QueryExecutionInfo ended(String sql) {
+      return ended.stream()
+          .filter(execution -> sql.equals(execution.getSql()))
+          .findFirst()
+          .orElseThrow(() -> new AssertionError("no execution of " + sql));
+    }
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2020 MariaDB Ab.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mariadb.r2dbc.unit.client;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mariadb.r2dbc.StubServer;
+import org.mariadb.r2dbc.api.MariadbConnection;
+import org.mariadb.r2dbc.api.MariadbResult;
+import reactor.test.StepVerifier;
+
+public class ResultCancelTest {
+
+  @Test
+  void discardCancelledRows() throws Exception {
+    try (StubServer server = new StubServer()) {
+      MariadbConnection connection = server.connect(server.configuration().killQueryThreshold(0));
+      selectTen(connection, "SELECT 100000 ROWS");
+      // remaining rows have been skipped: connection can execute next command
+      connection
+          .createStatement("UPDATE ROWS 3")
+          .execute()
+          .flatMap(MariadbResult::getRowsUpdated)
+          .as(StepVerifier::create)
+          .expectNext(3)
+          .verifyComplete();
+      Assertions.assertFalse(server.getQueries().stream().anyMatch(q -> q.startsWith("KILL")));
+      connection.close().block();
+    }
+  }
+
+  @Test
+  void killQueryOnCancel() throws Exception {
+    try (StubServer server = new StubServer()) {
+      MariadbConnection connection =
+          server.connect(server.configuration().killQueryThreshold(1000));
+      selectTen(connection, "SELECT 10000000 ROWS");
+      // server stops sending rows once query is killed
+      connection
+          .createStatement("UPDATE ROWS 3")
+          .execute()
+          .flatMap(MariadbResult::getRowsUpdated)
+          .as(StepVerifier::create)
+          .expectNext(3)
+          .expectComplete()
+          .verify(Duration.ofSeconds(30));
+      Assertions.assertTrue(server.getQueries().contains("KILL QUERY 1"));
+      connection.close().block();
+    }
+  }
+
+  private static void selectTen(MariadbConnection connection, String sql) {
+    connection
+        .createStatement(sql)
+        .execute()
+        .flatMap(result -> result.map((row, metadata) -> row.get(0, Integer.class)))
+        .take(10)
+        .as(StepVerifier::create)
+        .expectNext(1, 2, 3, 4, 5, 6, 7, 8, 9, 10)
+        .verifyComplete();
+  }
+}
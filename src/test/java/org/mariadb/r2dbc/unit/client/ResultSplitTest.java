@@ -0,0 +1,92 @@
+/*
+ * Copyright 2020 MariaDB Ab.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mariadb.r2dbc.unit.client;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.mariadb.r2dbc.StubServer;
+import org.mariadb.r2dbc.api.MariadbConnection;
+import org.mariadb.r2dbc.api.MariadbResult;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+public class ResultSplitTest {
+
+  @Test
+  void resultsConsumedLater() throws Exception {
+    try (StubServer server = new StubServer()) {
+      MariadbConnection connection = server.connect();
+      // results are all received before being consumed: their messages are queued
+      List<MariadbResult> results =
+          connection
+              .createBatch()
+              .add("UPDATE ROWS 1")
+              .add("UPDATE ROWS 2")
+              .add("UPDATE ROWS 3")
+              .execute()
+              .collectList()
+              .block();
+      Flux.fromIterable(results)
+          .concatMap(MariadbResult::getRowsUpdated)
+          .as(StepVerifier::create)
+          .expectNext(1, 2, 3)
+          .verifyComplete();
+      connection.close().block();
+    }
+  }
+
+  @Test
+  void resultConsumedOnce() throws Exception {
+    try (StubServer server = new StubServer()) {
+      MariadbConnection connection = server.connect();
+      MariadbResult result = connection.createStatement("UPDATE ROWS 5").execute().blockLast();
+      result.getRowsUpdated().as(StepVerifier::create).expectNext(5).verifyComplete();
+      result
+          .getRowsUpdated()
+          .as(StepVerifier::create)
+          .verifyErrorMessage("Result can be consumed only once");
+      connection.close().block();
+    }
+  }
+
+  @Test
+  void cancelResults() throws Exception {
+    try (StubServer server = new StubServer()) {
+      MariadbConnection connection = server.connect();
+      // only first result is consumed, connection remains usable
+      connection
+          .createBatch()
+          .add("UPDATE ROWS 1")
+          .add("UPDATE ROWS 2")
+          .add("UPDATE ROWS 3")
+          .execute()
+          .take(1)
+          .concatMap(MariadbResult::getRowsUpdated)
+          .as(StepVerifier::create)
+          .expectNext(1)
+          .verifyComplete();
+      connection
+          .createStatement("UPDATE ROWS 4")
+          .execute()
+          .concatMap(MariadbResult::getRowsUpdated)
+          .as(StepVerifier::create)
+          .expectNext(4)
+          .verifyComplete();
+      connection.close().block();
+    }
+  }
+}
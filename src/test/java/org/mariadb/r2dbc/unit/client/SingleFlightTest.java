@@ -0,0 +1,248 @@
+/*
+ * Copyright 2020 MariaDB Ab.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mariadb.r2dbc.unit.client;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mariadb.r2dbc.MariadbConnectionFactory;
+import org.mariadb.r2dbc.StubServer;
+import org.mariadb.r2dbc.api.MariadbConnection;
+import org.mariadb.r2dbc.api.MariadbStatement;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public class SingleFlightTest {
+
+  @Test
+  void identicalQueriesShareExecution() throws Exception {
+    try (StubServer server = new StubServer()) {
+      MariadbConnectionFactory factory = factory(server);
+      MariadbConnection connection = factory.create().block();
+
+      // queries are queued behind a slow command, so they are all executing at the same time
+      List<List<Integer>> results =
+          Flux.merge(
+                  update(connection, "DO SLEEP 200"),
+                  rows(connection, "SELECT 3 ROWS"),
+                  firstRow(connection, "SELECT 3 ROWS"),
+                  rows(connection, "SELECT ? ROWS", 3),
+                  rows(connection, "SELECT 2 ROWS"),
+                  rows(connection, "SELECT 3 ROWS"))
+              .filter(list -> !list.isEmpty())
+              .collectList()
+              .block();
+
+      Assertions.assertEquals(5, results.size());
+      Assertions.assertTrue(results.contains(Arrays.asList(1, 2)));
+      Assertions.assertTrue(results.contains(Arrays.asList(1)));
+      Assertions.assertEquals(
+          3, results.stream().filter(Arrays.asList(1, 2, 3)::equals).count(), results.toString());
+      Assertions.assertEquals(1, count(server.getQueries(), "SELECT 3 ROWS"));
+      Assertions.assertEquals(2, factory.getSingleFlight().getExecutions());
+      Assertions.assertEquals(3, factory.getSingleFlight().getCollapsed());
+      Assertions.assertEquals(0, factory.getSingleFlight().getInFlight());
+
+      // a query executed once the previous one has ended is sent again
+      Assertions.assertEquals(Arrays.asList(1, 2, 3), rows(connection, "SELECT 3 ROWS").block());
+      Assertions.assertEquals(2, count(server.getQueries(), "SELECT 3 ROWS"));
+      connection.close().block();
+    }
+  }
+
+  @Test
+  void noSharingInTransaction() throws Exception {
+    try (StubServer server = new StubServer()) {
+      MariadbConnectionFactory factory = factory(server);
+      MariadbConnection connection = factory.create().block();
+      connection.beginTransaction().block();
+      Flux.merge(
+              update(connection, "DO SLEEP 100"),
+              rows(connection, "SELECT 3 ROWS"),
+              rows(connection, "SELECT 3 ROWS"))
+          .blockLast();
+      connection.commitTransaction().block();
+      Assertions.assertEquals(2, count(server.getQueries(), "SELECT 3 ROWS"));
+      Assertions.assertEquals(0, factory.getSingleFlight().getCollapsed());
+      connection.close().block();
+    }
+  }
+
+  @Test
+  void sessionDependentQueriesNotShared() throws Exception {
+    List<String> queries =
+        Arrays.asList(
+            "SET @v = 1",
+            "USE db",
+            "DO GET_LOCK('l', 1)",
+            "SELECT LAST_INSERT_ID()",
+            "SELECT CONNECTION_ID()",
+            "SELECT @v",
+            "SELECT @@session.autocommit",
+            "SELECT a FROM t FOR UPDATE",
+            "SELECT a FROM t LOCK IN SHARE MODE",
+            "SELECT a INTO @v FROM t",
+            "SELECT NEXT VALUE FOR s",
+            "SHOW WARNINGS",
+            "SELECT 1; SELECT 2",
+            "START TRANSACTION");
+    try (StubServer server = new StubServer()) {
+      MariadbConnectionFactory factory = factory(server);
+      MariadbConnection connection = factory.create().block();
+      List<Mono<List<Integer>>> executions = new ArrayList<>();
+      executions.add(update(connection, "DO SLEEP 200"));
+      for (String sql : queries) {
+        executions.add(update(connection, sql));
+        executions.add(update(connection, sql));
+      }
+      Flux.merge(executions).blockLast();
+      for (String sql : queries) {
+        Assertions.assertEquals(2, count(server.getQueries(), sql), sql);
+      }
+      Assertions.assertEquals(0, factory.getSingleFlight().getCollapsed());
+      connection.close().block();
+    }
+  }
+
+  @Test
+  void noSharingWithTemporaryTables() throws Exception {
+    try (StubServer server = new StubServer()) {
+      MariadbConnectionFactory factory = factory(server);
+      MariadbConnection connection = factory.create().block();
+      update(connection, "CREATE TEMPORARY TABLE t (a int)").block();
+      Flux.merge(
+              update(connection, "DO SLEEP 100"),
+              rows(connection, "SELECT 3 ROWS"),
+              rows(connection, "SELECT 3 ROWS"))
+          .blockLast();
+      Assertions.assertEquals(2, count(server.getQueries(), "SELECT 3 ROWS"));
+      Assertions.assertEquals(0, factory.getSingleFlight().getCollapsed());
+
+      // reset drops temporary tables: queries are shared again
+      connection.reset().block();
+      Flux.merge(
+              update(connection, "DO SLEEP 100"),
+              rows(connection, "SELECT 3 ROWS"),
+              rows(connection, "SELECT 3 ROWS"))
+          .blockLast();
+      Assertions.assertEquals(3, count(server.getQueries(), "SELECT 3 ROWS"));
+      Assertions.assertEquals(1, factory.getSingleFlight().getCollapsed());
+      connection.close().block();
+    }
+  }
+
+  @Test
+  void noSharingWithSessionVariables() throws Exception {
+    try (StubServer server = new StubServer()) {
+      MariadbConnectionFactory factory =
+          new MariadbConnectionFactory(
+              server
+                  .configuration()
+                  .singleFlight(true)
+                  .sessionVariables(Collections.singletonMap("sql_mode", "'ANSI'"))
+                  .build());
+      MariadbConnection connection = factory.create().block();
+
+      // configured session variables are set on all connections
+      update(connection, "SET @v = 1, autocommit = 1").block();
+      Flux.merge(
+              update(connection, "DO SLEEP 100"),
+              rows(connection, "SELECT 3 ROWS"),
+              rows(connection, "SELECT 3 ROWS"))
+          .blockLast();
+      Assertions.assertEquals(1, count(server.getQueries(), "SELECT 3 ROWS"));
+
+      update(connection, "SET SESSION time_zone = '+01:00'").block();
+      Flux.merge(
+              update(connection, "DO SLEEP 100"),
+              rows(connection, "SELECT 3 ROWS"),
+              rows(connection, "SELECT 3 ROWS"))
+          .blockLast();
+      Assertions.assertEquals(3, count(server.getQueries(), "SELECT 3 ROWS"));
+      Assertions.assertEquals(1, factory.getSingleFlight().getCollapsed());
+      connection.close().block();
+    }
+  }
+
+  @Test
+  void noSharingOfQueriesStartedBeforeWrite() throws Exception {
+    try (StubServer server = new StubServer()) {
+      MariadbConnectionFactory factory = factory(server);
+      MariadbConnection first = factory.create().block();
+      MariadbConnection second = factory.create().block();
+      MariadbConnection third = factory.create().block();
+
+      // query queued on first connection is started before write of second connection
+      Mono<Void> running =
+          Flux.merge(update(first, "DO SLEEP 200"), rows(first, "SELECT 3 ROWS")).then().cache();
+      running.subscribe();
+      Thread.sleep(50);
+      Mono<List<Integer>> joining = rows(third, "SELECT 3 ROWS").cache();
+      joining.subscribe();
+      update(second, "INSERT INTO t VALUES (1)").block();
+      Assertions.assertEquals(Arrays.asList(1, 2, 3), rows(second, "SELECT 3 ROWS").block());
+      Assertions.assertEquals(1, count(server.getQueries(), "SELECT 3 ROWS"));
+      running.block();
+      Assertions.assertEquals(Arrays.asList(1, 2, 3), joining.block());
+
+      // connection without write received the response of the first query
+      Assertions.assertEquals(2, count(server.getQueries(), "SELECT 3 ROWS"));
+      Assertions.assertEquals(1, factory.getSingleFlight().getCollapsed());
+      first.close().block();
+      second.close().block();
+      third.close().block();
+    }
+  }
+
+  private static MariadbConnectionFactory factory(StubServer server) {
+    return new MariadbConnectionFactory(server.configuration().singleFlight(true).build());
+  }
+
+  private static Mono<List<Integer>> rows(
+      MariadbConnection connection, String sql, Object... params) {
+    MariadbStatement statement = connection.createStatement(sql);
+    for (int i = 0; i < params.length; i++) statement.bind(i, params[i]);
+    return statement
+        .execute()
+        .flatMap(r -> r.map((row, metadata) -> row.get(0, Integer.class)))
+        .collectList();
+  }
+
+  private static Mono<List<Integer>> firstRow(MariadbConnection connection, String sql) {
+    return connection
+        .createStatement(sql)
+        .execute()
+        .flatMap(r -> r.map((row, metadata) -> row.get(0, Integer.class)))
+        .take(1)
+        .collectList();
+  }
+
+  private static Mono<List<Integer>> update(MariadbConnection connection, String sql) {
+    return connection
+        .createStatement(sql)
+        .execute()
+        .flatMap(r -> r.getRowsUpdated())
+        .then(Mono.just(Collections.emptyList()));
+  }
+
+  private static long count(List<String> queries, String sql) {
+    return queries.stream().filter(sql::equals).count();
+  }
+}
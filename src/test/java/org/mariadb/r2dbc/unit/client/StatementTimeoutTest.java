@@ -0,0 +1,114 @@
+/*
+ * Copyright 2020 MariaDB Ab.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mariadb.r2dbc.unit.client;
+
+import io.r2dbc.spi.R2dbcTimeoutException;
+import java.time.Duration;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mariadb.r2dbc.StubServer;
+import org.mariadb.r2dbc.api.MariadbConnection;
+import org.mariadb.r2dbc.api.MariadbResult;
+import org.mariadb.r2dbc.api.MariadbStatement;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+public class StatementTimeoutTest {
+
+  @Test
+  void serverTimeout() throws Exception {
+    try (StubServer server = new StubServer()) {
+      MariadbConnection connection =
+          server.connect(server.configuration().statementTimeout(Duration.ofMillis(1500)));
+      rowsUpdated(connection.createStatement("UPDATE ROWS 1"), 1);
+      rowsUpdated(connection.createStatement("UPDATE ROWS ?").bind(0, 2), 2);
+      rowsUpdated(connection.createStatement("UPDATE ROWS 3").timeout(Duration.ofMillis(250)), 3);
+      rowsUpdated(connection.createStatement("UPDATE ROWS 4").timeout(null), 4);
+      Assertions.assertEquals(
+          "SET STATEMENT max_statement_time=1.5 FOR UPDATE ROWS 1", server.getQueries().get(1));
+      Assertions.assertEquals(
+          "SET STATEMENT max_statement_time=1.5 FOR UPDATE ROWS 2", server.getQueries().get(2));
+      Assertions.assertEquals(
+          "SET STATEMENT max_statement_time=0.25 FOR UPDATE ROWS 3", server.getQueries().get(3));
+      Assertions.assertEquals("UPDATE ROWS 4", server.getQueries().get(4));
+      connection.close().block();
+    }
+  }
+
+  @Test
+  void clientTimeout() throws Exception {
+    try (StubServer server = new StubServer("8.0.22")) {
+      MariadbConnection connection =
+          server.connect(server.configuration().statementTimeout(Duration.ofMillis(200)));
+      long start = System.nanoTime();
+      connection
+          .createStatement("SLEEP 20000")
+          .execute()
+          .flatMap(MariadbResult::getRowsUpdated)
+          .as(StepVerifier::create)
+          .expectError(R2dbcTimeoutException.class)
+          .verify(Duration.ofSeconds(10));
+      Assertions.assertTrue(System.nanoTime() - start < Duration.ofSeconds(10).toNanos());
+
+      // query is killed, so connection can execute next command
+      rowsUpdated(connection.createStatement("UPDATE ROWS 1"), 1);
+      Assertions.assertTrue(server.getQueries().contains("KILL QUERY 1"));
+      Assertions.assertTrue(server.getQueries().contains("SLEEP 20000"));
+      connection.close().block();
+    }
+  }
+
+  @Test
+  void clientTimeoutStartsWhenExecuted() throws Exception {
+    try (StubServer server = new StubServer("8.0.22")) {
+      MariadbConnection connection = server.connect(server.configuration().statementTimeout(null));
+      // pipelined behind a longer query: timer must not kill it
+      Flux.merge(
+              connection.createStatement("SLEEP 600").execute().flatMap(r -> r.getRowsUpdated()),
+              connection
+                  .createStatement("UPDATE ROWS 1")
+                  .timeout(Duration.ofMillis(200))
+                  .execute()
+                  .flatMap(r -> r.getRowsUpdated()))
+          .as(StepVerifier::create)
+          .expectNext(0, 1)
+          .verifyComplete();
+      Assertions.assertFalse(server.getQueries().contains("KILL QUERY 1"));
+      connection.close().block();
+    }
+  }
+
+  @Test
+  void invalidTimeout() throws Exception {
+    try (StubServer server = new StubServer()) {
+      MariadbConnection connection = server.connect(server.configuration().statementTimeout(null));
+      Assertions.assertThrows(
+          IllegalArgumentException.class,
+          () -> connection.createStatement("UPDATE ROWS 1").timeout(Duration.ZERO));
+      connection.close().block();
+    }
+  }
+
+  private static void rowsUpdated(MariadbStatement statement, int expected) {
+    statement
+        .execute()
+        .flatMap(MariadbResult::getRowsUpdated)
+        .as(StepVerifier::create)
+        .expectNext(expected)
+        .verifyComplete();
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2020 MariaDB Ab.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mariadb.r2dbc.unit.client;
+
+import io.r2dbc.spi.R2dbcNonTransientResourceException;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mariadb.r2dbc.MariadbConnectionConfiguration;
+import org.mariadb.r2dbc.MariadbConnectionFactory;
+import org.mariadb.r2dbc.StubServer;
+import org.mariadb.r2dbc.api.MariadbConnection;
+import org.mariadb.r2dbc.api.MariadbResult;
+import reactor.test.StepVerifier;
+
+public class WarmUpTest {
+
+  @Test
+  void warmUpPrepareStatements() throws Exception {
+    try (StubServer server = new StubServer()) {
+      MariadbConnectionConfiguration conf =
+          server
+              .configuration()
+              .useServerPrepStmts(true)
+              .maxConcurrentHandshakes(2)
+              .warmUpStatements("UPDATE ROWS ?", "UPDATE ROWS 1")
+              .build();
+      List<MariadbConnection> connections =
+          new MariadbConnectionFactory(conf).warmUp(5).collectList().block();
+      Assertions.assertEquals(5, connections.size());
+      Assertions.assertEquals(5, server.getConnections());
+      // statement without parameter is not prepared
+      Assertions.assertEquals(5, count(server.getCommands(), (byte) 0x16));
+
+      // prepared statement is already in cache
+      connections
+          .get(0)
+          .createStatement("UPDATE ROWS ?")
+          .bind(0, 1)
+          .execute()
+          .flatMap(MariadbResult::getRowsUpdated)
+          .as(StepVerifier::create)
+          .expectNext(1)
+          .verifyComplete();
+      Assertions.assertEquals(5, count(server.getCommands(), (byte) 0x16));
+      Assertions.assertEquals(0, count(server.getCommands(), (byte) 0x19));
+
+      for (MariadbConnection connection : connections) connection.close().block();
+    }
+  }
+
+  @Test
+  void connectRetries() throws Exception {
+    MariadbConnectionConfiguration conf =
+        MariadbConnectionConfiguration.builder()
+            .host("127.0.0.1")
+            .port(StubServer.unusedPort())
+            .username("user")
+            .connectRetries(2)
+            .build();
+    long start = System.nanoTime();
+    new MariadbConnectionFactory(conf)
+        .create()
+        .as(StepVerifier::create)
+        .expectError(R2dbcNonTransientResourceException.class)
+        .verify(Duration.ofSeconds(10));
+    // two retries, after at least 50ms and 100ms with jitter
+    Assertions.assertTrue(System.nanoTime() - start >= Duration.ofMillis(150).toNanos());
+  }
+
+  @Test
+  void connectRetriesTooManyConnections() throws Exception {
+    try (StubServer server = new StubServer()) {
+      server.refuseConnections(2);
+      MariadbConnectionConfiguration conf = server.configuration().connectRetries(2).build();
+      MariadbConnection connection = new MariadbConnectionFactory(conf).create().block();
+      Assertions.assertEquals(3, server.getConnections());
+      connection.close().block();
+    }
+  }
+
+  @Test
+  void authenticationFailureNotRetried() throws Exception {
+    try (StubServer server = new StubServer()) {
+      server.denyAuthentication();
+      MariadbConnectionConfiguration conf = server.configuration().connectRetries(2).build();
+      new MariadbConnectionFactory(conf)
+          .create()
+          .as(StepVerifier::create)
+          .expectErrorMatches(
+              e ->
+                  e instanceof R2dbcNonTransientResourceException
+                      && e.getMessage().contains("Access denied"))
+          .verify(Duration.ofSeconds(10));
+      Assertions.assertEquals(1, server.getConnections());
+    }
+  }
+
+  private static int count(List<Byte> commands, byte command) {
+    int count = 0;
+    for (Byte b : commands) {
+      if (b == command) count++;
+    }
+    return count;
+  }
+}
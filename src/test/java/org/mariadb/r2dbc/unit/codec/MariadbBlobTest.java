@@ -0,0 +1,97 @@
+/*
+ * Copyright 2020 MariaDB Ab.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mariadb.r2dbc.unit.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mariadb.r2dbc.codec.MariadbBlob;
+import reactor.test.StepVerifier;
+
+public class MariadbBlobTest {
+
+  @Test
+  void streamReleasesBuffer() {
+    ByteBuf packet = Unpooled.copiedBuffer("headervalue", StandardCharsets.UTF_8);
+    packet.skipBytes(6);
+    MariadbBlob blob = new MariadbBlob(packet.readRetainedSlice(5));
+    packet.release();
+    Assertions.assertEquals(1, packet.refCnt());
+
+    blob.stream()
+        .as(StepVerifier::create)
+        .consumeNextWith(buf -> Assertions.assertEquals("value", toString(buf)))
+        .verifyComplete();
+    Assertions.assertEquals(0, packet.refCnt());
+
+    blob.stream()
+        .as(StepVerifier::create)
+        .verifyErrorMessage("Blob has already been consumed or discarded");
+  }
+
+  @Test
+  void discardReleasesBuffer() {
+    ByteBuf packet = Unpooled.copiedBuffer("value", StandardCharsets.UTF_8);
+    MariadbBlob blob = new MariadbBlob(packet);
+    blob.discard().as(StepVerifier::create).verifyComplete();
+    Assertions.assertEquals(0, packet.refCnt());
+    // discarding twice has no effect
+    blob.discard().as(StepVerifier::create).verifyComplete();
+  }
+
+  @Test
+  void cancelReleasesBuffer() {
+    ByteBuf packet = Unpooled.copiedBuffer("value", StandardCharsets.UTF_8);
+    MariadbBlob blob = new MariadbBlob(packet);
+    blob.stream().as(StepVerifier::create).thenCancel().verify();
+    Assertions.assertEquals(0, packet.refCnt());
+  }
+
+  @Test
+  void multipartStreamedByPart() {
+    CompositeByteBuf multipart = Unpooled.compositeBuffer(Integer.MAX_VALUE);
+    multipart.addComponent(true, Unpooled.copiedBuffer("hdpart1", StandardCharsets.UTF_8));
+    multipart.addComponent(true, Unpooled.copiedBuffer("part2", StandardCharsets.UTF_8));
+    multipart.addComponent(true, Unpooled.copiedBuffer("part3", StandardCharsets.UTF_8));
+    multipart.skipBytes(2);
+    MariadbBlob blob = new MariadbBlob(multipart.readRetainedSlice(15));
+    multipart.release();
+
+    blob.stream()
+        .as(StepVerifier::create)
+        .consumeNextWith(buf -> Assertions.assertEquals("part1", toString(buf)))
+        .consumeNextWith(buf -> Assertions.assertEquals("part2", toString(buf)))
+        .consumeNextWith(buf -> Assertions.assertEquals("part3", toString(buf)))
+        .verifyComplete();
+    Assertions.assertEquals(0, multipart.refCnt());
+  }
+
+  @Test
+  void emptyValue() {
+    ByteBuf packet = Unpooled.buffer(0);
+    new MariadbBlob(packet).stream().as(StepVerifier::create).verifyComplete();
+    Assertions.assertEquals(0, packet.refCnt());
+  }
+
+  private static String toString(ByteBuffer buf) {
+    return StandardCharsets.UTF_8.decode(buf).toString();
+  }
+}
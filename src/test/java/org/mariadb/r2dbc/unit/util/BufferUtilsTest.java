@@ -0,0 +1,95 @@
+/*
+ * Copyright 2020 MariaDB Ab.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mariadb.r2dbc.unit.util;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mariadb.r2dbc.client.ConnectionContext;
+import org.mariadb.r2dbc.util.BufferUtils;
+import org.mariadb.r2dbc.util.constants.ServerStatus;
+
+public class BufferUtilsTest {
+
+  private static final ConnectionContext BACKSLASH_CONTEXT = context((short) 0);
+  private static final ConnectionContext NO_BACKSLASH_CONTEXT =
+      context(ServerStatus.NO_BACKSLASH_ESCAPES);
+
+  @Test
+  void writeString() {
+    checkString("'plain ascii'", "plain ascii", BACKSLASH_CONTEXT);
+    checkString("''", "", BACKSLASH_CONTEXT);
+    checkString("'it\\'s \\\"q\\\" \\\\ \\\0'", "it's \"q\" \\ \0", BACKSLASH_CONTEXT);
+    checkString("'\\'\\''", "''", BACKSLASH_CONTEXT);
+    checkString("'it''s \"q\" \\ '", "it's \"q\" \\ ", NO_BACKSLASH_CONTEXT);
+    checkString("'éèà \\' 你好 🤘💪'", "éèà ' 你好 🤘💪", BACKSLASH_CONTEXT);
+    // malformed surrogates
+    checkString("'a?b?'", "a\uDC00b\uD83C", BACKSLASH_CONTEXT);
+  }
+
+  @Test
+  void writeStringWithoutEscape() {
+    ByteBuf buf = Unpooled.buffer(0);
+    BufferUtils.write(buf, "it's é", false, false, BACKSLASH_CONTEXT);
+    Assertions.assertEquals("it's é", buf.toString(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void writeLargeString() {
+    StringBuilder sb = new StringBuilder();
+    StringBuilder expected = new StringBuilder("'");
+    for (int i = 0; i < 10_000; i++) {
+      sb.append("{\"key\":\"valué\"}");
+      expected.append("{\\\"key\\\":\\\"valué\\\"}");
+    }
+    checkString(expected.append("'").toString(), sb.toString(), BACKSLASH_CONTEXT);
+  }
+
+  @Test
+  void writeEscapedBytes() {
+    byte[] bytes = "_it's \"q\" \\ \0_".getBytes(StandardCharsets.UTF_8);
+    ByteBuf buf = Unpooled.buffer(0);
+    BufferUtils.writeEscaped(buf, bytes, 1, bytes.length - 2, BACKSLASH_CONTEXT);
+    Assertions.assertEquals("it\\'s \\\"q\\\" \\\\ \\\0", buf.toString(StandardCharsets.UTF_8));
+
+    buf = Unpooled.buffer(0);
+    BufferUtils.writeEscaped(buf, bytes, 1, bytes.length - 2, NO_BACKSLASH_CONTEXT);
+    Assertions.assertEquals("it''s \"q\" \\ \0", buf.toString(StandardCharsets.UTF_8));
+
+    buf = Unpooled.buffer(0);
+    BufferUtils.writeEscaped(buf, new byte[] {(byte) 0xff, 0x27, 0x01}, 0, 3, BACKSLASH_CONTEXT);
+    Assertions.assertArrayEquals(new byte[] {(byte) 0xff, 0x5c, 0x27, 0x01}, toArray(buf));
+  }
+
+  private static void checkString(String expected, String value, ConnectionContext context) {
+    ByteBuf buf = Unpooled.buffer(0);
+    BufferUtils.write(buf, value, true, true, context);
+    Assertions.assertEquals(expected, buf.toString(StandardCharsets.UTF_8));
+  }
+
+  private static byte[] toArray(ByteBuf buf) {
+    byte[] bytes = new byte[buf.readableBytes()];
+    buf.readBytes(bytes);
+    return bytes;
+  }
+
+  private static ConnectionContext context(short serverStatus) {
+    return new ConnectionContext("10.5.5-MariaDB", 1, new byte[0], 0, serverStatus, true);
+  }
+}
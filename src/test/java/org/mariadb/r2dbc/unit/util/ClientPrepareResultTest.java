@@ -0,0 +1,46 @@
+/*
+ * Copyright 2020 MariaDB Ab.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mariadb.r2dbc.unit.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mariadb.r2dbc.util.ClientPrepareResult;
+
+public class ClientPrepareResultTest {
+
+  @Test
+  void digestLiterals() {
+    Assertions.assertEquals(
+        "SELECT * FROM t1 WHERE id = ? AND name = ? AND price > ?",
+        ClientPrepareResult.digest(
+            "SELECT * FROM t1 WHERE id = 12 AND name = 'o''brien' AND price > 1.5e-3", false));
+    Assertions.assertEquals(
+        "INSERT INTO `t 2` (a_1, b) VALUES (?, ?)",
+        ClientPrepareResult.digest("INSERT INTO `t 2` (a_1, b) VALUES (?, :name)", false));
+    Assertions.assertEquals(
+        "SELECT ? FROM dual", ClientPrepareResult.digest("SELECT 'a\\'b' FROM dual", false));
+    Assertions.assertEquals("SELECT ?", ClientPrepareResult.digest("SELECT 0x1F", false));
+  }
+
+  @Test
+  void digestWhitespacesAndComments() {
+    Assertions.assertEquals(
+        "SELECT a FROM t WHERE b = ?",
+        ClientPrepareResult.digest(
+            "  SELECT /* hint */ a\n FROM t -- comment\n WHERE\tb = ? # end", false));
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2020 MariaDB Ab.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mariadb.r2dbc.unit.util;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mariadb.r2dbc.util.HandshakeLimiter;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+public class HandshakeLimiterTest {
+
+  @Test
+  void limitConcurrency() {
+    HandshakeLimiter limiter = new HandshakeLimiter(3);
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    Mono<Integer> handshake =
+        Mono.defer(
+            () -> {
+              maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+              return Mono.delay(Duration.ofMillis(20))
+                  .map(ignore -> 1)
+                  .doOnSuccess(ignore -> running.decrementAndGet());
+            });
+
+    Flux.range(0, 20)
+        .flatMap(i -> limiter.limit(handshake))
+        .as(StepVerifier::create)
+        .expectNextCount(20)
+        .verifyComplete();
+    Assertions.assertEquals(3, maxRunning.get());
+    Assertions.assertEquals(0, limiter.active());
+  }
+
+  @Test
+  void cancelReleasePermit() {
+    HandshakeLimiter limiter = new HandshakeLimiter(1);
+    Disposable running = limiter.limit(Mono.never()).subscribe();
+    Disposable waiting = limiter.limit(Mono.never()).subscribe();
+    Assertions.assertEquals(1, limiter.active());
+
+    // cancelling a waiting handshake doesn't take permit
+    waiting.dispose();
+    running.dispose();
+    Assertions.assertEquals(0, limiter.active());
+    limiter.limit(Mono.just(1)).as(StepVerifier::create).expectNext(1).verifyComplete();
+  }
+
+  @Test
+  void noLimit() {
+    HandshakeLimiter limiter = new HandshakeLimiter(0);
+    limiter.limit(Mono.never()).subscribe();
+    limiter.limit(Mono.just(1)).as(StepVerifier::create).expectNext(1).verifyComplete();
+  }
+}
@@ -0,0 +1,249 @@
+/*
+ * Copyright 2020 MariaDB Ab.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mariadb.r2dbc.unit.util;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mariadb.r2dbc.MariadbConnectionConfiguration;
+import org.mariadb.r2dbc.MariadbConnectionFactory;
+import org.mariadb.r2dbc.StubServer;
+import org.mariadb.r2dbc.api.MariadbConnection;
+import org.mariadb.r2dbc.api.MariadbStatement;
+import org.mariadb.r2dbc.util.ResultCache;
+
+public class ResultCacheTest {
+
+  @Test
+  void modifiedTables() {
+    Assertions.assertNull(ResultCache.modifiedTables("SELECT * FROM t WHERE a = 'x'", false));
+    Assertions.assertNull(ResultCache.modifiedTables("/* c */ (SELECT 1) UNION (SELECT 2)", false));
+    Assertions.assertNull(
+        ResultCache.modifiedTables("WITH c AS (SELECT 1) SELECT * FROM c", false));
+    Assertions.assertTrue(
+        ResultCache.modifiedTables("INSERT INTO db.`T1` VALUES ('t2')", false).contains("t1"));
+    Assertions.assertFalse(
+        ResultCache.modifiedTables("INSERT INTO db.`T1` VALUES ('t2')", false).contains("t2"));
+    Assertions.assertTrue(
+        ResultCache.modifiedTables("SELECT 1; DELETE FROM t2 WHERE id = 1", false).contains("t2"));
+    Assertions.assertTrue(
+        ResultCache.modifiedTables("UPDATE a JOIN b ON a.id = b.id SET a.v = 1", false)
+            .containsAll(Arrays.asList("a", "b")));
+    Assertions.assertSame(ResultCache.ALL_TABLES, ResultCache.modifiedTables("CALL p()", false));
+  }
+
+  @Test
+  void sourceTables() {
+    Assertions.assertEquals(
+        new HashSet<>(Arrays.asList("t", "u")),
+        ResultCache.sourceTables("SELECT a, b FROM db.t x, u AS y WHERE x.a = y.b", false));
+    Assertions.assertEquals(
+        new HashSet<>(Arrays.asList("t", "u", "v")),
+        ResultCache.sourceTables(
+            "SELECT a FROM t LEFT JOIN u ON t.a = u.a, v ORDER BY a, b LIMIT 1", false));
+    Assertions.assertEquals(
+        new HashSet<>(Arrays.asList("t")),
+        ResultCache.sourceTables("SELECT a FROM (SELECT a, b FROM t) d", false));
+    Assertions.assertTrue(ResultCache.sourceTables("SELECT 1, 2", false).isEmpty());
+  }
+
+  @Test
+  void unknownProvenance() throws Exception {
+    try (StubServer server = new StubServer()) {
+      MariadbConnectionFactory factory = factory(server, Duration.ofMinutes(1));
+      MariadbConnection connection = factory.create().block();
+
+      // column definitions report original table t, not alias x
+      rows(connection, "SELECT 2 ROWS FROM t AS x");
+      rows(connection, "SELECT 2 ROWS FROM t AS x");
+      Assertions.assertEquals(1, count(server.getQueries(), "SELECT 2 ROWS FROM t AS x"));
+      update(connection, "INSERT INTO t VALUES (1)");
+      Assertions.assertEquals(0, factory.getResultCache().size());
+
+      // v is a view of t: writes to t would not be seen
+      rows(connection, "SELECT 2 ROWS FROM v");
+      rows(connection, "SELECT 2 ROWS FROM v");
+      Assertions.assertEquals(2, count(server.getQueries(), "SELECT 2 ROWS FROM v"));
+      Assertions.assertEquals(0, factory.getResultCache().size());
+      connection.close().block();
+    }
+  }
+
+  @Test
+  void changesSession() {
+    Assertions.assertTrue(ResultCache.changesSession("SET time_zone = '+01:00'", false));
+    Assertions.assertTrue(ResultCache.changesSession("set @@session.sql_mode = ''", false));
+    Assertions.assertTrue(ResultCache.changesSession("SET NAMES utf8mb4", false));
+    Assertions.assertTrue(
+        ResultCache.changesSession("SET @v = 1, character_set_results = NULL", false));
+    Assertions.assertTrue(ResultCache.changesSession("SELECT 1; SET SESSION sql_mode = ''", false));
+
+    Assertions.assertFalse(ResultCache.changesSession("SET @v = 1, @w = (SELECT 1, 2)", false));
+    Assertions.assertFalse(ResultCache.changesSession("SET autocommit = 0", false));
+    Assertions.assertFalse(ResultCache.changesSession("SET @@autocommit = 1", false));
+    Assertions.assertFalse(
+        ResultCache.changesSession("SET STATEMENT max_statement_time=1 FOR SELECT 1", false));
+    Assertions.assertFalse(ResultCache.changesSession("SELECT a FROM t WHERE b = 'SET x'", false));
+  }
+
+  @Test
+  void invalidation() {
+    ResultCache cache = new ResultCache(1024, Duration.ofMinutes(1));
+    cache.invalidate(new HashSet<>(Arrays.asList("t")));
+    cache.invalidate(ResultCache.ALL_TABLES);
+    Assertions.assertEquals(0, cache.size());
+    Assertions.assertEquals(0, cache.getBytes());
+  }
+
+  @Test
+  void shareable() {
+    Assertions.assertTrue(ResultCache.isShareable("SELECT a FROM t WHERE b = 'x'", false));
+    Assertions.assertTrue(ResultCache.isShareable("select user, a from users;", false));
+    Assertions.assertTrue(
+        ResultCache.isShareable("WITH x AS (SELECT a FROM t) SELECT * FROM x", false));
+    Assertions.assertTrue(ResultCache.isShareable("SHOW TABLES", false));
+    // '@' in a literal is not a variable
+    Assertions.assertTrue(ResultCache.isShareable("SELECT a FROM t WHERE b = '@v'", false));
+
+    Assertions.assertFalse(ResultCache.isShareable("SET @v = 1", false));
+    Assertions.assertFalse(ResultCache.isShareable("BEGIN", false));
+    Assertions.assertFalse(ResultCache.isShareable("SELECT @@autocommit", false));
+    Assertions.assertFalse(ResultCache.isShareable("SELECT CURRENT_USER", false));
+    Assertions.assertFalse(ResultCache.isShareable("SELECT USER()", false));
+    Assertions.assertFalse(ResultCache.isShareable("SELECT a FROM t FOR SHARE", false));
+    Assertions.assertFalse(ResultCache.isShareable("SELECT NEXTVAL(s)", false));
+    Assertions.assertFalse(ResultCache.isShareable("SHOW SESSION STATUS", false));
+    Assertions.assertFalse(ResultCache.isShareable("SHOW VARIABLES", false));
+    Assertions.assertFalse(
+        ResultCache.isShareable("WITH x AS (SELECT 1) DELETE FROM t WHERE a IN x", false));
+  }
+
+  @Test
+  void cachedResult() throws Exception {
+    try (StubServer server = new StubServer()) {
+      MariadbConnectionFactory factory = factory(server, Duration.ofMinutes(1));
+      MariadbConnection connection = factory.create().block();
+
+      Assertions.assertEquals(Arrays.asList(1, 2), rows(connection, "SELECT 2 ROWS"));
+      Assertions.assertEquals(Arrays.asList(1, 2), rows(connection, "SELECT 2 ROWS"));
+      Assertions.assertEquals(Arrays.asList(1, 2, 3), rows(connection, "SELECT 3 ROWS"));
+      Assertions.assertEquals(1, count(server.getQueries(), "SELECT 2 ROWS"));
+      Assertions.assertEquals(1, factory.getResultCache().getHits());
+      Assertions.assertEquals(2, factory.getResultCache().size());
+
+      // key is query as sent to server
+      Assertions.assertEquals(Arrays.asList(1, 2), rows(connection, "SELECT ? ROWS", 2));
+      Assertions.assertEquals(Arrays.asList(1, 2, 3, 4), rows(connection, "SELECT ? ROWS", 4));
+      Assertions.assertEquals(Arrays.asList(1, 2, 3, 4), rows(connection, "SELECT ? ROWS", 4));
+      Assertions.assertEquals(1, count(server.getQueries(), "SELECT 2 ROWS"));
+      Assertions.assertEquals(1, count(server.getQueries(), "SELECT 4 ROWS"));
+      Assertions.assertEquals(3, factory.getResultCache().getHits());
+
+      // column definitions indicate that results read table t
+      update(connection, "INSERT INTO other VALUES (1)");
+      rows(connection, "SELECT 2 ROWS");
+      Assertions.assertEquals(1, count(server.getQueries(), "SELECT 2 ROWS"));
+      update(connection, "INSERT INTO t VALUES (1)");
+      Assertions.assertEquals(0, factory.getResultCache().size());
+      Assertions.assertEquals(3, factory.getResultCache().getInvalidations());
+      rows(connection, "SELECT 2 ROWS");
+      Assertions.assertEquals(2, count(server.getQueries(), "SELECT 2 ROWS"));
+
+      // results are neither read nor cached in a transaction
+      connection.beginTransaction().block();
+      rows(connection, "SELECT 2 ROWS");
+      update(connection, "INSERT INTO t VALUES (1)");
+      rows(connection, "SELECT 2 ROWS");
+      connection.commitTransaction().block();
+      Assertions.assertEquals(4, count(server.getQueries(), "SELECT 2 ROWS"));
+      Assertions.assertEquals(0, factory.getResultCache().size());
+      connection.close().block();
+    }
+  }
+
+  @Test
+  void cachePerFactory() throws Exception {
+    try (StubServer server = new StubServer()) {
+      MariadbConnectionConfiguration conf =
+          server.configuration().resultCacheSize(1024 * 1024).build();
+      for (int i = 0; i < 2; i++) {
+        MariadbConnection connection = new MariadbConnectionFactory(conf).create().block();
+        rows(connection, "SELECT 2 ROWS");
+        connection.close().block();
+      }
+      // factories built from the same configuration do not share their cache
+      Assertions.assertEquals(2, count(server.getQueries(), "SELECT 2 ROWS"));
+    }
+  }
+
+  @Test
+  void expiration() throws Exception {
+    try (StubServer server = new StubServer()) {
+      MariadbConnectionFactory factory = factory(server, Duration.ofMillis(1));
+      MariadbConnection connection = factory.create().block();
+      rows(connection, "SELECT 2 ROWS");
+      Thread.sleep(10);
+      rows(connection, "SELECT 2 ROWS");
+      Assertions.assertEquals(2, count(server.getQueries(), "SELECT 2 ROWS"));
+      Assertions.assertEquals(0, factory.getResultCache().getHits());
+      connection.close().block();
+    }
+  }
+
+  @Test
+  void sizeLimit() throws Exception {
+    try (StubServer server = new StubServer()) {
+      MariadbConnectionFactory factory =
+          new MariadbConnectionFactory(server.configuration().resultCacheSize(1024).build());
+      MariadbConnection connection = factory.create().block();
+      rows(connection, "SELECT 100 ROWS");
+      rows(connection, "SELECT 100 ROWS");
+      Assertions.assertEquals(2, count(server.getQueries(), "SELECT 100 ROWS"));
+      Assertions.assertEquals(0, factory.getResultCache().size());
+      for (int i = 1; i < 10; i++) rows(connection, "SELECT " + i + " ROWS");
+      Assertions.assertTrue(factory.getResultCache().getBytes() <= 1024);
+      Assertions.assertTrue(factory.getResultCache().size() < 9);
+      connection.close().block();
+    }
+  }
+
+  private static MariadbConnectionFactory factory(StubServer server, Duration ttl) {
+    return new MariadbConnectionFactory(
+        server.configuration().resultCacheSize(64 * 1024).resultCacheTtl(ttl).build());
+  }
+
+  private static List<Integer> rows(MariadbConnection connection, String sql, Object... params) {
+    MariadbStatement statement = connection.createStatement(sql).cacheResult();
+    for (int i = 0; i < params.length; i++) statement.bind(i, params[i]);
+    return statement
+        .execute()
+        .flatMap(r -> r.map((row, metadata) -> row.get(0, Integer.class)))
+        .collectList()
+        .block();
+  }
+
+  private static void update(MariadbConnection connection, String sql) {
+    connection.createStatement(sql).execute().flatMap(r -> r.getRowsUpdated()).blockLast();
+  }
+
+  private static long count(List<String> queries, String sql) {
+    return queries.stream().filter(sql::equals).count();
+  }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2020 MariaDB Ab.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mariadb.r2dbc.unit.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mariadb.r2dbc.MariadbConnectionConfiguration;
+import org.mariadb.r2dbc.MariadbConnectionFactory;
+import org.mariadb.r2dbc.StubServer;
+import org.mariadb.r2dbc.api.MariadbConnection;
+import org.mariadb.r2dbc.api.QueryExecutionInfo;
+import org.mariadb.r2dbc.util.ClientPrepareResult;
+import org.mariadb.r2dbc.util.DigestStatistics;
+import org.mariadb.r2dbc.util.StatementStatistics;
+
+public class StatementStatisticsTest {
+
+  @Test
+  void latencyPercentiles() {
+    StatementStatistics statistics = new StatementStatistics(10);
+    for (int i = 1; i <= 10_000; i++) {
+      statistics.record(execution("SELECT 1", i * 1000L));
+    }
+    DigestStatistics stats = statistics.get("SELECT ?");
+    Assertions.assertEquals(10_000, stats.getCount());
+    assertWithin(5_000, stats.getLatencyMicros(50));
+    assertWithin(9_900, stats.getLatencyMicros(99));
+    assertWithin(10_000, stats.getLatencyMicros(100));
+    Assertions.assertEquals(1, stats.getLatencyMicros(0));
+  }
+
+  @Test
+  void rareDigestsEvicted() {
+    StatementStatistics statistics = new StatementStatistics(2);
+    statistics.record(execution("SELECT a FROM t WHERE id = 1", 1000));
+    statistics.record(execution("SELECT a FROM t WHERE id = 2", 1000));
+    statistics.record(execution("SELECT b FROM t", 1000));
+
+    // a new digest executed once does not replace a digest executed as often
+    statistics.record(execution("SELECT c FROM t", 1000));
+    Assertions.assertNotNull(statistics.get("SELECT b FROM t"));
+    Assertions.assertNull(statistics.get("SELECT c FROM t"));
+
+    // executed more often, it replaces the least executed digest
+    statistics.record(execution("SELECT c FROM t", 1000));
+    Assertions.assertEquals(2, statistics.snapshot().size());
+    Assertions.assertEquals(2, statistics.get("SELECT a FROM t WHERE id = ?").getCount());
+    Assertions.assertNull(statistics.get("SELECT b FROM t"));
+    Assertions.assertEquals(1, statistics.get("SELECT c FROM t").getCount());
+  }
+
+  @Test
+  void frequentDigestAdmittedAmongOneShotDigests() {
+    StatementStatistics statistics = new StatementStatistics(100);
+    for (int i = 0; i < 100_000; i++) {
+      statistics.record(execution("SELECT c" + i + " FROM t", 1000));
+      if (i >= 1000 && i % 10 == 0) {
+        statistics.record(execution("SELECT frequent FROM t", 1000));
+      }
+    }
+    Assertions.assertEquals(100, statistics.snapshot().size());
+    Assertions.assertNotNull(statistics.get("SELECT frequent FROM t"));
+  }
+
+  @Test
+  void factoryStatistics() throws Exception {
+    try (StubServer server = new StubServer()) {
+      MariadbConnectionConfiguration conf =
+          server.configuration().statementStatisticsSize(100).build();
+      MariadbConnectionFactory factory = new MariadbConnectionFactory(conf);
+      MariadbConnection connection = factory.create().block();
+      for (int i = 1; i <= 3; i++) {
+        connection
+            .createStatement("SELECT " + i + " ROWS")
+            .execute()
+            .flatMap(r -> r.map((row, metadata) -> row.get(0)))
+            .blockLast();
+      }
+      connection.close().block();
+
+      DigestStatistics stats = factory.getStatementStatistics().get("SELECT ? ROWS");
+      Assertions.assertEquals(3, stats.getCount());
+      Assertions.assertEquals(6, stats.getRowCount());
+      Assertions.assertEquals(0, stats.getErrorCount());
+      Assertions.assertTrue(stats.getTotalNanos() > 0);
+
+      // statistics are kept by factory, not by configuration
+      Assertions.assertNull(
+          new MariadbConnectionFactory(conf).getStatementStatistics().get("SELECT ? ROWS"));
+    }
+  }
+
+  private static void assertWithin(long expected, long actual) {
+    Assertions.assertTrue(
+        Math.abs(actual - expected) <= expected * 0.0625,
+        String.format("expected %s, was %s", expected, actual));
+  }
+
+  private static QueryExecutionInfo execution(String sql, long elapsedNanos) {
+    return new QueryExecutionInfo() {
+      @Override
+      public String getSql() {
+        return sql;
+      }
+
+      @Override
+      public String getDigest() {
+        return ClientPrepareResult.digest(sql, false);
+      }
+
+      @Override
+      public int getParameterCount() {
+        return 0;
+      }
+
+      @Override
+      public long getConnectionId() {
+        return 1;
+      }
+
+      @Override
+      public long getRowCount() {
+        return 1;
+      }
+
+      @Override
+      public long getReceivedBytes() {
+        return 0;
+      }
+
+      @Override
+      public long getQueueWaitNanos() {
+        return 0;
+      }
+
+      @Override
+      public long getServerNanos() {
+        return 0;
+      }
+
+      @Override
+      public long getElapsedNanos() {
+        return elapsedNanos;
+      }
+
+      @Override
+      public Throwable getFailure() {
+        return null;
+      }
+
+      @Override
+      public Object getAttachment() {
+        return null;
+      }
+
+      @Override
+      public void setAttachment(Object attachment) {}
+    };
+  }
+}